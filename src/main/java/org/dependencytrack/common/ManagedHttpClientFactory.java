@@ -265,6 +265,15 @@ public final class ManagedHttpClientFactory {
         private String username;
         private String password;
 
+        public ProxyInfo() { }
+
+        ProxyInfo(final String host, final int port, final String username, final String password) {
+            this.host = host;
+            this.port = port;
+            this.username = username;
+            this.password = password;
+        }
+
         public String getHost() {
             return host;
         }
@@ -0,0 +1,280 @@
+/*
+ * This file is part of Dependency-Track.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * Copyright (c) Steve Springett. All Rights Reserved.
+ */
+package org.dependencytrack.common;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A minimal registry of counters and histograms used to instrument analyzers and mirroring tasks.
+ * Every metric is labeled by the task it belongs to. Recording a value only increments striped
+ * counters ({@link LongAdder}), so instrumentation is cheap enough to be left enabled. Metrics are
+ * exposed in the Prometheus text exposition format, or as JSON by serializing {@link #getFamilies()}.
+ *
+ * @author Steve Springett
+ * @since 3.7.0
+ */
+public final class MetricsRegistry {
+
+    public enum Type {
+        COUNTER,
+        HISTOGRAM
+    }
+
+    /**
+     * The upper bounds (in milliseconds) of the histogram buckets.
+     */
+    private static final long[] BUCKETS = {1, 5, 10, 25, 50, 100, 250, 500, 1000, 2500, 5000, 10000, 30000, 60000, 300000};
+
+    private static final MetricsRegistry INSTANCE = new MetricsRegistry();
+
+    private final Map<String, Family> families = new ConcurrentSkipListMap<>();
+
+    private MetricsRegistry() { }
+
+    public static MetricsRegistry getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Returns the counter of the specified family and task, creating it if necessary.
+     * @param name the name of the metric family
+     * @param help the description of the metric family
+     * @param task the name of the task the counter belongs to
+     * @return a Counter
+     */
+    public Counter counter(final String name, final String help, final String task) {
+        return (Counter) family(name, help, Type.COUNTER).metrics.computeIfAbsent(task, Counter::new);
+    }
+
+    /**
+     * Returns the histogram of the specified family and task, creating it if necessary.
+     * @param name the name of the metric family
+     * @param help the description of the metric family
+     * @param task the name of the task the histogram belongs to
+     * @return a Histogram
+     */
+    public Histogram histogram(final String name, final String help, final String task) {
+        return (Histogram) family(name, help, Type.HISTOGRAM).metrics.computeIfAbsent(task, Histogram::new);
+    }
+
+    private Family family(final String name, final String help, final Type type) {
+        final Family family = families.computeIfAbsent(name, n -> new Family(n, help, type));
+        if (family.type != type) {
+            throw new IllegalArgumentException("Metric " + name + " is already registered as a " + family.type);
+        }
+        return family;
+    }
+
+    /**
+     * Returns all metric families, ordered by name.
+     */
+    public List<Family> getFamilies() {
+        return new ArrayList<>(families.values());
+    }
+
+    /**
+     * Returns all metrics in the Prometheus text exposition format (version 0.0.4).
+     */
+    public String toPrometheus() {
+        final StringBuilder sb = new StringBuilder();
+        for (final Family family: families.values()) {
+            sb.append("# HELP ").append(family.name).append(' ').append(family.help).append('\n');
+            sb.append("# TYPE ").append(family.name).append(' ').append(family.type.name().toLowerCase(Locale.ROOT)).append('\n');
+            for (final Metric metric: family.metrics.values()) {
+                final String task = "task=\"" + escape(metric.task) + "\"";
+                if (metric instanceof Counter) {
+                    sb.append(family.name).append('{').append(task).append("} ").append(((Counter) metric).getValue()).append('\n');
+                } else {
+                    final Histogram histogram = (Histogram) metric;
+                    long cumulative = 0;
+                    for (int i = 0; i < BUCKETS.length; i++) {
+                        cumulative += histogram.buckets[i].sum();
+                        sb.append(family.name).append("_bucket{").append(task).append(",le=\"").append(BUCKETS[i]).append("\"} ").append(cumulative).append('\n');
+                    }
+                    cumulative += histogram.buckets[BUCKETS.length].sum();
+                    sb.append(family.name).append("_bucket{").append(task).append(",le=\"+Inf\"} ").append(cumulative).append('\n');
+                    sb.append(family.name).append("_sum{").append(task).append("} ").append(histogram.getSum()).append('\n');
+                    sb.append(family.name).append("_count{").append(task).append("} ").append(cumulative).append('\n');
+                }
+            }
+        }
+        return sb.toString();
+    }
+
+    private static String escape(final String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    /**
+     * A named group of metrics of the same type, one per task.
+     */
+    public static final class Family {
+        private final String name;
+        private final String help;
+        private final Type type;
+        private final Map<String, Metric> metrics = new ConcurrentSkipListMap<>();
+
+        private Family(final String name, final String help, final Type type) {
+            this.name = name;
+            this.help = help;
+            this.type = type;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getHelp() {
+            return help;
+        }
+
+        public Type getType() {
+            return type;
+        }
+
+        public List<Metric> getMetrics() {
+            return new ArrayList<>(metrics.values());
+        }
+    }
+
+    public abstract static class Metric {
+        private final String task;
+
+        private Metric(final String task) {
+            this.task = task;
+        }
+
+        public String getTask() {
+            return task;
+        }
+    }
+
+    /**
+     * A monotonically increasing count.
+     */
+    public static final class Counter extends Metric {
+        private final LongAdder value = new LongAdder();
+
+        private Counter(final String task) {
+            super(task);
+        }
+
+        public void inc() {
+            value.increment();
+        }
+
+        public void add(final long amount) {
+            value.add(amount);
+        }
+
+        public long getValue() {
+            return value.sum();
+        }
+    }
+
+    /**
+     * A distribution of durations (in milliseconds) over fixed buckets. Percentiles are estimated
+     * as the upper bound of the bucket the percentile falls in.
+     */
+    public static final class Histogram extends Metric {
+        private final LongAdder[] buckets = new LongAdder[BUCKETS.length + 1];
+        private final LongAdder sum = new LongAdder();
+        private final LongAccumulator max = new LongAccumulator(Long::max, 0);
+
+        private Histogram(final String task) {
+            super(task);
+            for (int i = 0; i < buckets.length; i++) {
+                buckets[i] = new LongAdder();
+            }
+        }
+
+        /**
+         * Records an observation.
+         * @param millis the observed duration in milliseconds
+         */
+        public void record(final long millis) {
+            int i = 0;
+            while (i < BUCKETS.length && millis > BUCKETS[i]) {
+                i++;
+            }
+            buckets[i].increment();
+            sum.add(millis);
+            max.accumulate(millis);
+        }
+
+        public long getCount() {
+            long count = 0;
+            for (final LongAdder bucket: buckets) {
+                count += bucket.sum();
+            }
+            return count;
+        }
+
+        public long getSum() {
+            return sum.sum();
+        }
+
+        public long getMax() {
+            return max.get();
+        }
+
+        public long getP50() {
+            return getPercentile(0.5);
+        }
+
+        public long getP90() {
+            return getPercentile(0.9);
+        }
+
+        public long getP99() {
+            return getPercentile(0.99);
+        }
+
+        /**
+         * Returns the estimated value of the specified percentile, or 0 if nothing was recorded.
+         * @param percentile the percentile, between 0 and 1
+         */
+        public long getPercentile(final double percentile) {
+            final long[] counts = new long[buckets.length];
+            long count = 0;
+            for (int i = 0; i < buckets.length; i++) {
+                counts[i] = buckets[i].sum();
+                count += counts[i];
+            }
+            if (count == 0) {
+                return 0;
+            }
+            final long rank = Math.max(1, (long) Math.ceil(percentile * count));
+            long cumulative = 0;
+            for (int i = 0; i < BUCKETS.length; i++) {
+                cumulative += counts[i];
+                if (cumulative >= rank) {
+                    return Math.min(BUCKETS[i], getMax());
+                }
+            }
+            return getMax();
+        }
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * This file is part of Dependency-Track.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * Copyright (c) Steve Springett. All Rights Reserved.
+ */
+package org.dependencytrack.common;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A simple, thread-safe rate limiter which spaces out requests to a remote service so that
+ * no more than a fixed number of requests are started within a given interval. Limiters are
+ * shared by key (typically the host of the remote service) so that every analyzer or mirror
+ * task talking to the same service draws from the same budget.
+ *
+ * @author Steve Springett
+ * @since 3.7.0
+ */
+public final class RateLimiter {
+
+    private static final Map<String, RateLimiter> LIMITERS = new ConcurrentHashMap<>();
+
+    private final String key;
+    private volatile long intervalNanos;
+    private long nextPermitNanos;
+
+    private RateLimiter(final String key, final int permitsPerMinute) {
+        this.key = key;
+        setPermitsPerMinute(permitsPerMinute);
+        this.nextPermitNanos = System.nanoTime();
+    }
+
+    /**
+     * Returns the shared limiter for the specified key, creating it if necessary. If the limiter
+     * already exists, its rate is updated to reflect the specified value.
+     * @param key the key the limiter is shared by (i.e. the host of the remote service)
+     * @param permitsPerMinute the maximum number of permits granted per minute. Values less than 1 disable limiting.
+     * @return a RateLimiter
+     */
+    public static RateLimiter getInstance(final String key, final int permitsPerMinute) {
+        final RateLimiter limiter = LIMITERS.computeIfAbsent(key, k -> new RateLimiter(k, permitsPerMinute));
+        limiter.setPermitsPerMinute(permitsPerMinute);
+        return limiter;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    private void setPermitsPerMinute(final int permitsPerMinute) {
+        this.intervalNanos = permitsPerMinute > 0 ? TimeUnit.MINUTES.toNanos(1) / permitsPerMinute : 0;
+    }
+
+    /**
+     * Blocks until a permit is available.
+     * @return the number of milliseconds the caller waited for the permit
+     * @throws InterruptedException if the calling thread is interrupted while waiting
+     */
+    public long acquire() throws InterruptedException {
+        final long waitNanos;
+        synchronized (this) {
+            final long now = System.nanoTime();
+            if (nextPermitNanos < now) {
+                nextPermitNanos = now;
+            }
+            waitNanos = nextPermitNanos - now;
+            nextPermitNanos += intervalNanos;
+        }
+        if (waitNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+        return TimeUnit.NANOSECONDS.toMillis(waitNanos);
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * This file is part of Dependency-Track.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * Copyright (c) Steve Springett. All Rights Reserved.
+ */
+package org.dependencytrack.common;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The instrumentation of an analyzer or mirroring task. Provides the counters and histograms
+ * every task records into, registered with the {@link MetricsRegistry} under the name of the task.
+ *
+ * @author Steve Springett
+ * @since 3.7.0
+ */
+public final class TaskMetrics {
+
+    private static final Map<String, TaskMetrics> INSTANCES = new ConcurrentHashMap<>();
+
+    private final MetricsRegistry.Counter components;
+    private final MetricsRegistry.Counter cacheHits;
+    private final MetricsRegistry.Counter httpRequests;
+    private final MetricsRegistry.Counter httpBytes;
+    private final MetricsRegistry.Histogram httpDuration;
+    private final MetricsRegistry.Counter throttleWait;
+    private final MetricsRegistry.Histogram dbDuration;
+    private final MetricsRegistry.Counter findings;
+    private final MetricsRegistry.Histogram taskDuration;
+
+    private TaskMetrics(final String task) {
+        final MetricsRegistry registry = MetricsRegistry.getInstance();
+        components = registry.counter("dtrack_task_components_total", "Components considered for analysis", task);
+        cacheHits = registry.counter("dtrack_task_cache_hits_total", "Components skipped because their analysis cache was current", task);
+        httpRequests = registry.counter("dtrack_task_http_requests_total", "HTTP requests made to remote services", task);
+        httpBytes = registry.counter("dtrack_task_http_received_bytes_total", "Bytes received from remote services, where the length of the response is known", task);
+        httpDuration = registry.histogram("dtrack_task_http_request_duration_milliseconds", "Latency of HTTP requests made to remote services", task);
+        throttleWait = registry.counter("dtrack_task_throttle_wait_milliseconds_total", "Time spent waiting on rate limits and throttling delays", task);
+        dbDuration = registry.histogram("dtrack_task_db_duration_milliseconds", "Time spent in batched database operations", task);
+        findings = registry.counter("dtrack_task_findings_total", "Findings produced by analysis", task);
+        taskDuration = registry.histogram("dtrack_task_duration_milliseconds", "Wall-clock time of task executions", task);
+    }
+
+    /**
+     * Returns the instrumentation of the specified task, creating it if necessary.
+     * @param task the name of the task (typically the simple name of its class)
+     * @return a TaskMetrics object
+     */
+    public static TaskMetrics getInstance(final String task) {
+        return INSTANCES.computeIfAbsent(task, TaskMetrics::new);
+    }
+
+    public void componentsConsidered(final long count) {
+        components.add(count);
+    }
+
+    public void cacheHit() {
+        cacheHits.inc();
+    }
+
+    /**
+     * Records an HTTP request.
+     * @param millis the time (in milliseconds) taken to receive the response
+     * @param bytes the length of the response, or a negative value if it is not known
+     */
+    public void httpRequest(final long millis, final long bytes) {
+        httpRequests.inc();
+        httpDuration.record(millis);
+        if (bytes > 0) {
+            httpBytes.add(bytes);
+        }
+    }
+
+    public void throttleWait(final long millis) {
+        if (millis > 0) {
+            throttleWait.add(millis);
+        }
+    }
+
+    public void dbOperation(final long millis) {
+        dbDuration.record(millis);
+    }
+
+    public void findingsProduced(final long count) {
+        findings.add(count);
+    }
+
+    public void taskCompleted(final long millis) {
+        taskDuration.record(millis);
+    }
+
+    /**
+     * Parses the value of a Content-Length header.
+     * @param value the value of the header, which may be null
+     * @return the length, or -1 if it is not known
+     */
+    public static long parseContentLength(final String value) {
+        if (value == null) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
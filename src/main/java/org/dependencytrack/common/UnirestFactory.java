@@ -25,7 +25,20 @@ public final class UnirestFactory {
 
     private static final UnirestInstance UNIREST_INSTANCE = Unirest.primaryInstance();
     static {
-        UNIREST_INSTANCE.config().httpClient(ManagedHttpClientFactory.newManagedHttpClient().getHttpClient());
+        configure(UNIREST_INSTANCE, ManagedHttpClientFactory.createProxyInfo());
+    }
+
+    /**
+     * Configures a Unirest instance to use the managed HttpClient. The async client is created lazily
+     * by Unirest and does not use the managed client, so the proxy settings (if any) need to be applied
+     * to the instance configuration as well. Unirest refuses proxy changes once a client is attached,
+     * so the proxy is set first.
+     */
+    static void configure(final UnirestInstance instance, final ManagedHttpClientFactory.ProxyInfo proxyInfo) {
+        if (proxyInfo != null) {
+            instance.config().proxy(proxyInfo.getHost(), proxyInfo.getPort(), proxyInfo.getUsername(), proxyInfo.getPassword());
+        }
+        instance.config().httpClient(ManagedHttpClientFactory.newManagedHttpClient().getHttpClient());
     }
 
     private UnirestFactory() {
@@ -0,0 +1,74 @@
+/*
+ * This file is part of Dependency-Track.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * Copyright (c) Steve Springett. All Rights Reserved.
+ */
+package org.dependencytrack.event;
+
+import alpine.event.framework.Event;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Defines an event used to re-analyze the components affected by vulnerabilities
+ * which were created or changed while mirroring a vulnerability datasource.
+ *
+ * @author Steve Springett
+ * @since 3.7.0
+ */
+public class ReverseAnalysisEvent implements Event {
+
+    private final Set<Long> vulnerabilityIds;
+    private final Set<List<String>> products;
+
+    /**
+     * Creates an event to re-analyze the components affected by the specified vulnerabilities.
+     * @param vulnerabilityIds the ids of the vulnerabilities created or changed
+     */
+    public ReverseAnalysisEvent(final Collection<Long> vulnerabilityIds) {
+        this.vulnerabilityIds = new HashSet<>(vulnerabilityIds);
+        this.products = null;
+    }
+
+    /**
+     * Creates an event to re-analyze the components affected by the specified vulnerabilities, where
+     * the products whose vulnerable software was linked to or unlinked from a vulnerability are known.
+     * Only components of those products are re-analyzed for vulnerabilities having vulnerable software.
+     * @param vulnerabilityIds the ids of the vulnerabilities created or changed
+     * @param products the part, vendor and product of the vulnerable software linked or unlinked
+     */
+    public ReverseAnalysisEvent(final Collection<Long> vulnerabilityIds, final Collection<List<String>> products) {
+        this.vulnerabilityIds = new HashSet<>(vulnerabilityIds);
+        this.products = new HashSet<>(products);
+    }
+
+    /**
+     * Returns the ids of the vulnerabilities created or changed.
+     */
+    public Set<Long> getVulnerabilityIds() {
+        return vulnerabilityIds;
+    }
+
+    /**
+     * Returns the part, vendor and product of the vulnerable software linked or unlinked, or null
+     * if they are not known.
+     */
+    public Set<List<String>> getProducts() {
+        return products;
+    }
+}
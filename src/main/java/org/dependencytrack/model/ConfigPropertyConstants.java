@@ -24,6 +24,7 @@ public enum ConfigPropertyConstants {
 
     GENERAL_BASE_URL("general", "base.url", null, PropertyType.URL, "URL used to construct links back to Dependency-Track from external systems"),
     GENERAL_BADGE_ENABLED("general", "badge.enabled", "false", PropertyType.BOOLEAN, "Flag to enable/disable SVG badge support from metrics"),
+    GENERAL_SWEEP_PAGE_SIZE("general", "sweep.page.size", "1000", PropertyType.INTEGER, "The number of records fetched per page when processing the entire portfolio"),
     EMAIL_SMTP_ENABLED("email", "smtp.enabled", "false", PropertyType.BOOLEAN, "Flag to enable/disable SMTP"),
     EMAIL_SMTP_FROM_ADDR("email", "smtp.from.address", null, PropertyType.STRING, "The from email address to use to send output SMTP mail"),
     EMAIL_SMTP_SERVER_HOSTNAME("email", "smtp.server.hostname", null, PropertyType.STRING, "The hostname or IP address of the SMTP mail server"),
@@ -38,12 +39,27 @@ public enum ConfigPropertyConstants {
     SCANNER_INTERNAL_FUZZY_ENABLED("scanner", "internal.fuzzy.enabled", "false", PropertyType.BOOLEAN, "Flag to enable/disable non-exact fuzzy matching using the internal analyzer"),
     SCANNER_INTERNAL_FUZZY_EXCLUDE_PURL("scanner", "internal.fuzzy.exclude.purl", "true", PropertyType.BOOLEAN, "Flag to enable/disable fuzzy matching on components that have a Package URL (PURL) defined"),
     SCANNER_NPMAUDIT_ENABLED("scanner", "npmaudit.enabled", "true", PropertyType.BOOLEAN, "Flag to enable/disable NPM Audit"),
+    SCANNER_NPMAUDIT_API_URL("scanner", "npmaudit.api.url", "https://registry.npmjs.org/-/npm/v1/security/audits", PropertyType.URL, "The URL of the NPM Audit API"),
+    SCANNER_NPMAUDIT_CACHE_VALIDITY("scanner", "npmaudit.cache.validity", "60", PropertyType.INTEGER, "The period (in minutes) NPM Audit results are cached before a component is analyzed again"),
+    SCANNER_NPMAUDIT_CONCURRENCY("scanner", "npmaudit.concurrency", "4", PropertyType.INTEGER, "The maximum number of in-flight requests to the NPM Audit API"),
+    SCANNER_NPMAUDIT_RATE_LIMIT("scanner", "npmaudit.rate.limit", "60", PropertyType.INTEGER, "The maximum number of requests per minute submitted to the NPM Audit API"),
     SCANNER_OSSINDEX_ENABLED("scanner", "ossindex.enabled", "false", PropertyType.BOOLEAN, "Flag to enable/disable Sonatype OSS Index"),
+    SCANNER_OSSINDEX_API_URL("scanner", "ossindex.api.url", "https://ossindex.sonatype.org/api/v3/component-report", PropertyType.URL, "The URL of the OSS Index component report API"),
     SCANNER_OSSINDEX_API_USERNAME("scanner", "ossindex.api.username", null, PropertyType.STRING, "The API username used for OSS Index authentication"),
     SCANNER_OSSINDEX_API_TOKEN("scanner", "ossindex.api.token", null, PropertyType.ENCRYPTEDSTRING, "The API token used for OSS Index authentication"),
+    SCANNER_OSSINDEX_CACHE_VALIDITY("scanner", "ossindex.cache.validity", "60", PropertyType.INTEGER, "The period (in minutes) OSS Index results are cached before a component is analyzed again"),
+    SCANNER_OSSINDEX_CONCURRENCY("scanner", "ossindex.concurrency", "1", PropertyType.INTEGER, "The maximum number of in-flight requests to OSS Index. Values greater than 1 enable pipelined analysis"),
+    SCANNER_OSSINDEX_RATE_LIMIT("scanner", "ossindex.rate.limit", "12", PropertyType.INTEGER, "The maximum number of requests per minute submitted to OSS Index during pipelined analysis"),
     SCANNER_VULNDB_ENABLED("scanner", "vulndb.enabled", "false", PropertyType.BOOLEAN, "Flag to enable/disable VulnDB"),
     SCANNER_VULNDB_OAUTH1_CONSUMER_KEY("scanner", "vulndb.api.oauth1.consumerKey", null, PropertyType.STRING, "The OAuth 1.0a consumer key"),
     SCANNER_VULNDB_OAUTH1_CONSUMER_SECRET("scanner", "vulndb.api.oath1.consumerSecret", null, PropertyType.ENCRYPTEDSTRING, "The OAuth 1.0a consumer secret"),
+    SCANNER_VULNDB_CACHE_VALIDITY("scanner", "vulndb.cache.validity", "60", PropertyType.INTEGER, "The period (in minutes) VulnDB results are cached before a component is analyzed again"),
+    SCANNER_VULNDB_CONCURRENCY("scanner", "vulndb.concurrency", "2", PropertyType.INTEGER, "The maximum number of CPEs queried concurrently against VulnDB"),
+    SCANNER_VULNDB_RATE_LIMIT("scanner", "vulndb.rate.limit", "60", PropertyType.INTEGER, "The maximum number of requests per minute submitted to VulnDB"),
+    VULNSOURCE_NVD_FEEDS_URL("vuln-source", "nvd.feeds.url", "https://nvd.nist.gov/feeds", PropertyType.URL, "The base URL the NVD data feeds are mirrored from"),
+    VULNSOURCE_NVD_WORKERS("vuln-source", "nvd.workers", "4", PropertyType.INTEGER, "The number of workers synchronizing NVD data feeds with the database"),
+    VULNSOURCE_NVD_BATCH_SIZE("vuln-source", "nvd.batch.size", "100", PropertyType.INTEGER, "The number of CVEs synchronized with the database per transaction"),
+    VULNSOURCE_NVD_FULL_REFRESH_CADENCE("vuln-source", "nvd.full.refresh.cadence", "7", PropertyType.INTEGER, "The number of days between full refreshes of the NVD. In between, only the recent and modified feeds are processed. A value of 0 always performs a full refresh"),
     ACCEPT_ARTIFACT_CYCLONEDX("artifact", "cyclonedx.enabled", "true", PropertyType.BOOLEAN, "Flag to enable/disable the systems ability to accept CycloneDX uploads"),
     ACCEPT_ARTIFACT_SPDX("artifact", "spdx.enabled", "false", PropertyType.BOOLEAN, "Flag to enable/disable the systems ability to accept SPDX uploads"),
     FORTIFY_SSC_ENABLED("integrations", "fortify.ssc.enabled", "false", PropertyType.BOOLEAN, "Flag to enable/disable Fortify SSC integration"),
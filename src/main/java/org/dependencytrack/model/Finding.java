@@ -107,6 +107,41 @@ public class Finding implements Serializable {
         optValue(analysis, "isSuppressed", o[18], false);
     }
 
+    /**
+     * Constructs a new Finding object for a component which is not part of a project, such as
+     * the components of a BOM which was analyzed without being persisted.
+     * @param component the affected component
+     * @param vulnerability the vulnerability affecting the component
+     * @since 3.7.0
+     */
+    public Finding(final Component component, final Vulnerability vulnerability) {
+        if (component.getUuid() != null) {
+            optValue(this.component, "uuid", component.getUuid().toString());
+        }
+        optValue(this.component, "name", component.getName());
+        optValue(this.component, "group", component.getGroup());
+        optValue(this.component, "version", component.getVersion());
+        if (component.getPurl() != null) {
+            optValue(this.component, "purl", component.getPurl().canonicalize());
+        }
+        optValue(this.component, "cpe", component.getCpe());
+
+        if (vulnerability.getUuid() != null) {
+            optValue(this.vulnerability, "uuid", vulnerability.getUuid().toString());
+        }
+        optValue(this.vulnerability, "source", vulnerability.getSource());
+        optValue(this.vulnerability, "vulnId", vulnerability.getVulnId());
+        optValue(this.vulnerability, "title", vulnerability.getTitle());
+        optValue(this.vulnerability, "subtitle", vulnerability.getSubTitle());
+        final Severity severity = vulnerability.getSeverity();
+        optValue(this.vulnerability, "severity", severity.name());
+        optValue(this.vulnerability, "severityRank", severity.ordinal());
+        if (vulnerability.getCwe() != null) {
+            optValue(this.vulnerability, "cweId", vulnerability.getCwe().getCweId());
+            optValue(this.vulnerability, "cweName", vulnerability.getCwe().getName());
+        }
+    }
+
     public Map getComponent() {
         return component;
     }
@@ -134,6 +169,9 @@ public class Finding implements Serializable {
     }
 
     public String getMatrix() {
+        if (project == null) {
+            return null;
+        }
         return project.toString() + ":" + component.get("uuid") + ":" + vulnerability.get("uuid");
     }
 
@@ -0,0 +1,75 @@
+/*
+ * This file is part of Dependency-Track.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * Copyright (c) Steve Springett. All Rights Reserved.
+ */
+package org.dependencytrack.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The result of analyzing a BOM without persisting it. The object is a value object only.
+ *
+ * @author Steve Springett
+ * @since 3.7.0
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class OfflineAnalysisResult implements Serializable {
+
+    private static final long serialVersionUID = -2581829418532749152L;
+
+    private int components;
+    private final List<Finding> findings = new ArrayList<>();
+    private final Map<Severity, Integer> severities = new EnumMap<>(Severity.class);
+
+    public OfflineAnalysisResult() {
+        for (final Severity severity: Severity.values()) {
+            severities.put(severity, 0);
+        }
+    }
+
+    /**
+     * Returns the number of components analyzed.
+     */
+    public int getComponents() {
+        return components;
+    }
+
+    public void setComponents(final int components) {
+        this.components = components;
+    }
+
+    public List<Finding> getFindings() {
+        return findings;
+    }
+
+    /**
+     * Returns the number of findings for each severity.
+     */
+    public Map<Severity, Integer> getSeverities() {
+        return severities;
+    }
+
+    public void addFinding(final Component component, final Vulnerability vulnerability) {
+        findings.add(new Finding(component, vulnerability));
+        severities.merge(vulnerability.getSeverity(), 1, Integer::sum);
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * This file is part of Dependency-Track.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * Copyright (c) Steve Springett. All Rights Reserved.
+ */
+package org.dependencytrack.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import javax.jdo.annotations.Column;
+import javax.jdo.annotations.IdGeneratorStrategy;
+import javax.jdo.annotations.PersistenceCapable;
+import javax.jdo.annotations.Persistent;
+import javax.jdo.annotations.PrimaryKey;
+import javax.jdo.annotations.Unique;
+import javax.validation.constraints.NotNull;
+import java.io.Serializable;
+import java.util.Date;
+import java.util.UUID;
+
+/**
+ * Model class for tracking the state of the synchronization of a mirrored data source, such as
+ * an individual NVD data feed. The checksum and last modified date describe the content which
+ * was last synchronized successfully, and are used to skip content which has not changed since.
+ *
+ * @author Steve Springett
+ * @since 3.7.0
+ */
+@PersistenceCapable
+@Unique(name="SYNCSTATE_COMPOSITE_IDX", members={"source", "target"})
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class SyncState implements Serializable {
+
+    private static final long serialVersionUID = -2470395127924155612L;
+
+    @PrimaryKey
+    @Persistent(valueStrategy = IdGeneratorStrategy.NATIVE)
+    @JsonIgnore
+    private long id;
+
+    @Persistent
+    @Column(name = "SOURCE", allowsNull = "false")
+    @NotNull
+    private String source;
+
+    @Persistent
+    @Column(name = "TARGET", allowsNull = "false")
+    @NotNull
+    private String target;
+
+    @Persistent
+    @Column(name = "CHECKSUM")
+    private String checksum;
+
+    @Persistent
+    @Column(name = "LAST_MODIFIED")
+    private Date lastModified;
+
+    @Persistent
+    @Column(name = "LAST_SYNCHRONIZED", allowsNull = "false")
+    @NotNull
+    private Date lastSynchronized;
+
+    @Persistent(customValueStrategy = "uuid")
+    @Unique(name = "SYNCSTATE_UUID_IDX")
+    @Column(name = "UUID", jdbcType = "VARCHAR", length = 36, allowsNull = "false")
+    @NotNull
+    private UUID uuid;
+
+    public long getId() {
+        return id;
+    }
+
+    public void setId(long id) {
+        this.id = id;
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    public void setSource(String source) {
+        this.source = source;
+    }
+
+    public String getTarget() {
+        return target;
+    }
+
+    public void setTarget(String target) {
+        this.target = target;
+    }
+
+    public String getChecksum() {
+        return checksum;
+    }
+
+    public void setChecksum(String checksum) {
+        this.checksum = checksum;
+    }
+
+    public Date getLastModified() {
+        return lastModified;
+    }
+
+    public void setLastModified(Date lastModified) {
+        this.lastModified = lastModified;
+    }
+
+    public Date getLastSynchronized() {
+        return lastSynchronized;
+    }
+
+    public void setLastSynchronized(Date lastSynchronized) {
+        this.lastSynchronized = lastSynchronized;
+    }
+
+    public UUID getUuid() {
+        return uuid;
+    }
+
+    public void setUuid(UUID uuid) {
+        this.uuid = uuid;
+    }
+}
@@ -24,6 +24,8 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 import javax.jdo.annotations.Column;
 import javax.jdo.annotations.Element;
 import javax.jdo.annotations.Extension;
+import javax.jdo.annotations.FetchGroup;
+import javax.jdo.annotations.FetchGroups;
 import javax.jdo.annotations.IdGeneratorStrategy;
 import javax.jdo.annotations.Index;
 import javax.jdo.annotations.Join;
@@ -46,6 +48,11 @@ import java.util.UUID;
  * @since 3.6.0
  */
 @PersistenceCapable
+@FetchGroups({
+        @FetchGroup(name = "VULNERABILITIES", members = {
+                @Persistent(name = "vulnerabilities")
+        })
+})
 @JsonInclude(JsonInclude.Include.NON_NULL)
 @Index(name = "VULNERABLESOFTWARE_CPE23_VERSION_RANGE_IDX", members = {"cpe23", "versionEndExcluding", "versionEndIncluding", "versionStartExcluding", "versionStartIncluding"})
 @Index(name = "VULNERABLESOFTWARE_PART_VENDOR_PRODUCT_IDX", members = {"part", "vendor", "product"})
@@ -55,6 +62,13 @@ public class VulnerableSoftware implements ICpe, Serializable {
 
     private static final long serialVersionUID = -3987946408457131098L;
 
+    /**
+     * Defines the JDO fetch groups for this class.
+     */
+    public enum FetchGroup {
+        VULNERABILITIES
+    }
+
     @PrimaryKey
     @Persistent(valueStrategy = IdGeneratorStrategy.NATIVE)
     @JsonIgnore
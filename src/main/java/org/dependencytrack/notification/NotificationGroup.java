@@ -30,6 +30,7 @@ public enum NotificationGroup {
 
     // Portfolio Groups
     NEW_VULNERABILITY,
+    NEW_VULNERABILITIES,
     NEW_VULNERABLE_DEPENDENCY,
     //NEW_OUTDATED_COMPONENT,
     //FIXED_VULNERABILITY,
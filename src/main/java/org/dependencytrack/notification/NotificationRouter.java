@@ -25,6 +25,7 @@ import alpine.notification.Subscriber;
 import org.dependencytrack.model.NotificationRule;
 import org.dependencytrack.model.Project;
 import org.dependencytrack.notification.publisher.Publisher;
+import org.dependencytrack.notification.vo.NewVulnerabilitiesIdentified;
 import org.dependencytrack.notification.vo.NewVulnerabilityIdentified;
 import org.dependencytrack.notification.vo.NewVulnerableDependency;
 import org.dependencytrack.persistence.QueryManager;
@@ -122,6 +123,26 @@ public class NotificationRouter implements Subscriber {
                         }
                     }
                 }
+            } else if (NotificationScope.PORTFOLIO.name().equals(notification.getScope())
+                    && notification.getSubject() != null && notification.getSubject() instanceof NewVulnerabilitiesIdentified) {
+                final NewVulnerabilitiesIdentified subject = (NewVulnerabilitiesIdentified) notification.getSubject();
+                /*
+                if the rule specified one or more projects as targets, reduce the execution
+                of the notification down to those rules which match the affected project.
+                 */
+                for (final NotificationRule rule: result) {
+                    if (rule.getNotifyOn().contains(NotificationGroup.valueOf(notification.getGroup()))) {
+                        if (rule.getProjects() != null && rule.getProjects().size() > 0) {
+                            for (final Project project : rule.getProjects()) {
+                                if (subject.getProject() != null && project.getUuid().equals(subject.getProject().getUuid())) {
+                                    rules.add(rule);
+                                }
+                            }
+                        } else {
+                            rules.add(rule);
+                        }
+                    }
+                }
             } else if (NotificationScope.PORTFOLIO.name().equals(notification.getScope())
                     && notification.getSubject() != null && notification.getSubject() instanceof NewVulnerableDependency) {
                 final NewVulnerableDependency subject = (NewVulnerableDependency) notification.getSubject();
@@ -27,6 +27,7 @@ import org.dependencytrack.model.ConfigPropertyConstants;
 import org.dependencytrack.notification.NotificationScope;
 import org.dependencytrack.notification.vo.AnalysisDecisionChange;
 import org.dependencytrack.notification.vo.BomConsumedOrProcessed;
+import org.dependencytrack.notification.vo.NewVulnerabilitiesIdentified;
 import org.dependencytrack.notification.vo.NewVulnerabilityIdentified;
 import org.dependencytrack.notification.vo.NewVulnerableDependency;
 import org.dependencytrack.persistence.QueryManager;
@@ -70,6 +71,10 @@ public interface Publisher {
                     final NewVulnerabilityIdentified subject = (NewVulnerabilityIdentified) notification.getSubject();
                     context.put("subject", subject);
                     context.put("subjectJson", NotificationUtil.toJson(subject));
+                } else if (notification.getSubject() instanceof NewVulnerabilitiesIdentified) {
+                    final NewVulnerabilitiesIdentified subject = (NewVulnerabilitiesIdentified) notification.getSubject();
+                    context.put("subject", subject);
+                    context.put("subjectJson", NotificationUtil.toJson(subject));
                 } else if (notification.getSubject() instanceof NewVulnerableDependency) {
                     final NewVulnerableDependency subject = (NewVulnerableDependency) notification.getSubject();
                     context.put("subject", subject);
@@ -0,0 +1,50 @@
+/*
+ * This file is part of Dependency-Track.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * Copyright (c) Steve Springett. All Rights Reserved.
+ */
+package org.dependencytrack.notification.vo;
+
+import org.dependencytrack.model.Project;
+import java.util.List;
+
+/**
+ * The vulnerabilities newly identified in the components of a single project during an analysis.
+ *
+ * @author Steve Springett
+ * @since 3.7.0
+ */
+public class NewVulnerabilitiesIdentified {
+
+    private final Project project;
+    private final List<NewVulnerabilityIdentified> findings;
+
+    public NewVulnerabilitiesIdentified(final Project project, final List<NewVulnerabilityIdentified> findings) {
+        this.project = project;
+        this.findings = findings;
+    }
+
+    /**
+     * Returns the affected project, or null for components which are not a dependency of any project.
+     */
+    public Project getProject() {
+        return project;
+    }
+
+    public List<NewVulnerabilityIdentified> getFindings() {
+        return findings;
+    }
+}
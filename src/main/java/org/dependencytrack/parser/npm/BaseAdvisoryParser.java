@@ -64,9 +64,13 @@ public abstract class BaseAdvisoryParser {
             for (int i = 0; i < findings.length(); i++) {
                 final JSONObject finding = findings.getJSONObject(i);
                 final String version = finding.optString("version", null);
+                advisory.addFindingVersion(version);
                 final JSONArray paths = finding.optJSONArray("paths");
+                if (paths == null) {
+                    continue;
+                }
                 for (int j = 0; j < paths.length(); j++) {
-                    final String path = paths.getString(i);
+                    final String path = paths.optString(j, null);
                     if (path != null && path.equals(advisory.getModuleName())) {
                         advisory.setVersion(version);
                     }
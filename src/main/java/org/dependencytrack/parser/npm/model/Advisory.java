@@ -18,6 +18,9 @@
  */
 package org.dependencytrack.parser.npm.model;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * The response from NPM Audit API will respond with 0 or more advisories. This
  * class defines the Advisory objects returned. This class is adapted from the
@@ -79,6 +82,12 @@ public class Advisory {
      */
     private String version;
 
+    /**
+     * The versions of the Node module the advisory was found in. Only present in responses
+     * from the NPM Audit API.
+     */
+    private final List<String> findingVersions = new ArrayList<>();
+
     /**
      * The optional CVE(s) associated with this advisory.
      */
@@ -195,6 +204,16 @@ public class Advisory {
         this.version = version;
     }
 
+    public List<String> getFindingVersions() {
+        return findingVersions;
+    }
+
+    public void addFindingVersion(final String version) {
+        if (version != null && !findingVersions.contains(version)) {
+            findingVersions.add(version);
+        }
+    }
+
     public String[] getCves() {
         return cves != null ? cves.clone() : null;
     }
@@ -51,7 +51,14 @@ import java.util.List;
 public class CpeDictionaryParser {
 
     private static final Logger LOGGER = Logger.getLogger(CpeDictionaryParser.class);
+    private static final int BATCH_SIZE = 5000;
 
+    /**
+     * Parses the CPE dictionary. Items are read as a stream and synchronized in batches, each in a
+     * single transaction. Items which have not changed are skipped, and the search index is only
+     * committed once the entire dictionary has been processed.
+     * @param file the CPE dictionary to parse
+     */
     public void parse(final File file) {
         if (!file.getName().endsWith(".xml")) {
             return;
@@ -59,6 +66,9 @@ public class CpeDictionaryParser {
         LOGGER.info("Parsing " + file.getName());
         LOGGER.info("This may take several minutes");
         XMLInputFactory xmlInputFactory = XMLInputFactory.newInstance();
+        final List<Cpe> batch = new ArrayList<>(BATCH_SIZE);
+        int changed = 0;
+        int total = 0;
         try (InputStream in = Files.newInputStream(file.toPath())) {
             final XMLEventReader xmlEventReader = xmlInputFactory.createXMLEventReader(in);
             Cpe cpe = new Cpe();
@@ -100,22 +110,40 @@ public class CpeDictionaryParser {
                 }
                 if (xmlEvent.isEndElement()) {
                     EndElement endElement = xmlEvent.asEndElement();
-                    if(endElement.getName().getLocalPart().equals("cpe-item")) {
-                        try (QueryManager qm = new QueryManager()) {
-                            if (cpe != null) {
-                                cpe = qm.synchronizeCpe(cpe, false);
-                            }
-                            for (CpeReference reference: cpeReferences) {
-                                reference.setCpe(cpe);
-                                qm.persist(reference);
-                            }
+                    if(endElement.getName().getLocalPart().equals("cpe-item") && cpe.getCpe23() != null) {
+                        cpe.setReferences(cpeReferences);
+                        batch.add(cpe);
+                        total++;
+                        if (batch.size() >= BATCH_SIZE) {
+                            changed += synchronize(batch);
                         }
                     }
                 }
             }
+            changed += synchronize(batch);
         } catch (IOException | XMLStreamException e) {
             LOGGER.error("An error occurred processing the CPE dictionary", e);
         }
+        LOGGER.info("Synchronized " + changed + " new or changed CPE(s) out of " + total);
         Event.dispatch(new IndexEvent(IndexEvent.Action.COMMIT, Cpe.class));
     }
+
+    /**
+     * Synchronizes a batch of CPEs and clears the batch. A new QueryManager is used for each
+     * batch, so that objects of previous batches do not accumulate in memory.
+     * @return the number of CPEs created or updated
+     */
+    private int synchronize(final List<Cpe> batch) {
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        int changed = 0;
+        try (QueryManager qm = new QueryManager()) {
+            changed = qm.synchronizeCpes(batch, false);
+        } catch (Exception e) {
+            LOGGER.error("An error occurred while synchronizing a batch of " + batch.size() + " CPE(s)", e);
+        }
+        batch.clear();
+        return changed;
+    }
 }
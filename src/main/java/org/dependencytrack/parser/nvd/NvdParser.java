@@ -22,6 +22,7 @@ import alpine.event.framework.Event;
 import alpine.logging.Logger;
 import org.apache.commons.lang3.StringUtils;
 import org.dependencytrack.event.IndexEvent;
+import org.dependencytrack.model.ConfigPropertyConstants;
 import org.dependencytrack.model.Cpe;
 import org.dependencytrack.model.Cwe;
 import org.dependencytrack.model.Vulnerability;
@@ -34,8 +35,8 @@ import us.springett.parsers.cpe.values.Part;
 import javax.json.Json;
 import javax.json.JsonArray;
 import javax.json.JsonObject;
-import javax.json.JsonReader;
 import javax.json.JsonString;
+import javax.json.stream.JsonParser;
 import java.io.File;
 import java.io.InputStream;
 import java.nio.file.Files;
@@ -43,7 +44,16 @@ import java.sql.Date;
 import java.time.OffsetDateTime;
 import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Parser and processor of NVD data feeds.
@@ -55,134 +65,377 @@ public final class NvdParser {
 
     private static final Logger LOGGER = Logger.getLogger(NvdParser.class);
 
-    public void parse(final File file) {
+    private static final int DEFAULT_WORKER_COUNT = Integer.parseInt(ConfigPropertyConstants.VULNSOURCE_NVD_WORKERS.getDefaultPropertyValue());
+    private static final int DEFAULT_BATCH_SIZE = Integer.parseInt(ConfigPropertyConstants.VULNSOURCE_NVD_BATCH_SIZE.getDefaultPropertyValue());
+    private static final int QUEUE_CAPACITY = 64;
+
+    /**
+     * Marks the end of the feed to the workers.
+     */
+    private static final JsonObject END_OF_FEED = Json.createObjectBuilder().build();
+
+    private final int workerCount;
+    private final int batchSize;
+    private final Set<Long> changedVulnerabilities = ConcurrentHashMap.newKeySet();
+    private final Set<List<String>> affectedProducts = ConcurrentHashMap.newKeySet();
+
+    /**
+     * The date each CVE was last updated (in milliseconds since the epoch), keyed by its vulnId.
+     * Loaded once and kept current as CVEs are synchronized, so that the same parser can be used
+     * for several feeds.
+     */
+    private Map<String, Long> lastUpdated;
+    private volatile boolean parsedWithoutErrors;
+
+    public NvdParser() {
+        this(DEFAULT_WORKER_COUNT, DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * @param workerCount the number of workers synchronizing CVEs with the database
+     * @param batchSize the number of CVEs each worker synchronizes per transaction
+     * @since 3.7.0
+     */
+    public NvdParser(final int workerCount, final int batchSize) {
+        this.workerCount = workerCount > 0 ? workerCount : DEFAULT_WORKER_COUNT;
+        this.batchSize = batchSize > 0 ? batchSize : DEFAULT_BATCH_SIZE;
+    }
+
+    /**
+     * Parses a JSON data feed. The feed is read as a stream of events rather than as a tree, and
+     * each CVE item is decoded on its own and handed to a pool of workers through a bounded queue.
+     * Only the items waiting in the queue are held in memory, and parsing overlaps with persistence.
+     * @param file the JSON data feed to parse
+     * @return true if every CVE in the feed was synchronized, false if errors occurred
+     */
+    public boolean parse(final File file) {
         if (!file.getName().endsWith(".json")) {
-            return;
+            return false;
         }
+        parsedWithoutErrors = true;
 
         LOGGER.info("Parsing " + file.getName());
+        if (lastUpdated == null) {
+            try (QueryManager qm = new QueryManager()) {
+                lastUpdated = new ConcurrentHashMap<>(qm.getVulnerabilityLastUpdated(Vulnerability.Source.NVD));
+            }
+        }
 
+        int skipped = 0;
+        final BlockingQueue<JsonObject> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+        final ExecutorService workers = Executors.newFixedThreadPool(workerCount);
+        for (int i = 0; i < workerCount; i++) {
+            workers.execute(() -> process(queue));
+        }
         try (InputStream in = Files.newInputStream(file.toPath());
-             final JsonReader reader = Json.createReader(in)) {
-
-            final JsonObject root = reader.readObject();
-            final JsonArray cveItems = root.getJsonArray("CVE_Items");
-
-            cveItems.parallelStream().forEach((c) -> {
-                final JsonObject cveItem = (JsonObject) c;
-                try (QueryManager qm = new QueryManager()) {
-                    final Vulnerability vulnerability = new Vulnerability();
-                    vulnerability.setSource(Vulnerability.Source.NVD);
-
-                    // CVE ID
-                    final JsonObject cve = cveItem.getJsonObject("cve");
-                    final JsonObject meta0 = cve.getJsonObject("CVE_data_meta");
-                    final JsonString meta1 = meta0.getJsonString("ID");
-                    vulnerability.setVulnId(meta1.getString());
-
-                    // CVE Published and Modified dates
-                    final String publishedDateString = cveItem.getString("publishedDate");
-                    final String lastModifiedDateString = cveItem.getString("lastModifiedDate");
-                    try {
-                        if (StringUtils.isNotBlank(publishedDateString)) {
-                            vulnerability.setPublished(Date.from(OffsetDateTime.parse(publishedDateString).toInstant()));
+             final JsonParser parser = Json.createParser(in)) {
+            if (seekCveItems(parser)) {
+                while (parser.hasNext()) {
+                    final JsonParser.Event event = parser.next();
+                    if (event == JsonParser.Event.START_OBJECT) {
+                        final JsonObject cveItem = parser.getObject();
+                        if (isUnchanged(cveItem)) {
+                            skipped++;
+                        } else {
+                            queue.put(cveItem);
                         }
-                        if (StringUtils.isNotBlank(lastModifiedDateString)) {
-                            vulnerability.setUpdated(Date.from(OffsetDateTime.parse(lastModifiedDateString).toInstant()));
-                        }
-                    } catch (DateTimeParseException | NullPointerException | IllegalArgumentException e) {
-                        LOGGER.error("Unable to parse dates from NVD data feed", e);
+                    } else if (event == JsonParser.Event.END_ARRAY) {
+                        break;
                     }
+                }
+            }
+        } catch (InterruptedException e) {
+            parsedWithoutErrors = false;
+            LOGGER.warn("Interrupted while parsing NVD JSON data");
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            parsedWithoutErrors = false;
+            LOGGER.error("An error occurred while parsing NVD JSON data", e);
+        } finally {
+            for (int i = 0; i < workerCount; i++) {
+                putUninterruptibly(queue, END_OF_FEED);
+            }
+            workers.shutdown();
+            try {
+                workers.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        LOGGER.info("Skipped " + skipped + " unchanged CVE(s) in " + file.getName());
+        Event.dispatch(new IndexEvent(IndexEvent.Action.COMMIT, Vulnerability.class));
+        Event.dispatch(new IndexEvent(IndexEvent.Action.COMMIT, Cpe.class));
+        return parsedWithoutErrors;
+    }
 
-                    // CVE Description
-                    final JsonObject descO = cve.getJsonObject("description");
-                    final JsonArray desc1 = descO.getJsonArray("description_data");
-                    final StringBuilder descriptionBuilder = new StringBuilder();
-                    for (int j = 0; j < desc1.size(); j++) {
-                        final JsonObject desc2 = desc1.getJsonObject(j);
-                        if ("en".equals(desc2.getString("lang"))) {
-                            descriptionBuilder.append(desc2.getString("value"));
-                            if (j < desc1.size() - 1) {
-                                descriptionBuilder.append("\n\n");
-                            }
-                        }
-                    }
-                    vulnerability.setDescription(descriptionBuilder.toString());
-
-                    // CVE Impact
-                    parseCveImpact(cveItem, vulnerability);
-
-                    // CWE
-                    final JsonObject prob0 = cve.getJsonObject("problemtype");
-                    final JsonArray prob1 = prob0.getJsonArray("problemtype_data");
-                    for (int j = 0; j < prob1.size(); j++) {
-                        final JsonObject prob2 = prob1.getJsonObject(j);
-                        final JsonArray prob3 = prob2.getJsonArray("description");
-                        for (int k = 0; k < prob3.size(); k++) {
-                            final JsonObject prob4 = prob3.getJsonObject(k);
-                            if ("en".equals(prob4.getString("lang"))) {
-                                final String cweString = prob4.getString("value");
-                                if (cweString != null && cweString.startsWith("CWE-")) {
-                                    try {
-                                        final int cweId = Integer.parseInt(cweString.substring(4).trim());
-                                        final Cwe cwe = qm.getCweById(cweId);
-                                        vulnerability.setCwe(cwe);
-                                    } catch (NumberFormatException e) {
-                                        // throw it away
-                                    }
-                                }
-                            }
-                        }
-                    }
+    /**
+     * Determines if a CVE item was not modified since it was last synchronized. Only the vulnId and
+     * lastModifiedDate of the item are read, so that unchanged items are skipped before any
+     * objects are built for them.
+     */
+    private boolean isUnchanged(final JsonObject cveItem) {
+        final JsonObject cve = cveItem.getJsonObject("cve");
+        final JsonObject meta = (cve != null) ? cve.getJsonObject("CVE_data_meta") : null;
+        final String vulnId = (meta != null) ? meta.getString("ID", null) : null;
+        final String lastModifiedDateString = cveItem.getString("lastModifiedDate", null);
+        if (vulnId == null || StringUtils.isBlank(lastModifiedDateString)) {
+            return false;
+        }
+        final Long updated = lastUpdated.get(vulnId);
+        if (updated == null) {
+            return false;
+        }
+        try {
+            return OffsetDateTime.parse(lastModifiedDateString).toInstant().toEpochMilli() <= updated;
+        } catch (DateTimeParseException e) {
+            return false;
+        }
+    }
 
-                    // References
-                    final JsonObject ref0 = cve.getJsonObject("references");
-                    final JsonArray ref1 = ref0.getJsonArray("reference_data");
-                    final StringBuilder sb = new StringBuilder();
-                    for (int l = 0; l < ref1.size(); l++) {
-                        final JsonObject ref2 = ref1.getJsonObject(l);
-                        for (final String s : ref2.keySet()) {
-                            if ("url".equals(s)) {
-                                // Convert reference to Markdown format
-                                final String url = ref2.getString("url");
-                                sb.append("* [").append(url).append("](").append(url).append(")\n");
-                            }
-                        }
-                    }
-                    final String references = sb.toString();
-                    if (references.length() > 0) {
-                        vulnerability.setReferences(references.substring(0, references.lastIndexOf("\n")));
+    /**
+     * Advances the parser to the start of the top-level CVE_Items array.
+     * @return true if the array was found, false if the feed does not contain it
+     */
+    private static boolean seekCveItems(final JsonParser parser) {
+        int depth = 0;
+        while (parser.hasNext()) {
+            final JsonParser.Event event = parser.next();
+            switch (event) {
+                case START_OBJECT:
+                case START_ARRAY:
+                    depth++;
+                    break;
+                case END_OBJECT:
+                case END_ARRAY:
+                    depth--;
+                    break;
+                case KEY_NAME:
+                    if (depth == 1 && "CVE_Items".equals(parser.getString())) {
+                        return parser.hasNext() && parser.next() == JsonParser.Event.START_ARRAY;
                     }
+                    break;
+                default:
+                    break;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Processes CVE items from the queue until the end of the feed is reached. Each worker uses a
+     * single QueryManager and commits the CVEs it processes in batches. If the worker fails, the
+     * remaining items are discarded so that the feed is not reported as synchronized, and so that
+     * the queue does not block the parser.
+     */
+    private void process(final BlockingQueue<JsonObject> queue) {
+        try {
+            synchronize(queue);
+        } catch (RuntimeException | Error e) {
+            parsedWithoutErrors = false;
+            LOGGER.error("An error occurred while synchronizing CVEs from the NVD JSON data", e);
+            try {
+                while (queue.take() != END_OF_FEED) {
+                    // Discard the items this worker would have processed
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void synchronize(final BlockingQueue<JsonObject> queue) {
+        try (QueryManager qm = new QueryManager()) {
+            final Map<Integer, Cwe> cwes = new HashMap<>();
+            for (final Cwe cwe: qm.getCwes().getList(Cwe.class)) {
+                cwes.put(cwe.getCweId(), cwe);
+            }
+            final List<Vulnerability> batch = new ArrayList<>(batchSize);
+            while (true) {
+                final JsonObject cveItem;
+                try {
+                    cveItem = queue.take();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+                if (cveItem == END_OF_FEED) {
+                    break;
+                }
+                try {
+                    batch.add(parseCveItem(cveItem, cwes));
+                } catch (Exception e) {
+                    parsedWithoutErrors = false;
+                    LOGGER.error("An error occurred while parsing a CVE from the NVD JSON data", e);
+                }
+                if (batch.size() >= batchSize) {
+                    synchronize(qm, batch);
+                }
+            }
+            synchronize(qm, batch);
+        }
+    }
+
+    /**
+     * Synchronizes a batch of CVEs with the database in a single transaction, and clears the batch.
+     */
+    private void synchronize(final QueryManager qm, final List<Vulnerability> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        LOGGER.debug("Synchronizing " + batch.size() + " CVE(s)");
+        final Map<String, Long> updated = new HashMap<>();
+        for (final Vulnerability vulnerability: batch) {
+            if (vulnerability.getUpdated() != null) {
+                updated.put(vulnerability.getVulnId(), vulnerability.getUpdated().getTime());
+            }
+        }
+        try {
+            changedVulnerabilities.addAll(qm.synchronizeVulnerabilities(batch, false, affectedProducts));
+            lastUpdated.putAll(updated);
+        } catch (Exception e) {
+            parsedWithoutErrors = false;
+            LOGGER.error("An error occurred while synchronizing a batch of " + batch.size() + " CVE(s) from the NVD JSON data", e);
+        }
+        batch.clear();
+    }
 
-                    // Update the vulnerability
-                    LOGGER.debug("Synchronizing: " + vulnerability.getVulnId());
-                    final Vulnerability synchronizeVulnerability = qm.synchronizeVulnerability(vulnerability, false);
-
-                    // CPE
-                    final List<VulnerableSoftware> vulnerableSoftwares = new ArrayList<>();
-                    final JsonObject configurations = cveItem.getJsonObject("configurations");
-                    final JsonArray nodes = configurations.getJsonArray("nodes");
-                    for (int j = 0; j < nodes.size(); j++) {
-                        final JsonObject node = nodes.getJsonObject(j);
-                        vulnerableSoftwares.addAll(parseCpes(qm, node, synchronizeVulnerability));
-                        if (node.containsKey("children")) {
-                            final JsonArray children = node.getJsonArray("children");
-                            for (int l = 0; l < children.size(); l++) {
-                                final JsonObject child = children.getJsonObject(l);
-                                vulnerableSoftwares.addAll(parseCpes(qm, child, vulnerability));
-                            }
+    private static void putUninterruptibly(final BlockingQueue<JsonObject> queue, final JsonObject item) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                queue.put(item);
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Converts a CVE item to a transient Vulnerability, including its (transient) vulnerable software.
+     * @param cveItem the CVE item to convert
+     * @param cwes the persistent CWEs, keyed by their CWE-ID
+     */
+    private Vulnerability parseCveItem(final JsonObject cveItem, final Map<Integer, Cwe> cwes) {
+        final Vulnerability vulnerability = new Vulnerability();
+        vulnerability.setSource(Vulnerability.Source.NVD);
+
+        // CVE ID
+        final JsonObject cve = cveItem.getJsonObject("cve");
+        final JsonObject meta0 = cve.getJsonObject("CVE_data_meta");
+        final JsonString meta1 = meta0.getJsonString("ID");
+        vulnerability.setVulnId(meta1.getString());
+
+        // CVE Published and Modified dates
+        final String publishedDateString = cveItem.getString("publishedDate");
+        final String lastModifiedDateString = cveItem.getString("lastModifiedDate");
+        try {
+            if (StringUtils.isNotBlank(publishedDateString)) {
+                vulnerability.setPublished(Date.from(OffsetDateTime.parse(publishedDateString).toInstant()));
+            }
+            if (StringUtils.isNotBlank(lastModifiedDateString)) {
+                vulnerability.setUpdated(Date.from(OffsetDateTime.parse(lastModifiedDateString).toInstant()));
+            }
+        } catch (DateTimeParseException | NullPointerException | IllegalArgumentException e) {
+            LOGGER.error("Unable to parse dates from NVD data feed", e);
+        }
+
+        // CVE Description
+        final JsonObject descO = cve.getJsonObject("description");
+        final JsonArray desc1 = descO.getJsonArray("description_data");
+        final StringBuilder descriptionBuilder = new StringBuilder();
+        for (int j = 0; j < desc1.size(); j++) {
+            final JsonObject desc2 = desc1.getJsonObject(j);
+            if ("en".equals(desc2.getString("lang"))) {
+                descriptionBuilder.append(desc2.getString("value"));
+                if (j < desc1.size() - 1) {
+                    descriptionBuilder.append("\n\n");
+                }
+            }
+        }
+        vulnerability.setDescription(descriptionBuilder.toString());
+
+        // CVE Impact
+        parseCveImpact(cveItem, vulnerability);
+
+        // CWE
+        final JsonObject prob0 = cve.getJsonObject("problemtype");
+        final JsonArray prob1 = prob0.getJsonArray("problemtype_data");
+        for (int j = 0; j < prob1.size(); j++) {
+            final JsonObject prob2 = prob1.getJsonObject(j);
+            final JsonArray prob3 = prob2.getJsonArray("description");
+            for (int k = 0; k < prob3.size(); k++) {
+                final JsonObject prob4 = prob3.getJsonObject(k);
+                if ("en".equals(prob4.getString("lang"))) {
+                    final String cweString = prob4.getString("value");
+                    if (cweString != null && cweString.startsWith("CWE-")) {
+                        try {
+                            final int cweId = Integer.parseInt(cweString.substring(4).trim());
+                            vulnerability.setCwe(cwes.get(cweId));
+                        } catch (NumberFormatException e) {
+                            // throw it away
                         }
                     }
-                    final List<VulnerableSoftware> reconciledList = reconcile(vulnerableSoftwares);
-                    synchronizeVulnerability.setVulnerableSoftware(reconciledList);
-                    qm.persist(synchronizeVulnerability);
                 }
-            });
-        } catch (Exception e) {
-            LOGGER.error("An error occurred while parsing NVD JSON data", e);
+            }
         }
-        Event.dispatch(new IndexEvent(IndexEvent.Action.COMMIT, Vulnerability.class));
-        Event.dispatch(new IndexEvent(IndexEvent.Action.COMMIT, Cpe.class));
+
+        // References
+        final JsonObject ref0 = cve.getJsonObject("references");
+        final JsonArray ref1 = ref0.getJsonArray("reference_data");
+        final StringBuilder sb = new StringBuilder();
+        for (int l = 0; l < ref1.size(); l++) {
+            final JsonObject ref2 = ref1.getJsonObject(l);
+            for (final String s : ref2.keySet()) {
+                if ("url".equals(s)) {
+                    // Convert reference to Markdown format
+                    final String url = ref2.getString("url");
+                    sb.append("* [").append(url).append("](").append(url).append(")\n");
+                }
+            }
+        }
+        final String references = sb.toString();
+        if (references.length() > 0) {
+            vulnerability.setReferences(references.substring(0, references.lastIndexOf("\n")));
+        }
+
+        // CPE
+        final List<VulnerableSoftware> vulnerableSoftwares = new ArrayList<>();
+        final JsonObject configurations = cveItem.getJsonObject("configurations");
+        final JsonArray nodes = configurations.getJsonArray("nodes");
+        for (int j = 0; j < nodes.size(); j++) {
+            final JsonObject node = nodes.getJsonObject(j);
+            vulnerableSoftwares.addAll(parseCpes(node));
+            if (node.containsKey("children")) {
+                final JsonArray children = node.getJsonArray("children");
+                for (int l = 0; l < children.size(); l++) {
+                    final JsonObject child = children.getJsonObject(l);
+                    vulnerableSoftwares.addAll(parseCpes(child));
+                }
+            }
+        }
+        vulnerability.setVulnerableSoftware(reconcile(vulnerableSoftwares));
+        return vulnerability;
+    }
+
+    /**
+     * Returns the ids of the vulnerabilities which were created or changed by this parser.
+     * @since 3.7.0
+     */
+    public Set<Long> getChangedVulnerabilities() {
+        return changedVulnerabilities;
+    }
+
+    /**
+     * Returns the part, vendor and product of the vulnerable software which was linked to or
+     * unlinked from a CVE by this parser.
+     * @since 3.7.0
+     */
+    public Set<List<String>> getAffectedProducts() {
+        return affectedProducts;
     }
 
     /**
@@ -242,14 +495,14 @@ public final class NvdParser {
         }
     }
 
-    private List<VulnerableSoftware> parseCpes(final QueryManager qm, final JsonObject node, final Vulnerability vulnerability) {
+    private List<VulnerableSoftware> parseCpes(final JsonObject node) {
         final List<VulnerableSoftware> vsList = new ArrayList<>();
         if (node.containsKey("cpe_match")) {
             final JsonArray cpeMatches = node.getJsonArray("cpe_match");
             for (int k = 0; k < cpeMatches.size(); k++) {
                 final JsonObject cpeMatch = cpeMatches.getJsonObject(k);
                 if (cpeMatch.getBoolean("vulnerable", true)) { // only parse the CPEs marked as vulnerable
-                    final VulnerableSoftware vs = generateVulnerableSoftware(qm, cpeMatch, vulnerability);
+                    final VulnerableSoftware vs = generateVulnerableSoftware(cpeMatch);
                     if (vs != null) {
                         vsList.add(vs);
                     }
@@ -259,28 +512,19 @@ public final class NvdParser {
         return vsList;
     }
 
-    private VulnerableSoftware generateVulnerableSoftware(final QueryManager qm, final JsonObject cpeMatch,
-                                                                       final Vulnerability vulnerability) {
+    /**
+     * Creates a transient VulnerableSoftware from a CPE match. Whether it already exists is determined
+     * when the CVE it belongs to is synchronized.
+     */
+    private VulnerableSoftware generateVulnerableSoftware(final JsonObject cpeMatch) {
         final String cpe23Uri = cpeMatch.getString("cpe23Uri");
-        final String versionEndExcluding = cpeMatch.getString("versionEndExcluding", null);
-        final String versionEndIncluding = cpeMatch.getString("versionEndIncluding", null);
-        final String versionStartExcluding = cpeMatch.getString("versionStartExcluding", null);
-        final String versionStartIncluding = cpeMatch.getString("versionStartIncluding", null);
-        VulnerableSoftware vs = qm.getVulnerableSoftwareByCpe23(cpe23Uri, versionEndExcluding,
-                versionEndIncluding, versionStartExcluding, versionStartIncluding);
-        if (vs != null) {
-            return vs;
-        }
         try {
-            vs = ModelConverter.convertCpe23UriToVulnerableSoftware(cpe23Uri);
+            final VulnerableSoftware vs = ModelConverter.convertCpe23UriToVulnerableSoftware(cpe23Uri);
             vs.setVulnerable(cpeMatch.getBoolean("vulnerable", true));
-            vs.addVulnerability(vulnerability);
-            vs.setVersionEndExcluding(versionEndExcluding);
-            vs.setVersionEndIncluding(versionEndIncluding);
-            vs.setVersionStartExcluding(versionStartExcluding);
-            vs.setVersionStartIncluding(versionStartIncluding);
-            vs = qm.persist(vs);
-            //Event.dispatch(new IndexEvent(IndexEvent.Action.CREATE, qm.detach(VulnerableSoftware.class, vs.getId())));
+            vs.setVersionEndExcluding(cpeMatch.getString("versionEndExcluding", null));
+            vs.setVersionEndIncluding(cpeMatch.getString("versionEndIncluding", null));
+            vs.setVersionStartExcluding(cpeMatch.getString("versionStartExcluding", null));
+            vs.setVersionStartIncluding(cpeMatch.getString("versionStartIncluding", null));
             return vs;
         } catch (CpeParsingException | CpeEncodingException e) {
             LOGGER.warn("An error occurred while parsing: " + cpe23Uri + " - The CPE is invalid and will be discarded.");
@@ -24,6 +24,9 @@ import org.dependencytrack.parser.ossindex.model.ComponentReport;
 import org.dependencytrack.parser.ossindex.model.ComponentReportVulnerability;
 import org.json.JSONArray;
 import org.json.JSONObject;
+import javax.json.Json;
+import javax.json.stream.JsonParser;
+import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -55,6 +58,122 @@ public class OssIndexParser {
         return componentReports;
     }
 
+    /**
+     * Parses the JSON response from Sonatype OSS Index as a stream of events, without first
+     * reading the entire response into a tree.
+     *
+     * @param in the InputStream of the response body
+     * @return a List of ComponentReport objects
+     * @since 3.7.0
+     */
+    public List<ComponentReport> parse(final InputStream in) {
+        LOGGER.debug("Parsing JSON stream");
+        final List<ComponentReport> componentReports = new ArrayList<>();
+        try (JsonParser parser = Json.createParser(in)) {
+            while (parser.hasNext()) {
+                // Nested objects are consumed by parseComponentReport(), so only top-level objects are seen here
+                if (parser.next() == JsonParser.Event.START_OBJECT) {
+                    componentReports.add(parseComponentReport(parser));
+                }
+            }
+        }
+        return componentReports;
+    }
+
+    private ComponentReport parseComponentReport(final JsonParser parser) {
+        final ComponentReport componentReport = new ComponentReport();
+        JsonParser.Event event;
+        while ((event = parser.next()) != JsonParser.Event.END_OBJECT) {
+            if (event != JsonParser.Event.KEY_NAME) {
+                continue;
+            }
+            final String key = parser.getString();
+            event = parser.next();
+            if ("vulnerabilities".equals(key) && event == JsonParser.Event.START_ARRAY) {
+                while ((event = parser.next()) != JsonParser.Event.END_ARRAY) {
+                    if (event == JsonParser.Event.START_OBJECT) {
+                        componentReport.addVulnerability(parseVulnerability(parser));
+                    }
+                }
+            } else if ("coordinates".equals(key)) {
+                componentReport.setCoordinates(stringValue(parser, event));
+            } else if ("description".equals(key)) {
+                componentReport.setDescription(stringValue(parser, event));
+            } else if ("references".equals(key)) {
+                componentReport.setReference(stringValue(parser, event));
+            } else {
+                skipValue(parser, event);
+            }
+        }
+        return componentReport;
+    }
+
+    private ComponentReportVulnerability parseVulnerability(final JsonParser parser) {
+        final ComponentReportVulnerability vulnerability = new ComponentReportVulnerability();
+        JsonParser.Event event;
+        while ((event = parser.next()) != JsonParser.Event.END_OBJECT) {
+            if (event != JsonParser.Event.KEY_NAME) {
+                continue;
+            }
+            final String key = parser.getString();
+            event = parser.next();
+            switch (key) {
+                case "id":
+                    vulnerability.setId(stringValue(parser, event));
+                    break;
+                case "title":
+                    vulnerability.setTitle(stringValue(parser, event));
+                    break;
+                case "description":
+                    vulnerability.setDescription(stringValue(parser, event));
+                    break;
+                case "cvssScore":
+                    if (event == JsonParser.Event.VALUE_NUMBER) {
+                        vulnerability.setCvssScore(parser.getBigDecimal());
+                    }
+                    break;
+                case "cvssVector":
+                    vulnerability.setCvssVector(stringValue(parser, event));
+                    break;
+                case "cwe":
+                    vulnerability.setCwe(stringValue(parser, event));
+                    break;
+                case "cve":
+                    vulnerability.setCve(stringValue(parser, event));
+                    break;
+                case "reference":
+                    vulnerability.setReference(stringValue(parser, event));
+                    break;
+                default:
+                    skipValue(parser, event);
+            }
+        }
+        return vulnerability;
+    }
+
+    private static String stringValue(final JsonParser parser, final JsonParser.Event event) {
+        if (event == JsonParser.Event.VALUE_STRING || event == JsonParser.Event.VALUE_NUMBER) {
+            return parser.getString();
+        }
+        skipValue(parser, event);
+        return null;
+    }
+
+    private static void skipValue(final JsonParser parser, final JsonParser.Event event) {
+        if (event != JsonParser.Event.START_OBJECT && event != JsonParser.Event.START_ARRAY) {
+            return;
+        }
+        int depth = 1;
+        while (depth > 0) {
+            final JsonParser.Event e = parser.next();
+            if (e == JsonParser.Event.START_OBJECT || e == JsonParser.Event.START_ARRAY) {
+                depth++;
+            } else if (e == JsonParser.Event.END_OBJECT || e == JsonParser.Event.END_ARRAY) {
+                depth--;
+            }
+        }
+    }
+
     private ComponentReport parse(final JSONObject object) {
         final ComponentReport componentReport = new ComponentReport();
         componentReport.setCoordinates(object.optString("coordinates", null));
@@ -0,0 +1,263 @@
+/*
+ * This file is part of Dependency-Track.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * Copyright (c) Steve Springett. All Rights Reserved.
+ */
+package org.dependencytrack.persistence;
+
+import alpine.logging.Logger;
+import org.dependencytrack.model.ComponentAnalysisCache;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * A two-tier cache over {@link ComponentAnalysisCache}. The first tier is a bounded, in-memory LRU
+ * of last occurrences which is populated in bulk via {@link #prefetch(ComponentAnalysisCache.CacheType, String, String, Collection)}.
+ * The second tier is the database. Updates are applied to the first tier immediately and written
+ * behind to the database in batches, either once enough updates are pending or when {@link #flush()}
+ * is called.
+ *
+ * @author Steve Springett
+ * @since 3.7.0
+ */
+public final class ComponentAnalysisCacheManager {
+
+    private static final Logger LOGGER = Logger.getLogger(ComponentAnalysisCacheManager.class);
+    private static final ComponentAnalysisCacheManager INSTANCE = new ComponentAnalysisCacheManager();
+    private static final int MAX_ENTRIES = 50000;
+    private static final int FLUSH_THRESHOLD = 1000;
+
+    /**
+     * Marker for targets known to have no entry in the database.
+     */
+    private static final Date NEVER = new Date(0);
+
+    private final Map<Key, Date> entries = new LinkedHashMap<Key, Date>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<Key, Date> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    };
+    private Map<Key, Date> pending = new HashMap<>();
+
+    private ComponentAnalysisCacheManager() { }
+
+    public static ComponentAnalysisCacheManager getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Loads the cache entries for the specified targets into memory using a single query. Targets which
+     * do not have an entry in the database are remembered as such, so that subsequent lookups for them
+     * do not query the database either.
+     * @param cacheType the type of cache
+     * @param targetHost the host of the analyzer
+     * @param targetType the type of target (i.e. the source of the analyzer)
+     * @param targets the targets to prefetch
+     */
+    public void prefetch(final ComponentAnalysisCache.CacheType cacheType, final String targetHost,
+                         final String targetType, final Collection<String> targets) {
+        final List<String> missing = new ArrayList<>();
+        synchronized (entries) {
+            for (final String target: targets) {
+                if (target != null && !entries.containsKey(new Key(cacheType, targetHost, targetType, target))) {
+                    missing.add(target);
+                }
+            }
+        }
+        if (missing.isEmpty()) {
+            return;
+        }
+        final Map<Key, Date> loaded = new HashMap<>();
+        for (final String target: missing) {
+            loaded.put(new Key(cacheType, targetHost, targetType, target), NEVER);
+        }
+        try (QueryManager qm = new QueryManager()) {
+            for (final ComponentAnalysisCache cac: qm.getComponentAnalysisCache(cacheType, targetHost, targetType, missing)) {
+                loaded.put(new Key(cacheType, targetHost, targetType, cac.getTarget()), cac.getLastOccurrence());
+            }
+        }
+        synchronized (entries) {
+            for (final Map.Entry<Key, Date> entry: loaded.entrySet()) {
+                // Do not overwrite updates made while the query was executing
+                entries.putIfAbsent(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    /**
+     * Returns the date the target was last analyzed, or null if it never was. Targets which have not
+     * been prefetched are looked up in the database individually.
+     * @param cacheType the type of cache
+     * @param targetHost the host of the analyzer
+     * @param targetType the type of target (i.e. the source of the analyzer)
+     * @param target the target
+     * @return the date of the last occurrence, or null
+     */
+    public Date getLastOccurrence(final ComponentAnalysisCache.CacheType cacheType, final String targetHost,
+                                  final String targetType, final String target) {
+        final Key key = new Key(cacheType, targetHost, targetType, target);
+        Date lastOccurrence;
+        synchronized (entries) {
+            lastOccurrence = entries.get(key);
+        }
+        if (lastOccurrence == null) {
+            try (QueryManager qm = new QueryManager()) {
+                final ComponentAnalysisCache cac = qm.getComponentAnalysisCache(cacheType, targetHost, targetType, target);
+                lastOccurrence = cac != null ? cac.getLastOccurrence() : NEVER;
+            }
+            synchronized (entries) {
+                entries.putIfAbsent(key, lastOccurrence);
+            }
+        }
+        return lastOccurrence == NEVER ? null : lastOccurrence;
+    }
+
+    /**
+     * Determines if the target was analyzed within the specified validity period.
+     * @param cacheType the type of cache
+     * @param targetHost the host of the analyzer
+     * @param targetType the type of target (i.e. the source of the analyzer)
+     * @param target the target
+     * @param validityPeriod the validity period in milliseconds
+     * @return true if the cache is current, false if not
+     */
+    public boolean isCurrent(final ComponentAnalysisCache.CacheType cacheType, final String targetHost,
+                             final String targetType, final String target, final long validityPeriod) {
+        final Date lastOccurrence = getLastOccurrence(cacheType, targetHost, targetType, target);
+        if (lastOccurrence == null) {
+            return false;
+        }
+        final long now = System.currentTimeMillis();
+        return now > lastOccurrence.getTime() && now - lastOccurrence.getTime() <= validityPeriod;
+    }
+
+    /**
+     * Records that the target was analyzed. The update is visible immediately and is written to
+     * the database on the next flush.
+     * @param cacheType the type of cache
+     * @param targetHost the host of the analyzer
+     * @param targetType the type of target (i.e. the source of the analyzer)
+     * @param target the target
+     * @param lastOccurrence the date the target was analyzed
+     */
+    public void update(final ComponentAnalysisCache.CacheType cacheType, final String targetHost,
+                       final String targetType, final String target, final Date lastOccurrence) {
+        final Key key = new Key(cacheType, targetHost, targetType, target);
+        final boolean flush;
+        synchronized (entries) {
+            entries.put(key, lastOccurrence);
+            pending.put(key, lastOccurrence);
+            flush = pending.size() >= FLUSH_THRESHOLD;
+        }
+        if (flush) {
+            flush();
+        }
+    }
+
+    /**
+     * Invalidates the cache entries of the specified targets, so that they are analyzed again
+     * regardless of when they were last analyzed. The invalidation is written to the database
+     * on the next flush.
+     * @param cacheType the type of cache
+     * @param targetHost the host of the analyzer
+     * @param targetType the type of target (i.e. the source of the analyzer)
+     * @param targets the targets to invalidate
+     */
+    public void invalidate(final ComponentAnalysisCache.CacheType cacheType, final String targetHost,
+                           final String targetType, final Collection<String> targets) {
+        for (final String target: targets) {
+            update(cacheType, targetHost, targetType, target, NEVER);
+        }
+    }
+
+    /**
+     * Writes all pending updates to the database, using one transaction per cache type, host and target type.
+     */
+    public synchronized void flush() {
+        final Map<Key, Date> updates;
+        synchronized (entries) {
+            if (pending.isEmpty()) {
+                return;
+            }
+            updates = pending;
+            pending = new HashMap<>();
+        }
+        final Map<Key, Map<String, Date>> groups = new HashMap<>();
+        for (final Map.Entry<Key, Date> entry: updates.entrySet()) {
+            final Key key = entry.getKey();
+            groups.computeIfAbsent(new Key(key.cacheType, key.targetHost, key.targetType, null), k -> new HashMap<>())
+                    .put(key.target, entry.getValue());
+        }
+        LOGGER.debug("Flushing " + updates.size() + " component analysis cache update(s)");
+        try (QueryManager qm = new QueryManager()) {
+            for (final Map.Entry<Key, Map<String, Date>> group: groups.entrySet()) {
+                final Key key = group.getKey();
+                qm.updateComponentAnalysisCache(key.cacheType, key.targetHost, key.targetType, group.getValue());
+            }
+        }
+    }
+
+    /**
+     * Discards all cached entries and pending updates without writing them to the database.
+     * Used when the underlying database is reset, such as between unit tests.
+     */
+    public synchronized void clear() {
+        synchronized (entries) {
+            entries.clear();
+            pending = new HashMap<>();
+        }
+    }
+
+    private static final class Key {
+        private final ComponentAnalysisCache.CacheType cacheType;
+        private final String targetHost;
+        private final String targetType;
+        private final String target;
+
+        private Key(final ComponentAnalysisCache.CacheType cacheType, final String targetHost,
+                    final String targetType, final String target) {
+            this.cacheType = cacheType;
+            this.targetHost = targetHost;
+            this.targetType = targetType;
+            this.target = target;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            final Key key = (Key) o;
+            return cacheType == key.cacheType && Objects.equals(targetHost, key.targetHost)
+                    && Objects.equals(targetType, key.targetType) && Objects.equals(target, key.target);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(cacheType, targetHost, targetType, target);
+        }
+    }
+}
@@ -30,6 +30,7 @@ import org.dependencytrack.auth.Permissions;
 import org.dependencytrack.event.IndexEvent;
 import org.dependencytrack.model.Component;
 import org.dependencytrack.model.ConfigPropertyConstants;
+import org.dependencytrack.model.Cpe;
 import org.dependencytrack.model.License;
 import org.dependencytrack.model.NotificationPublisher;
 import org.dependencytrack.model.Project;
@@ -84,6 +85,10 @@ public class DefaultObjectGenerator implements ServletContextListener {
             LOGGER.info("Dispatching event to reindex vulnerabilities");
             Event.dispatch(new IndexEvent(IndexEvent.Action.REINDEX, Vulnerability.class));
         }
+        if (!IndexManager.exists(IndexManager.IndexType.CPE)) {
+            LOGGER.info("Dispatching event to reindex CPEs");
+            Event.dispatch(new IndexEvent(IndexEvent.Action.REINDEX, Cpe.class));
+        }
 
         loadDefaultPermissions();
         loadDefaultPersonas();
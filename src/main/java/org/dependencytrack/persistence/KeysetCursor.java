@@ -0,0 +1,106 @@
+/*
+ * This file is part of Dependency-Track.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * Copyright (c) Steve Springett. All Rights Reserved.
+ */
+package org.dependencytrack.persistence;
+
+import org.dependencytrack.model.ConfigPropertyConstants;
+import java.util.Collections;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.ToLongFunction;
+
+/**
+ * A cursor which pages through all objects of a class using keyset pagination
+ * ({@code WHERE id > :last ORDER BY id}). Intended for sweeps through the entire portfolio,
+ * such as portfolio analysis, metrics and re-indexing. Optionally, only the fields a sweep
+ * needs are fetched.
+ *
+ * @param <T> the type of object
+ * @author Steve Springett
+ * @since 3.7.0
+ */
+public class KeysetCursor<T> {
+
+    private final QueryManager qm;
+    private final Class<T> clazz;
+    private final ToLongFunction<T> idFunction;
+    private final int pageSize;
+    private final String[] fields;
+    private long lastId = 0;
+    private List<T> nextPage;
+
+    /**
+     * Creates a cursor using the page size configured for portfolio sweeps.
+     * @param qm the QueryManager to use
+     * @param clazz the class of objects to page through
+     * @param idFunction returns the id of an object
+     * @param fields the fields to fetch, or none to fetch the default fetch group of the class
+     */
+    public KeysetCursor(final QueryManager qm, final Class<T> clazz, final ToLongFunction<T> idFunction, final String... fields) {
+        this(qm, clazz, idFunction, qm.getIntegerProperty(ConfigPropertyConstants.GENERAL_SWEEP_PAGE_SIZE), fields);
+    }
+
+    /**
+     * Creates a cursor.
+     * @param qm the QueryManager to use
+     * @param clazz the class of objects to page through
+     * @param idFunction returns the id of an object
+     * @param pageSize the maximum number of objects per page
+     * @param fields the fields to fetch, or none to fetch the default fetch group of the class
+     */
+    public KeysetCursor(final QueryManager qm, final Class<T> clazz, final ToLongFunction<T> idFunction,
+                        final int pageSize, final String... fields) {
+        this.qm = qm;
+        this.clazz = clazz;
+        this.idFunction = idFunction;
+        this.pageSize = pageSize > 0 ? pageSize : Integer.parseInt(ConfigPropertyConstants.GENERAL_SWEEP_PAGE_SIZE.getDefaultPropertyValue());
+        this.fields = fields;
+    }
+
+    /**
+     * Returns true if there are more objects to page through.
+     */
+    public boolean hasNext() {
+        if (nextPage == null) {
+            nextPage = qm.getObjectsAfter(clazz, lastId, pageSize, fields);
+        }
+        return !nextPage.isEmpty();
+    }
+
+    /**
+     * Returns the next page of objects.
+     * @throws NoSuchElementException if there are no more objects
+     */
+    public List<T> next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        final List<T> page = nextPage;
+        lastId = idFunction.applyAsLong(page.get(page.size() - 1));
+        // A page smaller than the page size is the last one. Avoids querying for an empty page.
+        nextPage = page.size() < pageSize ? Collections.emptyList() : null;
+        return page;
+    }
+
+    /**
+     * Returns the number of objects per page.
+     */
+    public int getPageSize() {
+        return pageSize;
+    }
+}
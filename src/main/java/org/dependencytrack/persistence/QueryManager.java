@@ -19,6 +19,7 @@
 package org.dependencytrack.persistence;
 
 import alpine.event.framework.Event;
+import alpine.logging.Logger;
 import alpine.model.ConfigProperty;
 import alpine.notification.NotificationLevel;
 import alpine.persistence.AlpineQueryManager;
@@ -27,7 +28,9 @@ import alpine.resources.AlpineRequest;
 import alpine.util.BooleanUtil;
 import com.github.packageurl.MalformedPackageURLException;
 import com.github.packageurl.PackageURL;
+import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.commons.collections4.CollectionUtils;
+import org.apache.commons.collections4.ListUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.datanucleus.api.jdo.JDOQuery;
 import org.dependencytrack.event.IndexEvent;
@@ -40,6 +43,7 @@ import org.dependencytrack.model.ComponentAnalysisCache;
 import org.dependencytrack.model.ComponentMetrics;
 import org.dependencytrack.model.ConfigPropertyConstants;
 import org.dependencytrack.model.Cpe;
+import org.dependencytrack.model.CpeReference;
 import org.dependencytrack.model.Cwe;
 import org.dependencytrack.model.Dependency;
 import org.dependencytrack.model.DependencyMetrics;
@@ -54,6 +58,7 @@ import org.dependencytrack.model.ProjectProperty;
 import org.dependencytrack.model.Repository;
 import org.dependencytrack.model.RepositoryMetaComponent;
 import org.dependencytrack.model.RepositoryType;
+import org.dependencytrack.model.SyncState;
 import org.dependencytrack.model.Tag;
 import org.dependencytrack.model.Vulnerability;
 import org.dependencytrack.model.VulnerabilityMetrics;
@@ -61,16 +66,24 @@ import org.dependencytrack.model.VulnerableSoftware;
 import org.dependencytrack.notification.NotificationScope;
 import org.dependencytrack.util.NotificationUtil;
 import javax.jdo.FetchPlan;
+import javax.jdo.JDOException;
 import javax.jdo.PersistenceManager;
 import javax.jdo.Query;
+import javax.jdo.Transaction;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.TreeSet;
 import java.util.UUID;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.stream.Collectors;
 
 /**
@@ -83,6 +96,21 @@ import java.util.stream.Collectors;
 @SuppressWarnings({"UnusedReturnValue", "unused"})
 public class QueryManager extends AlpineQueryManager {
 
+    private static final Logger LOGGER = Logger.getLogger(QueryManager.class);
+
+    /**
+     * Vulnerable software is identified by its CPE and version range rather than by a unique constraint.
+     * Its creation is therefore serialized per CPE (by the hash of the CPE), so that concurrent
+     * synchronizations do not each create the same vulnerable software, while synchronizations of
+     * different software proceed in parallel.
+     */
+    private static final ReentrantLock[] VULNERABLE_SOFTWARE_LOCKS = new ReentrantLock[64];
+    static {
+        for (int i = 0; i < VULNERABLE_SOFTWARE_LOCKS.length; i++) {
+            VULNERABLE_SOFTWARE_LOCKS[i] = new ReentrantLock();
+        }
+    }
+
     /**
      * Default constructor.
      */
@@ -643,6 +671,87 @@ public class QueryManager extends AlpineQueryManager {
         return getComponents(false);
     }
 
+    /**
+     * Returns up to the specified number of objects having an id greater than the specified id,
+     * ordered by id. Unlike offset pagination, the cost of retrieving a page does not depend on
+     * how many pages precede it, and objects inserted while paging are neither skipped nor repeated.
+     * @param clazz the class of objects to retrieve
+     * @param lastId the id of the last object of the previous page, or 0 for the first page
+     * @param pageSize the maximum number of objects to return
+     * @param fields the fields to fetch, or none to fetch the default fetch group of the class
+     * @param <T> the type of object
+     * @return a List of objects ordered by id
+     * @since 3.7.0
+     */
+    @SuppressWarnings("unchecked")
+    public <T> List<T> getObjectsAfter(final Class<T> clazz, final long lastId, final int pageSize, final String... fields) {
+        final Query query = pm.newQuery(clazz, "id > :lastId");
+        query.setOrdering("id asc");
+        query.setRange(0, pageSize);
+        if (fields != null && fields.length > 0) {
+            final String fetchGroupName = clazz.getSimpleName() + "(" + String.join(",", fields) + ")";
+            pm.getFetchGroup(clazz, fetchGroupName).addMembers(fields);
+            query.getFetchPlan().setGroup(fetchGroupName);
+        }
+        return (List<T>) query.execute(lastId);
+    }
+
+    /**
+     * Returns the components having a CPE of one of the specified products, regardless of version.
+     * Both CPE 2.2 (URI) and CPE 2.3 (formatted string) bindings are matched. The products are
+     * queried in batches, rather than one at a time.
+     * @param products the part, vendor and product of each CPE
+     * @return a List of Components
+     * @since 3.7.0
+     */
+    @SuppressWarnings("unchecked")
+    public List<Component> getComponentsByCpe(final Collection<List<String>> products) {
+        final List<Component> components = new ArrayList<>();
+        // Each product takes three parameters
+        for (final List<List<String>> partition: ListUtils.partition(new ArrayList<>(products), 300)) {
+            final List<String> filter = new ArrayList<>();
+            final Map<String, Object> params = new HashMap<>();
+            for (int i = 0; i < partition.size(); i++) {
+                final List<String> product = partition.get(i);
+                // The trailing separator prevents matching products sharing a prefix (i.e. foo and foo_bar).
+                // A CPE 2.2 URI may end with the product, so it is also matched as a whole.
+                final String cpe22 = "cpe:/" + product.get(0) + ":" + product.get(1) + ":" + product.get(2);
+                filter.add("cpe.startsWith(:cpe23_" + i + ") || cpe.startsWith(:cpe22_" + i + ") || cpe == :cpe22Product_" + i);
+                params.put("cpe23_" + i, "cpe:2.3:" + product.get(0) + ":" + product.get(1) + ":" + product.get(2) + ":");
+                params.put("cpe22_" + i, cpe22 + ":");
+                params.put("cpe22Product_" + i, cpe22);
+            }
+            final Query query = pm.newQuery(Component.class, String.join(" || ", filter));
+            components.addAll((List<Component>) query.executeWithMap(params));
+        }
+        return components;
+    }
+
+    /**
+     * Returns the components having a Package URL of the specified type, namespace and name,
+     * regardless of version.
+     * @param type the type of package
+     * @param namespace the namespace of the package, or null
+     * @param name the name of the package
+     * @return a List of Components
+     * @since 3.7.0
+     */
+    @SuppressWarnings("unchecked")
+    public List<Component> getComponentsByPackage(final String type, final String namespace, final String name) {
+        // The Package URL is stored as a converted value which cannot be queried on. Narrow down
+        // the candidates using the indexed component name and match the Package URL of each.
+        final Query query = pm.newQuery(Component.class, "name == :name && purl != null");
+        final List<Component> components = new ArrayList<>();
+        for (final Component component: (List<Component>) query.execute(name)) {
+            final PackageURL purl = component.getPurl();
+            if (type.equals(purl.getType()) && name.equals(purl.getName())
+                    && (namespace == null ? purl.getNamespace() == null : namespace.equals(purl.getNamespace()))) {
+                components.add(component);
+            }
+        }
+        return components;
+    }
+
     /**
      * Returns a list of all components.
      * This method if designed NOT to provide paginated results.
@@ -895,29 +1004,7 @@ public class QueryManager extends AlpineQueryManager {
             transientVulnerability.setCwe(getCweById(transientVulnerability.getCwe().getCweId()));
         }
         if (vulnerability != null) {
-            vulnerability.setCreated(transientVulnerability.getCreated());
-            vulnerability.setPublished(transientVulnerability.getPublished());
-            vulnerability.setUpdated(transientVulnerability.getUpdated());
-            vulnerability.setVulnId(transientVulnerability.getVulnId());
-            vulnerability.setSource(transientVulnerability.getSource());
-            vulnerability.setCredits(transientVulnerability.getCredits());
-            vulnerability.setVulnerableVersions(transientVulnerability.getVulnerableVersions());
-            vulnerability.setPatchedVersions(transientVulnerability.getPatchedVersions());
-            vulnerability.setDescription(transientVulnerability.getDescription());
-            vulnerability.setTitle(transientVulnerability.getTitle());
-            vulnerability.setSubTitle(transientVulnerability.getSubTitle());
-            vulnerability.setReferences(transientVulnerability.getReferences());
-            vulnerability.setRecommendation(transientVulnerability.getRecommendation());
-            vulnerability.setSeverity(transientVulnerability.getSeverity());
-            vulnerability.setCwe(transientVulnerability.getCwe());
-            vulnerability.setCvssV2Vector(transientVulnerability.getCvssV2Vector());
-            vulnerability.setCvssV2BaseScore(transientVulnerability.getCvssV2BaseScore());
-            vulnerability.setCvssV2ImpactSubScore(transientVulnerability.getCvssV2ImpactSubScore());
-            vulnerability.setCvssV2ExploitabilitySubScore(transientVulnerability.getCvssV2ExploitabilitySubScore());
-            vulnerability.setCvssV3Vector(transientVulnerability.getCvssV3Vector());
-            vulnerability.setCvssV3BaseScore(transientVulnerability.getCvssV3BaseScore());
-            vulnerability.setCvssV3ImpactSubScore(transientVulnerability.getCvssV3ImpactSubScore());
-            vulnerability.setCvssV3ExploitabilitySubScore(transientVulnerability.getCvssV3ExploitabilitySubScore());
+            applyChanges(vulnerability, transientVulnerability);
             if (transientVulnerability.getVulnerableSoftware() != null) {
                 vulnerability.setVulnerableSoftware(transientVulnerability.getVulnerableSoftware());
             }
@@ -929,6 +1016,35 @@ public class QueryManager extends AlpineQueryManager {
         return null;
     }
 
+    /**
+     * Copies the attributes of a transient vulnerability (except its vulnerable software) to a persistent one.
+     */
+    private static void applyChanges(final Vulnerability target, final Vulnerability source) {
+        target.setCreated(source.getCreated());
+        target.setPublished(source.getPublished());
+        target.setUpdated(source.getUpdated());
+        target.setVulnId(source.getVulnId());
+        target.setSource(source.getSource());
+        target.setCredits(source.getCredits());
+        target.setVulnerableVersions(source.getVulnerableVersions());
+        target.setPatchedVersions(source.getPatchedVersions());
+        target.setDescription(source.getDescription());
+        target.setTitle(source.getTitle());
+        target.setSubTitle(source.getSubTitle());
+        target.setReferences(source.getReferences());
+        target.setRecommendation(source.getRecommendation());
+        target.setSeverity(source.getSeverity());
+        target.setCwe(source.getCwe());
+        target.setCvssV2Vector(source.getCvssV2Vector());
+        target.setCvssV2BaseScore(source.getCvssV2BaseScore());
+        target.setCvssV2ImpactSubScore(source.getCvssV2ImpactSubScore());
+        target.setCvssV2ExploitabilitySubScore(source.getCvssV2ExploitabilitySubScore());
+        target.setCvssV3Vector(source.getCvssV3Vector());
+        target.setCvssV3BaseScore(source.getCvssV3BaseScore());
+        target.setCvssV3ImpactSubScore(source.getCvssV3ImpactSubScore());
+        target.setCvssV3ExploitabilitySubScore(source.getCvssV3ExploitabilitySubScore());
+    }
+
     /**
      * Synchronizes a vulnerability. Method first checkes to see if the vulnerability already
      * exists and if so, updates the vulnerability. If the vulnerability does not already exist,
@@ -945,6 +1061,215 @@ public class QueryManager extends AlpineQueryManager {
         return result;
     }
 
+    /**
+     * Determines if synchronizing the specified vulnerability would create it, or update an existing
+     * vulnerability having a different last updated date.
+     * @param vulnerability the transient vulnerability about to be synchronized
+     * @return true if the vulnerability is new or changed, false if not
+     * @since 3.7.0
+     */
+    public boolean isNewOrChanged(Vulnerability vulnerability) {
+        final Vulnerability existing = getVulnerabilityByVulnId(vulnerability.getSource(), vulnerability.getVulnId());
+        if (existing == null) {
+            return true;
+        }
+        final Date updated = existing.getUpdated();
+        if (updated == null || vulnerability.getUpdated() == null) {
+            return updated != vulnerability.getUpdated();
+        }
+        return updated.getTime() != vulnerability.getUpdated().getTime();
+    }
+
+    /**
+     * Synchronizes a batch of transient vulnerabilities, together with their vulnerable software, in a
+     * single transaction. Existing vulnerabilities and vulnerable software are looked up for the entire
+     * batch at once rather than individually. The CWE of each vulnerability, if any, must already be
+     * persistent and managed by this QueryManager.
+     * @param vulnerabilities the transient vulnerabilities to synchronize, all of the same source
+     * @param commitIndex specifies if the search index should be committed (an expensive operation)
+     * @return the ids of the vulnerabilities which were created, or updated with a different last updated date
+     * @since 3.7.0
+     */
+    public Set<Long> synchronizeVulnerabilities(final List<Vulnerability> vulnerabilities, final boolean commitIndex) {
+        return synchronizeVulnerabilities(vulnerabilities, commitIndex, new HashSet<>());
+    }
+
+    /**
+     * Synchronizes a batch of transient vulnerabilities, together with their vulnerable software, in a
+     * single transaction. The vulnerable software of existing vulnerabilities is reconciled rather than
+     * replaced, so that only the links which were added or removed are written. Vulnerable software
+     * which does not exist yet is created beforehand, so that it is only created once by concurrent
+     * synchronizations. Should a concurrent synchronization create one of the vulnerabilities first, the
+     * batch is synchronized once more, updating the vulnerability instead.
+     * @param vulnerabilities the transient vulnerabilities to synchronize, all of the same source
+     * @param commitIndex specifies if the search index should be committed (an expensive operation)
+     * @param affectedProducts receives the part, vendor and product of the vulnerable software which
+     *                         was linked to or unlinked from a vulnerability
+     * @return the ids of the vulnerabilities which were created, or updated with a different last updated date
+     * @since 3.7.0
+     */
+    public Set<Long> synchronizeVulnerabilities(final List<Vulnerability> vulnerabilities, final boolean commitIndex,
+                                                final Set<List<String>> affectedProducts) {
+        if (vulnerabilities.isEmpty()) {
+            return new HashSet<>();
+        }
+        final Map<List<String>, VulnerableSoftware> vulnerableSoftware = getOrCreateVulnerableSoftware(vulnerabilities);
+        Set<Long> changed;
+        try {
+            changed = synchronizeVulnerabilities(vulnerabilities, vulnerableSoftware, affectedProducts);
+        } catch (JDOException e) {
+            // Vulnerabilities are unique by source and vulnId. Those created by a concurrent synchronization
+            // in the meantime are found, and updated, when the batch is synchronized again.
+            LOGGER.debug("Synchronizing " + vulnerabilities.size() + " vulnerabilities failed. Retrying", e);
+            changed = synchronizeVulnerabilities(vulnerabilities, vulnerableSoftware, affectedProducts);
+        }
+        commitSearchIndex(commitIndex, Vulnerability.class);
+        return changed;
+    }
+
+    private Set<Long> synchronizeVulnerabilities(final List<Vulnerability> vulnerabilities,
+                                                 final Map<List<String>, VulnerableSoftware> vulnerableSoftware,
+                                                 final Set<List<String>> affectedProducts) {
+        final Set<Long> changed = new HashSet<>();
+        final List<Vulnerability> created = new ArrayList<>();
+        final List<Vulnerability> updated = new ArrayList<>();
+        final Vulnerability.Source source = Vulnerability.Source.valueOf(vulnerabilities.get(0).getSource());
+        final Map<String, Vulnerability> existingVulnerabilities = new HashMap<>();
+        for (final Vulnerability vulnerability: getVulnerabilitiesByVulnId(source,
+                vulnerabilities.stream().map(Vulnerability::getVulnId).collect(Collectors.toSet()))) {
+            existingVulnerabilities.put(vulnerability.getVulnId(), vulnerability);
+        }
+        final Transaction trx = pm.currentTransaction();
+        try {
+            trx.begin();
+            for (final Vulnerability transientVulnerability: vulnerabilities) {
+                List<VulnerableSoftware> vsList = null;
+                if (transientVulnerability.getVulnerableSoftware() != null) {
+                    vsList = new ArrayList<>();
+                    for (final VulnerableSoftware transientVs: transientVulnerability.getVulnerableSoftware()) {
+                        final VulnerableSoftware vs = vulnerableSoftware.get(getVulnerableSoftwareKey(transientVs));
+                        if (!vsList.contains(vs)) {
+                            vsList.add(vs);
+                        }
+                    }
+                }
+                final Vulnerability existing = existingVulnerabilities.get(transientVulnerability.getVulnId());
+                if (existing != null) {
+                    final Date lastUpdated = existing.getUpdated();
+                    final boolean isChanged = (lastUpdated == null || transientVulnerability.getUpdated() == null)
+                            ? lastUpdated != transientVulnerability.getUpdated()
+                            : lastUpdated.getTime() != transientVulnerability.getUpdated().getTime();
+                    applyChanges(existing, transientVulnerability);
+                    if (vsList != null) {
+                        reconcileVulnerableSoftware(existing, vsList, affectedProducts);
+                    }
+                    updated.add(existing);
+                    if (isChanged) {
+                        changed.add(existing.getId());
+                    }
+                } else {
+                    transientVulnerability.setVulnerableSoftware(vsList);
+                    if (vsList != null) {
+                        vsList.forEach(vs -> addProduct(affectedProducts, vs));
+                    }
+                    final Vulnerability result = pm.makePersistent(transientVulnerability);
+                    existingVulnerabilities.put(result.getVulnId(), result);
+                    created.add(result);
+                }
+            }
+            trx.commit();
+        } finally {
+            if (trx.isActive()) {
+                trx.rollback();
+            }
+        }
+        for (final Vulnerability vulnerability: created) {
+            changed.add(vulnerability.getId());
+            Event.dispatch(new IndexEvent(IndexEvent.Action.CREATE, pm.detachCopy(vulnerability)));
+        }
+        for (final Vulnerability vulnerability: updated) {
+            Event.dispatch(new IndexEvent(IndexEvent.Action.UPDATE, pm.detachCopy(vulnerability)));
+        }
+        return changed;
+    }
+
+    /**
+     * Returns the persistent vulnerable software of a batch of transient vulnerabilities, keyed by CPE and
+     * version range. Vulnerable software which does not exist yet is created and committed while holding
+     * the locks of its CPEs, after looking it up once more, so that it is created only once.
+     * @param vulnerabilities the transient vulnerabilities
+     * @return a Map of the persistent vulnerable software
+     */
+    private Map<List<String>, VulnerableSoftware> getOrCreateVulnerableSoftware(final List<Vulnerability> vulnerabilities) {
+        final Map<List<String>, VulnerableSoftware> requested = new HashMap<>();
+        for (final Vulnerability vulnerability: vulnerabilities) {
+            if (vulnerability.getVulnerableSoftware() != null) {
+                for (final VulnerableSoftware vs: vulnerability.getVulnerableSoftware()) {
+                    requested.putIfAbsent(getVulnerableSoftwareKey(vs), vs);
+                }
+            }
+        }
+        final Map<List<String>, VulnerableSoftware> result = new HashMap<>();
+        addVulnerableSoftware(result, requested.keySet());
+        final Set<Integer> stripes = new TreeSet<>();
+        for (final List<String> key: requested.keySet()) {
+            if (!result.containsKey(key)) {
+                stripes.add(getVulnerableSoftwareStripe(key.get(0)));
+            }
+        }
+        if (stripes.isEmpty()) {
+            return result;
+        }
+        // Locks are always acquired in the same order, so that concurrent synchronizations can not deadlock
+        for (final int stripe: stripes) {
+            VULNERABLE_SOFTWARE_LOCKS[stripe].lock();
+        }
+        try {
+            addVulnerableSoftware(result, requested.keySet());
+            final Transaction trx = pm.currentTransaction();
+            try {
+                trx.begin();
+                for (final Map.Entry<List<String>, VulnerableSoftware> entry: requested.entrySet()) {
+                    if (!result.containsKey(entry.getKey())) {
+                        result.put(entry.getKey(), pm.makePersistent(entry.getValue()));
+                    }
+                }
+                trx.commit();
+            } finally {
+                if (trx.isActive()) {
+                    trx.rollback();
+                }
+            }
+        } finally {
+            for (final int stripe: stripes) {
+                VULNERABLE_SOFTWARE_LOCKS[stripe].unlock();
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Adds the existing vulnerable software having one of the specified keys, which is not already present, to the map.
+     */
+    private void addVulnerableSoftware(final Map<List<String>, VulnerableSoftware> map, final Set<List<String>> keys) {
+        final Set<String> cpes = new HashSet<>();
+        for (final List<String> key: keys) {
+            if (!map.containsKey(key)) {
+                cpes.add(key.get(0));
+            }
+        }
+        for (final VulnerableSoftware vs: getVulnerableSoftwareByCpe23(cpes)) {
+            final List<String> key = getVulnerableSoftwareKey(vs);
+            if (keys.contains(key)) {
+                map.putIfAbsent(key, vs);
+            }
+        }
+    }
+
+    private static int getVulnerableSoftwareStripe(final String cpe23) {
+        return cpe23 == null ? 0 : (cpe23.hashCode() & Integer.MAX_VALUE) % VULNERABLE_SOFTWARE_LOCKS.length;
+    }
+
     /**
      * Returns a vulnerability by it's name (i.e. CVE-2017-0001) and source.
      * @param source the source of the vulnerability
@@ -968,6 +1293,46 @@ public class QueryManager extends AlpineQueryManager {
         return getVulnerabilityByVulnId(source.name(), vulnId);
     }
 
+    /**
+     * Returns vulnerabilities by their names (i.e. CVE-2017-0001) and source. Intended for
+     * resolving all of the vulnerabilities reported for a batch of components at once.
+     * @param source the source of the vulnerabilities
+     * @param vulnIds the names of the vulnerabilities
+     * @return a List of matching Vulnerability objects
+     */
+    @SuppressWarnings("unchecked")
+    public List<Vulnerability> getVulnerabilitiesByVulnId(Vulnerability.Source source, Collection<String> vulnIds) {
+        final List<Vulnerability> vulnerabilities = new ArrayList<>();
+        if (CollectionUtils.isEmpty(vulnIds)) {
+            return vulnerabilities;
+        }
+        // Keep the number of parameters in the IN clause within the limits of all supported databases
+        for (final List<String> partition: ListUtils.partition(new ArrayList<>(vulnIds), 1000)) {
+            final Query query = pm.newQuery(Vulnerability.class, "source == :source && :vulnIds.contains(vulnId)");
+            vulnerabilities.addAll((List<Vulnerability>) query.execute(source.name(), partition));
+        }
+        return vulnerabilities;
+    }
+
+    /**
+     * Returns the date each vulnerability of the specified source was last updated, using a single
+     * query which only fetches the names and dates. Intended for skipping records of a data feed
+     * which have not changed since they were last synchronized.
+     * @param source the source of the vulnerabilities
+     * @return a Map of vulnId to the last updated date (in milliseconds since the epoch)
+     * @since 3.7.0
+     */
+    @SuppressWarnings("unchecked")
+    public Map<String, Long> getVulnerabilityLastUpdated(Vulnerability.Source source) {
+        final Query query = pm.newQuery(Vulnerability.class, "source == :source && updated != null");
+        query.setResult("vulnId, updated");
+        final Map<String, Long> lastUpdated = new HashMap<>();
+        for (final Object[] row: (List<Object[]>) query.execute(source.name())) {
+            lastUpdated.put((String) row[0], ((java.util.Date) row[1]).getTime());
+        }
+        return lastUpdated;
+    }
+
     /**
      * Returns vulnerabilities for the specified npm module
      * @param module the NPM module to query on
@@ -998,6 +1363,92 @@ public class QueryManager extends AlpineQueryManager {
         }
     }
 
+    /**
+     * Adds vulnerabilities to components in a single transaction. Associations which already
+     * exist are left untouched.
+     * @param vulnerabilities the vulnerabilities to add
+     * @param components the components affected by the vulnerabilities
+     * @return the ids of the vulnerabilities which were not previously associated, keyed by the id of the component
+     * @since 3.7.0
+     */
+    public Map<Long, Set<Long>> addVulnerabilities(Collection<Vulnerability> vulnerabilities, Collection<Component> components) {
+        final Map<Long, Set<Long>> findings = new HashMap<>();
+        if (CollectionUtils.isEmpty(vulnerabilities) || CollectionUtils.isEmpty(components)) {
+            return findings;
+        }
+        final Set<Long> vulnerabilityIds = vulnerabilities.stream().map(Vulnerability::getId).collect(Collectors.toSet());
+        for (final Component component: components) {
+            findings.computeIfAbsent(component.getId(), k -> new HashSet<>()).addAll(vulnerabilityIds);
+        }
+        return addVulnerabilities(findings);
+    }
+
+    /**
+     * Adds a batch of findings in a single transaction. Which of the findings are new is determined
+     * within the transaction using a single query (per 1000 components), and the new associations of
+     * each component are inserted with a single batched statement. Associations which already exist
+     * are left untouched.
+     * @param findings the ids of the vulnerabilities to add, keyed by the id of the affected component
+     * @return the ids of the vulnerabilities which were not previously associated, keyed by the id of the component
+     * @since 3.7.0
+     */
+    @SuppressWarnings("unchecked")
+    public Map<Long, Set<Long>> addVulnerabilities(final Map<Long, ? extends Collection<Long>> findings) {
+        final Map<Long, Set<Long>> newFindings = new HashMap<>();
+        for (final Map.Entry<Long, ? extends Collection<Long>> finding: findings.entrySet()) {
+            if (CollectionUtils.isNotEmpty(finding.getValue())) {
+                newFindings.put(finding.getKey(), new HashSet<>(finding.getValue()));
+            }
+        }
+        if (newFindings.isEmpty()) {
+            return newFindings;
+        }
+        final Transaction trx = pm.currentTransaction();
+        try {
+            trx.begin();
+            for (final List<Long> partition: ListUtils.partition(new ArrayList<>(newFindings.keySet()), 1000)) {
+                final Query query = pm.newQuery(Component.class, ":ids.contains(id) && vulnerabilities.contains(vulnerability)");
+                query.declareVariables(Vulnerability.class.getName() + " vulnerability");
+                query.setResult("id, vulnerability.id");
+                for (final Object[] existing: (List<Object[]>) query.execute(partition)) {
+                    final Set<Long> ids = newFindings.get(((Number) existing[0]).longValue());
+                    if (ids != null) {
+                        ids.remove(((Number) existing[1]).longValue());
+                    }
+                }
+            }
+            newFindings.values().removeIf(Set::isEmpty);
+            final Set<Long> vulnerabilityIds = new HashSet<>();
+            newFindings.values().forEach(vulnerabilityIds::addAll);
+            final Map<Long, Vulnerability> vulnerabilities = new HashMap<>();
+            for (final List<Long> partition: ListUtils.partition(new ArrayList<>(vulnerabilityIds), 1000)) {
+                final Query query = pm.newQuery(Vulnerability.class, ":ids.contains(id)");
+                for (final Vulnerability vulnerability: (List<Vulnerability>) query.execute(partition)) {
+                    vulnerabilities.put(vulnerability.getId(), vulnerability);
+                }
+            }
+            for (final List<Long> partition: ListUtils.partition(new ArrayList<>(newFindings.keySet()), 1000)) {
+                final Query query = pm.newQuery(Component.class, ":ids.contains(id)");
+                for (final Component component: (List<Component>) query.execute(partition)) {
+                    final List<Vulnerability> added = new ArrayList<>();
+                    for (final Long vulnerabilityId: newFindings.get(component.getId())) {
+                        final Vulnerability vulnerability = vulnerabilities.get(vulnerabilityId);
+                        if (vulnerability != null) {
+                            added.add(vulnerability);
+                        }
+                    }
+                    component.getVulnerabilities().addAll(added);
+                }
+            }
+            trx.commit();
+        } finally {
+            if (trx.isActive()) {
+                trx.rollback();
+            }
+        }
+        return newFindings;
+    }
+
     /**
      * Removes a vulnerability from a component.
      * @param vulnerability the vulnerabillity to remove
@@ -1049,6 +1500,108 @@ public class QueryManager extends AlpineQueryManager {
         return result;
     }
 
+    /**
+     * Synchronizes a batch of Cpes, along with their references, in a single transaction. Existing
+     * Cpes are looked up in bulk, and those whose title, CPE v2.2 string and references are
+     * unchanged are skipped. The references of changed Cpes are replaced.
+     * @param cpes the transient Cpe objects to synchronize
+     * @param commitIndex specifies if the search index should be committed (an expensive operation)
+     * @return the number of Cpes created or updated
+     * @since 3.7.0
+     */
+    @SuppressWarnings("unchecked")
+    public int synchronizeCpes(final List<Cpe> cpes, final boolean commitIndex) {
+        if (cpes.isEmpty()) {
+            return 0;
+        }
+        final Map<String, Cpe> existingCpes = new HashMap<>();
+        for (final Cpe cpe: getCpesBy23(cpes.stream().map(Cpe::getCpe23).collect(Collectors.toSet()))) {
+            existingCpes.put(cpe.getCpe23(), cpe);
+        }
+        final Map<Long, List<CpeReference>> existingReferences = new HashMap<>();
+        for (final List<Cpe> partition: ListUtils.partition(new ArrayList<>(existingCpes.values()), 1000)) {
+            final Query query = pm.newQuery(CpeReference.class, ":cpes.contains(cpe)");
+            query.setOrdering("id asc");
+            for (final CpeReference reference: (List<CpeReference>) query.execute(partition)) {
+                existingReferences.computeIfAbsent(reference.getCpe().getId(), k -> new ArrayList<>()).add(reference);
+            }
+        }
+        final List<Cpe> created = new ArrayList<>();
+        final List<Cpe> updated = new ArrayList<>();
+        final Transaction trx = pm.currentTransaction();
+        try {
+            trx.begin();
+            for (final Cpe cpe: cpes) {
+                final List<CpeReference> references = (cpe.getReferences() != null) ? new ArrayList<>(cpe.getReferences()) : new ArrayList<>();
+                Cpe existing = existingCpes.get(cpe.getCpe23());
+                if (existing == null) {
+                    cpe.setReferences(null);
+                    existing = pm.makePersistent(cpe);
+                    existingCpes.put(existing.getCpe23(), existing);
+                    created.add(existing);
+                } else {
+                    final List<CpeReference> currentReferences = existingReferences.getOrDefault(existing.getId(), Collections.emptyList());
+                    if (getCpeDigest(cpe, references).equals(getCpeDigest(existing, currentReferences))) {
+                        continue;
+                    }
+                    existing.setCpe22(cpe.getCpe22());
+                    existing.setTitle(cpe.getTitle());
+                    pm.deletePersistentAll(currentReferences);
+                    updated.add(existing);
+                }
+                for (final CpeReference reference: references) {
+                    reference.setCpe(existing);
+                }
+                pm.makePersistentAll(references);
+            }
+            trx.commit();
+        } finally {
+            if (trx.isActive()) {
+                trx.rollback();
+            }
+        }
+        for (final Cpe cpe: created) {
+            Event.dispatch(new IndexEvent(IndexEvent.Action.CREATE, pm.detachCopy(cpe)));
+        }
+        for (final Cpe cpe: updated) {
+            Event.dispatch(new IndexEvent(IndexEvent.Action.UPDATE, pm.detachCopy(cpe)));
+        }
+        commitSearchIndex(commitIndex, Cpe.class);
+        return created.size() + updated.size();
+    }
+
+    /**
+     * Returns a digest of the parts of a Cpe which are not derived from its CPE v2.3 string.
+     */
+    private static String getCpeDigest(final Cpe cpe, final Collection<CpeReference> references) {
+        final StringBuilder sb = new StringBuilder();
+        sb.append(cpe.getCpe22()).append('\u0000').append(cpe.getTitle());
+        for (final CpeReference reference: references) {
+            sb.append('\u0000').append(reference.getName()).append('\u0000').append(reference.getHref());
+        }
+        return DigestUtils.sha1Hex(sb.toString());
+    }
+
+    /**
+     * Returns CPEs by their CPE v2.3 strings.
+     * @param cpe23s the CPE 2.3 strings
+     * @return a List of matching CPE objects
+     * @since 3.7.0
+     */
+    @SuppressWarnings("unchecked")
+    public List<Cpe> getCpesBy23(final Collection<String> cpe23s) {
+        final List<Cpe> cpes = new ArrayList<>();
+        if (CollectionUtils.isEmpty(cpe23s)) {
+            return cpes;
+        }
+        // Keep the number of parameters in the IN clause within the limits of all supported databases
+        for (final List<String> partition: ListUtils.partition(new ArrayList<>(cpe23s), 1000)) {
+            final Query query = pm.newQuery(Cpe.class, ":cpe23s.contains(cpe23)");
+            cpes.addAll((List<Cpe>) query.execute(partition));
+        }
+        return cpes;
+    }
+
     /**
      * Returns a CPE by it's CPE v2.3 string.
      * @param cpe23 the CPE 2.3 string
@@ -1111,6 +1664,79 @@ public class QueryManager extends AlpineQueryManager {
         return singleResult(query.executeWithArray(cpe23, versionEndExcluding, versionEndIncluding, versionStartExcluding, versionStartIncluding));
     }
 
+    /**
+     * Returns the VulnerableSoftware objects having any of the specified CPE v2.3 strings, regardless
+     * of their version ranges.
+     * @param cpe23s the CPE 2.3 strings
+     * @return a List of VulnerableSoftware objects
+     * @since 3.7.0
+     */
+    @SuppressWarnings("unchecked")
+    public List<VulnerableSoftware> getVulnerableSoftwareByCpe23(final Collection<String> cpe23s) {
+        final List<VulnerableSoftware> result = new ArrayList<>();
+        for (final List<String> partition: ListUtils.partition(new ArrayList<>(cpe23s), 1000)) {
+            final Query query = pm.newQuery(VulnerableSoftware.class, ":cpe23s.contains(cpe23)");
+            result.addAll((List<VulnerableSoftware>) query.execute(partition));
+        }
+        return result;
+    }
+
+    /**
+     * Reconciles the vulnerable software of a persistent vulnerability with the desired vulnerable
+     * software. Links are compared by the identity of the vulnerable software (its CPE and version
+     * range), and only those which were added or removed are applied, leaving the others untouched.
+     * @param vulnerability the persistent vulnerability
+     * @param vsList the desired (persistent) vulnerable software
+     * @param affectedProducts receives the part, vendor and product of the links added or removed
+     */
+    private static void reconcileVulnerableSoftware(final Vulnerability vulnerability, final List<VulnerableSoftware> vsList,
+                                                    final Set<List<String>> affectedProducts) {
+        final List<VulnerableSoftware> current = vulnerability.getVulnerableSoftware();
+        if (current == null) {
+            vulnerability.setVulnerableSoftware(vsList);
+            vsList.forEach(vs -> addProduct(affectedProducts, vs));
+            return;
+        }
+        final Set<List<String>> desired = new HashSet<>();
+        for (final VulnerableSoftware vs: vsList) {
+            desired.add(getVulnerableSoftwareKey(vs));
+        }
+        final Set<List<String>> present = new HashSet<>();
+        final List<VulnerableSoftware> removed = new ArrayList<>();
+        for (final VulnerableSoftware vs: current) {
+            final List<String> key = getVulnerableSoftwareKey(vs);
+            if (desired.contains(key)) {
+                present.add(key);
+            } else {
+                removed.add(vs);
+            }
+        }
+        for (final VulnerableSoftware vs: removed) {
+            current.remove(vs);
+            addProduct(affectedProducts, vs);
+        }
+        for (final VulnerableSoftware vs: vsList) {
+            if (present.add(getVulnerableSoftwareKey(vs))) {
+                current.add(vs);
+                addProduct(affectedProducts, vs);
+            }
+        }
+    }
+
+    private static void addProduct(final Set<List<String>> products, final VulnerableSoftware vs) {
+        if (vs.getPart() != null && vs.getVendor() != null && vs.getProduct() != null) {
+            products.add(Arrays.asList(vs.getPart(), vs.getVendor(), vs.getProduct()));
+        }
+    }
+
+    /**
+     * Returns the attributes which identify a VulnerableSoftware, i.e. its CPE and version range.
+     */
+    private static List<String> getVulnerableSoftwareKey(final VulnerableSoftware vs) {
+        return Arrays.asList(vs.getCpe23(), vs.getVersionEndExcluding(), vs.getVersionEndIncluding(),
+                vs.getVersionStartExcluding(), vs.getVersionStartIncluding());
+    }
+
     /**
      * Returns a List of all VulnerableSoftware objects.
      * @return a List of all VulnerableSoftware objects
@@ -1161,6 +1787,52 @@ public class QueryManager extends AlpineQueryManager {
         return (List<VulnerableSoftware>)query.executeWithArray(part, vendor, product);
     }
 
+    /**
+     * Returns a List of all VulnerableSoftware objects having one of the specified parts, vendors
+     * and products. Callers are expected to filter the results on the exact part/vendor/product
+     * combinations they are interested in. The vulnerabilities of the VulnerableSoftware are fetched
+     * along with them, rather than lazily for each object.
+     * @return a List of matching VulnerableSoftware objects
+     * @since 3.7.0
+     */
+    @SuppressWarnings("unchecked")
+    public List<VulnerableSoftware> getAllVulnerableSoftware(final Collection<String> parts, final Collection<String> vendors,
+                                                             final Collection<String> products) {
+        final List<VulnerableSoftware> vulnerableSoftware = new ArrayList<>();
+        if (CollectionUtils.isEmpty(parts) || CollectionUtils.isEmpty(vendors) || CollectionUtils.isEmpty(products)) {
+            return vulnerableSoftware;
+        }
+        for (final List<String> partition: ListUtils.partition(new ArrayList<>(products), 1000)) {
+            final Query query = pm.newQuery(VulnerableSoftware.class);
+            query.setFilter(":parts.contains(part) && :vendors.contains(vendor) && :products.contains(product)");
+            query.getFetchPlan().addGroup(VulnerableSoftware.FetchGroup.VULNERABILITIES.name());
+            vulnerableSoftware.addAll((List<VulnerableSoftware>) query.execute(new ArrayList<>(parts), new ArrayList<>(vendors), partition));
+        }
+        return vulnerableSoftware;
+    }
+
+    /**
+     * Returns the part, vendor and product of the vulnerable software of the specified vulnerabilities.
+     * @param vulnerabilityIds the ids of the vulnerabilities
+     * @return a Set containing the part, vendor and product of each product
+     * @since 3.7.0
+     */
+    @SuppressWarnings("unchecked")
+    public Set<List<String>> getVulnerableProducts(final Collection<Long> vulnerabilityIds) {
+        final Set<List<String>> products = new HashSet<>();
+        for (final List<Long> partition: ListUtils.partition(new ArrayList<>(vulnerabilityIds), 1000)) {
+            final Query query = pm.newQuery(Vulnerability.class, ":ids.contains(id) && vulnerableSoftware.contains(vs)");
+            query.declareVariables(VulnerableSoftware.class.getName() + " vs");
+            query.setResult("distinct vs.part, vs.vendor, vs.product");
+            for (final Object[] product: (List<Object[]>) query.execute(partition)) {
+                if (product[0] != null && product[1] != null && product[2] != null) {
+                    products.add(Arrays.asList((String) product[0], (String) product[1], (String) product[2]));
+                }
+            }
+        }
+        return products;
+    }
+
     /**
      * Checks if the specified CWE id exists or not. If not, creates
      * a new CWE with the specified ID and name. In both cases, the
@@ -1403,6 +2075,54 @@ public class QueryManager extends AlpineQueryManager {
         return (List<Dependency>)query.execute(component);
     }
 
+    /**
+     * Returns the projects each of the specified components is a dependency of.
+     * @param componentIds the ids of the components
+     * @return the detached projects, keyed by the id of the component
+     * @since 3.7.0
+     */
+    @SuppressWarnings("unchecked")
+    public Map<Long, Set<Project>> getAffectedProjects(final Collection<Long> componentIds) {
+        final List<Object[]> rows = new ArrayList<>();
+        for (final List<Long> partition: ListUtils.partition(new ArrayList<>(componentIds), 1000)) {
+            final Query query = pm.newQuery(Dependency.class, ":ids.contains(component.id)");
+            query.setResult("component.id, project.id");
+            rows.addAll((List<Object[]>) query.execute(partition));
+        }
+        final Map<Long, Project> projects = new HashMap<>();
+        for (final Project project: detach(getObjectsById(Project.class,
+                rows.stream().map(row -> ((Number) row[1]).longValue()).collect(Collectors.toSet())))) {
+            projects.put(project.getId(), project);
+        }
+        final Map<Long, Set<Project>> affectedProjects = new HashMap<>();
+        for (final Object[] row: rows) {
+            final Project project = projects.get(((Number) row[1]).longValue());
+            if (project != null) {
+                affectedProjects.computeIfAbsent(((Number) row[0]).longValue(), k -> new HashSet<>()).add(project);
+            }
+        }
+        return affectedProjects;
+    }
+
+    /**
+     * Returns the objects of the specified class having one of the specified ids, using a single query
+     * (per 1000 ids). Ids of objects which do not exist are ignored.
+     * @param clazz the class of the objects
+     * @param ids the ids of the objects
+     * @param <T> the type of the objects
+     * @return a List of the persistent objects
+     * @since 3.7.0
+     */
+    @SuppressWarnings("unchecked")
+    public <T> List<T> getObjectsById(final Class<T> clazz, final Collection<Long> ids) {
+        final List<T> result = new ArrayList<>();
+        for (final List<Long> partition: ListUtils.partition(new ArrayList<>(ids), 1000)) {
+            final Query query = pm.newQuery(clazz, ":ids.contains(id)");
+            result.addAll((List<T>) query.execute(partition));
+        }
+        return result;
+    }
+
     /**
      * Deletes all dependencies for the specified Project.
      * @param project the Project to delete dependencies of
@@ -2411,6 +3131,27 @@ public class QueryManager extends AlpineQueryManager {
         return false;
     }
 
+    /**
+     * Returns the value of an integer config property, falling back to its default value if it has
+     * not been set or is invalid.
+     * @param configPropertyConstants the property to query
+     * @return the value of the property
+     * @since 3.7.0
+     */
+    public int getIntegerProperty(final ConfigPropertyConstants configPropertyConstants) {
+        final ConfigProperty property = getConfigProperty(
+                configPropertyConstants.getGroupName(), configPropertyConstants.getPropertyName()
+        );
+        if (property != null && StringUtils.isNotBlank(property.getPropertyValue())) {
+            try {
+                return Integer.parseInt(property.getPropertyValue().trim());
+            } catch (NumberFormatException e) {
+                LOGGER.warn("Invalid value for " + configPropertyConstants.getPropertyName() + ". Using default");
+            }
+        }
+        return Integer.parseInt(configPropertyConstants.getDefaultPropertyValue());
+    }
+
     public ComponentAnalysisCache getComponentAnalysisCache(ComponentAnalysisCache.CacheType cacheType, String targetHost, String targetType, String target) {
         final Query query = pm.newQuery(ComponentAnalysisCache.class,
                 "cacheType == :cacheType && targetHost == :targetHost && targetType == :targetType && target == :target");
@@ -2431,6 +3172,108 @@ public class QueryManager extends AlpineQueryManager {
         persist(cac);
     }
 
+    /**
+     * Returns the ComponentAnalysisCache entries for many targets of the same type and host at once.
+     * @param cacheType the type of cache
+     * @param targetHost the host of the analyzer
+     * @param targetType the type of target (i.e. the source of the analyzer)
+     * @param targets the targets to retrieve cache entries for
+     * @return a List of ComponentAnalysisCache objects
+     */
+    @SuppressWarnings("unchecked")
+    public List<ComponentAnalysisCache> getComponentAnalysisCache(ComponentAnalysisCache.CacheType cacheType, String targetHost, String targetType, Collection<String> targets) {
+        final List<ComponentAnalysisCache> result = new ArrayList<>();
+        if (CollectionUtils.isEmpty(targets)) {
+            return result;
+        }
+        for (final List<String> partition: ListUtils.partition(new ArrayList<>(targets), 1000)) {
+            final Query query = pm.newQuery(ComponentAnalysisCache.class,
+                    "cacheType == :cacheType && targetHost == :targetHost && targetType == :targetType && :targets.contains(target)");
+            result.addAll((List<ComponentAnalysisCache>) query.executeWithArray(cacheType, targetHost, targetType, partition));
+        }
+        return result;
+    }
+
+    /**
+     * Updates (or creates) the ComponentAnalysisCache entries for many targets of the same type and host
+     * in a single transaction.
+     * @param cacheType the type of cache
+     * @param targetHost the host of the analyzer
+     * @param targetType the type of target (i.e. the source of the analyzer)
+     * @param lastOccurrences a Map of target to the date it was last analyzed
+     */
+    public void updateComponentAnalysisCache(ComponentAnalysisCache.CacheType cacheType, String targetHost, String targetType, Map<String, Date> lastOccurrences) {
+        if (lastOccurrences.isEmpty()) {
+            return;
+        }
+        final Map<String, ComponentAnalysisCache> existing = new HashMap<>();
+        for (final ComponentAnalysisCache cac: getComponentAnalysisCache(cacheType, targetHost, targetType, lastOccurrences.keySet())) {
+            existing.put(cac.getTarget(), cac);
+        }
+        pm.currentTransaction().begin();
+        for (final Map.Entry<String, Date> entry: lastOccurrences.entrySet()) {
+            ComponentAnalysisCache cac = existing.get(entry.getKey());
+            if (cac == null) {
+                cac = new ComponentAnalysisCache();
+                cac.setCacheType(cacheType);
+                cac.setTargetHost(targetHost);
+                cac.setTargetType(targetType);
+                cac.setTarget(entry.getKey());
+                cac.setLastOccurrence(entry.getValue());
+                pm.makePersistent(cac);
+            } else {
+                cac.setLastOccurrence(entry.getValue());
+            }
+        }
+        pm.currentTransaction().commit();
+    }
+
+    /**
+     * Returns the synchronization state of a target of a data source.
+     * @param source the data source
+     * @param target the target (i.e. the name of a data feed)
+     * @return a SyncState, or null if the target was never synchronized
+     * @since 3.7.0
+     */
+    public SyncState getSyncState(Vulnerability.Source source, String target) {
+        final Query query = pm.newQuery(SyncState.class, "source == :source && target == :target");
+        return singleResult(query.execute(source.name(), target));
+    }
+
+    /**
+     * Returns the synchronization state of all targets of a data source.
+     * @param source the data source
+     * @return a List of SyncState objects
+     * @since 3.7.0
+     */
+    @SuppressWarnings("unchecked")
+    public List<SyncState> getSyncStates(Vulnerability.Source source) {
+        final Query query = pm.newQuery(SyncState.class, "source == :source");
+        return (List<SyncState>) query.execute(source.name());
+    }
+
+    /**
+     * Records that a target of a data source was synchronized successfully.
+     * @param source the data source
+     * @param target the target (i.e. the name of a data feed)
+     * @param checksum the checksum of the content synchronized, or null if unknown
+     * @param lastModified the date the content was last modified, or null if unknown
+     * @return the updated SyncState
+     * @since 3.7.0
+     */
+    public SyncState updateSyncState(Vulnerability.Source source, String target, String checksum, Date lastModified) {
+        SyncState syncState = getSyncState(source, target);
+        if (syncState == null) {
+            syncState = new SyncState();
+            syncState.setSource(source.name());
+            syncState.setTarget(target);
+        }
+        syncState.setChecksum(checksum);
+        syncState.setLastModified(lastModified);
+        syncState.setLastSynchronized(new Date());
+        return persist(syncState);
+    }
+
     /**
      * Binds the two objects together in a corresponding join table.
      * @param project a Project object
@@ -32,16 +32,23 @@ import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.cyclonedx.BomGenerator;
 import org.cyclonedx.BomGeneratorFactory;
+import org.cyclonedx.BomParser;
 import org.cyclonedx.CycloneDxSchema;
 import org.cyclonedx.model.Bom;
 import org.dependencytrack.auth.Permissions;
 import org.dependencytrack.event.BomUploadEvent;
+import org.dependencytrack.exception.ParseException;
 import org.dependencytrack.model.Component;
+import org.dependencytrack.model.ConfigPropertyConstants;
 import org.dependencytrack.model.Dependency;
+import org.dependencytrack.model.OfflineAnalysisResult;
 import org.dependencytrack.model.Project;
 import org.dependencytrack.parser.cyclonedx.util.ModelConverter;
+import org.dependencytrack.parser.spdx.rdf.SpdxDocumentParser;
 import org.dependencytrack.persistence.QueryManager;
 import org.dependencytrack.resources.v1.vo.BomSubmitRequest;
+import org.dependencytrack.tasks.scanners.OfflineAnalyzer;
+import org.dependencytrack.util.CompressUtil;
 import org.glassfish.jersey.media.multipart.BodyPartEntity;
 import org.glassfish.jersey.media.multipart.FormDataBodyPart;
 import org.glassfish.jersey.media.multipart.FormDataMultiPart;
@@ -61,6 +68,7 @@ import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.transform.TransformerException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Base64;
 import java.util.Collections;
@@ -269,6 +277,50 @@ public class BomResource extends AlpineResource {
         }
     }
 
+    @POST
+    @Path("/analyze")
+    @Consumes(MediaType.APPLICATION_JSON)
+    @Produces(MediaType.APPLICATION_JSON)
+    @ApiOperation(
+            value = "Analyzes a supported bill of material format document without persisting it",
+            response = OfflineAnalysisResult.class,
+            notes = "Expects a Base64 encoded CycloneDX or SPDX (text or RDF) document. The components are analyzed against the internal vulnerability data only, and the findings are returned synchronously. No project, component, or dependency is created or modified. Intended to be used for gating builds."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(code = 400, message = "The BOM is invalid or in an unsupported format"),
+            @ApiResponse(code = 401, message = "Unauthorized")
+    })
+    @PermissionRequired(Permissions.Constants.BOM_UPLOAD)
+    public Response analyzeBom(BomSubmitRequest request) {
+        final Validator validator = getValidator();
+        failOnValidationError(
+                validator.validateProperty(request, "bom")
+        );
+        final byte[] bomBytes;
+        try {
+            bomBytes = CompressUtil.optionallyDecompress(Base64.getDecoder().decode(request.getBom()));
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST).entity("The BOM is not Base64 encoded.").build();
+        }
+        try (QueryManager qm = new QueryManager()) {
+            final List<Component> components;
+            final String bomString = new String(bomBytes, StandardCharsets.UTF_8);
+            if (bomString.startsWith("<?xml") && bomString.contains("<bom") && bomString.contains("http://cyclonedx.org/schema/bom")
+                    && qm.isEnabled(ConfigPropertyConstants.ACCEPT_ARTIFACT_CYCLONEDX)) {
+                components = ModelConverter.convert(qm, new BomParser().parse(bomBytes));
+            } else if (SpdxDocumentParser.isSupportedSpdxFormat(bomString) && qm.isEnabled(ConfigPropertyConstants.ACCEPT_ARTIFACT_SPDX)) {
+                components = new SpdxDocumentParser(qm).parse(bomBytes);
+            } else {
+                return Response.status(Response.Status.BAD_REQUEST).entity("The BOM is not in a supported format, or accepting the format is disabled.").build();
+            }
+            final OfflineAnalysisResult result = new OfflineAnalyzer().analyze(qm, components);
+            return Response.ok(result).build();
+        } catch (org.cyclonedx.exception.ParseException | ParseException e) {
+            LOGGER.debug("An error occurred parsing a BOM submitted for analysis", e);
+            return Response.status(Response.Status.BAD_REQUEST).entity("The BOM could not be parsed.").build();
+        }
+    }
+
     @GET
     @Path("/token/{uuid}")
     @Produces(MediaType.APPLICATION_JSON)
@@ -29,6 +29,7 @@ import io.swagger.annotations.ApiResponses;
 import io.swagger.annotations.Authorization;
 import org.apache.commons.lang3.time.DateUtils;
 import org.dependencytrack.auth.Permissions;
+import org.dependencytrack.common.MetricsRegistry;
 import org.dependencytrack.event.MetricsUpdateEvent;
 import org.dependencytrack.model.Component;
 import org.dependencytrack.model.ComponentMetrics;
@@ -78,6 +79,37 @@ public class MetricsResource extends AlpineResource {
         }
     }
 
+    @GET
+    @Path("/tasks")
+    @Produces(MediaType.APPLICATION_JSON)
+    @ApiOperation(
+            value = "Returns the instrumentation of analyzers and mirroring tasks since the system was started",
+            response = MetricsRegistry.Family.class,
+            responseContainer = "List"
+    )
+    @ApiResponses(value = {
+            @ApiResponse(code = 401, message = "Unauthorized")
+    })
+    @PermissionRequired(Permissions.Constants.SYSTEM_CONFIGURATION)
+    public Response getTaskMetrics() {
+        return Response.ok(MetricsRegistry.getInstance().getFamilies()).build();
+    }
+
+    @GET
+    @Path("/tasks/prometheus")
+    @Produces("text/plain; version=0.0.4")
+    @ApiOperation(
+            value = "Returns the instrumentation of analyzers and mirroring tasks in the Prometheus text format",
+            response = String.class
+    )
+    @ApiResponses(value = {
+            @ApiResponse(code = 401, message = "Unauthorized")
+    })
+    @PermissionRequired(Permissions.Constants.SYSTEM_CONFIGURATION)
+    public Response getTaskMetricsAsPrometheus() {
+        return Response.ok(MetricsRegistry.getInstance().toPrometheus()).build();
+    }
+
     @GET
     @Path("/portfolio/current")
     @Produces(MediaType.APPLICATION_JSON)
@@ -21,7 +21,6 @@ package org.dependencytrack.search;
 import alpine.logging.Logger;
 import alpine.notification.Notification;
 import alpine.notification.NotificationLevel;
-import alpine.persistence.PaginatedResult;
 import org.apache.lucene.document.Document;
 import org.apache.lucene.document.Field;
 import org.apache.lucene.index.Term;
@@ -29,9 +28,9 @@ import org.dependencytrack.model.Component;
 import org.dependencytrack.notification.NotificationConstants;
 import org.dependencytrack.notification.NotificationGroup;
 import org.dependencytrack.notification.NotificationScope;
+import org.dependencytrack.persistence.KeysetCursor;
 import org.dependencytrack.persistence.QueryManager;
 import java.io.IOException;
-import java.util.List;
 
 /**
  * Indexer for operating on components.
@@ -60,6 +59,11 @@ public final class ComponentIndexer extends IndexManager implements ObjectIndexe
         return IndexConstants.COMPONENT_SEARCH_FIELDS;
     }
 
+    @Override
+    public String[] getNgramFields() {
+        return IndexConstants.COMPONENT_NGRAM_FIELDS;
+    }
+
     /**
      * Adds a Component object to a Lucene index.
      *
@@ -75,7 +79,7 @@ public final class ComponentIndexer extends IndexManager implements ObjectIndexe
         addField(doc, IndexConstants.COMPONENT_DESCRIPTION, component.getDescription(), Field.Store.YES, true);
 
         try {
-            getIndexWriter().addDocument(doc);
+            addDocument(doc);
         } catch (IOException e) {
             LOGGER.error("An error occurred while adding component to index", e);
             Notification.dispatch(new Notification()
@@ -95,7 +99,7 @@ public final class ComponentIndexer extends IndexManager implements ObjectIndexe
      */
     public void remove(final Component component) {
         try {
-            getIndexWriter().deleteDocuments(new Term(IndexConstants.COMPONENT_UUID, component.getUuid().toString()));
+            deleteDocuments(new Term(IndexConstants.COMPONENT_UUID, component.getUuid().toString()));
         } catch (IOException e) {
             LOGGER.error("An error occurred while removing a component from the index", e);
             Notification.dispatch(new Notification()
@@ -116,16 +120,12 @@ public final class ComponentIndexer extends IndexManager implements ObjectIndexe
         LOGGER.info("Starting reindex task. This may take some time.");
         super.reindex();
         try (QueryManager qm = new QueryManager()) {
-            final long total = qm.getCount(Component.class);
-            long count = 0;
-            while (count < total) {
-                final PaginatedResult result = qm.getComponents();
-                final List<Component> components = result.getList(Component.class);
-                for (final Component component: components) {
+            final KeysetCursor<Component> cursor = new KeysetCursor<>(qm, Component.class, Component::getId,
+                    "uuid", "name", "group", "version", "sha1", "description");
+            while (cursor.hasNext()) {
+                for (final Component component: cursor.next()) {
                     add(component);
                 }
-                count += result.getObjects().size();
-                qm.advancePagination();
             }
             commit();
         }
@@ -60,6 +60,11 @@ public final class CpeIndexer extends IndexManager implements ObjectIndexer<Cpe>
         return IndexConstants.CPE_SEARCH_FIELDS;
     }
 
+    @Override
+    public String[] getNgramFields() {
+        return IndexConstants.CPE_NGRAM_FIELDS;
+    }
+
     /**
      * Adds a Cpe object to a Lucene index.
      *
@@ -75,7 +80,7 @@ public final class CpeIndexer extends IndexManager implements ObjectIndexer<Cpe>
         addField(doc, IndexConstants.CPE_VERSION, cpe.getVersion(), Field.Store.YES, true);
 
         try {
-            getIndexWriter().addDocument(doc);
+            addDocument(doc);
         } catch (IOException e) {
             LOGGER.error("An error occurred while adding a CPE to the index", e);
             Notification.dispatch(new Notification()
@@ -95,7 +100,7 @@ public final class CpeIndexer extends IndexManager implements ObjectIndexer<Cpe>
      */
     public void remove(final Cpe cpe) {
         try {
-            getIndexWriter().deleteDocuments(new Term(IndexConstants.CPE_UUID, cpe.getUuid().toString()));
+            deleteDocuments(new Term(IndexConstants.CPE_UUID, cpe.getUuid().toString()));
         } catch (IOException e) {
             LOGGER.error("An error occurred while removing a CPE from the index", e);
             Notification.dispatch(new Notification()
@@ -130,4 +135,14 @@ public final class CpeIndexer extends IndexManager implements ObjectIndexer<Cpe>
         }
         LOGGER.info("Reindexing complete");
     }
+
+    /**
+     * Commits changes to the index. The decisions cached by the {@link FuzzyCpeMatcher} are discarded,
+     * as CPEs may have been added or removed by the dictionary updates as well as by a reindex.
+     */
+    @Override
+    public void commit() {
+        super.commit();
+        FuzzyCpeMatcher.getInstance().clear();
+    }
 }
@@ -0,0 +1,342 @@
+/*
+ * This file is part of Dependency-Track.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * Copyright (c) Steve Springett. All Rights Reserved.
+ */
+package org.dependencytrack.search;
+
+import alpine.logging.Logger;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.TopDocs;
+import us.springett.parsers.cpe.CpeParser;
+import us.springett.parsers.cpe.exceptions.CpeParsingException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Matches the group and name of a component against the CPE dictionary in the CPE index, for
+ * components which do not define a CPE themselves. Candidate vendor/product pairs returned by the
+ * index are scored on how closely the product resembles the name and the vendor resembles the group
+ * (or name) of the component, and only the best scoring pairs above a minimum score are accepted.
+ *
+ * Decisions are cached per group and name, so that analyzing many versions of the same component
+ * requires a single index query.
+ *
+ * @author Steve Springett
+ * @since 3.7.0
+ */
+public final class FuzzyCpeMatcher {
+
+    private static final Logger LOGGER = Logger.getLogger(FuzzyCpeMatcher.class);
+    private static final FuzzyCpeMatcher INSTANCE = new FuzzyCpeMatcher();
+    private static final int MAX_ENTRIES = 10000;
+    private static final int MAX_HITS = 200;
+    private static final float PRODUCT_WEIGHT = 0.75f;
+    private static final float VENDOR_WEIGHT = 0.25f;
+    private static final float MINIMUM_PRODUCT_SCORE = 0.5f;
+    private static final float MINIMUM_SCORE = 0.75f;
+
+    /**
+     * Tokens of a group which are too common to identify a vendor.
+     */
+    private static final Set<String> IGNORED_GROUP_TOKENS = new HashSet<>(Arrays.asList(
+            "com", "org", "net", "io", "de", "github", "googlecode", "sourceforge"
+    ));
+
+    private final Map<String, List<Match>> decisions = new LinkedHashMap<String, List<Match>>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<String, List<Match>> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    };
+
+    /**
+     * Incremented (while holding the lock on decisions) whenever the cached decisions are discarded.
+     */
+    private long generation;
+
+    private FuzzyCpeMatcher() { }
+
+    public static FuzzyCpeMatcher getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Returns the vendor/product pairs of the CPE dictionary which match the specified group and name.
+     * @param group the group of the component (may be null)
+     * @param name the name of the component
+     * @return a List of matches, ordered by descending score
+     */
+    public List<Match> match(final String group, final String name) {
+        if (StringUtils.isBlank(name)) {
+            return Collections.emptyList();
+        }
+        final String key = StringUtils.trimToEmpty(group).toLowerCase(Locale.ROOT) + ":" + name.trim().toLowerCase(Locale.ROOT);
+        final long searchedGeneration;
+        synchronized (decisions) {
+            final List<Match> matches = decisions.get(key);
+            if (matches != null) {
+                return matches;
+            }
+            searchedGeneration = generation;
+        }
+        final List<Match> matches = search(group, name);
+        synchronized (decisions) {
+            // A decision made while the index was changing is not cached, as it may be stale
+            if (searchedGeneration == generation) {
+                decisions.put(key, matches);
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Discards all cached decisions. Called whenever changes to the CPE index are committed.
+     */
+    public void clear() {
+        synchronized (decisions) {
+            decisions.clear();
+            generation++;
+        }
+    }
+
+    private List<Match> search(final String group, final String name) {
+        if (!IndexManager.exists(IndexManager.IndexType.CPE)) {
+            return Collections.emptyList();
+        }
+        final Set<String> productTerms = new LinkedHashSet<>();
+        final Set<String> vendorTerms = new LinkedHashSet<>();
+        try (Analyzer analyzer = new StandardAnalyzer()) {
+            productTerms.addAll(analyze(analyzer, name));
+            productTerms.addAll(analyze(analyzer, name.replaceAll("[\\s.\\-]+", "_")));
+            vendorTerms.addAll(productTerms);
+            if (group != null) {
+                for (final String token: tokenize(group)) {
+                    if (!IGNORED_GROUP_TOKENS.contains(token)) {
+                        vendorTerms.addAll(analyze(analyzer, token));
+                    }
+                }
+            }
+        } catch (IOException e) {
+            LOGGER.error("An error occurred analyzing the name of a component: " + name, e);
+            return Collections.emptyList();
+        }
+        if (productTerms.isEmpty()) {
+            return Collections.emptyList();
+        }
+        final BooleanQuery.Builder products = new BooleanQuery.Builder();
+        for (final String term: productTerms) {
+            products.add(new TermQuery(new Term(IndexConstants.CPE_PRODUCT, term)), BooleanClause.Occur.SHOULD);
+        }
+        final BooleanQuery.Builder vendors = new BooleanQuery.Builder();
+        for (final String term: vendorTerms) {
+            vendors.add(new TermQuery(new Term(IndexConstants.CPE_VENDOR, term)), BooleanClause.Occur.SHOULD);
+        }
+        final BooleanQuery query = new BooleanQuery.Builder()
+                .add(products.build(), BooleanClause.Occur.MUST)
+                .add(vendors.build(), BooleanClause.Occur.SHOULD)
+                .build();
+
+        final Map<String, Match> candidates = new LinkedHashMap<>();
+        final CpeIndexer indexer = CpeIndexer.getInstance();
+        IndexSearcher searcher = null;
+        try {
+            searcher = indexer.acquireIndexSearcher();
+            final TopDocs results = searcher.search(query, MAX_HITS);
+            for (final ScoreDoc scoreDoc: results.scoreDocs) {
+                final Document doc = searcher.doc(scoreDoc.doc);
+                final String vendor = doc.get(IndexConstants.CPE_VENDOR);
+                final String product = doc.get(IndexConstants.CPE_PRODUCT);
+                final String part = getPart(doc.get(IndexConstants.CPE_23));
+                if (StringUtils.isAnyBlank(vendor, product, part)) {
+                    continue;
+                }
+                candidates.computeIfAbsent(part + ":" + vendor + ":" + product,
+                        k -> new Match(part, vendor, product, score(group, name, vendor, product)));
+            }
+        } catch (IOException e) {
+            LOGGER.error("An I/O exception occurred while searching the CPE index", e);
+            return Collections.emptyList();
+        } finally {
+            indexer.releaseIndexSearcher(searcher);
+        }
+        return select(candidates.values());
+    }
+
+    /**
+     * Accepts the best scoring candidates. When the vendor does not resemble the component and several
+     * vendors ship a product of the same name, the match is ambiguous and nothing is accepted.
+     */
+    private static List<Match> select(final Collection<Match> candidates) {
+        float best = 0;
+        for (final Match match: candidates) {
+            if (match.productScore >= MINIMUM_PRODUCT_SCORE) {
+                best = Math.max(best, match.score);
+            }
+        }
+        if (best < MINIMUM_SCORE) {
+            return Collections.emptyList();
+        }
+        final List<Match> matches = new ArrayList<>();
+        final Set<String> vendors = new HashSet<>();
+        for (final Match match: candidates) {
+            if (match.productScore >= MINIMUM_PRODUCT_SCORE && match.score == best) {
+                matches.add(match);
+                vendors.add(match.vendor);
+            }
+        }
+        if (vendors.size() > 1 && matches.get(0).vendorScore == 0) {
+            return Collections.emptyList();
+        }
+        return Collections.unmodifiableList(matches);
+    }
+
+    /**
+     * Scores how closely a vendor/product pair resembles the group and name of a component.
+     */
+    static Match score(final String group, final String name, final String vendor, final String product) {
+        final float productScore = similarity(name, product);
+        float vendorScore = 0;
+        if (StringUtils.isBlank(group)) {
+            vendorScore = 0.5f; // Unknown
+        } else {
+            for (final String token: tokenize(group)) {
+                if (!IGNORED_GROUP_TOKENS.contains(token)) {
+                    vendorScore = Math.max(vendorScore, similarity(token, vendor));
+                }
+            }
+        }
+        vendorScore = Math.max(vendorScore, similarity(name, vendor));
+        return new Match(null, vendor, product, productScore, vendorScore);
+    }
+
+    /**
+     * Returns 1 if both values are equal once separators are ignored, or else the overlap of their tokens.
+     */
+    private static float similarity(final String left, final String right) {
+        if (normalize(left).equals(normalize(right))) {
+            return 1;
+        }
+        final Set<String> leftTokens = new HashSet<>(tokenize(left));
+        final Set<String> rightTokens = new HashSet<>(tokenize(right));
+        final Set<String> union = new HashSet<>(leftTokens);
+        union.addAll(rightTokens);
+        leftTokens.retainAll(rightTokens);
+        return union.isEmpty() ? 0 : (float) leftTokens.size() / union.size();
+    }
+
+    private static String normalize(final String value) {
+        return value.toLowerCase(Locale.ROOT).replaceAll("[^a-z0-9]", "");
+    }
+
+    private static List<String> tokenize(final String value) {
+        final List<String> tokens = new ArrayList<>();
+        for (final String token: value.toLowerCase(Locale.ROOT).split("[^a-z0-9]+")) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    private static List<String> analyze(final Analyzer analyzer, final String value) throws IOException {
+        final List<String> terms = new ArrayList<>();
+        try (TokenStream stream = analyzer.tokenStream(IndexConstants.CPE_PRODUCT, value)) {
+            final CharTermAttribute term = stream.addAttribute(CharTermAttribute.class);
+            stream.reset();
+            while (stream.incrementToken()) {
+                terms.add(term.toString());
+            }
+            stream.end();
+        }
+        return terms;
+    }
+
+    private static String getPart(final String cpe23) {
+        if (StringUtils.isBlank(cpe23)) {
+            return null;
+        }
+        try {
+            return CpeParser.parse(cpe23).getPart().getAbbreviation();
+        } catch (CpeParsingException e) {
+            LOGGER.debug("Unable to parse CPE from index: " + cpe23);
+            return null;
+        }
+    }
+
+    /**
+     * A vendor/product pair of the CPE dictionary matching a component.
+     */
+    public static final class Match {
+        private final String part;
+        private final String vendor;
+        private final String product;
+        private final float productScore;
+        private final float vendorScore;
+        private final float score;
+
+        private Match(final String part, final String vendor, final String product,
+                      final float productScore, final float vendorScore) {
+            this.part = part;
+            this.vendor = vendor;
+            this.product = product;
+            this.productScore = productScore;
+            this.vendorScore = vendorScore;
+            this.score = PRODUCT_WEIGHT * productScore + VENDOR_WEIGHT * vendorScore;
+        }
+
+        private Match(final String part, final String vendor, final String product, final Match scored) {
+            this(part, vendor, product, scored.productScore, scored.vendorScore);
+        }
+
+        public String getPart() {
+            return part;
+        }
+
+        public String getVendor() {
+            return vendor;
+        }
+
+        public String getProduct() {
+            return product;
+        }
+
+        public float getScore() {
+            return score;
+        }
+    }
+}
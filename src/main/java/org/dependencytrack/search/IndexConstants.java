@@ -37,6 +37,9 @@ public final class IndexConstants {
     static final String[] PROJECT_SEARCH_FIELDS = {
             PROJECT_UUID, PROJECT_NAME, PROJECT_VERSION, PROJECT_PROPERTIES, PROJECT_DESCRIPTION
     };
+    static final String[] PROJECT_NGRAM_FIELDS = {
+            PROJECT_NAME
+    };
 
     static final String COMPONENT_UUID = "uuid";
     static final String COMPONENT_NAME = "name";
@@ -47,6 +50,9 @@ public final class IndexConstants {
     static final String[] COMPONENT_SEARCH_FIELDS = {
             COMPONENT_UUID, COMPONENT_NAME, COMPONENT_GROUP, COMPONENT_VERSION, COMPONENT_SHA1, COMPONENT_DESCRIPTION
     };
+    static final String[] COMPONENT_NGRAM_FIELDS = {
+            COMPONENT_NAME, COMPONENT_GROUP
+    };
 
     static final String VULNERABILITY_UUID = "uuid";
     static final String VULNERABILITY_VULNID = "vulnId";
@@ -55,6 +61,9 @@ public final class IndexConstants {
     static final String[] VULNERABILITY_SEARCH_FIELDS = {
             VULNERABILITY_UUID, VULNERABILITY_VULNID, VULNERABILITY_DESCRIPTION
     };
+    static final String[] VULNERABILITY_NGRAM_FIELDS = {
+            VULNERABILITY_VULNID
+    };
 
     static final String LICENSE_UUID = "uuid";
     static final String LICENSE_LICENSEID = "licenseId";
@@ -62,6 +71,9 @@ public final class IndexConstants {
     static final String[] LICENSE_SEARCH_FIELDS = {
             LICENSE_UUID, LICENSE_LICENSEID, LICENSE_NAME
     };
+    static final String[] LICENSE_NGRAM_FIELDS = {
+            LICENSE_LICENSEID, LICENSE_NAME
+    };
 
     static final String CPE_UUID = "uuid";
     static final String CPE_22 = "cpe22";
@@ -72,6 +84,9 @@ public final class IndexConstants {
     static final String[] CPE_SEARCH_FIELDS = {
             CPE_22, CPE_23, CPE_VENDOR, CPE_PRODUCT, CPE_VERSION
     };
+    static final String[] CPE_NGRAM_FIELDS = {
+            CPE_VENDOR, CPE_PRODUCT
+    };
 
     static final String VULNERABLESOFTWARE_UUID = "uuid";
     static final String VULNERABLESOFTWARE_CPE_22 = "cpe22";
@@ -84,6 +99,17 @@ public final class IndexConstants {
             VULNERABLESOFTWARE_PRODUCT, VULNERABLESOFTWARE_VERSION
     };
 
+    /**
+     * Suffixes of the shadow fields written for the n-gram fields of an index. The edge n-gram field
+     * holds the prefixes of the field value, and the n-gram field holds every substring of NGRAM_SIZE
+     * characters, so that prefix and substring searches are answered with term lookups rather than
+     * wildcard queries.
+     */
+    static final String EDGE_NGRAM_SUFFIX = "_edge";
+    static final String NGRAM_SUFFIX = "_ngram";
+    static final int NGRAM_SIZE = 3;
+    static final int EDGE_NGRAM_MAX_SIZE = 20;
+
     /**
      * Field constants highlighting boost factors in performing search
      * for various user-defined fields.
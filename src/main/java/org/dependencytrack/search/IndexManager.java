@@ -26,23 +26,35 @@ import org.apache.commons.collections4.CollectionUtils;
 import org.apache.commons.io.FileDeleteStrategy;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.LowerCaseFilter;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.Tokenizer;
+import org.apache.lucene.analysis.core.KeywordTokenizer;
+import org.apache.lucene.analysis.miscellaneous.PerFieldAnalyzerWrapper;
+import org.apache.lucene.analysis.ngram.EdgeNGramTokenFilter;
+import org.apache.lucene.analysis.ngram.NGramTokenFilter;
 import org.apache.lucene.analysis.standard.StandardAnalyzer;
 import org.apache.lucene.document.Document;
 import org.apache.lucene.document.Field;
 import org.apache.lucene.document.StringField;
 import org.apache.lucene.document.TextField;
 import org.apache.lucene.index.CorruptIndexException;
-import org.apache.lucene.index.DirectoryReader;
-import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.index.IndexWriter;
 import org.apache.lucene.index.IndexWriterConfig;
 import org.apache.lucene.index.Term;
 import org.apache.lucene.queryparser.classic.MultiFieldQueryParser;
 import org.apache.lucene.queryparser.classic.QueryParser;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.BoostQuery;
+import org.apache.lucene.search.ControlledRealTimeReopenThread;
 import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
 import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SearcherManager;
 import org.apache.lucene.search.TermQuery;
 import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.search.WildcardQuery;
 import org.apache.lucene.store.Directory;
 import org.apache.lucene.store.SimpleFSDirectory;
 import org.dependencytrack.notification.NotificationConstants;
@@ -51,7 +63,15 @@ import org.dependencytrack.notification.NotificationScope;
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 /**
  * The IndexManager is an abstract class that provides wrappers and convenience methods
@@ -63,11 +83,27 @@ import java.util.List;
 public abstract class IndexManager implements AutoCloseable {
 
     private static final Logger LOGGER = Logger.getLogger(IndexManager.class);
+
+    /**
+     * The maximum and minimum time (in seconds) searches may lag behind changes made to the index.
+     * Searchers are refreshed in the background at the maximum interval.
+     */
+    private static final double TARGET_MAX_STALE_SEC = 1.0;
+    private static final double TARGET_MIN_STALE_SEC = 0.1;
+
+    private Directory directory;
     private IndexWriter iwriter;
-    private IndexSearcher isearcher;
-    private MultiFieldQueryParser qparser;
+    private volatile SearcherManager searcherManager;
+    private ControlledRealTimeReopenThread<IndexSearcher> reopenThread;
     private final IndexType indexType;
 
+    /**
+     * Guards the IndexWriter and SearcherManager against being closed while in use. Adding, deleting and
+     * committing documents as well as searching hold the read lock, and may proceed concurrently. Closing
+     * the index holds the write lock, and so waits for them to complete.
+     */
+    private final ReadWriteLock indexLock = new ReentrantReadWriteLock();
+
     /**
      * This methods should be overwritten.
      * @return an array of all fields that can be searched on
@@ -77,6 +113,15 @@ public abstract class IndexManager implements AutoCloseable {
         return new String[]{};
     }
 
+    /**
+     * This methods should be overwritten by indexers supporting prefix and substring searches.
+     * @return an array of the fields for which n-gram shadow fields are written
+     * @since 3.7.0
+     */
+    public String[] getNgramFields() {
+        return new String[]{};
+    }
+
     /**
      * Defines the type of supported indexes.
      * @since 3.0.0
@@ -133,15 +178,29 @@ public abstract class IndexManager implements AutoCloseable {
     }
 
     /**
-     * Opens the index.
+     * Opens the index. The IndexWriter is kept open for the lifetime of the indexer, and searchers are
+     * obtained from a SearcherManager which is refreshed from the IndexWriter in the background, so
+     * that searches see changes without the index being reopened.
      * @throws IOException when the index cannot be opened
      * @since 3.0.0
      */
-    protected void openIndex() throws IOException {
-        final Analyzer analyzer = new StandardAnalyzer();
+    protected synchronized void openIndex() throws IOException {
+        closeIndex();
+        final Map<String, Analyzer> ngramAnalyzers = new HashMap<>();
+        for (final String field: getNgramFields()) {
+            ngramAnalyzers.put(field + IndexConstants.EDGE_NGRAM_SUFFIX, new NgramAnalyzer(true));
+            ngramAnalyzers.put(field + IndexConstants.NGRAM_SUFFIX, new NgramAnalyzer(false));
+        }
+        final Analyzer analyzer = new PerFieldAnalyzerWrapper(new StandardAnalyzer(), ngramAnalyzers);
         final IndexWriterConfig config = new IndexWriterConfig(analyzer);
         config.setOpenMode(IndexWriterConfig.OpenMode.CREATE_OR_APPEND);
-        iwriter = new IndexWriter(getDirectory(), config);
+        directory = getDirectory();
+        iwriter = new IndexWriter(directory, config);
+        searcherManager = new SearcherManager(iwriter, null);
+        reopenThread = new ControlledRealTimeReopenThread<>(iwriter, searcherManager, TARGET_MAX_STALE_SEC, TARGET_MIN_STALE_SEC);
+        reopenThread.setName(indexType.name().toLowerCase(Locale.ROOT) + "-index-refresh");
+        reopenThread.setDaemon(true);
+        reopenThread.start();
     }
 
     /**
@@ -150,7 +209,7 @@ public abstract class IndexManager implements AutoCloseable {
      * @throws IOException when the index cannot be opened
      * @since 3.0.0
      */
-    protected IndexWriter getIndexWriter() throws IOException {
+    protected synchronized IndexWriter getIndexWriter() throws IOException {
         if (iwriter == null || !iwriter.isOpen()) {
             openIndex();
         }
@@ -158,41 +217,146 @@ public abstract class IndexManager implements AutoCloseable {
     }
 
     /**
-     * Returns an IndexSearcher by opening the index directory first, if necessary.
+     * Acquires an IndexSearcher, by opening the index if necessary. Searchers may be used concurrently,
+     * and every searcher acquired must be released with {@link #releaseIndexSearcher(IndexSearcher)}.
      * @return an IndexSearcher
-     * @throws IOException when the index directory cannot be opened
-     * @since 3.0.0
+     * @throws IOException when the index cannot be opened
+     * @since 3.7.0
      */
-    protected IndexSearcher getIndexSearcher() throws IOException {
-        if (isearcher == null) {
-            final IndexReader reader = DirectoryReader.open(getDirectory());
-            isearcher = new IndexSearcher(reader);
+    protected IndexSearcher acquireIndexSearcher() throws IOException {
+        indexLock.readLock().lock();
+        try {
+            final SearcherManager manager;
+            synchronized (this) {
+                getIndexWriter();
+                manager = searcherManager;
+            }
+            return manager.acquire();
+        } catch (IOException | RuntimeException e) {
+            indexLock.readLock().unlock();
+            throw e;
         }
-        return isearcher;
     }
 
     /**
-     * Returns a QueryParser.
+     * Releases an IndexSearcher acquired with {@link #acquireIndexSearcher()}.
+     * @param searcher the IndexSearcher to release
+     * @since 3.7.0
+     */
+    protected void releaseIndexSearcher(final IndexSearcher searcher) {
+        if (searcher == null) {
+            return;
+        }
+        try {
+            searcherManager.release(searcher);
+        } catch (IOException e) {
+            LOGGER.warn("An error occurred while releasing an index searcher", e);
+        } finally {
+            indexLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Adds a Document to the index, by opening the index if necessary.
+     * @param doc the Lucene Document to add
+     * @throws IOException when the index cannot be written to
+     * @since 3.7.0
+     */
+    protected void addDocument(final Document doc) throws IOException {
+        indexLock.readLock().lock();
+        try {
+            getIndexWriter().addDocument(doc);
+        } finally {
+            indexLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Deletes the Documents containing the specified term from the index, by opening the index if necessary.
+     * @param term the term identifying the Documents to delete
+     * @throws IOException when the index cannot be written to
+     * @since 3.7.0
+     */
+    protected void deleteDocuments(final Term term) throws IOException {
+        indexLock.readLock().lock();
+        try {
+            getIndexWriter().deleteDocuments(term);
+        } finally {
+            indexLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns a QueryParser. QueryParsers are not thread-safe, so a new one is returned on every call.
      * @return a QueryParser
      * @since 3.0.0
      */
     protected QueryParser getQueryParser() {
         // DO NOT close (either manually or try-with-resource) the Analyzer
         final Analyzer analyzer = new StandardAnalyzer();
-        if (qparser == null) {
-            qparser = new MultiFieldQueryParser(getSearchFields(), analyzer, IndexConstants.getBoostMap());
-            qparser.setAllowLeadingWildcard(true);
+        return new MultiFieldQueryParser(getSearchFields(), analyzer, IndexConstants.getBoostMap());
+    }
+
+    /**
+     * Returns a query matching the n-gram shadow fields of this index whose value starts with, or
+     * contains, the specified text. Prefix matches are boosted above substring matches.
+     * @param text the text to search for, as entered by the user
+     * @param prefixBoost the boost of prefix matches
+     * @param substringBoost the boost of substring matches
+     * @return a Query, or null if this index has no n-gram fields
+     * @since 3.7.0
+     */
+    protected Query getNgramQuery(final String text, final float prefixBoost, final float substringBoost) {
+        final String value = text.trim().toLowerCase(Locale.ROOT);
+        if (getNgramFields().length == 0 || value.isEmpty()) {
+            return null;
+        }
+        final String prefix = StringUtils.left(value, IndexConstants.EDGE_NGRAM_MAX_SIZE);
+        final Set<String> grams = new LinkedHashSet<>();
+        for (int i = 0; i + IndexConstants.NGRAM_SIZE <= value.length(); i++) {
+            grams.add(value.substring(i, i + IndexConstants.NGRAM_SIZE));
+        }
+        final BooleanQuery.Builder builder = new BooleanQuery.Builder();
+        for (final String field: getNgramFields()) {
+            builder.add(new BoostQuery(new TermQuery(new Term(field + IndexConstants.EDGE_NGRAM_SUFFIX, prefix)), prefixBoost),
+                    BooleanClause.Occur.SHOULD);
+            if (!grams.isEmpty()) {
+                // Every n-gram of the text must occur in the field for the text to be a substring of it
+                final BooleanQuery.Builder substring = new BooleanQuery.Builder();
+                for (final String gram: grams) {
+                    substring.add(new TermQuery(new Term(field + IndexConstants.NGRAM_SUFFIX, gram)), BooleanClause.Occur.MUST);
+                }
+                builder.add(new BoostQuery(substring.build(), substringBoost), BooleanClause.Occur.SHOULD);
+            } else {
+                // Text shorter than an n-gram is a substring of the field if it is contained in one of its
+                // n-grams. Values shorter than an n-gram are matched by the prefix query above.
+                final Term term = new Term(field + IndexConstants.NGRAM_SUFFIX, "*" + escapeWildcards(value) + "*");
+                builder.add(new BoostQuery(new WildcardQuery(term), substringBoost), BooleanClause.Occur.SHOULD);
+            }
         }
-        return qparser;
+        return builder.build();
+    }
+
+    private static String escapeWildcards(final String value) {
+        final StringBuilder sb = new StringBuilder();
+        for (final char c: value.toCharArray()) {
+            if (c == WildcardQuery.WILDCARD_STRING || c == WildcardQuery.WILDCARD_CHAR || c == WildcardQuery.WILDCARD_ESCAPE) {
+                sb.append(WildcardQuery.WILDCARD_ESCAPE);
+            }
+            sb.append(c);
+        }
+        return sb.toString();
     }
 
     /**
-     * Commits changes to the index and closes the IndexWriter.
+     * Commits changes to the index. Searchers are refreshed so that the changes are visible immediately.
      * @since 3.0.0
      */
     public void commit() {
+        indexLock.readLock().lock();
         try {
             getIndexWriter().commit();
+            searcherManager.maybeRefreshBlocking();
         } catch (IOException e) {
             LOGGER.error("Error committing index", e);
             Notification.dispatch(new Notification()
@@ -202,14 +366,37 @@ public abstract class IndexManager implements AutoCloseable {
                     .content("Error committing index. Check log for details. " + e.getMessage())
                     .level(NotificationLevel.ERROR)
             );
+        } finally {
+            indexLock.readLock().unlock();
         }
     }
 
     /**
-     * Closes the IndexWriter.
+     * Closes the IndexWriter, along with the searchers obtained from it, once they are no longer in use.
+     * The index is reopened on next use.
      * @since 3.0.0
      */
     public void close() {
+        indexLock.writeLock().lock();
+        try {
+            closeIndex();
+        } finally {
+            indexLock.writeLock().unlock();
+        }
+    }
+
+    private synchronized void closeIndex() {
+        if (reopenThread != null) {
+            reopenThread.close();
+            reopenThread = null;
+        }
+        if (searcherManager != null) {
+            try {
+                searcherManager.close();
+            } catch (IOException e) {
+                // do nothing...
+            }
+        }
         if (iwriter != null) {
             try {
                 if (iwriter.isOpen()) {
@@ -218,6 +405,15 @@ public abstract class IndexManager implements AutoCloseable {
             } catch (IOException e) {
                 // do nothing...
             }
+            iwriter = null;
+        }
+        if (directory != null) {
+            try {
+                directory.close();
+            } catch (IOException e) {
+                // do nothing...
+            }
+            directory = null;
         }
     }
 
@@ -241,10 +437,15 @@ public abstract class IndexManager implements AutoCloseable {
             field = new StringField(name, value, store);
         }
         doc.add(field);
+        if (isNgramField(name)) {
+            doc.add(new TextField(name + IndexConstants.EDGE_NGRAM_SUFFIX, value, Field.Store.NO));
+            doc.add(new TextField(name + IndexConstants.NGRAM_SUFFIX, value, Field.Store.NO));
+        }
     }
 
     /**
-     * Updates a Field in a Document.
+     * Updates a Field in a Document. The n-gram shadow fields are not stored, and so are absent from
+     * Documents read back from the index. They are therefore replaced rather than updated.
      * @param doc the Lucene Document to update the field in
      * @param name the name of the field
      * @param value the value of the field
@@ -256,6 +457,16 @@ public abstract class IndexManager implements AutoCloseable {
         }
         final Field field = (Field) doc.getField(name);
         field.setStringValue(value);
+        if (isNgramField(name)) {
+            doc.removeFields(name + IndexConstants.EDGE_NGRAM_SUFFIX);
+            doc.removeFields(name + IndexConstants.NGRAM_SUFFIX);
+            doc.add(new TextField(name + IndexConstants.EDGE_NGRAM_SUFFIX, value, Field.Store.NO));
+            doc.add(new TextField(name + IndexConstants.NGRAM_SUFFIX, value, Field.Store.NO));
+        }
+    }
+
+    private boolean isNgramField(final String name) {
+        return Arrays.asList(getNgramFields()).contains(name);
     }
 
     /**
@@ -267,12 +478,14 @@ public abstract class IndexManager implements AutoCloseable {
      */
     protected Document getDocument(final String fieldName, final String uuid) {
         final List<Document> list = new ArrayList<>();
+        IndexSearcher searcher = null;
         try {
+            searcher = acquireIndexSearcher();
             final TermQuery query = new TermQuery(new Term(fieldName, uuid));
-            final TopDocs results = getIndexSearcher().search(query, 1000000);
+            final TopDocs results = searcher.search(query, 1000000);
             final ScoreDoc[] hits = results.scoreDocs;
             for (final ScoreDoc hit : hits) {
-                list.add(getIndexSearcher().doc(hit.doc));
+                list.add(searcher.doc(hit.doc));
             }
         } catch (CorruptIndexException e) {
             LOGGER.error("Corrupted Lucene index detected", e);
@@ -292,6 +505,8 @@ public abstract class IndexManager implements AutoCloseable {
                     .content("An I/O exception occurred while searching Lucene index. Check log for details. " + e.getMessage())
                     .level(NotificationLevel.ERROR)
             );
+        } finally {
+            releaseIndexSearcher(searcher);
         }
         if (CollectionUtils.isNotEmpty(list)) {
             return list.get(0); // There should only be one document
@@ -316,7 +531,13 @@ public abstract class IndexManager implements AutoCloseable {
      * @since 3.4.0
      */
     public void reindex() {
-        delete(indexType);
+        indexLock.writeLock().lock();
+        try {
+            closeIndex();
+            delete(indexType);
+        } finally {
+            indexLock.writeLock().unlock();
+        }
     }
 
     /**
@@ -342,4 +563,30 @@ public abstract class IndexManager implements AutoCloseable {
     public static boolean exists(final IndexType indexType) {
         return getIndexDirectory(indexType).exists();
     }
+
+    /**
+     * Analyzes the whole value of a field (rather than the words in it) into lowercase n-grams. Edge
+     * n-grams are the prefixes of the value, and are used for prefix searches. N-grams of a fixed size
+     * are used for substring searches.
+     */
+    private static final class NgramAnalyzer extends Analyzer {
+
+        private final boolean edge;
+
+        private NgramAnalyzer(final boolean edge) {
+            this.edge = edge;
+        }
+
+        @Override
+        protected TokenStreamComponents createComponents(final String fieldName) {
+            final Tokenizer tokenizer = new KeywordTokenizer();
+            TokenStream stream = new LowerCaseFilter(tokenizer);
+            if (edge) {
+                stream = new EdgeNGramTokenFilter(stream, 1, IndexConstants.EDGE_NGRAM_MAX_SIZE, false);
+            } else {
+                stream = new NGramTokenFilter(stream, IndexConstants.NGRAM_SIZE, IndexConstants.NGRAM_SIZE, false);
+            }
+            return new TokenStreamComponents(tokenizer, stream);
+        }
+    }
 }
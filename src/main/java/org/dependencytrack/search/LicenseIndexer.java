@@ -60,6 +60,11 @@ public final class LicenseIndexer extends IndexManager implements ObjectIndexer<
         return IndexConstants.LICENSE_SEARCH_FIELDS;
     }
 
+    @Override
+    public String[] getNgramFields() {
+        return IndexConstants.LICENSE_NGRAM_FIELDS;
+    }
+
     /**
      * Adds a License object to a Lucene index.
      *
@@ -72,7 +77,7 @@ public final class LicenseIndexer extends IndexManager implements ObjectIndexer<
         addField(doc, IndexConstants.LICENSE_NAME, license.getName(), Field.Store.YES, true);
 
         try {
-            getIndexWriter().addDocument(doc);
+            addDocument(doc);
         } catch (IOException e) {
             LOGGER.error("An error occurred while adding a license to the index", e);
             Notification.dispatch(new Notification()
@@ -92,7 +97,7 @@ public final class LicenseIndexer extends IndexManager implements ObjectIndexer<
      */
     public void remove(final License license) {
         try {
-            getIndexWriter().deleteDocuments(new Term(IndexConstants.LICENSE_UUID, license.getUuid().toString()));
+            deleteDocuments(new Term(IndexConstants.LICENSE_UUID, license.getUuid().toString()));
         } catch (IOException e) {
             LOGGER.error("An error occurred while removing a license from the index", e);
             Notification.dispatch(new Notification()
@@ -60,6 +60,11 @@ public final class ProjectIndexer extends IndexManager implements ObjectIndexer<
         return IndexConstants.PROJECT_SEARCH_FIELDS;
     }
 
+    @Override
+    public String[] getNgramFields() {
+        return IndexConstants.PROJECT_NGRAM_FIELDS;
+    }
+
     /**
      * Adds a Project object to a Lucene index.
      *
@@ -86,7 +91,7 @@ public final class ProjectIndexer extends IndexManager implements ObjectIndexer<
         */
 
         try {
-            getIndexWriter().addDocument(doc);
+            addDocument(doc);
         } catch (IOException e) {
             LOGGER.error("An error occurred while adding a project to the index", e);
             Notification.dispatch(new Notification()
@@ -106,7 +111,7 @@ public final class ProjectIndexer extends IndexManager implements ObjectIndexer<
      */
     public void remove(final Project project) {
         try {
-            getIndexWriter().deleteDocuments(new Term(IndexConstants.PROJECT_UUID, project.getUuid().toString()));
+            deleteDocuments(new Term(IndexConstants.PROJECT_UUID, project.getUuid().toString()));
         } catch (IOException e) {
             LOGGER.error("An error occurred while removing a project from the index", e);
             Notification.dispatch(new Notification()
@@ -25,9 +25,15 @@ import org.apache.commons.lang3.StringUtils;
 import org.apache.lucene.document.Document;
 import org.apache.lucene.index.CorruptIndexException;
 import org.apache.lucene.index.IndexableField;
+import org.apache.lucene.index.Term;
 import org.apache.lucene.queryparser.classic.ParseException;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.BoostQuery;
+import org.apache.lucene.search.IndexSearcher;
 import org.apache.lucene.search.Query;
 import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.TermQuery;
 import org.apache.lucene.search.TopDocs;
 import org.dependencytrack.notification.NotificationConstants;
 import org.dependencytrack.notification.NotificationGroup;
@@ -69,27 +75,29 @@ public class SearchManager {
     public SearchResult searchIndex(final IndexManager indexManager, final String queryString, final int limit) {
         final SearchResult searchResult = new SearchResult();
         final List<Map<String, String>> resultSet = new ArrayList<>();
+        IndexSearcher searcher = null;
         try {
-            String escaped = escape(queryString);
-            final String sb = escaped +
-                    "^100" +
-                    " OR " +
-                    escaped +
-                    "*" +
-                    "^5" +
-                    " OR " +
-                    "*" +
-                    escaped +
-                    "*";
-            final Query query = indexManager.getQueryParser().parse(sb);
-            final TopDocs results = indexManager.getIndexSearcher().search(query, limit);
+            final String escaped = escape(queryString);
+            final BooleanQuery.Builder builder = new BooleanQuery.Builder();
+            builder.add(new BoostQuery(indexManager.getQueryParser().parse(escaped), 100), BooleanClause.Occur.SHOULD);
+            for (final String field: indexManager.getSearchFields()) {
+                // Fields which are not tokenized (i.e. UUIDs and versions) only match the text as a whole
+                builder.add(new BoostQuery(new TermQuery(new Term(field, queryString)), 100), BooleanClause.Occur.SHOULD);
+            }
+            final Query ngramQuery = indexManager.getNgramQuery(queryString, 5, 1);
+            if (ngramQuery != null) {
+                builder.add(ngramQuery, BooleanClause.Occur.SHOULD);
+            }
+            final Query query = builder.build();
+            searcher = indexManager.acquireIndexSearcher();
+            final TopDocs results = searcher.search(query, limit);
 
             if (LOGGER.isDebugEnabled()) {
                 LOGGER.debug("Searching for: " + escaped + " - Total Hits: " + results.totalHits);
             }
 
             for (final ScoreDoc scoreDoc: results.scoreDocs) {
-                final Document doc = indexManager.getIndexSearcher().doc(scoreDoc.doc);
+                final Document doc = searcher.doc(scoreDoc.doc);
                 final Map<String, String> fields = new HashMap<>();
                 for (final IndexableField field: doc.getFields()) {
                     if (StringUtils.isNotBlank(field.stringValue())) {
@@ -126,9 +134,9 @@ public class SearchManager {
                     .content("An I/O Exception occurred while searching Lucene index. Check log for details. " + e.getMessage())
                     .level(NotificationLevel.ERROR)
             );
+        } finally {
+            indexManager.releaseIndexSearcher(searcher);
         }
-
-        indexManager.close();
         return searchResult;
     }
 
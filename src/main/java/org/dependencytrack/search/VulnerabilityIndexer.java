@@ -60,6 +60,11 @@ public final class VulnerabilityIndexer extends IndexManager implements ObjectIn
         return IndexConstants.VULNERABILITY_SEARCH_FIELDS;
     }
 
+    @Override
+    public String[] getNgramFields() {
+        return IndexConstants.VULNERABILITY_NGRAM_FIELDS;
+    }
+
     /**
      * Adds a Vulnerability object to a Lucene index.
      *
@@ -73,7 +78,7 @@ public final class VulnerabilityIndexer extends IndexManager implements ObjectIn
         addField(doc, IndexConstants.VULNERABILITY_SOURCE, vulnerability.getSource(), Field.Store.YES, false);
 
         try {
-            getIndexWriter().addDocument(doc);
+            addDocument(doc);
         } catch (IOException e) {
             LOGGER.error("An error occurred while adding a vulnerability to the index", e);
             Notification.dispatch(new Notification()
@@ -93,7 +98,7 @@ public final class VulnerabilityIndexer extends IndexManager implements ObjectIn
      */
     public void remove(final Vulnerability vulnerability) {
         try {
-            getIndexWriter().deleteDocuments(new Term(IndexConstants.VULNERABILITY_UUID, vulnerability.getUuid().toString()));
+            deleteDocuments(new Term(IndexConstants.VULNERABILITY_UUID, vulnerability.getUuid().toString()));
         } catch (IOException e) {
             LOGGER.error("An error occurred while removing a vulnerability from the index", e);
             Notification.dispatch(new Notification()
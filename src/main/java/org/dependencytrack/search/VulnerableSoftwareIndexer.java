@@ -76,7 +76,7 @@ public final class VulnerableSoftwareIndexer extends IndexManager implements Obj
         //todo: index the affected version range fields as well
 
         try {
-            getIndexWriter().addDocument(doc);
+            addDocument(doc);
         } catch (IOException e) {
             LOGGER.error("An error occurred while adding a VulnerableSoftware to the index", e);
             Notification.dispatch(new Notification()
@@ -96,7 +96,7 @@ public final class VulnerableSoftwareIndexer extends IndexManager implements Obj
      */
     public void remove(final VulnerableSoftware vs) {
         try {
-            getIndexWriter().deleteDocuments(new Term(IndexConstants.VULNERABLESOFTWARE_UUID, vs.getUuid().toString()));
+            deleteDocuments(new Term(IndexConstants.VULNERABLESOFTWARE_UUID, vs.getUuid().toString()));
         } catch (IOException e) {
             LOGGER.error("An error occurred while removing a VulnerableSoftware from the index", e);
             Notification.dispatch(new Notification()
@@ -19,15 +19,40 @@
 package org.dependencytrack.servlets;
 
 import alpine.logging.Logger;
-import alpine.servlets.FileSystemResourceServlet;
+import org.apache.commons.lang3.StringUtils;
 import org.dependencytrack.tasks.NistMirrorTask;
 import javax.servlet.ServletConfig;
 import javax.servlet.ServletException;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 
-public class NvdMirrorServlet extends FileSystemResourceServlet {
+/**
+ * Serves the contents of the NVD mirror. Files are transferred from their channel directly to the
+ * response rather than being read into memory. Conditional requests (If-None-Match and If-Modified-Since)
+ * and single byte ranges are supported. Uncompressed feeds are served from their gzipped counterparts
+ * as-is when the client accepts a gzip content encoding. The directory served is the NVD mirror directory,
+ * unless another one is specified by the directory init parameter.
+ *
+ * @author Steve Springett
+ * @since 3.0.0
+ */
+public class NvdMirrorServlet extends HttpServlet {
 
+    private static final long serialVersionUID = -6427346342396468374L;
     private static final Logger LOGGER = Logger.getLogger(NvdMirrorServlet.class);
 
+    private Path directory;
+
     /**
      * {@inheritDoc}
      */
@@ -35,8 +60,227 @@ public class NvdMirrorServlet extends FileSystemResourceServlet {
     public void init(final ServletConfig config) throws ServletException {
         LOGGER.info("Initializing NVD mirror");
         super.init(config);
-        super.setDirectory(NistMirrorTask.NVD_MIRROR_DIR);
-        super.setAbsolute(true);
+        final String mirrorDir = config.getInitParameter("directory");
+        directory = Paths.get(StringUtils.isNotBlank(mirrorDir) ? mirrorDir : NistMirrorTask.NVD_MIRROR_DIR).toAbsolutePath().normalize();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void doGet(final HttpServletRequest request, final HttpServletResponse response) throws IOException {
+        serve(request, response, true);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void doHead(final HttpServletRequest request, final HttpServletResponse response) throws IOException {
+        serve(request, response, false);
+    }
+
+    private void serve(final HttpServletRequest request, final HttpServletResponse response, final boolean content) throws IOException {
+        final Path requested = resolve(request.getPathInfo());
+        if (requested == null) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        final String filename = requested.getFileName().toString();
+        Path path = requested;
+        String contentEncoding = null;
+        final Path gzipped = requested.resolveSibling(filename + ".gz");
+        if (filename.endsWith(".json") && acceptsGzip(request) && Files.isRegularFile(gzipped)) {
+            path = gzipped;
+            contentEncoding = "gzip";
+        }
+        if (!Files.isRegularFile(path)) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
+        final long length = Files.size(path);
+        final long lastModified = Files.getLastModifiedTime(path).toMillis();
+        final String etag = getETag(length, lastModified);
+        response.setHeader("ETag", etag);
+        response.setDateHeader("Last-Modified", lastModified);
+        response.setHeader("Accept-Ranges", "bytes");
+        if (filename.endsWith(".json")) {
+            response.setHeader("Vary", "Accept-Encoding");
+        }
+        if (isNotModified(request, etag, lastModified)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        long start = 0;
+        long end = length - 1;
+        final String range = request.getHeader("Range");
+        if (range != null && isRangeApplicable(request, etag, lastModified)) {
+            final long[] bytes = parseRange(range, length);
+            if (bytes == null) {
+                response.setHeader("Content-Range", "bytes */" + length);
+                response.sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                return;
+            } else if (bytes.length == 2) {
+                start = bytes[0];
+                end = bytes[1];
+                response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                response.setHeader("Content-Range", "bytes " + start + "-" + end + "/" + length);
+            }
+        }
+        response.setContentType(getContentType(filename));
+        if (contentEncoding != null) {
+            response.setHeader("Content-Encoding", contentEncoding);
+        }
+        response.setContentLengthLong(end - start + 1);
+        if (!content || length == 0) {
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            final ServletOutputStream out = response.getOutputStream();
+            final WritableByteChannel target = Channels.newChannel(out);
+            long position = start;
+            while (position <= end) {
+                final long transferred = channel.transferTo(position, end - position + 1, target);
+                if (transferred <= 0) {
+                    break;
+                }
+                position += transferred;
+            }
+            out.flush();
+        }
+    }
+
+    /**
+     * Resolves the requested path within the mirror directory.
+     * @return the path, or null if it is outside of the mirror directory or refers to a file which is not part of the mirror
+     */
+    private Path resolve(final String pathInfo) {
+        if (StringUtils.isBlank(pathInfo) || "/".equals(pathInfo) || directory == null) {
+            return null;
+        }
+        final Path path = directory.resolve(StringUtils.stripStart(pathInfo, "/")).normalize();
+        final String filename = path.getFileName().toString();
+        if (!path.startsWith(directory) || filename.endsWith(".tmp") || filename.endsWith(".etag")) {
+            return null;
+        }
+        return path;
+    }
+
+    /**
+     * Returns a strong entity tag for a file, based on the modification date and length of the file
+     * being served. Mirrored files are replaced rather than modified in place, so every version of a
+     * file has its own entity tag, and a range of one version can not be combined with another.
+     */
+    private static String getETag(final long length, final long lastModified) {
+        return "\"" + Long.toHexString(lastModified) + "-" + Long.toHexString(length) + "\"";
     }
 
+    private static boolean isNotModified(final HttpServletRequest request, final String etag, final long lastModified) {
+        final String ifNoneMatch = request.getHeader("If-None-Match");
+        if (ifNoneMatch != null) {
+            for (final String tag: ifNoneMatch.split(",")) {
+                final String trimmed = StringUtils.removeStart(tag.trim(), "W/");
+                if ("*".equals(trimmed) || etag.equals(trimmed)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        final long ifModifiedSince = getDateHeader(request, "If-Modified-Since");
+        return ifModifiedSince != -1 && lastModified / 1000 <= ifModifiedSince / 1000;
+    }
+
+    /**
+     * Determines if a Range header should be honoured, which is not the case if an If-Range
+     * precondition does not match the current representation.
+     */
+    private static boolean isRangeApplicable(final HttpServletRequest request, final String etag, final long lastModified) {
+        final String ifRange = request.getHeader("If-Range");
+        if (ifRange == null) {
+            return true;
+        }
+        if (ifRange.trim().startsWith("\"")) {
+            return etag.equals(ifRange.trim());
+        }
+        final long date = getDateHeader(request, "If-Range");
+        return date != -1 && lastModified / 1000 == date / 1000;
+    }
+
+    /**
+     * Parses a Range header.
+     * @return the first and last byte of the range, an empty array if the header should be ignored
+     * (i.e. it is not a single byte range), or null if the range is not satisfiable
+     */
+    private static long[] parseRange(final String range, final long length) {
+        if (!range.startsWith("bytes=") || range.contains(",")) {
+            return new long[0];
+        }
+        final String spec = range.substring("bytes=".length()).trim();
+        final int dash = spec.indexOf('-');
+        if (dash < 0) {
+            return new long[0];
+        }
+        try {
+            final String first = spec.substring(0, dash).trim();
+            final String last = spec.substring(dash + 1).trim();
+            long start;
+            long end;
+            if (first.isEmpty()) {
+                if (last.isEmpty()) {
+                    return new long[0];
+                }
+                // A suffix range specifies the number of bytes at the end of the file
+                final long suffix = Long.parseLong(last);
+                if (suffix <= 0) {
+                    return null;
+                }
+                start = Math.max(0, length - suffix);
+                end = length - 1;
+            } else {
+                start = Long.parseLong(first);
+                end = last.isEmpty() ? length - 1 : Math.min(Long.parseLong(last), length - 1);
+            }
+            if (start >= length || start > end) {
+                return null;
+            }
+            return new long[]{start, end};
+        } catch (NumberFormatException e) {
+            return new long[0];
+        }
+    }
+
+    private static boolean acceptsGzip(final HttpServletRequest request) {
+        final String acceptEncoding = request.getHeader("Accept-Encoding");
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (final String coding: acceptEncoding.split(",")) {
+            final String[] parts = coding.trim().split(";");
+            if ("gzip".equalsIgnoreCase(parts[0].trim())) {
+                return parts.length < 2 || !parts[1].trim().replace(" ", "").matches("q=0(\\.0*)?");
+            }
+        }
+        return false;
+    }
+
+    private static long getDateHeader(final HttpServletRequest request, final String name) {
+        try {
+            return request.getDateHeader(name);
+        } catch (IllegalArgumentException e) {
+            return -1;
+        }
+    }
+
+    private static String getContentType(final String filename) {
+        if (filename.endsWith(".json")) {
+            return "application/json";
+        } else if (filename.endsWith(".gz")) {
+            return "application/gzip";
+        } else if (filename.endsWith(".xml")) {
+            return "application/xml";
+        }
+        return "text/plain";
+    }
 }
@@ -22,9 +22,6 @@ import alpine.event.framework.Event;
 import alpine.event.framework.Subscriber;
 import alpine.logging.Logger;
 import alpine.persistence.PaginatedResult;
-import alpine.resources.AlpineRequest;
-import alpine.resources.OrderDirection;
-import alpine.resources.Pagination;
 import org.dependencytrack.event.MetricsUpdateEvent;
 import org.dependencytrack.metrics.Metrics;
 import org.dependencytrack.model.Component;
@@ -37,6 +34,7 @@ import org.dependencytrack.model.ProjectMetrics;
 import org.dependencytrack.model.Severity;
 import org.dependencytrack.model.Vulnerability;
 import org.dependencytrack.model.VulnerabilityMetrics;
+import org.dependencytrack.persistence.KeysetCursor;
 import org.dependencytrack.persistence.QueryManager;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
@@ -132,26 +130,21 @@ public class MetricsUpdateTask implements Subscriber {
         // Total number of suppressions regardless if they are dependencies or components not associated to a project
         portfolioCounters.suppressions = toIntExact(qm.getSuppressedCount());
 
-        // There will be a high probability of having a large number of components. Setup paging.
-        final AlpineRequest alpineRequest = new AlpineRequest(
-                null, new Pagination(Pagination.Strategy.OFFSET, 0, 1000), null, "id", OrderDirection.ASCENDING
-        );
-        // Page through a list of components (these are global component objects - not dependencies)
-        try (QueryManager qm2 = new QueryManager(alpineRequest)) {
-            final long total = qm2.getCount(Component.class);
-            long count = 0;
-            while (count < total) {
-                final PaginatedResult result = qm2.getComponents();
-                portfolioCounters.components = toIntExact(result.getTotal());
-                for (final Component component: result.getList(Component.class)) {
+        // There will be a high probability of having a large number of components. Page through them
+        // (these are global component objects - not dependencies), fetching only their ids.
+        try (QueryManager qm2 = new QueryManager()) {
+            final KeysetCursor<Component> cursor = new KeysetCursor<>(qm2, Component.class, Component::getId, "id");
+            portfolioCounters.components = 0;
+            while (cursor.hasNext()) {
+                final List<Component> components = cursor.next();
+                portfolioCounters.components += components.size();
+                for (final Component component: components) {
                     final MetricCounters componentMetrics = updateComponentMetrics(qm, component.getId());
                     // Only vulnerable components
                     if (componentMetrics.severitySum() > 0) {
                         portfolioCounters.vulnerableComponents++;
                     }
                 }
-                count += result.getObjects().size();
-                qm.advancePagination();
             }
         }
 
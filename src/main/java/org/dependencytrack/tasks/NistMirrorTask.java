@@ -22,31 +22,60 @@ import alpine.Config;
 import alpine.event.framework.Event;
 import alpine.event.framework.LoggableSubscriber;
 import alpine.logging.Logger;
+import alpine.model.ConfigProperty;
 import alpine.notification.Notification;
 import alpine.notification.NotificationLevel;
-import org.apache.commons.io.FileUtils;
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.http.Header;
 import org.apache.http.HttpHeaders;
+import org.apache.http.HttpStatus;
 import org.apache.http.StatusLine;
 import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpGet;
-import org.apache.http.client.methods.HttpHead;
 import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.client.utils.DateUtils;
 import org.dependencytrack.common.HttpClientPool;
+import org.dependencytrack.common.TaskMetrics;
 import org.dependencytrack.event.NistMirrorEvent;
+import org.dependencytrack.event.ReverseAnalysisEvent;
+import org.dependencytrack.model.ConfigPropertyConstants;
+import org.dependencytrack.model.SyncState;
+import org.dependencytrack.model.Vulnerability;
 import org.dependencytrack.notification.NotificationConstants;
 import org.dependencytrack.notification.NotificationGroup;
 import org.dependencytrack.notification.NotificationScope;
 import org.dependencytrack.parser.nvd.CpeDictionaryParser;
 import org.dependencytrack.parser.nvd.NvdParser;
-import java.io.Closeable;
+import org.dependencytrack.persistence.QueryManager;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.zip.GZIPInputStream;
 
 /**
@@ -65,24 +94,48 @@ public class NistMirrorTask implements LoggableSubscriber {
     }
 
     public static final String NVD_MIRROR_DIR = Config.getInstance().getDataDirectorty().getAbsolutePath() + File.separator + "nist";
-    private static final String CPE_DICTIONARY_23_XML = "https://nvd.nist.gov/feeds/xml/cpe/dictionary/official-cpe-dictionary_v2.3.xml.gz";
-    private static final String CVE_JSON_10_MODIFIED_URL = "https://nvd.nist.gov/feeds/json/cve/1.0/nvdcve-1.0-modified.json.gz";
-    private static final String CVE_JSON_10_BASE_URL = "https://nvd.nist.gov/feeds/json/cve/1.0/nvdcve-1.0-%d.json.gz";
-    private static final String CVE_JSON_10_MODIFIED_META = "https://nvd.nist.gov/feeds/json/cve/1.0/nvdcve-1.0-modified.meta";
-    private static final String CVE_JSON_10_BASE_META = "https://nvd.nist.gov/feeds/json/cve/1.0/nvdcve-1.0-%d.meta";
-    private static final String CVE_JSON_11_MODIFIED_URL = "https://nvd.nist.gov/feeds/json/cve/1.1/nvdcve-1.1-modified.json.gz";
-    private static final String CVE_JSON_11_BASE_URL = "https://nvd.nist.gov/feeds/json/cve/1.1/nvdcve-1.1-%d.json.gz";
-    private static final String CVE_JSON_11_MODIFIED_META = "https://nvd.nist.gov/feeds/json/cve/1.1/nvdcve-1.1-modified.meta";
-    private static final String CVE_JSON_11_BASE_META = "https://nvd.nist.gov/feeds/json/cve/1.1/nvdcve-1.1-%d.meta";
+    private static final String CPE_DICTIONARY_23_XML = "/xml/cpe/dictionary/official-cpe-dictionary_v2.3.xml.gz";
+    private static final String CVE_JSON_10_MODIFIED_URL = "/json/cve/1.0/nvdcve-1.0-modified.json.gz";
+    private static final String CVE_JSON_10_BASE_URL = "/json/cve/1.0/nvdcve-1.0-%d.json.gz";
+    private static final String CVE_JSON_10_MODIFIED_META = "/json/cve/1.0/nvdcve-1.0-modified.meta";
+    private static final String CVE_JSON_10_BASE_META = "/json/cve/1.0/nvdcve-1.0-%d.meta";
+    private static final String CVE_JSON_10_RECENT_URL = "/json/cve/1.0/nvdcve-1.0-recent.json.gz";
+    private static final String CVE_JSON_10_RECENT_META = "/json/cve/1.0/nvdcve-1.0-recent.meta";
+    private static final String CVE_JSON_11_MODIFIED_URL = "/json/cve/1.1/nvdcve-1.1-modified.json.gz";
+    private static final String CVE_JSON_11_BASE_URL = "/json/cve/1.1/nvdcve-1.1-%d.json.gz";
+    private static final String CVE_JSON_11_MODIFIED_META = "/json/cve/1.1/nvdcve-1.1-modified.meta";
+    private static final String CVE_JSON_11_BASE_META = "/json/cve/1.1/nvdcve-1.1-%d.meta";
+    static final String FULL_REFRESH = "full-refresh"; // The sync state target recording the last full refresh
     private static final int START_YEAR = 2002;
     private static final int END_YEAR = Calendar.getInstance().get(Calendar.YEAR);
+    private static final int DOWNLOAD_THREADS = 4;
     private File outputDir;
+    private String feedsUrl;
+    private NvdParser nvdParser;
+    private boolean incremental;
+    private final Map<String, String> syncedChecksums = new HashMap<>();
     private long metricParseTime;
-    private long metricDownloadTime;
+    private final AtomicLong metricDownloadTime = new AtomicLong();
 
     private static final Logger LOGGER = Logger.getLogger(NistMirrorTask.class);
+    private final TaskMetrics taskMetrics = TaskMetrics.getInstance(NistMirrorTask.class.getSimpleName());
 
-    private boolean mirroredWithoutErrors = true;
+    private volatile boolean mirroredWithoutErrors = true;
+    private final Set<Long> changedVulnerabilities = new HashSet<>();
+    private final Set<List<String>> affectedProducts = new HashSet<>();
+
+    public NistMirrorTask() {
+    }
+
+    /**
+     * Creates a task which mirrors the feeds published at the specified URL to the specified directory.
+     * @param outputDir the directory the feeds are mirrored to
+     * @param feedsUrl the base URL the feeds are published at
+     */
+    NistMirrorTask(final File outputDir, final String feedsUrl) {
+        this.outputDir = outputDir;
+        this.feedsUrl = feedsUrl;
+    }
 
     /**
      * {@inheritDoc}
@@ -91,42 +144,123 @@ public class NistMirrorTask implements LoggableSubscriber {
         if (e instanceof NistMirrorEvent) {
             final long start = System.currentTimeMillis();
             LOGGER.info("Starting NIST mirroring task");
+            try (QueryManager qm = new QueryManager()) {
+                final ConfigProperty feedsUrlProperty = qm.getConfigProperty(
+                        ConfigPropertyConstants.VULNSOURCE_NVD_FEEDS_URL.getGroupName(),
+                        ConfigPropertyConstants.VULNSOURCE_NVD_FEEDS_URL.getPropertyName()
+                );
+                feedsUrl = (feedsUrlProperty != null && StringUtils.isNotBlank(feedsUrlProperty.getPropertyValue()))
+                        ? feedsUrlProperty.getPropertyValue().trim()
+                        : ConfigPropertyConstants.VULNSOURCE_NVD_FEEDS_URL.getDefaultPropertyValue();
+                feedsUrl = StringUtils.removeEnd(feedsUrl, "/");
+                // A single parser is used for all feeds, so that CVEs which have not changed are only looked up once
+                nvdParser = new NvdParser(
+                        qm.getIntegerProperty(ConfigPropertyConstants.VULNSOURCE_NVD_WORKERS),
+                        qm.getIntegerProperty(ConfigPropertyConstants.VULNSOURCE_NVD_BATCH_SIZE)
+                );
+                loadSyncStates(qm, qm.getIntegerProperty(ConfigPropertyConstants.VULNSOURCE_NVD_FULL_REFRESH_CADENCE));
+            }
             final File mirrorPath = new File(NVD_MIRROR_DIR);
             setOutputDir(mirrorPath.getAbsolutePath());
+            LOGGER.info(incremental ? "Performing an incremental update of the NVD" : "Performing a full refresh of the NVD");
             getAllFiles();
             final long end = System.currentTimeMillis();
             LOGGER.info("NIST mirroring complete");
-            LOGGER.info("Time spent (d/l):   " + metricDownloadTime + "ms");
+            LOGGER.info("Time spent (d/l):   " + metricDownloadTime.get() + "ms");
             LOGGER.info("Time spent (parse): " + metricParseTime + "ms");
             LOGGER.info("Time spent (total): " + (end - start) + "ms");
+            taskMetrics.taskCompleted(end - start);
+            if (!changedVulnerabilities.isEmpty() || !affectedProducts.isEmpty()) {
+                Event.dispatch(new ReverseAnalysisEvent(changedVulnerabilities, affectedProducts));
+            }
         }
     }
 
     /**
-     * Download all NVD XML and JSON feeds from NIST.
+     * Loads the checksums of the feeds previously synchronized, and determines whether an incremental
+     * update suffices. This is the case if a full refresh was performed within the full refresh cadence.
+     * @param qm the QueryManager to use
+     * @param fullRefreshCadence the number of days after which a full refresh is performed, or 0 to always perform one
+     */
+    void loadSyncStates(final QueryManager qm, final int fullRefreshCadence) {
+        incremental = false;
+        syncedChecksums.clear();
+        for (final SyncState syncState: qm.getSyncStates(Vulnerability.Source.NVD)) {
+            if (FULL_REFRESH.equals(syncState.getTarget())) {
+                incremental = fullRefreshCadence > 0 && syncState.getLastSynchronized().getTime()
+                        > System.currentTimeMillis() - TimeUnit.DAYS.toMillis(fullRefreshCadence);
+            } else {
+                syncedChecksums.put(syncState.getTarget(), syncState.getChecksum());
+            }
+        }
+    }
+
+    /**
+     * Returns whether only the recent and modified feeds are processed.
+     */
+    boolean isIncremental() {
+        return incremental;
+    }
+
+    /**
+     * Download all NVD XML and JSON feeds from NIST. Feeds are downloaded concurrently, and are
+     * parsed in order on the calling thread as soon as their downloads complete, so that parsing
+     * overlaps with the downloads still in progress. An incremental update only processes the
+     * recent and modified feeds, whereas a full refresh processes the CPE dictionary and every
+     * yearly feed as well. The JSON 1.1 feeds are not parsed, but are always mirrored so that
+     * they can be served to Dependency-Check clients by the NVD mirror servlet.
      */
     private void getAllFiles() {
         final Date currentDate = new Date();
         LOGGER.info("Downloading files at " + currentDate);
-        // Download the CPE dictionary first
-        doDownload(CPE_DICTIONARY_23_XML, ResourceType.CPE);
-        for (int i = START_YEAR; i <= END_YEAR; i++) {
-            // Download JSON 1.0 year feeds
-            final String json10BaseUrl = CVE_JSON_10_BASE_URL.replace("%d", String.valueOf(i));
-            final String cveBaseMetaUrl = CVE_JSON_10_BASE_META.replace("%d", String.valueOf(i));
-            doDownload(json10BaseUrl, ResourceType.CVE);
-            doDownload(cveBaseMetaUrl, ResourceType.CVE);
-            // Download JSON 1.1 year feeds
-            final String json11BaseUrl = CVE_JSON_11_BASE_URL.replace("%d", String.valueOf(i));
-            final String cve11BaseMetaUrl = CVE_JSON_11_BASE_META.replace("%d", String.valueOf(i));
-            doDownload(json11BaseUrl, ResourceType.NONE);
-            doDownload(cve11BaseMetaUrl, ResourceType.NONE);
+        boolean synchronizedWithoutErrors = true;
+        final ExecutorService executor = Executors.newFixedThreadPool(DOWNLOAD_THREADS);
+        try {
+            Future<MirroredFeed> cpeDictionary = null;
+            final List<Future<MirroredFeed>> cveFeeds = new ArrayList<>();
+            if (incremental) {
+                cveFeeds.add(executor.submit(() -> mirrorFeed(
+                        feedsUrl + CVE_JSON_10_RECENT_URL, feedsUrl + CVE_JSON_10_RECENT_META)));
+            } else {
+                cpeDictionary = executor.submit(() -> mirrorFile(feedsUrl + CPE_DICTIONARY_23_XML));
+                for (int i = START_YEAR; i <= END_YEAR; i++) {
+                    final String year = String.valueOf(i);
+                    cveFeeds.add(executor.submit(() -> mirrorFeed(
+                            feedsUrl + CVE_JSON_10_BASE_URL.replace("%d", year),
+                            feedsUrl + CVE_JSON_10_BASE_META.replace("%d", year))));
+                }
+            }
+            cveFeeds.add(executor.submit(() -> mirrorFeed(
+                    feedsUrl + CVE_JSON_10_MODIFIED_URL, feedsUrl + CVE_JSON_10_MODIFIED_META)));
+            final List<Future<MirroredFeed>> mirrorOnlyFeeds = new ArrayList<>();
+            for (int i = START_YEAR; i <= END_YEAR; i++) {
+                final String year = String.valueOf(i);
+                mirrorOnlyFeeds.add(executor.submit(() -> mirrorFeed(
+                        feedsUrl + CVE_JSON_11_BASE_URL.replace("%d", year),
+                        feedsUrl + CVE_JSON_11_BASE_META.replace("%d", year))));
+            }
+            mirrorOnlyFeeds.add(executor.submit(() -> mirrorFeed(
+                    feedsUrl + CVE_JSON_11_MODIFIED_URL, feedsUrl + CVE_JSON_11_MODIFIED_META)));
+
+            // The CPE dictionary is parsed first, and the modified feed last
+            if (cpeDictionary != null) {
+                synchronizedWithoutErrors = parse(cpeDictionary, ResourceType.CPE);
+            }
+            for (final Future<MirroredFeed> cveFeed: cveFeeds) {
+                synchronizedWithoutErrors &= parse(cveFeed, ResourceType.CVE);
+            }
+            for (final Future<MirroredFeed> mirrorOnlyFeed: mirrorOnlyFeeds) {
+                parse(mirrorOnlyFeed, ResourceType.NONE);
+            }
+        } finally {
+            executor.shutdownNow();
         }
-        doDownload(CVE_JSON_10_MODIFIED_URL, ResourceType.CVE);
-        doDownload(CVE_JSON_10_MODIFIED_META, ResourceType.CVE);
-        doDownload(CVE_JSON_11_MODIFIED_URL, ResourceType.NONE);
-        doDownload(CVE_JSON_11_MODIFIED_META, ResourceType.NONE);
 
+        if (!incremental && mirroredWithoutErrors && synchronizedWithoutErrors) {
+            try (QueryManager qm = new QueryManager()) {
+                qm.updateSyncState(Vulnerability.Source.NVD, FULL_REFRESH, null, null);
+            }
+        }
         if (mirroredWithoutErrors) {
             Notification.dispatch(new Notification()
                     .scope(NotificationScope.SYSTEM)
@@ -153,57 +287,210 @@ public class NistMirrorTask implements LoggableSubscriber {
     }
 
     /**
-     * Performs a HTTP HEAD request to determine if a URL has updates since the last
-     * time it was requested.
-     * @param cveUrl the URL to perform a HTTP HEAD request on
-     * @return the length of the content if it were to be downloaded
+     * Mirrors a CVE feed along with its meta file. The feed is only downloaded if the sha256 in
+     * the meta file differs from the one previously mirrored, and the uncompressed feed is
+     * validated against it. The meta file is only replaced once the feed has been validated.
+     * If the meta file cannot be retrieved, a conditional request for the feed is made instead.
+     * @param feedUrl the URL of the (compressed) feed
+     * @param metaUrl the URL of the meta file describing the feed
+     * @return the feed if it has not been synchronized yet, or null if it has or could not be mirrored
+     */
+    MirroredFeed mirrorFeed(final String feedUrl, final String metaUrl) throws IOException {
+        final File feedFile = getFile(feedUrl);
+        final File metaFile = getFile(metaUrl);
+        final File jsonFile = new File(outputDir, StringUtils.removeEnd(feedFile.getName(), ".gz"));
+        final File tempMetaFile = File.createTempFile(metaFile.getName(), ".tmp", outputDir);
+        try {
+            if (download(metaUrl, tempMetaFile, false) != HttpStatus.SC_OK) {
+                LOGGER.warn("Unable to retrieve " + metaFile.getName() + ". Falling back to a conditional request");
+                return mirrorFile(feedUrl);
+            }
+            final Map<String, String> meta = readMeta(tempMetaFile);
+            final String sha256 = meta.get("sha256");
+            final MirroredFeed feed = new MirroredFeed(feedFile.getName(), jsonFile, sha256, parseDate(meta.get("lastModifiedDate")));
+            if (sha256 != null && jsonFile.exists() && sha256.equalsIgnoreCase(readMeta(metaFile).get("sha256"))) {
+                if (isSynchronized(feed)) {
+                    LOGGER.info("Using cached version of " + jsonFile.getName());
+                    return null;
+                }
+                return feed;
+            }
+            if (download(feedUrl, feedFile, false) != HttpStatus.SC_OK) {
+                return null;
+            }
+            if (uncompress(feedFile, sha256) == null) {
+                return null;
+            }
+            Files.move(tempMetaFile.toPath(), metaFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return feed;
+        } finally {
+            Files.deleteIfExists(tempMetaFile.toPath());
+        }
+    }
+
+    /**
+     * Mirrors a file using a conditional request based on the ETag and modification date of the
+     * previously mirrored file.
+     * @param urlString the URL of the file
+     * @return the file if it has not been synchronized yet, or null if it has or could not be mirrored
      */
-    private long checkHead(final String cveUrl) {
-        final HttpUriRequest request = new HttpHead(cveUrl);
-        try (final CloseableHttpResponse response = HttpClientPool.getClient().execute(request)) {
-            return Long.valueOf(response.getFirstHeader(HttpHeaders.CONTENT_LENGTH).getValue());
-        } catch (IOException | NumberFormatException | NullPointerException e) {
-            LOGGER.error("Failed to determine content length");
+    MirroredFeed mirrorFile(final String urlString) throws IOException {
+        final File file = getFile(urlString);
+        final File uncompressedFile = new File(outputDir, StringUtils.removeEnd(file.getName(), ".gz"));
+        final int status = download(urlString, file, true);
+        if (status != HttpStatus.SC_OK && status != HttpStatus.SC_NOT_MODIFIED) {
+            return null;
+        }
+        final File etagFile = new File(file.getAbsolutePath() + ".etag");
+        final String etag = etagFile.exists() ? new String(Files.readAllBytes(etagFile.toPath()), StandardCharsets.UTF_8).trim() : null;
+        final MirroredFeed feed = new MirroredFeed(file.getName(), uncompressedFile, etag, new Date(file.lastModified()));
+        if (status == HttpStatus.SC_NOT_MODIFIED && uncompressedFile.exists()) {
+            if (isSynchronized(feed)) {
+                LOGGER.info("Using cached version of " + file.getName());
+                return null;
+            }
+            return feed;
         }
-        return 0;
+        if (file.getName().endsWith(".gz") && uncompress(file, null) == null) {
+            return null;
+        }
+        return feed;
     }
 
     /**
-     * Performs a download of specified URL.
-     * @param urlString the URL contents to download
+     * Determines if the content of a feed was already synchronized successfully.
      */
-    private void doDownload(final String urlString, final ResourceType resourceType) {
-        File file;
+    private boolean isSynchronized(final MirroredFeed feed) {
+        return feed.checksum != null && feed.checksum.equalsIgnoreCase(syncedChecksums.get(feed.name));
+    }
+
+    /**
+     * Waits for a mirrored feed and parses it. Once parsed successfully, its sync state is updated.
+     * Feeds which are only mirrored (i.e. of type NONE) are not parsed and have no sync state.
+     * @param mirroredFeed the result of mirroring the feed
+     * @param resourceType the type of resource the feed contains
+     * @return true if the feed was mirrored and parsed without errors (or did not need to be parsed), false if not
+     */
+    private boolean parse(final Future<MirroredFeed> mirroredFeed, final ResourceType resourceType) {
+        final MirroredFeed feed;
         try {
-            final URL url = new URL(urlString);
-            String filename = url.getFile();
-            filename = filename.substring(filename.lastIndexOf('/') + 1);
-            file = new File(outputDir, filename).getAbsoluteFile();
+            feed = mirroredFeed.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            mirroredWithoutErrors = false;
+            return false;
+        } catch (ExecutionException e) {
+            mirroredWithoutErrors = false;
+            LOGGER.error("An error occurred mirroring the NVD", e.getCause());
+            return false;
+        }
+        if (feed == null || ResourceType.NONE == resourceType) {
+            return true;
+        }
+        final long start = System.currentTimeMillis();
+        boolean parsed = true;
+        if (ResourceType.CVE == resourceType) {
+            parsed = nvdParser.parse(feed.file);
+            changedVulnerabilities.addAll(nvdParser.getChangedVulnerabilities());
+            affectedProducts.addAll(nvdParser.getAffectedProducts());
+        } else if (ResourceType.CPE == resourceType) {
+            final CpeDictionaryParser parser = new CpeDictionaryParser();
+            parser.parse(feed.file);
+        }
+        final long end = System.currentTimeMillis();
+        metricParseTime += end - start;
+        if (parsed) {
+            try (QueryManager qm = new QueryManager()) {
+                qm.updateSyncState(Vulnerability.Source.NVD, feed.name, feed.checksum, feed.lastModified);
+            }
+        }
+        return parsed;
+    }
 
-            if (file.exists()) {
-                final long fileSize = checkHead(urlString);
-                if (file.length() == fileSize) {
-                    LOGGER.info("Using cached version of " + filename);
-                    return;
-                }
+    /**
+     * Returns the location a URL is mirrored to.
+     */
+    private File getFile(final String urlString) throws IOException {
+        final String filename = new URL(urlString).getFile();
+        return new File(outputDir, filename.substring(filename.lastIndexOf('/') + 1)).getAbsoluteFile();
+    }
+
+    /**
+     * Reads the properties (such as the lastModifiedDate and the sha256 of the uncompressed feed) of a meta file.
+     * @return a Map of the properties, which is empty if the file does not exist
+     */
+    private static Map<String, String> readMeta(final File metaFile) throws IOException {
+        final Map<String, String> meta = new HashMap<>();
+        if (!metaFile.exists()) {
+            return meta;
+        }
+        for (final String line: Files.readAllLines(metaFile.toPath(), StandardCharsets.UTF_8)) {
+            final int separator = line.indexOf(':');
+            if (separator > 0) {
+                meta.put(line.substring(0, separator).trim(), StringUtils.trimToNull(line.substring(separator + 1)));
             }
+        }
+        return meta;
+    }
+
+    private static Date parseDate(final String date) {
+        if (date == null) {
+            return null;
+        }
+        try {
+            return Date.from(OffsetDateTime.parse(date).toInstant());
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Performs a download of specified URL. The content is written to a temporary file which replaces
+     * the target file once the download is complete, so that the target file is never left incomplete.
+     * @param urlString the URL contents to download
+     * @param file the file to download to
+     * @param conditional whether to only download the content if it changed since the file was downloaded
+     * @return the HTTP status code of the response, or -1 if the request failed
+     */
+    private int download(final String urlString, final File file, final boolean conditional) {
+        final File etagFile = new File(file.getAbsolutePath() + ".etag");
+        try {
             final long start = System.currentTimeMillis();
-            LOGGER.info("Initiating download of " + url.toExternalForm());
+            LOGGER.info("Initiating download of " + urlString);
             final HttpUriRequest request = new HttpGet(urlString);
+            if (conditional && file.exists()) {
+                request.setHeader(HttpHeaders.IF_MODIFIED_SINCE, DateUtils.formatDate(new Date(file.lastModified())));
+                if (etagFile.exists()) {
+                    request.setHeader(HttpHeaders.IF_NONE_MATCH, new String(Files.readAllBytes(etagFile.toPath()), StandardCharsets.UTF_8).trim());
+                }
+            }
             try (final CloseableHttpResponse response = HttpClientPool.getClient().execute(request)) {
                 final StatusLine status = response.getStatusLine();
-                final long end = System.currentTimeMillis();
-                metricDownloadTime += end - start;
-                if (status.getStatusCode() == 200) {
-                    LOGGER.info("Downloading...");
+                if (status.getStatusCode() == HttpStatus.SC_OK) {
+                    final File tempFile = File.createTempFile(file.getName(), ".tmp", outputDir);
                     try (InputStream in = response.getEntity().getContent()) {
-                        file = new File(outputDir, filename);
-                        FileUtils.copyInputStreamToFile(in, file);
-                        if (file.getName().endsWith(".gz")) {
-                            uncompress(file, resourceType);
+                        Files.copy(in, tempFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                        final Header lastModified = response.getFirstHeader(HttpHeaders.LAST_MODIFIED);
+                        final Date lastModifiedDate = (lastModified != null) ? DateUtils.parseDate(lastModified.getValue()) : null;
+                        if (lastModifiedDate != null && !tempFile.setLastModified(lastModifiedDate.getTime())) {
+                            LOGGER.debug("Unable to set the modification date of " + file.getName());
                         }
+                        Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                    } finally {
+                        Files.deleteIfExists(tempFile.toPath());
                     }
-                } else if (response.getStatusLine().getStatusCode() == 403) {
+                    final Header etag = response.getFirstHeader(HttpHeaders.ETAG);
+                    if (etag != null) {
+                        Files.write(etagFile.toPath(), etag.getValue().getBytes(StandardCharsets.UTF_8));
+                    } else {
+                        Files.deleteIfExists(etagFile.toPath());
+                    }
+                    final long end = System.currentTimeMillis();
+                    metricDownloadTime.addAndGet(end - start);
+                    taskMetrics.httpRequest(end - start, file.length());
+                } else if (status.getStatusCode() == HttpStatus.SC_NOT_MODIFIED) {
+                    taskMetrics.httpRequest(System.currentTimeMillis() - start, 0);
+                } else if (status.getStatusCode() == 403) {
                     mirroredWithoutErrors = false;
                     final String detailMessage = "This may occur if the NVD is throttling connections due to excessive load or repeated " +
                             "connections from the same IP address or as a result of firewall or proxy authentication failures";
@@ -227,6 +514,7 @@ public class NistMirrorTask implements LoggableSubscriber {
                             .level(NotificationLevel.ERROR)
                     );
                 }
+                return status.getStatusCode();
             }
         } catch (IOException e) {
             mirroredWithoutErrors = false;
@@ -239,55 +527,72 @@ public class NistMirrorTask implements LoggableSubscriber {
                     .level(NotificationLevel.ERROR)
             );
         }
+        return -1;
     }
 
     /**
-     * Extracts a GZip file.
+     * Extracts a GZip file. The file is extracted to a temporary file which replaces the
+     * uncompressed file once it has been validated.
      * @param file the file to extract
+     * @param sha256 the expected sha256 of the uncompressed content, or null to skip validation
+     * @return the uncompressed file, or null if it could not be extracted or is invalid
      */
-    private void uncompress(final File file, final ResourceType resourceType) {
-        final byte[] buffer = new byte[1024];
-        GZIPInputStream gzis = null;
-        OutputStream out = null;
+    private File uncompress(final File file, final String sha256) {
+        final File uncompressedFile = new File(file.getAbsolutePath().replaceAll(".gz", ""));
+        File tempFile = null;
         try {
             LOGGER.info("Uncompressing " + file.getName());
-            gzis = new GZIPInputStream(Files.newInputStream(file.toPath()));
-            final File uncompressedFile = new File(file.getAbsolutePath().replaceAll(".gz", ""));
-            out = Files.newOutputStream(uncompressedFile.toPath());
-            int len;
-            while ((len = gzis.read(buffer)) > 0) {
-                out.write(buffer, 0, len);
+            tempFile = File.createTempFile(uncompressedFile.getName(), ".tmp", outputDir);
+            final MessageDigest digest = DigestUtils.getSha256Digest();
+            try (InputStream in = new GZIPInputStream(Files.newInputStream(file.toPath()));
+                 OutputStream out = new DigestOutputStream(Files.newOutputStream(tempFile.toPath()), digest)) {
+                IOUtils.copy(in, out);
             }
-            final long start = System.currentTimeMillis();
-            if (ResourceType.CVE == resourceType) {
-                final NvdParser parser = new NvdParser();
-                parser.parse(uncompressedFile);
-            } else if (ResourceType.CPE == resourceType) {
-                final CpeDictionaryParser parser = new CpeDictionaryParser();
-                parser.parse(uncompressedFile);
+            final String actualSha256 = Hex.encodeHexString(digest.digest());
+            if (sha256 != null && !sha256.equalsIgnoreCase(actualSha256)) {
+                mirroredWithoutErrors = false;
+                LOGGER.error("The sha256 of " + uncompressedFile.getName() + " (" + actualSha256
+                        + ") does not match the one specified by its meta file (" + sha256 + "). The file will be discarded");
+                return null;
             }
-            final long end = System.currentTimeMillis();
-            metricParseTime += end - start;
+            Files.move(tempFile.toPath(), uncompressedFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return uncompressedFile;
         } catch (IOException ex) {
             mirroredWithoutErrors = false;
             LOGGER.error("An error occurred uncompressing NVD payload", ex);
         } finally {
-            close(gzis);
-            close(out);
+            if (tempFile != null) {
+                try {
+                    Files.deleteIfExists(tempFile.toPath());
+                } catch (IOException e) {
+                    LOGGER.warn("Unable to delete " + tempFile.getName(), e);
+                }
+            }
         }
+        return null;
     }
 
     /**
-     * Closes a closable object.
-     * @param object the object to close
+     * Returns whether all files were mirrored without errors.
      */
-    private void close(final Closeable object) {
-        if (object != null) {
-            try {
-                object.close();
-            } catch (IOException e) {
-                LOGGER.warn("Error closing stream", e);
-            }
+    boolean isMirroredWithoutErrors() {
+        return mirroredWithoutErrors;
+    }
+
+    /**
+     * A feed which was mirrored and has yet to be synchronized.
+     */
+    static final class MirroredFeed {
+        private final String name;
+        private final File file;
+        private final String checksum;
+        private final Date lastModified;
+
+        private MirroredFeed(final String name, final File file, final String checksum, final Date lastModified) {
+            this.name = name;
+            this.file = file;
+            this.checksum = checksum;
+            this.lastModified = lastModified;
         }
     }
 }
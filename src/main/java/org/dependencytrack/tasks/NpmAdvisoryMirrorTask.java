@@ -28,11 +28,14 @@ import kong.unirest.JsonNode;
 import kong.unirest.UnirestException;
 import kong.unirest.UnirestInstance;
 import org.apache.commons.lang3.StringUtils;
+import org.dependencytrack.common.TaskMetrics;
 import org.dependencytrack.common.UnirestFactory;
 import org.dependencytrack.event.IndexEvent;
 import org.dependencytrack.event.NpmAdvisoryMirrorEvent;
+import org.dependencytrack.event.ReverseAnalysisEvent;
 import org.dependencytrack.model.Cwe;
 import org.dependencytrack.model.Severity;
+import org.dependencytrack.model.SyncState;
 import org.dependencytrack.model.Vulnerability;
 import org.dependencytrack.notification.NotificationConstants;
 import org.dependencytrack.notification.NotificationGroup;
@@ -43,7 +46,19 @@ import org.dependencytrack.parser.npm.model.Advisory;
 import org.dependencytrack.parser.npm.model.AdvisoryResults;
 import org.dependencytrack.persistence.QueryManager;
 import java.time.OffsetDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Subscriber task that performs a mirror of NPM public advisories.
@@ -55,18 +70,39 @@ public class NpmAdvisoryMirrorTask implements LoggableSubscriber {
 
     private static final String NPM_BASE_URL = "https://registry.npmjs.org";
     private static final String NPM_ADVISORY_START = "/-/npm/v1/security/advisories";
+    private static final String SYNC_TARGET = "advisories"; // The sync state target recording the high-water mark
     private static final Logger LOGGER = Logger.getLogger(NpmAdvisoryMirrorTask.class);
+    private final String baseUrl;
+    private final TaskMetrics taskMetrics = TaskMetrics.getInstance(NpmAdvisoryMirrorTask.class.getSimpleName());
 
-    private boolean successful = true;
+    private volatile boolean successful = true;
+    private final Set<Long> changedVulnerabilities = ConcurrentHashMap.newKeySet();
+
+    public NpmAdvisoryMirrorTask() {
+        this(NPM_BASE_URL);
+    }
+
+    /**
+     * Creates a task which mirrors the advisories published by the registry at the specified URL.
+     * @param baseUrl the base URL of the registry
+     */
+    NpmAdvisoryMirrorTask(final String baseUrl) {
+        this.baseUrl = baseUrl;
+    }
 
     /**
      * {@inheritDoc}
      */
     public void inform(final Event e) {
         if (e instanceof NpmAdvisoryMirrorEvent) {
+            final long start = System.currentTimeMillis();
             LOGGER.info("Starting NPM advisory mirroring task");
             getAdvisories();
+            taskMetrics.taskCompleted(System.currentTimeMillis() - start);
             LOGGER.info("NPM advisory mirroring complete");
+            if (!changedVulnerabilities.isEmpty()) {
+                Event.dispatch(new ReverseAnalysisEvent(changedVulnerabilities));
+            }
             if (successful) {
                 Notification.dispatch(new Notification()
                         .scope(NotificationScope.SYSTEM)
@@ -80,31 +116,67 @@ public class NpmAdvisoryMirrorTask implements LoggableSubscriber {
     }
 
     /**
-     * Performs an incremental mirror (using pagination) of the NPM public advisory database.
+     * Performs an incremental mirror (using pagination) of the NPM public advisory database. Every
+     * page is retrieved, as the API does not guarantee the order advisories are listed in, but only
+     * advisories updated after the high-water mark of the previous mirror are synchronized. Each page
+     * is synchronized in the background while the next page is being retrieved.
      */
     private void getAdvisories() {
         final Date currentDate = new Date();
         LOGGER.info("Retrieving NPM advisories at " + currentDate);
 
+        final Date highWaterMark;
+        try (QueryManager qm = new QueryManager()) {
+            final SyncState syncState = qm.getSyncState(Vulnerability.Source.NPM, SYNC_TARGET);
+            highWaterMark = (syncState != null) ? syncState.getLastModified() : null;
+        }
+        if (highWaterMark != null) {
+            LOGGER.info("Synchronizing NPM advisories updated after " + highWaterMark);
+        }
+        Date newHighWaterMark = highWaterMark;
+
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        Future<?> pending = null;
         try {
             final UnirestInstance ui = UnirestFactory.getUnirestInstance();
 
             boolean more = true;
 
-            String url = NPM_BASE_URL + NPM_ADVISORY_START;
+            String url = baseUrl + NPM_ADVISORY_START;
             while (more) {
                 LOGGER.info("Retrieving NPM advisories from " + url);
+                final long start = System.currentTimeMillis();
                 final HttpResponse<JsonNode> jsonResponse = ui.get(url)
                         .header("accept", "application/json")
                         .asJson();
+                taskMetrics.httpRequest(System.currentTimeMillis() - start,
+                        TaskMetrics.parseContentLength(jsonResponse.getHeaders().getFirst("content-length")));
 
                 if (jsonResponse.getStatus() == 200) {
                     final NpmAdvisoriesParser parser = new NpmAdvisoriesParser();
                     final AdvisoryResults results = parser.parse(jsonResponse.getBody());
-                    updateDatasource(results);
-                    more = results.getNext() != null;
-                    url = NPM_BASE_URL + results.getNext();
+                    final List<Advisory> changed = new ArrayList<>();
+                    final List<Advisory> undated = new ArrayList<>();
+                    for (final Advisory advisory: results.getAdvisories()) {
+                        final Date updated = getLastModified(advisory);
+                        if (updated == null) {
+                            undated.add(advisory);
+                        } else if (highWaterMark == null || updated.after(highWaterMark)) {
+                            changed.add(advisory);
+                        }
+                        if (updated != null && (newHighWaterMark == null || updated.after(newHighWaterMark))) {
+                            newHighWaterMark = updated;
+                        }
+                    }
+                    changed.addAll(highWaterMark == null ? undated : getUnmirrored(undated));
+                    await(pending);
+                    if (!changed.isEmpty()) {
+                        pending = executor.submit(() -> updateDatasource(changed));
+                    }
+                    more = StringUtils.isNotBlank(results.getNext());
+                    url = baseUrl + results.getNext();
                 } else {
+                    successful = false;
                     final String error = "An unexpected response received from NPM while performing mirror. Response: "
                             + jsonResponse.getStatus() + " " + jsonResponse.getStatusText() + " - Aborting";
                     LOGGER.warn(error);
@@ -115,9 +187,10 @@ public class NpmAdvisoryMirrorTask implements LoggableSubscriber {
                             .content(error)
                             .level(NotificationLevel.ERROR)
                     );
-                    return;
+                    break;
                 }
             }
+            await(pending);
         } catch (UnirestException e) {
             LOGGER.error("An error occurred while retrieving NPM advisory", e);
             successful = false;
@@ -128,22 +201,101 @@ public class NpmAdvisoryMirrorTask implements LoggableSubscriber {
                     .content("An error occurred while retrieving NPM advisory. Check log for details. " + e.getMessage())
                     .level(NotificationLevel.ERROR)
             );
+        } finally {
+            executor.shutdown();
+            try {
+                executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        Event.dispatch(new IndexEvent(IndexEvent.Action.COMMIT, Vulnerability.class));
+
+        // The high-water mark is only advanced once every advisory up to it has been synchronized
+        if (successful && newHighWaterMark != null && !newHighWaterMark.equals(highWaterMark)) {
+            try (QueryManager qm = new QueryManager()) {
+                qm.updateSyncState(Vulnerability.Source.NPM, SYNC_TARGET, null, newHighWaterMark);
+            }
         }
     }
 
     /**
-     * Synchronizes the advisories that were downloaded with the internal Dependency-Track database.
-     * @param results the results to synchronize
+     * Returns the date an advisory was last modified, which is the date it was updated, or the date
+     * it was created if it was never updated.
+     * @return the date, or null if the advisory has neither a valid updated nor created date
      */
-    private void updateDatasource(final AdvisoryResults results) {
-        LOGGER.info("Updating datasource with NPM advisories");
+    private static Date getLastModified(final Advisory advisory) {
+        final Date updated = parseDate(advisory.getUpdated());
+        return (updated != null) ? updated : parseDate(advisory.getCreated());
+    }
+
+    /**
+     * Returns the advisories which have not been mirrored yet. As advisories without a valid date cannot
+     * be compared against the high-water mark, they are only synchronized the first time they are seen.
+     * @param advisories the advisories to filter
+     * @return the advisories which do not exist in the database
+     */
+    private static List<Advisory> getUnmirrored(final List<Advisory> advisories) {
+        if (advisories.isEmpty()) {
+            return advisories;
+        }
+        final Map<String, Advisory> unmirrored = new LinkedHashMap<>();
+        for (final Advisory advisory: advisories) {
+            unmirrored.put(String.valueOf(advisory.getId()), advisory);
+        }
         try (QueryManager qm = new QueryManager()) {
-            for (final Advisory advisory: results.getAdvisories()) {
-                LOGGER.debug("Synchronizing advisory: " + advisory.getId());
-                qm.synchronizeVulnerability(mapAdvisoryToVulnerability(qm, advisory), false);
+            for (final Vulnerability vulnerability: qm.getVulnerabilitiesByVulnId(Vulnerability.Source.NPM, unmirrored.keySet())) {
+                unmirrored.remove(vulnerability.getVulnId());
             }
         }
-        Event.dispatch(new IndexEvent(IndexEvent.Action.COMMIT, Vulnerability.class));
+        return new ArrayList<>(unmirrored.values());
+    }
+
+    /**
+     * Waits for the synchronization of the previous page to complete.
+     */
+    private void await(final Future<?> pending) {
+        if (pending == null) {
+            return;
+        }
+        try {
+            pending.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            successful = false;
+        } catch (ExecutionException e) {
+            LOGGER.error("An error occurred while synchronizing NPM advisories", e.getCause());
+            successful = false;
+        }
+    }
+
+    /**
+     * Synchronizes the advisories that were downloaded with the internal Dependency-Track database
+     * in a single transaction.
+     * @param advisories the advisories to synchronize
+     */
+    private void updateDatasource(final List<Advisory> advisories) {
+        LOGGER.info("Updating datasource with " + advisories.size() + " NPM advisories");
+        final long start = System.currentTimeMillis();
+        try (QueryManager qm = new QueryManager()) {
+            final List<Vulnerability> vulnerabilities = new ArrayList<>();
+            for (final Advisory advisory: advisories) {
+                vulnerabilities.add(mapAdvisoryToVulnerability(qm, advisory));
+            }
+            changedVulnerabilities.addAll(qm.synchronizeVulnerabilities(vulnerabilities, false));
+        }
+        taskMetrics.dbOperation(System.currentTimeMillis() - start);
+    }
+
+    private static Date parseDate(final String date) {
+        if (StringUtils.isBlank(date)) {
+            return null;
+        }
+        try {
+            return Date.from(OffsetDateTime.parse(date).toInstant());
+        } catch (DateTimeParseException e) {
+            return null;
+        }
     }
 
     /**
@@ -159,15 +311,12 @@ public class NpmAdvisoryMirrorTask implements LoggableSubscriber {
         vuln.setTitle(advisory.getTitle());
         vuln.setSubTitle(advisory.getModuleName());
 
-        if (StringUtils.isNotBlank(advisory.getCreated())) {
-            final OffsetDateTime odt = OffsetDateTime.parse(advisory.getCreated());
-            vuln.setCreated(Date.from(odt.toInstant()));
-            vuln.setPublished(Date.from(odt.toInstant())); // Advisory does not have published, use created instead.
-        }
-        if (StringUtils.isNotBlank(advisory.getUpdated())) {
-            final OffsetDateTime odt = OffsetDateTime.parse(advisory.getUpdated());
-            vuln.setUpdated(Date.from(odt.toInstant()));
+        final Date created = parseDate(advisory.getCreated());
+        if (created != null) {
+            vuln.setCreated(created);
+            vuln.setPublished(created); // Advisory does not have published, use created instead.
         }
+        vuln.setUpdated(parseDate(advisory.getUpdated()));
 
         vuln.setCredits(advisory.getFoundBy());
         vuln.setRecommendation(advisory.getRecommendation());
@@ -0,0 +1,125 @@
+/*
+ * This file is part of Dependency-Track.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * Copyright (c) Steve Springett. All Rights Reserved.
+ */
+package org.dependencytrack.tasks;
+
+import alpine.event.framework.Event;
+import alpine.event.framework.Subscriber;
+import alpine.logging.Logger;
+import org.dependencytrack.event.ReverseAnalysisEvent;
+import org.dependencytrack.event.VulnerabilityAnalysisEvent;
+import org.dependencytrack.model.Component;
+import org.dependencytrack.model.Vulnerability;
+import org.dependencytrack.persistence.QueryManager;
+import org.dependencytrack.tasks.scanners.NpmAuditAnalysisTask;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Subscriber task that analyzes only the components affected by vulnerabilities which were created
+ * or changed while mirroring a vulnerability datasource, rather than the entire portfolio. Affected
+ * components are found by the part, vendor and product of the vulnerable software of a vulnerability,
+ * or by the module name of an NPM advisory.
+ *
+ * @author Steve Springett
+ * @since 3.7.0
+ */
+public class ReverseAnalysisTask implements Subscriber {
+
+    private static final Logger LOGGER = Logger.getLogger(ReverseAnalysisTask.class);
+
+    /**
+     * Beyond this number of vulnerabilities (i.e. the initial mirror of a datasource), a portfolio
+     * analysis is less expensive than determining the affected components.
+     */
+    private static final int MAX_VULNERABILITIES = 10000;
+
+    /**
+     * {@inheritDoc}
+     */
+    public void inform(final Event e) {
+        if (e instanceof ReverseAnalysisEvent) {
+            final ReverseAnalysisEvent event = (ReverseAnalysisEvent)e;
+            if (event.getVulnerabilityIds().isEmpty() && (event.getProducts() == null || event.getProducts().isEmpty())) {
+                return;
+            }
+            if (event.getVulnerabilityIds().size() > MAX_VULNERABILITIES) {
+                LOGGER.info(event.getVulnerabilityIds().size() + " vulnerabilities were created or changed. Analyzing portfolio");
+                Event.dispatch(new VulnerabilityAnalysisEvent());
+                return;
+            }
+            LOGGER.info("Determining the components affected by " + event.getVulnerabilityIds().size() + " new or changed vulnerabilities");
+            final List<Component> components;
+            final Set<Long> npmComponentIds = new HashSet<>();
+            try (QueryManager qm = new QueryManager()) {
+                final Set<List<String>> products = new HashSet<>();
+                final Set<String> modules = new HashSet<>();
+                if (event.getProducts() != null) {
+                    // Only products whose vulnerable software was linked or unlinked can have new findings
+                    products.addAll(event.getProducts());
+                }
+                final Set<Long> cpeVulnerabilityIds = new HashSet<>();
+                for (final Vulnerability vulnerability: qm.getObjectsById(Vulnerability.class, event.getVulnerabilityIds())) {
+                    if (Vulnerability.Source.NPM.name().equals(vulnerability.getSource())) {
+                        if (vulnerability.getSubTitle() != null) {
+                            modules.add(vulnerability.getSubTitle());
+                        }
+                    } else {
+                        cpeVulnerabilityIds.add(vulnerability.getId());
+                    }
+                }
+                if (event.getProducts() == null) {
+                    products.addAll(qm.getVulnerableProducts(cpeVulnerabilityIds));
+                }
+                final Map<Long, Component> affected = new LinkedHashMap<>();
+                for (final Component component: qm.getComponentsByCpe(products)) {
+                    affected.putIfAbsent(component.getId(), component);
+                }
+                for (final String module: modules) {
+                    // Scoped modules (@scope/name) map to the namespace and name of a Package URL
+                    final int separator = module.startsWith("@") ? module.indexOf('/') : -1;
+                    final String namespace = separator > 0 ? module.substring(0, separator) : null;
+                    final String name = separator > 0 ? module.substring(separator + 1) : module;
+                    for (final Component component: qm.getComponentsByPackage("npm", namespace, name)) {
+                        affected.putIfAbsent(component.getId(), component);
+                        npmComponentIds.add(component.getId());
+                    }
+                }
+                components = qm.detach(new ArrayList<>(affected.values()));
+            }
+            if (components.isEmpty()) {
+                LOGGER.info("No components are affected by the new or changed vulnerabilities");
+                return;
+            }
+            // The findings of NPM Audit were cached before the advisories changed
+            final List<Component> npmComponents = new ArrayList<>();
+            for (final Component component: components) {
+                if (npmComponentIds.contains(component.getId())) {
+                    npmComponents.add(component);
+                }
+            }
+            new NpmAuditAnalysisTask().invalidateAnalysisCache(npmComponents);
+            LOGGER.info("Analyzing " + components.size() + " component(s) affected by new or changed vulnerabilities");
+            Event.dispatch(new VulnerabilityAnalysisEvent(components));
+        }
+    }
+}
@@ -24,8 +24,11 @@ import alpine.event.framework.LoggableSubscriber;
 import alpine.logging.Logger;
 import alpine.notification.Notification;
 import alpine.notification.NotificationLevel;
+import org.dependencytrack.common.TaskMetrics;
 import org.dependencytrack.event.IndexEvent;
+import org.dependencytrack.event.ReverseAnalysisEvent;
 import org.dependencytrack.event.VulnDbSyncEvent;
+import org.dependencytrack.model.SyncState;
 import org.dependencytrack.model.Vulnerability;
 import org.dependencytrack.model.VulnerableSoftware;
 import org.dependencytrack.notification.NotificationConstants;
@@ -33,6 +36,7 @@ import org.dependencytrack.notification.NotificationGroup;
 import org.dependencytrack.notification.NotificationScope;
 import org.dependencytrack.parser.vulndb.ModelConverter;
 import org.dependencytrack.persistence.QueryManager;
+import org.dependencytrack.util.HashUtil;
 import us.springett.parsers.cpe.Cpe;
 import us.springett.parsers.cpe.CpeParser;
 import us.springett.parsers.cpe.exceptions.CpeEncodingException;
@@ -43,11 +47,27 @@ import us.springett.vulndbdatamirror.parser.model.Product;
 import us.springett.vulndbdatamirror.parser.model.Results;
 import us.springett.vulndbdatamirror.parser.model.Vendor;
 import us.springett.vulndbdatamirror.parser.model.Version;
+import javax.json.Json;
+import javax.json.JsonArrayBuilder;
+import javax.json.JsonObject;
+import javax.json.stream.JsonParser;
 import java.io.File;
-import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * Subscriber task that performs synchronization with VulnDB mirrored data.
@@ -62,16 +82,34 @@ import java.util.Locale;
 public class VulnDbSyncTask implements LoggableSubscriber {
 
     private static final Logger LOGGER = Logger.getLogger(VulnDbSyncTask.class);
+    private static final int THREADS = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors()));
+    private static final int BATCH_SIZE = 100;
+    private final TaskMetrics taskMetrics = TaskMetrics.getInstance(VulnDbSyncTask.class.getSimpleName());
 
-    private boolean successful = true;
+    private volatile boolean successful = true;
+    private final Set<Long> changedVulnerabilities = ConcurrentHashMap.newKeySet();
+    private final Set<List<String>> affectedProducts = ConcurrentHashMap.newKeySet();
+    private final File vulndbDir;
+
+    public VulnDbSyncTask() {
+        this(new File(Config.getInstance().getDataDirectorty(), "vulndb"));
+    }
+
+    /**
+     * Creates a task which synchronizes the VulnDB mirror in the specified directory.
+     * @param vulndbDir the directory containing the mirror files
+     */
+    VulnDbSyncTask(final File vulndbDir) {
+        this.vulndbDir = vulndbDir;
+    }
 
     /**
      * {@inheritDoc}
      */
     public void inform(final Event e) {
         if (e instanceof VulnDbSyncEvent) {
+            final long start = System.currentTimeMillis();
             LOGGER.info("Starting VulnDB mirror synchronization task");
-            final File vulndbDir = new File(Config.getInstance().getDataDirectorty(), "vulndb");
             if (!vulndbDir.exists()) {
                 LOGGER.info("VulnDB mirror directory does not exist. Skipping.");
                 return;
@@ -80,27 +118,54 @@ public class VulnDbSyncTask implements LoggableSubscriber {
                     (dir, name) -> name.toLowerCase(Locale.ENGLISH).startsWith("vulnerabilities_")
             );
             if (files != null) {
+                Arrays.sort(files);
+                final Map<String, String> syncedChecksums = new HashMap<>();
+                try (QueryManager qm = new QueryManager()) {
+                    for (final SyncState syncState: qm.getSyncStates(Vulnerability.Source.VULNDB)) {
+                        syncedChecksums.put(syncState.getTarget(), syncState.getChecksum());
+                    }
+                }
+                // Files are independent of each other, so they are synchronized in parallel on a bounded pool
+                final ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+                final Map<File, Future<Boolean>> futures = new LinkedHashMap<>();
                 for (final File file : files) {
-                    LOGGER.info("Parsing: " + file.getName());
-                    final VulnDbParser parser = new VulnDbParser();
+                    final String checksum = HashUtil.sha256(file);
+                    if (checksum != null && checksum.equalsIgnoreCase(syncedChecksums.get(file.getName()))) {
+                        LOGGER.info("Skipping " + file.getName() + " - it has not changed since it was last synchronized");
+                        continue;
+                    }
+                    futures.put(file, executor.submit(() -> synchronize(file, checksum)));
+                }
+                executor.shutdown();
+                for (final Map.Entry<File, Future<Boolean>> future: futures.entrySet()) {
+                    boolean synchronizedWithoutErrors;
                     try {
-                        final Results results = parser.parse(file, us.springett.vulndbdatamirror.parser.model.Vulnerability.class);
-                        updateDatasource(results);
-                    } catch (IOException ex) {
-                        LOGGER.error("An error occurred while parsing VulnDB payload: " + file.getName(), ex);
+                        synchronizedWithoutErrors = future.getValue().get();
+                    } catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                        synchronizedWithoutErrors = false;
+                    } catch (ExecutionException ex) {
+                        LOGGER.error("An error occurred while synchronizing VulnDB payload: " + future.getKey().getName(), ex.getCause());
+                        synchronizedWithoutErrors = false;
+                    }
+                    if (!synchronizedWithoutErrors) {
                         successful = false;
                         Notification.dispatch(new Notification()
                                 .scope(NotificationScope.SYSTEM)
                                 .group(NotificationGroup.DATASOURCE_MIRRORING)
                                 .title(NotificationConstants.Title.VULNDB_MIRROR)
-                                .content("An error occurred parsing VulnDB payload. Check log for details. " + ex.getMessage())
+                                .content("An error occurred parsing VulnDB payload " + future.getKey().getName() + ". Check log for details.")
                                 .level(NotificationLevel.ERROR)
                         );
                     }
                 }
             }
             Event.dispatch(new IndexEvent(IndexEvent.Action.COMMIT, Vulnerability.class));
+            taskMetrics.taskCompleted(System.currentTimeMillis() - start);
             LOGGER.info("VulnDB mirror synchronization task complete");
+            if (!changedVulnerabilities.isEmpty() || !affectedProducts.isEmpty()) {
+                Event.dispatch(new ReverseAnalysisEvent(changedVulnerabilities, affectedProducts));
+            }
             if (successful) {
                 Notification.dispatch(new Notification()
                         .scope(NotificationScope.SYSTEM)
@@ -114,27 +179,109 @@ public class VulnDbSyncTask implements LoggableSubscriber {
     }
 
     /**
-     * Synchronizes the VulnDB vulnerabilities with the internal Dependency-Track database.
-     * @param results the results to synchronize
+     * Synchronizes a VulnDB mirror file with the internal Dependency-Track database. The file is read
+     * as a stream of events and its vulnerabilities are committed in batches, so that only a single
+     * batch is held in memory at a time. Once every batch has been committed, the checksum of the file
+     * is recorded so that the file is skipped until it changes.
+     * @param file the mirror file to synchronize
+     * @param checksum the sha256 of the file
+     * @return true if every vulnerability in the file was synchronized, false if errors occurred
      */
-    private void updateDatasource(final Results results) {
-        LOGGER.info("Updating datasource with VulnDB vulnerabilities");
-        try (QueryManager qm = new QueryManager()) {
-            for (final Object o: results.getResults()) {
+    private boolean synchronize(final File file, final String checksum) {
+        LOGGER.info("Parsing: " + file.getName());
+        boolean synchronizedWithoutErrors = true;
+        int depth = 0;
+        try (InputStream in = Files.newInputStream(file.toPath());
+             final JsonParser parser = Json.createParser(in);
+             final QueryManager qm = new QueryManager()) {
+            final List<JsonObject> batch = new ArrayList<>(BATCH_SIZE);
+            while (parser.hasNext()) {
+                final JsonParser.Event event = parser.next();
+                if (event == JsonParser.Event.START_OBJECT || event == JsonParser.Event.START_ARRAY) {
+                    depth++;
+                } else if (event == JsonParser.Event.END_OBJECT || event == JsonParser.Event.END_ARRAY) {
+                    depth--;
+                } else if (event == JsonParser.Event.KEY_NAME && depth == 1 && "results".equals(parser.getString())) {
+                    if (parser.next() == JsonParser.Event.START_ARRAY) {
+                        while (parser.hasNext() && parser.next() == JsonParser.Event.START_OBJECT) {
+                            batch.add(parser.getObject());
+                            if (batch.size() >= BATCH_SIZE) {
+                                synchronizedWithoutErrors &= updateDatasource(qm, batch);
+                            }
+                        }
+                    }
+                }
+            }
+            synchronizedWithoutErrors &= updateDatasource(qm, batch);
+            if (synchronizedWithoutErrors && checksum != null) {
+                qm.updateSyncState(Vulnerability.Source.VULNDB, file.getName(), checksum, new Date(file.lastModified()));
+            }
+        } catch (Exception ex) {
+            LOGGER.error("An error occurred while parsing VulnDB payload: " + file.getName(), ex);
+            return false;
+        }
+        return synchronizedWithoutErrors;
+    }
+
+    /**
+     * Synchronizes a batch of VulnDB vulnerabilities with the internal Dependency-Track database in a
+     * single transaction, and clears the batch. The JSON objects read from the mirror file are decoded
+     * by the VulnDB parser, so that they are mapped the same way as the results of the VulnDB API.
+     * @param qm the QueryManager to use
+     * @param batch the vulnerabilities (as they appear in the mirror file) to synchronize
+     * @return true if the batch was synchronized, false if not
+     */
+    private boolean updateDatasource(final QueryManager qm, final List<JsonObject> batch) {
+        if (batch.isEmpty()) {
+            return true;
+        }
+        try {
+            final long dbStart = System.currentTimeMillis();
+            final List<Vulnerability> vulnerabilities = new ArrayList<>();
+            for (final Object o: parse(batch).getResults()) {
                 if (o instanceof us.springett.vulndbdatamirror.parser.model.Vulnerability) {
                     final us.springett.vulndbdatamirror.parser.model.Vulnerability vulnDbVuln = (us.springett.vulndbdatamirror.parser.model.Vulnerability)o;
-                    final org.dependencytrack.model.Vulnerability vulnerability = ModelConverter.convert(qm, vulnDbVuln);
-                    final Vulnerability synchronizeVulnerability = qm.synchronizeVulnerability(vulnerability, false);
-                    final List<VulnerableSoftware> vsList = parseCpes(qm, synchronizeVulnerability, vulnDbVuln);
-                    synchronizeVulnerability.setVulnerableSoftware(vsList);
-                    qm.persist(synchronizeVulnerability);
+                    final Vulnerability vulnerability = ModelConverter.convert(qm, vulnDbVuln);
+                    vulnerability.setVulnerableSoftware(parseCpes(vulnDbVuln));
+                    vulnerabilities.add(vulnerability);
                 }
             }
+            LOGGER.debug("Synchronizing " + vulnerabilities.size() + " VulnDB vulnerabilities");
+            changedVulnerabilities.addAll(qm.synchronizeVulnerabilities(vulnerabilities, false, affectedProducts));
+            taskMetrics.dbOperation(System.currentTimeMillis() - dbStart);
+            return true;
+        } catch (Exception ex) {
+            LOGGER.error("An error occurred while synchronizing a batch of VulnDB vulnerabilities", ex);
+            return false;
+        } finally {
+            batch.clear();
         }
     }
 
-    public static List<VulnerableSoftware> parseCpes(final QueryManager qm, final Vulnerability vulnerability,
-                                                     final us.springett.vulndbdatamirror.parser.model.Vulnerability vulnDbVuln) {
+    /**
+     * Decodes a batch of VulnDB vulnerabilities, as they appear in the results of a mirror file, with
+     * the VulnDB parser. Only the batch is wrapped in a page of results, never the whole file.
+     * @param batch the vulnerabilities to decode
+     * @return the Results containing the VulnDB vulnerabilities
+     */
+    private static Results parse(final List<JsonObject> batch) {
+        final JsonArrayBuilder results = Json.createArrayBuilder();
+        batch.forEach(results::add);
+        final String page = Json.createObjectBuilder()
+                .add("current_page", 1)
+                .add("total_entries", batch.size())
+                .add("results", results)
+                .build().toString();
+        return new VulnDbParser().parse(page, us.springett.vulndbdatamirror.parser.model.Vulnerability.class);
+    }
+
+    /**
+     * Converts the affected CPEs of a VulnDB vulnerability to transient VulnerableSoftware. Whether
+     * they already exist is determined when the vulnerability is synchronized.
+     * @param vulnDbVuln the VulnDB vulnerability
+     * @return a List of transient VulnerableSoftware objects
+     */
+    public static List<VulnerableSoftware> parseCpes(final us.springett.vulndbdatamirror.parser.model.Vulnerability vulnDbVuln) {
         // cpe:2.3:a:belavier_commerce:abantecart:1.2.8:*:*:*:*:*:*:*
         final List<VulnerableSoftware> vsList = new ArrayList<>();
         if (vulnDbVuln.getVendors() != null) {
@@ -143,21 +290,17 @@ public class VulnDbSyncTask implements LoggableSubscriber {
                     for (Product product: vendor.getProducts()) {
                         if (product.getVersions() != null) {
                             for (Version version: product.getVersions()) {
-                                if (version != null) {
-                                    if (version.isAffected()) {
-                                        if (version.getCpes() != null) {
-                                            for (CPE cpeObject : version.getCpes()) {
-                                                try {
-                                                    final Cpe cpe = CpeParser.parse(cpeObject.getCpe(), true);
-                                                    final VulnerableSoftware vs = generateVulnerableSoftware(qm, cpe, vulnerability);
-                                                    if (vs != null) {
-                                                        vsList.add(vs);
-                                                    }
-                                                } catch (CpeParsingException e) {
-                                                    // Normally, this would be logged to error, however, VulnDB contains a lot of invalid CPEs
-                                                    LOGGER.debug("An error occurred parsing " + cpeObject.getCpe(), e);
-                                                }
+                                if (version != null && version.isAffected() && version.getCpes() != null) {
+                                    for (CPE cpeObject : version.getCpes()) {
+                                        try {
+                                            final Cpe cpe = CpeParser.parse(cpeObject.getCpe(), true);
+                                            final VulnerableSoftware vs = generateVulnerableSoftware(cpe);
+                                            if (vs != null) {
+                                                vsList.add(vs);
                                             }
+                                        } catch (CpeParsingException e) {
+                                            // Normally, this would be logged to error, however, VulnDB contains a lot of invalid CPEs
+                                            LOGGER.debug("An error occurred parsing " + cpeObject.getCpe(), e);
                                         }
                                     }
                                 }
@@ -170,23 +313,15 @@ public class VulnDbSyncTask implements LoggableSubscriber {
         return vsList;
     }
 
-    private static VulnerableSoftware generateVulnerableSoftware(final QueryManager qm, final Cpe cpe,
-                                                                 final Vulnerability vulnerability) {
-        VulnerableSoftware vs = qm.getVulnerableSoftwareByCpe23(cpe.toCpe23FS(), null, null, null, null);
-        if (vs != null) {
-            return vs;
-        }
+    private static VulnerableSoftware generateVulnerableSoftware(final Cpe cpe) {
         try {
-            vs = org.dependencytrack.parser.nvd.ModelConverter.convertCpe23UriToVulnerableSoftware(cpe.toCpe23FS());
+            final VulnerableSoftware vs = org.dependencytrack.parser.nvd.ModelConverter.convertCpe23UriToVulnerableSoftware(cpe.toCpe23FS());
             vs.setVulnerable(true);
-            vs.addVulnerability(vulnerability);
             // VulnDB does not provide version ranges for the CPEs that exist inside Vendor->Product->Version->CPE
             vs.setVersionEndExcluding(null);
             vs.setVersionEndIncluding(null);
             vs.setVersionStartExcluding(null);
             vs.setVersionStartIncluding(null);
-            vs = qm.persist(vs);
-            //Event.dispatch(new IndexEvent(IndexEvent.Action.CREATE, qm.detach(VulnerableSoftware.class, vs.getId())));
             return vs;
         } catch (CpeParsingException | CpeEncodingException e) {
             LOGGER.warn("An error occurred while parsing: " + cpe.toCpe23FS() + " - The CPE is invalid and will be discarded.");
@@ -20,8 +20,8 @@ package org.dependencytrack.tasks;
 
 import alpine.event.framework.Event;
 import alpine.event.framework.Subscriber;
+import alpine.logging.Logger;
 import com.github.packageurl.PackageURL;
-import org.apache.commons.collections4.CollectionUtils;
 import org.dependencytrack.event.InternalAnalysisEvent;
 import org.dependencytrack.event.MetricsUpdateEvent;
 import org.dependencytrack.event.NpmAuditAnalysisEvent;
@@ -29,20 +29,37 @@ import org.dependencytrack.event.OssIndexAnalysisEvent;
 import org.dependencytrack.event.VulnDbAnalysisEvent;
 import org.dependencytrack.event.VulnerabilityAnalysisEvent;
 import org.dependencytrack.model.Component;
+import org.dependencytrack.model.Project;
+import org.dependencytrack.persistence.QueryManager;
+import org.dependencytrack.tasks.scanners.AnalysisContext;
 import org.dependencytrack.tasks.scanners.BaseComponentAnalyzerTask;
 import org.dependencytrack.tasks.scanners.InternalAnalysisTask;
 import org.dependencytrack.tasks.scanners.NpmAuditAnalysisTask;
 import org.dependencytrack.tasks.scanners.OssIndexAnalysisTask;
 import org.dependencytrack.tasks.scanners.VulnDbAnalysisTask;
+import org.dependencytrack.util.NotificationUtil;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
 
+/**
+ * Coordinates the analysis of components by all analyzers. When analyzing specific components,
+ * the candidates of each analyzer are determined up front and the analyzers run in parallel,
+ * sharing an {@link AnalysisContext}. Once all analyzers have completed, notification criteria
+ * and metrics are evaluated once for the analysis as a whole.
+ *
+ * @author Steve Springett
+ * @since 3.0.0
+ */
 public class VulnerabilityAnalysisTask extends BaseComponentAnalyzerTask implements Subscriber {
 
-    private final List<Component> internalCandidates = new ArrayList<>();
-    private final List<Component> npmCandidates = new ArrayList<>();
-    private final List<Component> ossIndexCandidates = new ArrayList<>();
-    private final List<Component> vulnDbCandidates = new ArrayList<>();
+    private static final Logger LOGGER = Logger.getLogger(VulnerabilityAnalysisTask.class);
 
     public boolean shouldAnalyze(final PackageURL purl) {
         return true;
@@ -55,66 +72,7 @@ public class VulnerabilityAnalysisTask extends BaseComponentAnalyzerTask impleme
         if (e instanceof VulnerabilityAnalysisEvent) {
             final VulnerabilityAnalysisEvent event = (VulnerabilityAnalysisEvent)e;
             if (event.getComponents() != null && event.getComponents().size() > 0) {
-                /*
-                When this task is processing events that specify the components to scan,
-                separate them out into 'candidates' so that we can fire off multiple events
-                in hopes of perform parallel analysis using different analyzers.
-                 */
-                for (final Component component: event.getComponents()) {
-                    final PackageURL purl = component.getPurl();
-                    final InternalAnalysisTask internalAnalysisTask = new InternalAnalysisTask();
-                    if (internalAnalysisTask.shouldAnalyze(purl)) {
-                        internalCandidates.add(component);
-                    }
-                    final NpmAuditAnalysisTask npmAuditAnalysisTask = new NpmAuditAnalysisTask();
-                    if (npmAuditAnalysisTask.shouldAnalyze(purl)) {
-                        npmCandidates.add(component);
-                    }
-                    final OssIndexAnalysisTask ossIndexAnalysisTask = new OssIndexAnalysisTask();
-                    if (ossIndexAnalysisTask.shouldAnalyze(purl)) {
-                        ossIndexCandidates.add(component);
-                    }
-                    final VulnDbAnalysisTask vulnDbAnalysisTask = new VulnDbAnalysisTask();
-                    if (vulnDbAnalysisTask.shouldAnalyze(purl)) {
-                        vulnDbCandidates.add(component);
-                    }
-                }
-                if (CollectionUtils.isNotEmpty(internalCandidates)) {
-                    if (event.getProject() != null) {
-                        Event.dispatch(new InternalAnalysisEvent(internalCandidates)
-                                .onSuccess(new MetricsUpdateEvent(event.getProject()))
-                        );
-                    } else {
-                        Event.dispatch(new InternalAnalysisEvent(internalCandidates));
-                    }
-                }
-                if (CollectionUtils.isNotEmpty(npmCandidates)) {
-                    if (event.getProject() != null) {
-                        Event.dispatch(new NpmAuditAnalysisEvent(npmCandidates)
-                                .onSuccess(new MetricsUpdateEvent(event.getProject()))
-                        );
-                    } else {
-                        Event.dispatch(new NpmAuditAnalysisEvent(npmCandidates));
-                    }
-                }
-                if (CollectionUtils.isNotEmpty(ossIndexCandidates)) {
-                    if (event.getProject() != null) {
-                        Event.dispatch(new OssIndexAnalysisEvent(ossIndexCandidates)
-                                .onSuccess(new MetricsUpdateEvent(event.getProject()))
-                        );
-                    } else {
-                        Event.dispatch(new OssIndexAnalysisEvent(ossIndexCandidates));
-                    }
-                }
-                if (CollectionUtils.isNotEmpty(vulnDbCandidates)) {
-                    if (event.getProject() != null) {
-                        Event.dispatch(new VulnDbAnalysisEvent(vulnDbCandidates)
-                                .onSuccess(new MetricsUpdateEvent(event.getProject()))
-                        );
-                    } else {
-                        Event.dispatch(new VulnDbAnalysisEvent(vulnDbCandidates));
-                    }
-                }
+                analyze(event.getComponents(), event.getProject());
             } else {
                 // Portfolio analysis
                 Event.dispatch(new InternalAnalysisEvent());
@@ -126,9 +84,118 @@ public class VulnerabilityAnalysisTask extends BaseComponentAnalyzerTask impleme
     }
 
     /**
-     * Unused.
+     * Analyzes the components with all analyzers in parallel and waits for them to complete.
+     * @param components the components to analyze
+     * @param project the project the components are a part of, or null
+     */
+    private void analyze(final List<Component> components, final Project project) {
+        final long start = System.currentTimeMillis();
+        final AnalysisContext context = new AnalysisContext(project, components);
+        final List<Analyzer> analyzers = Arrays.asList(
+                new Analyzer("Internal", new InternalAnalysisTask(), InternalAnalysisEvent::new),
+                new Analyzer("NPM Audit", new NpmAuditAnalysisTask(), NpmAuditAnalysisEvent::new),
+                new Analyzer("OSS Index", new OssIndexAnalysisTask(), OssIndexAnalysisEvent::new),
+                new Analyzer("VulnDB", new VulnDbAnalysisTask(), VulnDbAnalysisEvent::new)
+        );
+        // Load the analysis cache of all components up front rather than querying it once per component
+        for (final Analyzer analyzer: analyzers) {
+            analyzer.task.prefetchAnalysisCache(components);
+            analyzer.task.setAnalysisContext(context);
+        }
+        for (final Component component: components) {
+            final PackageURL purl = component.getPurl();
+            for (final Analyzer analyzer: analyzers) {
+                if (analyzer.task.shouldAnalyze(purl)) {
+                    analyzer.candidates.add(component);
+                }
+            }
+        }
+
+        final ExecutorService executor = Executors.newFixedThreadPool(analyzers.size());
+        final List<Future<?>> futures = new ArrayList<>();
+        for (final Analyzer analyzer: analyzers) {
+            if (!analyzer.candidates.isEmpty()) {
+                futures.add(executor.submit(() -> analyzer.run(context)));
+            }
+        }
+        try {
+            for (final Future<?> future: futures) {
+                future.get();
+            }
+        } catch (InterruptedException ex) {
+            LOGGER.warn("Interrupted while waiting for the analyzers to complete");
+            Thread.currentThread().interrupt();
+            return;
+        } catch (ExecutionException ex) {
+            LOGGER.error("An error occurred while analyzing", ex.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        try (QueryManager qm = new QueryManager()) {
+            NotificationUtil.analyzeNotificationCriteria(qm, context.getNewFindings());
+        }
+        if (project != null) {
+            Event.dispatch(new MetricsUpdateEvent(project));
+        } else {
+            for (final Component component: components) {
+                if (context.getNewFindings().containsKey(component.getId())) {
+                    Event.dispatch(new MetricsUpdateEvent(component));
+                }
+            }
+        }
+
+        final StringBuilder sb = new StringBuilder();
+        for (final Map.Entry<String, Long> duration: context.getDurations().entrySet()) {
+            sb.append(sb.length() > 0 ? ", " : "").append(duration.getKey()).append(": ").append(duration.getValue()).append(" ms");
+        }
+        LOGGER.info("Analysis of " + components.size() + " component(s) completed in "
+                + (System.currentTimeMillis() - start) + " ms (" + sb + ")");
+    }
+
+    /**
+     * Required by {@link org.dependencytrack.tasks.scanners.ScanTask}, which this task implements by
+     * extending {@link BaseComponentAnalyzerTask}. Components are analyzed by the individual analyzers
+     * this task coordinates, so there is nothing to do here.
+     * @param components the components to analyze
      */
+    @Override
     public void analyze(final List<Component> components) {
     }
 
+    /**
+     * An analyzer taking part in a coordinated analysis, along with the components it should analyze.
+     */
+    private static final class Analyzer {
+
+        private final String name;
+        private final BaseComponentAnalyzerTask task;
+        private final Subscriber subscriber;
+        private final Function<List<Component>, VulnerabilityAnalysisEvent> eventFactory;
+        private final List<Component> candidates = new ArrayList<>();
+
+        private <T extends BaseComponentAnalyzerTask & Subscriber> Analyzer(final String name, final T task,
+                final Function<List<Component>, VulnerabilityAnalysisEvent> eventFactory) {
+            this.name = name;
+            this.task = task;
+            this.subscriber = task;
+            this.eventFactory = eventFactory;
+        }
+
+        /**
+         * Informs the analyzer of its candidates and records the wall-clock time it took to complete.
+         */
+        private void run(final AnalysisContext context) {
+            final long start = System.currentTimeMillis();
+            try {
+                subscriber.inform(eventFactory.apply(candidates));
+            } catch (Exception ex) {
+                LOGGER.error("An error occurred during " + name + " analysis", ex);
+            } finally {
+                final long duration = System.currentTimeMillis() - start;
+                context.recordDuration(name, duration);
+                LOGGER.debug(name + " analysis of " + candidates.size() + " component(s) completed in " + duration + " ms");
+            }
+        }
+    }
 }
@@ -21,18 +21,16 @@ package org.dependencytrack.tasks.repositories;
 import alpine.event.framework.Event;
 import alpine.event.framework.Subscriber;
 import alpine.logging.Logger;
-import alpine.persistence.PaginatedResult;
-import alpine.resources.AlpineRequest;
-import alpine.resources.OrderDirection;
-import alpine.resources.Pagination;
 import org.apache.commons.lang3.StringUtils;
+import org.dependencytrack.common.TaskMetrics;
 import org.dependencytrack.event.RepositoryMetaEvent;
 import org.dependencytrack.model.Component;
 import org.dependencytrack.model.Repository;
 import org.dependencytrack.model.RepositoryMetaComponent;
+import org.dependencytrack.model.RepositoryType;
+import org.dependencytrack.persistence.KeysetCursor;
 import org.dependencytrack.persistence.QueryManager;
 import java.util.Date;
-import java.util.List;
 
 public class RepositoryMetaAnalyzerTask implements Subscriber {
 
@@ -52,25 +50,13 @@ public class RepositoryMetaAnalyzerTask implements Subscriber {
                     analyze(qm, qm.getObjectById(Component.class, event.getComponent().getId()));
                 }
             } else {
-                final AlpineRequest alpineRequest = new AlpineRequest(
-                        null,
-                        new Pagination(Pagination.Strategy.OFFSET, 0, 1000),
-                        null,
-                        "id",
-                        OrderDirection.ASCENDING
-                );
-                try (QueryManager qm = new QueryManager(alpineRequest)) {
-                    final long total = qm.getCount(Component.class);
-                    LOGGER.info("Performing component repository metadata analysis against all (" + total +") components in the portfolio");
-                    long count = 0;
-                    while (count < total) {
-                        final PaginatedResult result = qm.getComponents();
-                        final List<Component> components = result.getList(Component.class);
-                        for (final Component component: components) {
+                try (QueryManager qm = new QueryManager()) {
+                    LOGGER.info("Performing component repository metadata analysis against all (" + qm.getCount(Component.class) +") components in the portfolio");
+                    final KeysetCursor<Component> cursor = new KeysetCursor<>(qm, Component.class, Component::getId, "purl", "uuid");
+                    while (cursor.hasNext()) {
+                        for (final Component component: cursor.next()) {
                             analyze(qm, component);
                         }
-                        count += result.getObjects().size();
-                        qm.advancePagination();
                     }
                 }
                 LOGGER.info("Portfolio component repository metadata analysis complete");
@@ -82,9 +68,16 @@ public class RepositoryMetaAnalyzerTask implements Subscriber {
     private void analyze(final QueryManager qm, final Component component) {
         LOGGER.debug("Analyzing component: " + component.getUuid());
         final IMetaAnalyzer analyzer = IMetaAnalyzer.build(component);
+        if (RepositoryType.UNSUPPORTED == analyzer.supportedRepositoryType()) {
+            return;
+        }
+        final TaskMetrics taskMetrics = TaskMetrics.getInstance(analyzer.getClass().getSimpleName());
+        taskMetrics.componentsConsidered(1);
         for (final Repository repository: qm.getAllRepositoriesOrdered(analyzer.supportedRepositoryType())) {
             analyzer.setRepositoryBaseUrl(repository.getUrl());
+            final long start = System.currentTimeMillis();
             final MetaModel model = analyzer.analyze(component);
+            taskMetrics.httpRequest(System.currentTimeMillis() - start, -1);
             if (StringUtils.trimToNull(model.getLatestVersion()) != null) {
                 // Resolution from repository was successful. Update meta model
                 final RepositoryMetaComponent metaComponent = new RepositoryMetaComponent();
@@ -94,7 +87,9 @@ public class RepositoryMetaAnalyzerTask implements Subscriber {
                 metaComponent.setPublished(model.getPublishedTimestamp());
                 metaComponent.setLatestVersion(model.getLatestVersion());
                 metaComponent.setLastCheck(new Date());
+                final long dbStart = System.currentTimeMillis();
                 qm.synchronizeRepositoryMetaComponent(metaComponent);
+                taskMetrics.dbOperation(System.currentTimeMillis() - dbStart);
                 return;
             }
         }
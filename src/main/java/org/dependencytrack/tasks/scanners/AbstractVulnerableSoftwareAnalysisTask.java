@@ -26,6 +26,8 @@ import org.dependencytrack.util.ComponentVersion;
 import us.springett.parsers.cpe.util.Convert;
 import us.springett.parsers.cpe.values.LogicalValue;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -41,26 +43,39 @@ public abstract class AbstractVulnerableSoftwareAnalysisTask extends BaseCompone
     /**
      * Analyzes the targetVersion against a list of VulnerableSoftware objects which may contain
      * specific versions or version ranges. For every match, every vulnerability associated with
-     * the VulnerableSoftware object will be applied to the specified component.
+     * the VulnerableSoftware object will be recorded as a finding of the specified component.
+     * The findings are added using {@link #addVulnerabilities(QueryManager, Map)}.
      *
-     * @param qm the QueryManager to use
+     * @param findings the findings of the analysis, keyed by the id of the affected component
      * @param vsList a list of VulnerableSoftware objects
      * @param targetVersion the version of the component
      * @param component the component being analyzed
      */
-    protected void analyzeVersionRange(final QueryManager qm, final List<VulnerableSoftware> vsList,
+    protected void analyzeVersionRange(final Map<Long, Set<Long>> findings, final List<VulnerableSoftware> vsList,
                                        final String targetVersion, final String targetUpdate, final Component component) {
         for (final VulnerableSoftware vs: vsList) {
-            if (compareVersions(vs, targetVersion) && compareUpdate(vs, targetUpdate)) {
+            if (isAffected(vs, targetVersion, targetUpdate)) {
                 if (vs.getVulnerabilities() != null) {
                     for (final Vulnerability vulnerability : vs.getVulnerabilities()) {
-                        qm.addVulnerability(vulnerability, component);
+                        addFinding(findings, vulnerability, component);
                     }
                 }
             }
         }
     }
 
+    /**
+     * Determines if the target version and update are affected by the vulnerable software.
+     *
+     * @param vs a reference to the vulnerable software to compare
+     * @param targetVersion the version to compare
+     * @param targetUpdate the update to compare
+     * @return <code>true</code> if the target is affected; otherwise <code>false</code>
+     */
+    static boolean isAffected(final VulnerableSoftware vs, final String targetVersion, final String targetUpdate) {
+        return compareVersions(vs, targetVersion) && compareUpdate(vs, targetUpdate);
+    }
+
     /**
      * Evaluates the target against the version and version range checks:
      * versionEndExcluding, versionStartExcluding versionEndIncluding, and
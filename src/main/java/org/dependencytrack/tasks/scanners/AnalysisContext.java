@@ -0,0 +1,99 @@
+/*
+ * This file is part of Dependency-Track.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * Copyright (c) Steve Springett. All Rights Reserved.
+ */
+package org.dependencytrack.tasks.scanners;
+
+import org.dependencytrack.model.Component;
+import org.dependencytrack.model.Project;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * State shared by the analyzers taking part in a coordinated analysis of a set of components.
+ * Rather than evaluating notification criteria and updating metrics for every finding, analyzers
+ * record the findings they newly identify here, leaving it to the coordinator to act on them once
+ * all analyzers have completed.
+ *
+ * @author Steve Springett
+ * @since 3.7.0
+ */
+public class AnalysisContext {
+
+    private final Project project;
+    private final List<Component> components;
+    private final Map<Long, Set<Long>> newFindings = new ConcurrentHashMap<>();
+    private final Map<String, Long> durations = Collections.synchronizedMap(new LinkedHashMap<>());
+
+    public AnalysisContext(final Project project, final List<Component> components) {
+        this.project = project;
+        this.components = components;
+    }
+
+    /**
+     * Returns the project the components are optionally a part of.
+     */
+    public Project getProject() {
+        return project;
+    }
+
+    /**
+     * Returns the components being analyzed.
+     */
+    public List<Component> getComponents() {
+        return components;
+    }
+
+    /**
+     * Records vulnerabilities identified for components which were not previously affected by them.
+     * @param findings the ids of the vulnerabilities identified, keyed by the id of the affected component
+     */
+    public void addNewFindings(final Map<Long, Set<Long>> findings) {
+        for (final Map.Entry<Long, Set<Long>> finding: findings.entrySet()) {
+            newFindings.computeIfAbsent(finding.getKey(), k -> ConcurrentHashMap.newKeySet()).addAll(finding.getValue());
+        }
+    }
+
+    /**
+     * Returns the ids of the vulnerabilities newly identified, keyed by the id of the affected component.
+     */
+    public Map<Long, Set<Long>> getNewFindings() {
+        return newFindings;
+    }
+
+    /**
+     * Records the wall-clock time an analyzer took to complete.
+     * @param analyzer the name of the analyzer
+     * @param millis the number of milliseconds the analyzer took
+     */
+    public void recordDuration(final String analyzer, final long millis) {
+        durations.put(analyzer, millis);
+    }
+
+    /**
+     * Returns the wall-clock time (in milliseconds) each analyzer took to complete, keyed by the name of the analyzer.
+     */
+    public Map<String, Long> getDurations() {
+        synchronized (durations) {
+            return new LinkedHashMap<>(durations);
+        }
+    }
+}
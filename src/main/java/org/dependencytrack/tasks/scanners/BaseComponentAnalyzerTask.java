@@ -18,19 +18,30 @@
  */
 package org.dependencytrack.tasks.scanners;
 
+import alpine.event.framework.Event;
 import alpine.logging.Logger;
 import alpine.model.ConfigProperty;
-import alpine.persistence.PaginatedResult;
-import alpine.resources.AlpineRequest;
-import alpine.resources.OrderDirection;
-import alpine.resources.Pagination;
 import alpine.util.BooleanUtil;
+import org.apache.commons.lang3.StringUtils;
+import org.dependencytrack.common.TaskMetrics;
+import org.dependencytrack.event.MetricsUpdateEvent;
 import org.dependencytrack.model.Component;
 import org.dependencytrack.model.ComponentAnalysisCache;
 import org.dependencytrack.model.ConfigPropertyConstants;
 import org.dependencytrack.model.Vulnerability;
+import org.dependencytrack.persistence.ComponentAnalysisCacheManager;
+import org.dependencytrack.persistence.KeysetCursor;
 import org.dependencytrack.persistence.QueryManager;
+import org.dependencytrack.util.NotificationUtil;
+import java.util.Collection;
 import java.util.Date;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * A base class that has logic common or useful to all classes that extend it.
@@ -41,11 +52,17 @@ import java.util.Date;
 public abstract class BaseComponentAnalyzerTask implements ScanTask {
     private final Logger LOGGER = Logger.getLogger(this.getClass()); // We dont want this class reporting the logger
 
+    private static final long DEFAULT_CACHE_VALIDITY_PERIOD = 3600000; // 1 hour
+
     private final int paginationLimit;
     private final int throttleDelay;
+    private final Map<Vulnerability.Source, Long> cacheValidityPeriods = new EnumMap<>(Vulnerability.Source.class);
+    private AnalysisContext analysisContext;
+    private final Map<Long, Set<Long>> newFindings = new ConcurrentHashMap<>();
+    protected final TaskMetrics taskMetrics = TaskMetrics.getInstance(this.getClass().getSimpleName());
 
     protected BaseComponentAnalyzerTask() {
-        this.paginationLimit = 1000;
+        this.paginationLimit = 0; // Use the page size configured for portfolio sweeps
         this.throttleDelay = 0;
     }
 
@@ -71,27 +88,116 @@ public abstract class BaseComponentAnalyzerTask implements ScanTask {
         }
     }
 
+    protected int getIntegerProperty(final ConfigPropertyConstants configPropertyConstants) {
+        try (QueryManager qm = new QueryManager()) {
+            return qm.getIntegerProperty(configPropertyConstants);
+        }
+    }
+
+    /**
+     * Returns the value of a string (or URL) property, falling back to its default value if it has not been set.
+     * @since 3.7.0
+     */
+    protected String getStringProperty(final ConfigPropertyConstants configPropertyConstants) {
+        try (QueryManager qm = new QueryManager()) {
+            final ConfigProperty property = qm.getConfigProperty(
+                    configPropertyConstants.getGroupName(), configPropertyConstants.getPropertyName()
+            );
+            if (property != null && StringUtils.isNotBlank(property.getPropertyValue())) {
+                return property.getPropertyValue().trim();
+            }
+            return configPropertyConstants.getDefaultPropertyValue();
+        }
+    }
+
+    /**
+     * Specifies the context of the coordinated analysis this analyzer takes part in.
+     * @param analysisContext the shared analysis context
+     * @since 3.7.0
+     */
+    public void setAnalysisContext(final AnalysisContext analysisContext) {
+        this.analysisContext = analysisContext;
+    }
+
+    /**
+     * Returns the context of the coordinated analysis this analyzer takes part in, or null
+     * if the analyzer is running on its own.
+     * @since 3.7.0
+     */
+    public AnalysisContext getAnalysisContext() {
+        return analysisContext;
+    }
+
+    /**
+     * Records a finding of the analysis, to be added with {@link #addVulnerabilities(QueryManager, Map)}.
+     * @param findings the findings of the analysis, keyed by the id of the affected component
+     * @param vulnerability the vulnerability identified
+     * @param component the affected component
+     */
+    protected static void addFinding(final Map<Long, Set<Long>> findings, final Vulnerability vulnerability, final Component component) {
+        findings.computeIfAbsent(component.getId(), k -> new HashSet<>()).add(vulnerability.getId());
+    }
+
+    /**
+     * Adds the findings of the analysis in a single transaction. Findings which are new warrant a
+     * notification, which is dispatched per affected project by {@link #notifyNewFindings()} once the
+     * analysis has completed. When taking part in a coordinated analysis, new findings are recorded in
+     * the analysis context and evaluated once all analyzers have completed.
+     * @param qm the QueryManager to use
+     * @param findings the findings of the analysis, keyed by the id of the affected component
+     */
+    protected void addVulnerabilities(final QueryManager qm, final Map<Long, Set<Long>> findings) {
+        final long start = System.currentTimeMillis();
+        final Map<Long, Set<Long>> added = qm.addVulnerabilities(findings);
+        taskMetrics.dbOperation(System.currentTimeMillis() - start);
+        taskMetrics.findingsProduced(findings.values().stream().mapToLong(Set::size).sum());
+        if (analysisContext == null) {
+            for (final Map.Entry<Long, Set<Long>> finding: added.entrySet()) {
+                newFindings.computeIfAbsent(finding.getKey(), k -> ConcurrentHashMap.newKeySet()).addAll(finding.getValue());
+            }
+        } else {
+            analysisContext.addNewFindings(added);
+        }
+    }
+
+    /**
+     * Dispatches the notifications for the new findings of the analysis, one per affected project.
+     * When taking part in a coordinated analysis, this is left to the coordinator.
+     * @since 3.7.0
+     */
+    protected void notifyNewFindings() {
+        if (newFindings.isEmpty()) {
+            return;
+        }
+        try (QueryManager qm = new QueryManager()) {
+            NotificationUtil.analyzeNotificationCriteria(qm, new HashMap<>(newFindings));
+        } finally {
+            newFindings.clear();
+        }
+    }
+
+    /**
+     * Requests the metrics of a component affected by the analysis to be updated. When taking part
+     * in a coordinated analysis, metrics are updated once all analyzers have completed.
+     */
+    protected void updateMetrics(final Component component) {
+        if (analysisContext == null) {
+            Event.dispatch(new MetricsUpdateEvent(component));
+        }
+    }
+
     /**
      * {@inheritDoc}
      */
     public void analyze() {
         final Logger logger = Logger.getLogger(this.getClass()); // We don't want the base class to be the logger
         logger.info("Analyzing portfolio");
-        final AlpineRequest alpineRequest = new AlpineRequest(
-                null,
-                new Pagination(Pagination.Strategy.OFFSET, 0, paginationLimit),
-                null,
-                "id",
-                OrderDirection.ASCENDING
-        );
-        try (QueryManager qm = new QueryManager(alpineRequest)) {
-            final long total = qm.getCount(Component.class);
-            long count = 0;
-            while (count < total) {
-                final PaginatedResult result = qm.getComponents();
-                analyze(result.getList(Component.class));
-                count += result.getObjects().size();
-                qm.advancePagination();
+        try (QueryManager qm = new QueryManager()) {
+            final KeysetCursor<Component> cursor = paginationLimit > 0
+                    ? new KeysetCursor<>(qm, Component.class, Component::getId, paginationLimit)
+                    : new KeysetCursor<>(qm, Component.class, Component::getId);
+            while (cursor.hasNext()) {
+                analyze(cursor.next());
                 doThrottleDelay();
             }
         }
@@ -104,6 +210,7 @@ public abstract class BaseComponentAnalyzerTask implements ScanTask {
 
     protected void doThrottleDelay(long delay) {
         if (delay > 0) {
+            taskMetrics.throttleWait(delay);
             long now = System.currentTimeMillis();
             final long delayUntil = now + delay;
             while(now < delayUntil) {
@@ -113,26 +220,101 @@ public abstract class BaseComponentAnalyzerTask implements ScanTask {
     }
 
     protected boolean isCacheCurrent(Vulnerability.Source source, String targetHost, String target) {
-        try (QueryManager qm = new QueryManager()) {
-            boolean isCacheCurrent = false;
-            ComponentAnalysisCache cac = qm.getComponentAnalysisCache(ComponentAnalysisCache.CacheType.VULNERABILITY, targetHost, source.name(), target);
-            if (cac != null) {
-                final Date now = new Date();
-                if (now.getTime() > cac.getLastOccurrence().getTime()) {
-                    final long delta = now.getTime() - cac.getLastOccurrence().getTime();
-                    isCacheCurrent = delta <= 3600000; // TODO: Default to 1 hour. Make this configurable in a future release
-                }
-            }
-            if (isCacheCurrent) {
-                LOGGER.debug("Cache is current. Skipping analysis. (source: " + source + " / targetHost: " + targetHost + " / target: " + target);
-            } else {
-                LOGGER.debug("Cache is not current. Analysis should be performed (source: " + source + " / targetHost: " + targetHost + " / target: " + target);
+        final boolean isCacheCurrent = ComponentAnalysisCacheManager.getInstance().isCurrent(
+                ComponentAnalysisCache.CacheType.VULNERABILITY, targetHost, source.name(), target, getCacheValidityPeriod(source));
+        if (isCacheCurrent) {
+            taskMetrics.cacheHit();
+            LOGGER.debug("Cache is current. Skipping analysis. (source: " + source + " / targetHost: " + targetHost + " / target: " + target);
+        } else {
+            LOGGER.debug("Cache is not current. Analysis should be performed (source: " + source + " / targetHost: " + targetHost + " / target: " + target);
+        }
+        return isCacheCurrent;
+    }
+
+    /**
+     * Loads the analysis cache entries of a batch of targets into memory with a single query, so that
+     * subsequent calls to {@link #isCacheCurrent(Vulnerability.Source, String, String)} for them do not
+     * need to query the database.
+     */
+    protected void prefetchAnalysisCache(Vulnerability.Source source, String targetHost, Collection<String> targets) {
+        ComponentAnalysisCacheManager.getInstance().prefetch(
+                ComponentAnalysisCache.CacheType.VULNERABILITY, targetHost, source.name(), targets);
+    }
+
+    /**
+     * Prefetches the analysis cache entries of the specified components. Analyzers which make use
+     * of the analysis cache should override this method.
+     * @param components the components about to be analyzed
+     * @since 3.7.0
+     */
+    public void prefetchAnalysisCache(final List<Component> components) {
+    }
+
+    /**
+     * Invalidates the analysis cache entries of a batch of targets, so that they are analyzed again.
+     */
+    protected void invalidateAnalysisCache(Vulnerability.Source source, String targetHost, Collection<String> targets) {
+        ComponentAnalysisCacheManager.getInstance().invalidate(
+                ComponentAnalysisCache.CacheType.VULNERABILITY, targetHost, source.name(), targets);
+    }
+
+    /**
+     * Invalidates the analysis cache entries of the specified components. Analyzers which make use
+     * of the analysis cache should override this method.
+     * @param components the components to analyze again
+     * @since 3.7.0
+     */
+    public void invalidateAnalysisCache(final List<Component> components) {
+    }
+
+    /**
+     * Returns the period (in milliseconds) the analysis of the specified source remains current.
+     */
+    private long getCacheValidityPeriod(final Vulnerability.Source source) {
+        return cacheValidityPeriods.computeIfAbsent(source, s -> {
+            final ConfigPropertyConstants property;
+            switch (s) {
+                case NPM:
+                    property = ConfigPropertyConstants.SCANNER_NPMAUDIT_CACHE_VALIDITY;
+                    break;
+                case OSSINDEX:
+                    property = ConfigPropertyConstants.SCANNER_OSSINDEX_CACHE_VALIDITY;
+                    break;
+                case VULNDB:
+                    property = ConfigPropertyConstants.SCANNER_VULNDB_CACHE_VALIDITY;
+                    break;
+                default:
+                    return DEFAULT_CACHE_VALIDITY_PERIOD;
             }
-            return isCacheCurrent;
+            return getIntegerProperty(property) * 60000L;
+        });
+    }
+
+    /**
+     * Indexes a list of vulnerabilities (typically the result of a bulk lookup) by their vulnId.
+     * @param vulnerabilities the vulnerabilities to index
+     * @return a Map of vulnId to Vulnerability
+     */
+    protected static Map<String, Vulnerability> toVulnIdMap(final List<Vulnerability> vulnerabilities) {
+        final Map<String, Vulnerability> map = new HashMap<>();
+        for (final Vulnerability vulnerability: vulnerabilities) {
+            map.put(vulnerability.getVulnId(), vulnerability);
         }
+        return map;
     }
 
-    protected void updateAnalysisCacheStats(QueryManager qm, Vulnerability.Source source, String targetHost, String target) {
-        qm.updateComponentAnalysisCache(ComponentAnalysisCache.CacheType.VULNERABILITY, targetHost, source.name(), target, new Date());
+    /**
+     * Records that the target was analyzed. The update is written behind to the database in batches.
+     */
+    protected void updateAnalysisCacheStats(Vulnerability.Source source, String targetHost, String target) {
+        ComponentAnalysisCacheManager.getInstance().update(
+                ComponentAnalysisCache.CacheType.VULNERABILITY, targetHost, source.name(), target, new Date());
+    }
+
+    /**
+     * Writes pending analysis cache updates to the database.
+     */
+    protected void flushAnalysisCache() {
+        ComponentAnalysisCacheManager.getInstance().flush();
     }
 }
@@ -22,14 +22,23 @@ import alpine.event.framework.Event;
 import alpine.event.framework.Subscriber;
 import alpine.logging.Logger;
 import com.github.packageurl.PackageURL;
+import org.apache.commons.lang3.StringUtils;
 import org.dependencytrack.event.InternalAnalysisEvent;
 import org.dependencytrack.model.Component;
 import org.dependencytrack.model.ConfigPropertyConstants;
 import org.dependencytrack.model.VulnerableSoftware;
 import org.dependencytrack.persistence.QueryManager;
+import org.dependencytrack.search.FuzzyCpeMatcher;
 import us.springett.parsers.cpe.CpeParser;
 import us.springett.parsers.cpe.exceptions.CpeParsingException;
+import us.springett.parsers.cpe.values.LogicalValue;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * Subscriber task that performs an analysis of component using internal CPE/PURL data.
@@ -50,12 +59,15 @@ public class InternalAnalysisTask extends AbstractVulnerableSoftwareAnalysisTask
                 return;
             }
             final InternalAnalysisEvent event = (InternalAnalysisEvent)e;
+            final long start = System.currentTimeMillis();
             LOGGER.info("Starting internal analysis task");
             if (event.getComponents().size() > 0) {
                 analyze(event.getComponents());
             } else {
                 super.analyze();
             }
+            notifyNewFindings();
+            taskMetrics.taskCompleted(System.currentTimeMillis() - start);
             LOGGER.info("Internal analysis complete");
         }
     }
@@ -75,21 +87,30 @@ public class InternalAnalysisTask extends AbstractVulnerableSoftwareAnalysisTask
      * @param components a list of Components
      */
     public void analyze(final List<Component> components) {
+        taskMetrics.componentsConsidered(components.size());
         final boolean fuzzyEnabled = super.isEnabled(ConfigPropertyConstants.SCANNER_INTERNAL_FUZZY_ENABLED);
         final boolean excludeComponentsWithPurl = super.isEnabled(ConfigPropertyConstants.SCANNER_INTERNAL_FUZZY_EXCLUDE_PURL);
+        // Components without a CPE, grouped by group and name so that each is matched only once
+        final Map<String, List<Component>> fuzzyCandidates = new LinkedHashMap<>();
+        final Map<Long, Set<Long>> findings = new HashMap<>();
         try (QueryManager qm = new QueryManager()) {
             for (Component component : components) {
-                versionRangeAnalysis(qm, component);
-                if (fuzzyEnabled) {
+                versionRangeAnalysis(qm, findings, component);
+                if (fuzzyEnabled && component.getCpe() == null && component.getName() != null && component.getVersion() != null) {
                     if (component.getPurl() == null || !excludeComponentsWithPurl) {
-                        fuzzyCpeAnalysis(qm, component);
+                        final String key = StringUtils.trimToEmpty(component.getGroup()).toLowerCase(Locale.ROOT) + ":" + component.getName().trim().toLowerCase(Locale.ROOT);
+                        fuzzyCandidates.computeIfAbsent(key, k -> new ArrayList<>()).add(component);
                     }
                 }
             }
+            for (final List<Component> candidates: fuzzyCandidates.values()) {
+                fuzzyCpeAnalysis(qm, findings, candidates);
+            }
+            addVulnerabilities(qm, findings);
         }
     }
 
-    private void versionRangeAnalysis(final QueryManager qm, final Component component) {
+    private void versionRangeAnalysis(final QueryManager qm, final Map<Long, Set<Long>> findings, final Component component) {
         if (component.getCpe() != null) {
             try {
                 final us.springett.parsers.cpe.Cpe parsedCpe = CpeParser.parse(component.getCpe());
@@ -97,14 +118,25 @@ public class InternalAnalysisTask extends AbstractVulnerableSoftwareAnalysisTask
                         parsedCpe.getPart().getAbbreviation(),
                         parsedCpe.getVendor(),
                         parsedCpe.getProduct());
-                super.analyzeVersionRange(qm, matchedCpes, parsedCpe.getVersion(), parsedCpe.getUpdate(), component);
+                super.analyzeVersionRange(findings, matchedCpes, parsedCpe.getVersion(), parsedCpe.getUpdate(), component);
             } catch (CpeParsingException e) {
                 LOGGER.error("An error occurred parsing a CPE defined for a component: " + component.getCpe(), e);
             }
         }
     }
 
-    private void fuzzyCpeAnalysis(final QueryManager qm, final Component component) {
-        //TODO
+    /**
+     * Matches components sharing the same group and name against the CPE dictionary and evaluates
+     * the version of each component against the vulnerable software of every matching vendor/product.
+     */
+    private void fuzzyCpeAnalysis(final QueryManager qm, final Map<Long, Set<Long>> findings, final List<Component> components) {
+        final Component first = components.get(0);
+        for (final FuzzyCpeMatcher.Match match: FuzzyCpeMatcher.getInstance().match(first.getGroup(), first.getName())) {
+            LOGGER.debug("Fuzzy matched " + first.getName() + " to " + match.getVendor() + ":" + match.getProduct() + " (score: " + match.getScore() + ")");
+            final List<VulnerableSoftware> matchedCpes = qm.getAllVulnerableSoftware(match.getPart(), match.getVendor(), match.getProduct());
+            for (final Component component: components) {
+                super.analyzeVersionRange(findings, matchedCpes, component.getVersion(), LogicalValue.ANY.getAbbreviation(), component);
+            }
+        }
     }
 }
@@ -22,12 +22,10 @@ import alpine.event.framework.Event;
 import alpine.event.framework.Subscriber;
 import alpine.logging.Logger;
 import com.github.packageurl.PackageURL;
-import kong.unirest.HttpResponse;
-import kong.unirest.JsonNode;
-import kong.unirest.UnirestException;
 import kong.unirest.UnirestInstance;
+import org.dependencytrack.common.RateLimiter;
+import org.dependencytrack.common.TaskMetrics;
 import org.dependencytrack.common.UnirestFactory;
-import org.dependencytrack.event.MetricsUpdateEvent;
 import org.dependencytrack.event.NpmAuditAnalysisEvent;
 import org.dependencytrack.model.Component;
 import org.dependencytrack.model.ConfigPropertyConstants;
@@ -35,14 +33,22 @@ import org.dependencytrack.model.Vulnerability;
 import org.dependencytrack.parser.npm.NpmAuditParser;
 import org.dependencytrack.parser.npm.model.Advisory;
 import org.dependencytrack.persistence.QueryManager;
-import org.dependencytrack.util.NotificationUtil;
 import org.json.JSONObject;
 import java.security.SecureRandom;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
-import java.util.Iterator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.stream.Collectors;
 
 /**
  * Subscriber task that performs an analysis of component using NPM Audit API.
@@ -52,8 +58,10 @@ import java.util.Map;
  */
 public class NpmAuditAnalysisTask extends BaseComponentAnalyzerTask implements Subscriber {
 
-    private static final String API_BASE_URL = "https://registry.npmjs.org/-/npm/v1/security/audits";
     private static final Logger LOGGER = Logger.getLogger(NpmAuditAnalysisTask.class);
+    private static final String SLOT_MODULE_PREFIX = "dependency-track-slot-";
+    private static final int MAX_PAYLOAD_SIZE = 250;
+    private String apiBaseUrl;
 
     /**
      * {@inheritDoc}
@@ -64,12 +72,16 @@ public class NpmAuditAnalysisTask extends BaseComponentAnalyzerTask implements S
                 return;
             }
             final NpmAuditAnalysisEvent event = (NpmAuditAnalysisEvent)e;
+            final long start = System.currentTimeMillis();
             LOGGER.info("Starting Node Audit analysis task");
             if (event.getComponents().size() > 0) {
                 analyze(event.getComponents());
             } else {
                 super.analyze();
             }
+            flushAnalysisCache();
+            notifyNewFindings();
+            taskMetrics.taskCompleted(System.currentTimeMillis() - start);
             LOGGER.info("Node Audit analysis complete");
         }
     }
@@ -84,83 +96,133 @@ public class NpmAuditAnalysisTask extends BaseComponentAnalyzerTask implements S
         if (purl == null) {
             return false;
         }
-        return "npm".equals(purl.getType()) && !isCacheCurrent(Vulnerability.Source.NPM, API_BASE_URL, purl.toString());
+        return "npm".equals(purl.getType()) && !isCacheCurrent(Vulnerability.Source.NPM, getApiBaseUrl(), purl.toString());
     }
 
     /**
-     * Analyzes a list of Components. The NPM Audit API is only capable of analyzing one
-     * version of a node module at a time. For example, attempting to analyze three versions
-     * of 'serve' for example will result in only the last version in the payload specified
-     * being scanned. Therefore, this method uses a Map with the name of the module being the
-     * maps key to ensure multiple versions are not sent at the same time. This will result
-     * in multiple requests being made to the NPM Audit API.
+     * {@inheritDoc}
+     */
+    @Override
+    public void prefetchAnalysisCache(final List<Component> components) {
+        prefetchAnalysisCache(Vulnerability.Source.NPM, getApiBaseUrl(), getTargets(components));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void invalidateAnalysisCache(final List<Component> components) {
+        invalidateAnalysisCache(Vulnerability.Source.NPM, getApiBaseUrl(), getTargets(components));
+    }
+
+    /**
+     * Returns the analysis cache targets of the npm components.
+     */
+    private static Set<String> getTargets(final List<Component> components) {
+        return components.stream()
+                .filter(c -> c.getPurl() != null && "npm".equals(c.getPurl().getType()))
+                .map(c -> c.getPurl().toString())
+                .collect(Collectors.toSet());
+    }
+
+    /**
+     * Analyzes a list of Components. The NPM Audit API only considers one version of a node
+     * module per location in the dependency tree. Rather than submitting each version of a module
+     * in a request of its own, the versions are packed into a single package-lock where each
+     * additional version is nested in the dependencies of a synthetic parent module. Payloads are
+     * submitted concurrently, paced by the shared {@link RateLimiter} for the NPM Audit API, and
+     * the advisories of all payloads are joined to their components in one batch.
      * @param components a list of Components
      */
     public void analyze(final List<Component> components) {
-        final ArrayList<Component> backlog = new ArrayList<>(components);
-        while (!backlog.isEmpty()) {
-            // Defines a Map of Components to analyze
-            final Map<String, Component> npmCandidates = new HashMap<>();
-
-            // NPM payload objects
-            final JSONObject npmRequires = new JSONObject();
-            final JSONObject npmDependencies = new JSONObject();
+        taskMetrics.componentsConsidered(components.size());
+        prefetchAnalysisCache(components);
+        // Group the candidates by module name and version. Components sharing both are submitted once.
+        final Map<String, Map<String, List<Component>>> npmCandidates = new TreeMap<>();
+        for (final Component component: components) {
+            final PackageURL purl = component.getPurl();
+            if (!component.isInternal() && shouldAnalyze(purl) && purl.getVersion() != null) {
+                npmCandidates.computeIfAbsent(getModuleName(purl), k -> new TreeMap<>())
+                        .computeIfAbsent(purl.getVersion(), k -> new ArrayList<>()).add(component);
+            }
+        }
+        if (npmCandidates.isEmpty()) {
+            return;
+        }
 
-            for (Iterator<Component> iterator = backlog.iterator(); iterator.hasNext();) {
-                Component component = iterator.next();
-                final PackageURL purl = component.getPurl();
-                if (!component.isInternal() && shouldAnalyze(purl)) {
-                    if (!npmCandidates.containsKey(component.getName())) {
-                        npmCandidates.put(component.getName(), component);
-                        npmRequires.put(purl.getName(), purl.getVersion());
-                        npmDependencies.put(purl.getName(), new JSONObject().put("version", purl.getVersion()));
-                        iterator.remove(); // Remove the current component being iterated on
-                    }
-                } else {
-                    iterator.remove(); // Remove the current component being iterated on
+        final List<AuditPayload> payloads = new ArrayList<>();
+        AuditPayload payload = new AuditPayload();
+        for (final Map.Entry<String, Map<String, List<Component>>> module: npmCandidates.entrySet()) {
+            for (final Map.Entry<String, List<Component>> version: module.getValue().entrySet()) {
+                if (payload.size() >= MAX_PAYLOAD_SIZE) {
+                    payloads.add(payload);
+                    payload = new AuditPayload();
                 }
+                payload.add(module.getKey(), version.getKey(), version.getValue());
             }
+        }
+        payloads.add(payload);
 
-            if (npmRequires.length() > 0) {
-                // Build a minimal package-lock.json in memory
-                final JSONObject packageJson = new JSONObject();
-                packageJson.put("name", "test-package");
-                packageJson.put("version", "1.0.0");
-                packageJson.put("requires", npmRequires);
-                packageJson.put("dependencies", npmDependencies);
-
-                try {
-                    // Submit the package-lock.json to Node Audit API for analysis and process results
-                    final List<Advisory> advisories = submit(packageJson);
-                    processResults(new ArrayList<>(npmCandidates.values()), advisories);
-                } catch (UnirestException e) {
-                    LOGGER.error("An error occurred while analyzing", e);
-                }
-                LOGGER.info("Analyzing " + npmCandidates.size() + " component(s)");
+        final RateLimiter rateLimiter = RateLimiter.getInstance(getApiBaseUrl(),
+                getIntegerProperty(ConfigPropertyConstants.SCANNER_NPMAUDIT_RATE_LIMIT));
+        final Semaphore inFlight = new Semaphore(Math.max(1, getIntegerProperty(ConfigPropertyConstants.SCANNER_NPMAUDIT_CONCURRENCY)));
+        final List<Component> analyzed = Collections.synchronizedList(new ArrayList<>());
+        final List<Advisory> advisories = Collections.synchronizedList(new ArrayList<>());
+        final List<CompletableFuture<Void>> pending = new ArrayList<>();
+        try {
+            for (final AuditPayload auditPayload: payloads) {
+                inFlight.acquire();
+                taskMetrics.throttleWait(rateLimiter.acquire());
+                LOGGER.info("Analyzing " + auditPayload.getComponents().size() + " component(s)");
+                pending.add(submitAsync(auditPayload.toPackageLock())
+                        .whenComplete((result, throwable) -> inFlight.release())
+                        .thenAccept(result -> {
+                            if (result != null) {
+                                advisories.addAll(result);
+                                analyzed.addAll(auditPayload.getComponents());
+                            }
+                        })
+                        .exceptionally(throwable -> {
+                            LOGGER.error("An error occurred while analyzing", throwable);
+                            return null;
+                        }));
             }
+            CompletableFuture.allOf(pending.toArray(new CompletableFuture[0])).join();
+        } catch (InterruptedException e) {
+            LOGGER.warn("Interrupted while waiting to submit components to the NPM Audit API");
+            Thread.currentThread().interrupt();
+            return;
+        }
+        if (!analyzed.isEmpty()) {
+            processResults(analyzed, advisories);
         }
     }
 
     /**
-     * Submits the payload to the NPM service
+     * Submits the payload to the NPM service using the async client. Completes with null if the
+     * service did not respond with the results of the audit.
      */
-    private List<Advisory> submit(final JSONObject payload) throws UnirestException {
+    private CompletableFuture<List<Advisory>> submitAsync(final JSONObject payload) {
         final UnirestInstance ui = UnirestFactory.getUnirestInstance();
-        final HttpResponse<JsonNode> jsonResponse = ui.post(API_BASE_URL)
+        final long start = System.currentTimeMillis();
+        return ui.post(getApiBaseUrl())
                 .header("user-agent", "npm/6.1.0 node/v10.5.0 linux x64")
                 .header("npm-in-ci", "false")
                 .header("npm-scope", "")
                 .header("npm-session", generateRandomSession())
                 .header("content-type", "application/json")
                 .body(payload)
-                .asJson();
-        if (jsonResponse.getStatus() == 200) {
-            final NpmAuditParser parser = new NpmAuditParser();
-            return parser.parse(jsonResponse.getBody());
-        } else {
-            LOGGER.warn("Received unexpected HTTP response " + jsonResponse.getStatus() + " " + jsonResponse.getStatusText());
-        }
-        return new ArrayList<>();
+                .asJsonAsync()
+                .thenApply(jsonResponse -> {
+                    taskMetrics.httpRequest(System.currentTimeMillis() - start,
+                            TaskMetrics.parseContentLength(jsonResponse.getHeaders().getFirst("content-length")));
+                    if (jsonResponse.getStatus() == 200) {
+                        final NpmAuditParser parser = new NpmAuditParser();
+                        return parser.parse(jsonResponse.getBody());
+                    }
+                    LOGGER.warn("Received unexpected HTTP response " + jsonResponse.getStatus() + " " + jsonResponse.getStatusText());
+                    return null;
+                });
     }
 
     /**
@@ -168,36 +230,59 @@ public class NpmAuditAnalysisTask extends BaseComponentAnalyzerTask implements S
      */
     private void processResults(final List<Component> components, final List<Advisory> advisories) {
         LOGGER.info("Processing NPM advisories");
+        final Map<String, List<Component>> componentMap = new HashMap<>();
+        for (final Component component: components) {
+            final PackageURL purl = component.getPurl();
+            if (purl != null) {
+                componentMap.computeIfAbsent(toKey(getModuleName(purl), purl.getVersion()), k -> new ArrayList<>()).add(component);
+            }
+        }
+        final Set<String> advisoryIds = new HashSet<>();
+        for (final Advisory advisory: advisories) {
+            advisoryIds.add(String.valueOf(advisory.getId()));
+        }
         try (QueryManager qm = new QueryManager()) {
+            final Map<String, Vulnerability> vulnMap = toVulnIdMap(qm.getVulnerabilitiesByVulnId(Vulnerability.Source.NPM, advisoryIds));
+            final Map<Long, Set<Long>> findings = new HashMap<>();
+            final Set<Component> affected = new LinkedHashSet<>();
             for (final Advisory advisory: advisories) {
-                final Component component = getComponentFromAdvisory(components, advisory);
-                final Vulnerability vulnerabiity = qm.getVulnerabilityByVulnId(Vulnerability.Source.NPM, String.valueOf(advisory.getId()));
-                if (component != null && vulnerabiity != null) {
-                    NotificationUtil.analyzeNotificationCriteria(vulnerabiity, component);
-                    qm.addVulnerability(vulnerabiity, component);
+                final Vulnerability vulnerabiity = vulnMap.get(String.valueOf(advisory.getId()));
+                if (vulnerabiity == null) {
+                    continue;
+                }
+                // An advisory lists a finding for every version of the module it affects in the payload
+                final List<String> versions = advisory.getFindingVersions().isEmpty()
+                        ? Collections.singletonList(advisory.getVersion()) : advisory.getFindingVersions();
+                for (final String version: versions) {
+                    for (final Component component: componentMap.getOrDefault(toKey(advisory.getModuleName(), version), Collections.emptyList())) {
+                        addFinding(findings, vulnerabiity, component);
+                        affected.add(component);
+                    }
                 }
-                Event.dispatch(new MetricsUpdateEvent(component));
+            }
+            addVulnerabilities(qm, findings);
+            for (final Component component: affected) {
+                updateMetrics(component);
             }
             for (final Component component: components) {
-                updateAnalysisCacheStats(qm, Vulnerability.Source.NPM, API_BASE_URL, component.getPurl().toString());
+                updateAnalysisCacheStats(Vulnerability.Source.NPM, getApiBaseUrl(), component.getPurl().toString());
             }
         }
     }
 
     /**
-     * Resolves a Component from the metadata in the advisory.
+     * Returns the key used to join an advisory to the component it was reported for. Module names
+     * and versions are compared case-insensitively.
      */
-    private Component getComponentFromAdvisory(final List<Component> components, final Advisory advisory) {
-        for (final Component component: components) {
-            final PackageURL purl = component.getPurl();
-            if (purl != null) {
-                if (purl.getName().equalsIgnoreCase(advisory.getModuleName())
-                        && purl.getVersion().equalsIgnoreCase(advisory.getVersion())) {
-                    return component;
-                }
-            }
-        }
-        return null;
+    private static String toKey(final String name, final String version) {
+        return (name == null ? "" : name.toLowerCase(Locale.ENGLISH)) + "@" + (version == null ? "" : version.toLowerCase(Locale.ENGLISH));
+    }
+
+    /**
+     * Returns the name of the node module, including its scope if any.
+     */
+    private static String getModuleName(final PackageURL purl) {
+        return purl.getNamespace() != null ? purl.getNamespace() + "/" + purl.getName() : purl.getName();
     }
 
     /**
@@ -213,4 +298,77 @@ public class NpmAuditAnalysisTask extends BaseComponentAnalyzerTask implements S
         return sb.toString().substring(0, length);
     }
 
+    /**
+     * A single submission to the NPM Audit API. The first version of each module is a direct
+     * dependency of the package-lock. The n-th additional version of a module is nested in the
+     * dependencies of a synthetic module for slot n, which is itself a direct dependency. Findings
+     * for the nested versions are reported with paths such as {@code dependency-track-slot-1>lodash}.
+     */
+    private static final class AuditPayload {
+
+        private final Map<String, List<String>> modules = new LinkedHashMap<>();
+        private final List<Component> components = new ArrayList<>();
+        private int size;
+
+        private void add(final String name, final String version, final List<Component> components) {
+            modules.computeIfAbsent(name, k -> new ArrayList<>()).add(version);
+            this.components.addAll(components);
+            size++;
+        }
+
+        private int size() {
+            return size;
+        }
+
+        private List<Component> getComponents() {
+            return components;
+        }
+
+        /**
+         * Builds a minimal package-lock.json in memory.
+         */
+        private JSONObject toPackageLock() {
+            final JSONObject npmRequires = new JSONObject();
+            final JSONObject npmDependencies = new JSONObject();
+            final List<JSONObject> slotRequires = new ArrayList<>();
+            final List<JSONObject> slotDependencies = new ArrayList<>();
+            for (final Map.Entry<String, List<String>> module: modules.entrySet()) {
+                final List<String> versions = module.getValue();
+                npmRequires.put(module.getKey(), versions.get(0));
+                npmDependencies.put(module.getKey(), new JSONObject().put("version", versions.get(0)));
+                for (int slot = 1; slot < versions.size(); slot++) {
+                    if (slotRequires.size() < slot) {
+                        slotRequires.add(new JSONObject());
+                        slotDependencies.add(new JSONObject());
+                    }
+                    slotRequires.get(slot - 1).put(module.getKey(), versions.get(slot));
+                    slotDependencies.get(slot - 1).put(module.getKey(), new JSONObject().put("version", versions.get(slot)));
+                }
+            }
+            for (int slot = 1; slot <= slotRequires.size(); slot++) {
+                final String slotName = SLOT_MODULE_PREFIX + slot;
+                npmRequires.put(slotName, "1.0.0");
+                npmDependencies.put(slotName, new JSONObject()
+                        .put("version", "1.0.0")
+                        .put("requires", slotRequires.get(slot - 1))
+                        .put("dependencies", slotDependencies.get(slot - 1)));
+            }
+            final JSONObject packageJson = new JSONObject();
+            packageJson.put("name", "test-package");
+            packageJson.put("version", "1.0.0");
+            packageJson.put("requires", npmRequires);
+            packageJson.put("dependencies", npmDependencies);
+            return packageJson;
+        }
+    }
+
+    /**
+     * Returns the URL of the audit API. It may be pointed at a mirror or a replay server.
+     */
+    private String getApiBaseUrl() {
+        if (apiBaseUrl == null) {
+            apiBaseUrl = getStringProperty(ConfigPropertyConstants.SCANNER_NPMAUDIT_API_URL);
+        }
+        return apiBaseUrl;
+    }
 }
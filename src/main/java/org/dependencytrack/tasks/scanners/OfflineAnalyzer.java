@@ -0,0 +1,153 @@
+/*
+ * This file is part of Dependency-Track.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * Copyright (c) Steve Springett. All Rights Reserved.
+ */
+package org.dependencytrack.tasks.scanners;
+
+import alpine.logging.Logger;
+import org.dependencytrack.model.Component;
+import org.dependencytrack.model.ConfigPropertyConstants;
+import org.dependencytrack.model.OfflineAnalysisResult;
+import org.dependencytrack.model.Vulnerability;
+import org.dependencytrack.model.VulnerableSoftware;
+import org.dependencytrack.persistence.QueryManager;
+import org.dependencytrack.search.FuzzyCpeMatcher;
+import us.springett.parsers.cpe.Cpe;
+import us.springett.parsers.cpe.CpeParser;
+import us.springett.parsers.cpe.exceptions.CpeParsingException;
+import us.springett.parsers.cpe.values.LogicalValue;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Analyzes transient components (typically those of a BOM which is not to be persisted) against the
+ * internal vulnerability data, using the same CPE and (if enabled) fuzzy CPE matching as the
+ * {@link InternalAnalysisTask}. Nothing is written to the database: the vulnerable software of all
+ * components, and their vulnerabilities, are looked up with batched queries and evaluated in memory.
+ *
+ * @author Steve Springett
+ * @since 3.7.0
+ */
+public class OfflineAnalyzer {
+
+    private static final Logger LOGGER = Logger.getLogger(OfflineAnalyzer.class);
+
+    /**
+     * Analyzes the specified components, including their children.
+     * @param qm the QueryManager to use
+     * @param components the components to analyze
+     * @return the findings and the number of findings per severity
+     */
+    public OfflineAnalysisResult analyze(final QueryManager qm, final List<Component> components) {
+        final boolean fuzzyEnabled = qm.isEnabled(ConfigPropertyConstants.SCANNER_INTERNAL_FUZZY_ENABLED);
+        final boolean excludeComponentsWithPurl = qm.isEnabled(ConfigPropertyConstants.SCANNER_INTERNAL_FUZZY_EXCLUDE_PURL);
+        final List<Component> flattened = new ArrayList<>();
+        flatten(components, flattened);
+
+        // Determine what each component is to be matched on, so that it can be looked up in bulk
+        final Map<Component, List<Target>> targets = new LinkedHashMap<>();
+        final Set<String> parts = new HashSet<>();
+        final Set<String> vendors = new HashSet<>();
+        final Set<String> products = new HashSet<>();
+        for (final Component component: flattened) {
+            final List<Target> componentTargets = new ArrayList<>();
+            if (component.getCpe() != null) {
+                try {
+                    final Cpe cpe = CpeParser.parse(component.getCpe());
+                    componentTargets.add(new Target(toKey(cpe.getPart().getAbbreviation(), cpe.getVendor(), cpe.getProduct()),
+                            cpe.getVersion(), cpe.getUpdate()));
+                    parts.add(cpe.getPart().getAbbreviation());
+                    vendors.add(cpe.getVendor());
+                    products.add(cpe.getProduct());
+                } catch (CpeParsingException e) {
+                    LOGGER.warn("An error occurred parsing a CPE defined for a component: " + component.getCpe());
+                }
+            } else if (fuzzyEnabled && component.getName() != null && component.getVersion() != null
+                    && (component.getPurl() == null || !excludeComponentsWithPurl)) {
+                for (final FuzzyCpeMatcher.Match match: FuzzyCpeMatcher.getInstance().match(component.getGroup(), component.getName())) {
+                    componentTargets.add(new Target(toKey(match.getPart(), match.getVendor(), match.getProduct()),
+                            component.getVersion(), LogicalValue.ANY.getAbbreviation()));
+                    parts.add(match.getPart());
+                    vendors.add(match.getVendor());
+                    products.add(match.getProduct());
+                }
+            }
+            if (!componentTargets.isEmpty()) {
+                targets.put(component, componentTargets);
+            }
+        }
+
+        final Map<String, List<VulnerableSoftware>> cpeMatches = new HashMap<>();
+        for (final VulnerableSoftware vs: qm.getAllVulnerableSoftware(parts, vendors, products)) {
+            cpeMatches.computeIfAbsent(toKey(vs.getPart(), vs.getVendor(), vs.getProduct()), k -> new ArrayList<>()).add(vs);
+        }
+
+        final OfflineAnalysisResult result = new OfflineAnalysisResult();
+        result.setComponents(flattened.size());
+        for (final Map.Entry<Component, List<Target>> entry: targets.entrySet()) {
+            final Map<Long, Vulnerability> vulnerabilities = new LinkedHashMap<>();
+            for (final Target target: entry.getValue()) {
+                for (final VulnerableSoftware vs: cpeMatches.getOrDefault(target.key, Collections.emptyList())) {
+                    if (AbstractVulnerableSoftwareAnalysisTask.isAffected(vs, target.version, target.update)
+                            && vs.getVulnerabilities() != null) {
+                        for (final Vulnerability vulnerability: vs.getVulnerabilities()) {
+                            vulnerabilities.putIfAbsent(vulnerability.getId(), vulnerability);
+                        }
+                    }
+                }
+            }
+            for (final Vulnerability vulnerability: vulnerabilities.values()) {
+                result.addFinding(entry.getKey(), vulnerability);
+            }
+        }
+        return result;
+    }
+
+    private static void flatten(final Iterable<Component> components, final List<Component> flattened) {
+        for (final Component component: components) {
+            flattened.add(component);
+            if (component.getChildren() != null) {
+                flatten(component.getChildren(), flattened);
+            }
+        }
+    }
+
+    private static String toKey(final String a, final String b, final String c) {
+        return a + ":" + b + ":" + c;
+    }
+
+    /**
+     * Something a component is to be matched on: a part/vendor/product and the version and update to evaluate.
+     */
+    private static final class Target {
+        private final String key;
+        private final String version;
+        private final String update;
+
+        private Target(final String key, final String version, final String update) {
+            this.key = key;
+            this.version = version;
+            this.update = update;
+        }
+    }
+}
@@ -28,13 +28,15 @@ import com.github.packageurl.MalformedPackageURLException;
 import com.github.packageurl.PackageURL;
 import kong.unirest.HttpResponse;
 import kong.unirest.JsonNode;
+import kong.unirest.RawResponse;
 import kong.unirest.UnirestException;
 import kong.unirest.UnirestInstance;
 import org.apache.commons.collections4.CollectionUtils;
 import org.apache.http.HttpHeaders;
 import org.dependencytrack.common.ManagedHttpClientFactory;
+import org.dependencytrack.common.RateLimiter;
+import org.dependencytrack.common.TaskMetrics;
 import org.dependencytrack.common.UnirestFactory;
-import org.dependencytrack.event.MetricsUpdateEvent;
 import org.dependencytrack.event.OssIndexAnalysisEvent;
 import org.dependencytrack.model.Component;
 import org.dependencytrack.model.ConfigPropertyConstants;
@@ -44,7 +46,6 @@ import org.dependencytrack.parser.ossindex.OssIndexParser;
 import org.dependencytrack.parser.ossindex.model.ComponentReport;
 import org.dependencytrack.parser.ossindex.model.ComponentReportVulnerability;
 import org.dependencytrack.persistence.QueryManager;
-import org.dependencytrack.util.NotificationUtil;
 import org.json.JSONObject;
 import us.springett.cvss.Cvss;
 import us.springett.cvss.CvssV2;
@@ -52,7 +53,19 @@ import us.springett.cvss.CvssV3;
 import us.springett.cvss.Score;
 import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.stream.Collectors;
 
 /**
  * Subscriber task that performs an analysis of component using Sonatype OSS Index REST API.
@@ -62,13 +75,14 @@ import java.util.List;
  */
 public class OssIndexAnalysisTask extends BaseComponentAnalyzerTask implements Subscriber {
 
-    private static final String API_BASE_URL = "https://ossindex.sonatype.org/api/v3/component-report";
     private static final Logger LOGGER = Logger.getLogger(OssIndexAnalysisTask.class);
+    private static final int PAGE_SIZE = 100;
+    private String apiBaseUrl;
     private String apiUsername;
     private String apiToken;
 
     public OssIndexAnalysisTask() {
-        super(100, 5);
+        super(PAGE_SIZE, 5);
     }
 
     /**
@@ -105,12 +119,16 @@ public class OssIndexAnalysisTask extends BaseComponentAnalyzerTask implements S
                 }
             }
             final OssIndexAnalysisEvent event = (OssIndexAnalysisEvent)e;
+            final long start = System.currentTimeMillis();
             LOGGER.info("Starting Sonatype OSS Index analysis task");
             if (event.getComponents().size() > 0) {
                 analyze(event.getComponents());
             } else {
                 super.analyze();
             }
+            flushAnalysisCache();
+            notifyNewFindings();
+            taskMetrics.taskCompleted(System.currentTimeMillis() - start);
             LOGGER.info("Sonatype OSS Index analysis complete");
         }
     }
@@ -122,7 +140,18 @@ public class OssIndexAnalysisTask extends BaseComponentAnalyzerTask implements S
      * @return true if OssIndexAnalysisTask should analyze, false if not
      */
     public boolean shouldAnalyze(final PackageURL purl) {
-        return purl != null && !isCacheCurrent(Vulnerability.Source.OSSINDEX, API_BASE_URL, purl.toString());
+        return purl != null && !isCacheCurrent(Vulnerability.Source.OSSINDEX, getApiBaseUrl(), purl.toString());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void prefetchAnalysisCache(final List<Component> components) {
+        prefetchAnalysisCache(Vulnerability.Source.OSSINDEX, getApiBaseUrl(), components.stream()
+                .filter(c -> c.getPurl() != null)
+                .map(c -> c.getPurl().toString())
+                .collect(Collectors.toSet()));
     }
 
     /**
@@ -130,16 +159,17 @@ public class OssIndexAnalysisTask extends BaseComponentAnalyzerTask implements S
      * @param components a list of Components
      */
     public void analyze(final List<Component> components) {
-        final Pageable<Component> paginatedComponents = new Pageable<>(100, components);
+        taskMetrics.componentsConsidered(components.size());
+        prefetchAnalysisCache(components);
+        final int concurrency = getIntegerProperty(ConfigPropertyConstants.SCANNER_OSSINDEX_CONCURRENCY);
+        if (concurrency > 1) {
+            analyzePipelined(components, concurrency);
+            return;
+        }
+        final Pageable<Component> paginatedComponents = new Pageable<>(PAGE_SIZE, components);
         while (!paginatedComponents.isPaginationComplete()) {
-            final List<String> coordinates = new ArrayList<>();
             final List<Component> paginatedList = paginatedComponents.getPaginatedList();
-            for (final Component component: paginatedList) {
-                if (!component.isInternal() && shouldAnalyze(component.getPurl())) {
-                    //coordinates.add(component.getPurl().canonicalize()); // todo: put this back when minimizePurl() is removed
-                    coordinates.add(minimizePurl(component.getPurl()));
-                }
-            }
+            final List<String> coordinates = getCoordinates(paginatedList);
             if (CollectionUtils.isEmpty(coordinates)) {
                 return;
             }
@@ -157,6 +187,66 @@ public class OssIndexAnalysisTask extends BaseComponentAnalyzerTask implements S
         }
     }
 
+    /**
+     * Analyzes a list of Components while keeping up to the specified number of requests
+     * in-flight on the async client. Requests are paced by the shared {@link RateLimiter} for
+     * OSS Index rather than by a fixed delay. Responses are ingested on a single dedicated thread,
+     * so persisting the results of one page overlaps with the network round trip of the next.
+     * @param components a list of Components
+     * @param maxInFlight the maximum number of requests awaiting a response at any one time
+     * @since 3.7.0
+     */
+    private void analyzePipelined(final List<Component> components, final int maxInFlight) {
+        final RateLimiter rateLimiter = RateLimiter.getInstance(getApiBaseUrl(),
+                getIntegerProperty(ConfigPropertyConstants.SCANNER_OSSINDEX_RATE_LIMIT));
+        final Semaphore inFlight = new Semaphore(maxInFlight);
+        final ExecutorService ingester = Executors.newSingleThreadExecutor();
+        final List<CompletableFuture<Void>> pending = new ArrayList<>();
+        final Pageable<Component> paginatedComponents = new Pageable<>(PAGE_SIZE, components);
+        try {
+            while (!paginatedComponents.isPaginationComplete()) {
+                final List<Component> paginatedList = new ArrayList<>(paginatedComponents.getPaginatedList());
+                paginatedComponents.nextPage();
+                final List<String> coordinates = getCoordinates(paginatedList);
+                if (CollectionUtils.isEmpty(coordinates)) {
+                    continue;
+                }
+                final JSONObject json = new JSONObject();
+                json.put("coordinates", coordinates);
+                inFlight.acquire();
+                taskMetrics.throttleWait(rateLimiter.acquire());
+                LOGGER.info("Analyzing " + coordinates.size() + " component(s)");
+                pending.add(submitAsync(json)
+                        .whenComplete((report, throwable) -> inFlight.release())
+                        .thenAcceptAsync(report -> processResults(report, paginatedList), ingester)
+                        .exceptionally(throwable -> {
+                            LOGGER.error("An error occurred while analyzing", throwable);
+                            return null;
+                        }));
+            }
+            CompletableFuture.allOf(pending.toArray(new CompletableFuture[0])).join();
+        } catch (InterruptedException e) {
+            LOGGER.warn("Interrupted while waiting to submit components to OSS Index");
+            Thread.currentThread().interrupt();
+        } finally {
+            ingester.shutdown();
+        }
+    }
+
+    /**
+     * Returns the coordinates of the components which should be submitted to OSS Index.
+     */
+    private List<String> getCoordinates(final List<Component> components) {
+        final List<String> coordinates = new ArrayList<>();
+        for (final Component component: components) {
+            if (!component.isInternal() && shouldAnalyze(component.getPurl())) {
+                //coordinates.add(component.getPurl().canonicalize()); // todo: put this back when minimizePurl() is removed
+                coordinates.add(minimizePurl(component.getPurl()));
+            }
+        }
+        return coordinates;
+    }
+
     /**
      * Sonatype OSSIndex (as of December 2018) has an issue that fails to identify vulnerabilities when
      * HTTP POST is used and PackageURL is specified that contains qualifiers (and possibly a subpath).
@@ -183,13 +273,16 @@ public class OssIndexAnalysisTask extends BaseComponentAnalyzerTask implements S
      */
     private List<ComponentReport> submit(final JSONObject payload) throws UnirestException {
         final UnirestInstance ui = UnirestFactory.getUnirestInstance();
-        final HttpResponse<JsonNode> jsonResponse = ui.post(API_BASE_URL)
+        final long start = System.currentTimeMillis();
+        final HttpResponse<JsonNode> jsonResponse = ui.post(getApiBaseUrl())
                 .header(HttpHeaders.ACCEPT, "application/json")
                 .header(HttpHeaders.CONTENT_TYPE, "application/json")
                 .header(HttpHeaders.USER_AGENT, ManagedHttpClientFactory.getUserAgent())
                 .basicAuth(apiUsername, apiToken)
                 .body(payload)
                 .asJson();
+        taskMetrics.httpRequest(System.currentTimeMillis() - start,
+                TaskMetrics.parseContentLength(jsonResponse.getHeaders().getFirst(HttpHeaders.CONTENT_LENGTH)));
         if (jsonResponse.getStatus() == 200) {
             final OssIndexParser parser = new OssIndexParser();
             return parser.parse(jsonResponse.getBody());
@@ -199,50 +292,106 @@ public class OssIndexAnalysisTask extends BaseComponentAnalyzerTask implements S
         return new ArrayList<>();
     }
 
+    /**
+     * Submits the payload to the Sonatype OSS Index service using the async client. The response
+     * body is parsed as a stream as it is read from the connection.
+     * @since 3.7.0
+     */
+    private CompletableFuture<List<ComponentReport>> submitAsync(final JSONObject payload) {
+        final UnirestInstance ui = UnirestFactory.getUnirestInstance();
+        final long start = System.currentTimeMillis();
+        return ui.post(getApiBaseUrl())
+                .header(HttpHeaders.ACCEPT, "application/json")
+                .header(HttpHeaders.CONTENT_TYPE, "application/json")
+                .header(HttpHeaders.USER_AGENT, ManagedHttpClientFactory.getUserAgent())
+                .basicAuth(apiUsername, apiToken)
+                .body(payload)
+                .asObjectAsync(this::parseResponse)
+                .thenApply(response -> {
+                    taskMetrics.httpRequest(System.currentTimeMillis() - start,
+                            TaskMetrics.parseContentLength(response.getHeaders().getFirst(HttpHeaders.CONTENT_LENGTH)));
+                    final List<ComponentReport> report = response.getBody();
+                    return report != null ? report : new ArrayList<>();
+                });
+    }
+
+    private List<ComponentReport> parseResponse(final RawResponse response) {
+        if (response.getStatus() == 200) {
+            final OssIndexParser parser = new OssIndexParser();
+            return parser.parse(response.getContent());
+        } else {
+            LOGGER.warn("Received unexpected HTTP response " + response.getStatus() + " " + response.getStatusText());
+        }
+        return new ArrayList<>();
+    }
+
     private void processResults(final List<ComponentReport> report, final List<Component> componentsScanned) {
+        // Index the scanned components by the coordinates they were submitted with, so that each
+        // report can be joined to its components with a single lookup rather than a scan of the batch.
+        final Map<String, List<Component>> componentMap = new HashMap<>();
+        for (final Component component: componentsScanned) {
+            if (component.getPurl() != null) {
+                //componentMap.computeIfAbsent(component.getPurl().canonicalize(), k -> new ArrayList<>()).add(component); // todo: put this back when minimizePurl() is removed
+                componentMap.computeIfAbsent(minimizePurl(component.getPurl()), k -> new ArrayList<>()).add(component);
+            }
+        }
+        final Map<ComponentReport, Set<Component>> matches = new LinkedHashMap<>();
+        final Set<String> cves = new HashSet<>();
+        final Set<String> ossIndexIds = new HashSet<>();
+        for (final ComponentReport componentReport: report) {
+            final Set<Component> matched = new LinkedHashSet<>();
+            if (componentReport.getCoordinates() != null) {
+                matched.addAll(componentMap.getOrDefault(componentReport.getCoordinates(), Collections.emptyList()));
+                final PackageURL sonatypePurl = oldPurlResolver(componentReport.getCoordinates());
+                if (sonatypePurl != null) {
+                    matched.addAll(componentMap.getOrDefault(sonatypePurl.canonicalize(), Collections.emptyList()));
+                }
+            }
+            if (matched.isEmpty()) {
+                continue;
+            }
+            matches.put(componentReport, matched);
+            for (final ComponentReportVulnerability reportedVuln: componentReport.getVulnerabilities()) {
+                if (reportedVuln.getCve() != null) {
+                    cves.add(reportedVuln.getCve());
+                } else if (reportedVuln.getId() != null) {
+                    ossIndexIds.add(reportedVuln.getId());
+                }
+            }
+        }
         try (QueryManager qm = new QueryManager()) {
-            for (final ComponentReport componentReport: report) {
-                for (final Component component: componentsScanned) {
-                    //final String componentPurl = component.getPurl().canonicalize(); // todo: put this back when minimizePurl() is removed
-                    final String componentPurl = minimizePurl(component.getPurl());
-                    final PackageURL sonatypePurl = oldPurlResolver(componentReport.getCoordinates());
-                    if (componentPurl.equals(componentReport.getCoordinates()) ||
-                            (sonatypePurl != null && componentPurl.equals(sonatypePurl.canonicalize()))) {
-                        /*
-                        Found the component
-                         */
-                        for (final ComponentReportVulnerability reportedVuln: componentReport.getVulnerabilities()) {
-                            if (reportedVuln.getCve() != null) {
-                                Vulnerability vulnerability = qm.getVulnerabilityByVulnId(
-                                        Vulnerability.Source.NVD, reportedVuln.getCve());
-                                if (vulnerability != null) {
-                                    NotificationUtil.analyzeNotificationCriteria(vulnerability, component);
-                                    qm.addVulnerability(vulnerability, component);
-                                } else {
-                                    /*
-                                    The vulnerability reported by OSS Index is not in Dependency-Track yet. This could be
-                                    due to timing issue or the vuln reported may be in a reserved state and not available
-                                    through traditional feeds. Regardless, the vuln needs to be added to the database.
-                                     */
-                                    vulnerability = qm.createVulnerability(generateVulnerability(qm, reportedVuln), false);
-                                    NotificationUtil.analyzeNotificationCriteria(vulnerability, component);
-                                    qm.addVulnerability(vulnerability, component);
-                                }
-                            } else {
-                                /*
-                                The vulnerability is not from the NVD. Set the source to OSSINDEX
-                                 */
-                                Vulnerability vulnerability = qm.getVulnerabilityByVulnId(Vulnerability.Source.OSSINDEX, reportedVuln.getId());
-                                if (vulnerability == null) {
-                                    vulnerability = qm.createVulnerability(generateVulnerability(qm, reportedVuln), false);
-                                }
-                                NotificationUtil.analyzeNotificationCriteria(vulnerability, component);
-                                qm.addVulnerability(vulnerability, component);
-                            }
-                        }
-                        Event.dispatch(new MetricsUpdateEvent(component));
+            final Map<String, Vulnerability> nvdVulns = toVulnIdMap(qm.getVulnerabilitiesByVulnId(Vulnerability.Source.NVD, cves));
+            final Map<String, Vulnerability> ossIndexVulns = toVulnIdMap(qm.getVulnerabilitiesByVulnId(Vulnerability.Source.OSSINDEX, ossIndexIds));
+            final Map<Long, Set<Long>> findings = new HashMap<>();
+            for (final Map.Entry<ComponentReport, Set<Component>> match: matches.entrySet()) {
+                for (final ComponentReportVulnerability reportedVuln: match.getKey().getVulnerabilities()) {
+                    /*
+                    A vulnerability reported by OSS Index may not be in Dependency-Track yet. This could be due to
+                    timing issue or the vuln reported may be in a reserved state and not available through traditional
+                    feeds. Vulnerabilities without a CVE are not from the NVD and have their source set to OSSINDEX.
+                    Regardless, the vuln needs to be added to the database.
+                     */
+                    final Map<String, Vulnerability> vulnMap = reportedVuln.getCve() != null ? nvdVulns : ossIndexVulns;
+                    final String vulnId = reportedVuln.getCve() != null ? reportedVuln.getCve() : reportedVuln.getId();
+                    Vulnerability vulnerability = vulnMap.get(vulnId);
+                    if (vulnerability == null) {
+                        vulnerability = qm.createVulnerability(generateVulnerability(qm, reportedVuln), false);
+                        vulnMap.put(vulnId, vulnerability);
                     }
-                    updateAnalysisCacheStats(qm, Vulnerability.Source.OSSINDEX, API_BASE_URL, component.getPurl().toString());
+                    for (final Component component: match.getValue()) {
+                        addFinding(findings, vulnerability, component);
+                    }
+                }
+            }
+            addVulnerabilities(qm, findings);
+            for (final Set<Component> matched: matches.values()) {
+                for (final Component component: matched) {
+                    updateMetrics(component);
+                }
+            }
+            for (final List<Component> components: componentMap.values()) {
+                for (final Component component: components) {
+                    updateAnalysisCacheStats(Vulnerability.Source.OSSINDEX, getApiBaseUrl(), component.getPurl().toString());
                 }
             }
         }
@@ -318,4 +467,14 @@ public class OssIndexAnalysisTask extends BaseComponentAnalyzerTask implements S
             return null;
         }
     }
+
+    /**
+     * Returns the URL of the component report API, resolved from configuration on first use.
+     */
+    private String getApiBaseUrl() {
+        if (apiBaseUrl == null) {
+            apiBaseUrl = getStringProperty(ConfigPropertyConstants.SCANNER_OSSINDEX_API_URL);
+        }
+        return apiBaseUrl;
+    }
 }
@@ -24,6 +24,7 @@ import alpine.event.framework.Subscriber;
 import alpine.logging.Logger;
 import alpine.model.ConfigProperty;
 import com.github.packageurl.PackageURL;
+import org.dependencytrack.common.RateLimiter;
 import org.dependencytrack.common.UnirestFactory;
 import org.dependencytrack.event.VulnDbAnalysisEvent;
 import org.dependencytrack.model.Component;
@@ -34,7 +35,17 @@ import org.dependencytrack.persistence.QueryManager;
 import org.dependencytrack.util.InternalComponentIdentificationUtil;
 import us.springett.vulndbdatamirror.client.VulnDbApi;
 import us.springett.vulndbdatamirror.parser.model.Results;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
 
 /**
  * Subscriber task that performs an analysis of component using VulnDB REST API.
@@ -84,12 +95,16 @@ public class VulnDbAnalysisTask extends BaseComponentAnalyzerTask implements Sub
                 }
             }
             final VulnDbAnalysisEvent event = (VulnDbAnalysisEvent)e;
+            final long start = System.currentTimeMillis();
             LOGGER.info("Starting VulnDB analysis task");
             if (event.getComponents().size() > 0) {
                 analyze(event.getComponents());
             } else {
                 super.analyze();
             }
+            flushAnalysisCache();
+            notifyNewFindings();
+            taskMetrics.taskCompleted(System.currentTimeMillis() - start);
             LOGGER.info("VulnDB analysis complete");
         }
     }
@@ -106,44 +121,136 @@ public class VulnDbAnalysisTask extends BaseComponentAnalyzerTask implements Sub
     }
 
     /**
-     * Analyzes a list of Components.
+     * {@inheritDoc}
+     */
+    @Override
+    public void prefetchAnalysisCache(final List<Component> components) {
+        prefetchAnalysisCache(Vulnerability.Source.VULNDB, TARGET_HOST, components.stream()
+                .filter(c -> c.getCpe() != null)
+                .map(c -> c.getCpe())
+                .collect(Collectors.toSet()));
+    }
+
+    /**
+     * Analyzes a list of Components. Components are grouped by CPE so that each distinct CPE is
+     * queried only once. The distinct CPEs are queried concurrently, paced by the shared
+     * {@link RateLimiter} for VulnDB, while the results are persisted on a single dedicated thread.
      * @param components a list of Components
      */
     public void analyze(final List<Component> components) {
-        final VulnDbApi api = new VulnDbApi(this.apiConsumerKey, this.apiConsumerSecret, UnirestFactory.getUnirestInstance());
+        taskMetrics.componentsConsidered(components.size());
+        prefetchAnalysisCache(components);
+        final Map<String, List<Component>> vulndbCandidates = new LinkedHashMap<>();
         for (final Component component: components) {
             if (!component.isInternal() && shouldAnalyze(component.getPurl()) && component.getCpe() != null
                     && !isCacheCurrent(Vulnerability.Source.VULNDB, TARGET_HOST, component.getCpe())) {
-                int page = 1;
-                boolean more = true;
-                while (more) {
-                    final Results results = api.getVulnerabilitiesByCpe(component.getCpe(), PAGE_SIZE, page);
-                    if (results.isSuccessful()) {
-                        more = processResults(results, component);
-                        page++;
-                    } else {
-                        LOGGER.error(results.getErrorCondition());
-                        return;
-                    }
-                    doThrottleDelay(1000);
-                }
+                vulndbCandidates.computeIfAbsent(component.getCpe(), k -> new ArrayList<>()).add(component);
+            }
+        }
+        if (vulndbCandidates.isEmpty()) {
+            return;
+        }
+        final RateLimiter rateLimiter = RateLimiter.getInstance(TARGET_HOST,
+                getIntegerProperty(ConfigPropertyConstants.SCANNER_VULNDB_RATE_LIMIT));
+        final int concurrency = Math.min(vulndbCandidates.size(),
+                Math.max(1, getIntegerProperty(ConfigPropertyConstants.SCANNER_VULNDB_CONCURRENCY)));
+        final ExecutorService executor = Executors.newFixedThreadPool(concurrency);
+        final ExecutorService ingester = Executors.newSingleThreadExecutor();
+        final AtomicBoolean failed = new AtomicBoolean(false);
+        final List<CompletableFuture<Void>> pending = new ArrayList<>();
+        try {
+            for (final Map.Entry<String, List<Component>> candidate: vulndbCandidates.entrySet()) {
+                pending.add(CompletableFuture.supplyAsync(() -> fetch(candidate.getKey(), rateLimiter, failed), executor)
+                        .thenAcceptAsync(vulnDbVulns -> {
+                            if (vulnDbVulns != null) {
+                                processResults(candidate.getKey(), vulnDbVulns, candidate.getValue());
+                            }
+                        }, ingester)
+                        .exceptionally(throwable -> {
+                            LOGGER.error("An error occurred while analyzing", throwable);
+                            return null;
+                        }));
+            }
+            CompletableFuture.allOf(pending.toArray(new CompletableFuture[0])).join();
+        } finally {
+            executor.shutdown();
+            ingester.shutdown();
+        }
+    }
+
+    /**
+     * Retrieves all pages of vulnerabilities for the specified CPE. Returns null if the CPE
+     * could not be queried (an unsuccessful response or an error), in which case the remaining
+     * CPEs are skipped as well.
+     */
+    @SuppressWarnings("unchecked")
+    private List<us.springett.vulndbdatamirror.parser.model.Vulnerability> fetch(final String cpe, final RateLimiter rateLimiter, final AtomicBoolean failed) {
+        final List<us.springett.vulndbdatamirror.parser.model.Vulnerability> vulnDbVulns = new ArrayList<>();
+        int page = 1;
+        boolean more = true;
+        while (more) {
+            if (failed.get()) {
+                return null;
+            }
+            try {
+                taskMetrics.throttleWait(rateLimiter.acquire());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            }
+            final long start = System.currentTimeMillis();
+            final Results results;
+            try {
+                results = getVulnerabilitiesByCpe(cpe, page);
+            } catch (RuntimeException e) {
+                LOGGER.error("An error occurred while querying VulnDB for " + cpe, e);
+                failed.set(true);
+                return null;
+            }
+            taskMetrics.httpRequest(System.currentTimeMillis() - start, -1);
+            if (results.isSuccessful()) {
+                vulnDbVulns.addAll((List<us.springett.vulndbdatamirror.parser.model.Vulnerability>) results.getResults());
+                more = results.getPage() * PAGE_SIZE < results.getTotal();
+                page++;
+            } else {
+                LOGGER.error(results.getErrorCondition());
+                failed.set(true);
+                return null;
             }
         }
+        return vulnDbVulns;
+    }
+
+    /**
+     * Retrieves a single page of the vulnerabilities for the specified CPE from the VulnDB API.
+     */
+    Results getVulnerabilitiesByCpe(final String cpe, final int page) {
+        final VulnDbApi api = new VulnDbApi(this.apiConsumerKey, this.apiConsumerSecret, UnirestFactory.getUnirestInstance());
+        return api.getVulnerabilitiesByCpe(cpe, PAGE_SIZE, page);
     }
 
-    private boolean processResults(final Results results, final Component component) {
+    /**
+     * Persists the vulnerabilities found for a CPE, all pages at once in a single batch, and applies
+     * them to every component having that CPE.
+     */
+    private void processResults(final String cpe, final List<us.springett.vulndbdatamirror.parser.model.Vulnerability> vulnDbVulns,
+                                final List<Component> components) {
         try (final QueryManager qm = new QueryManager()) {
-            for (us.springett.vulndbdatamirror.parser.model.Vulnerability vulnDbVuln : (List<us.springett.vulndbdatamirror.parser.model.Vulnerability>) results.getResults()) {
-                Vulnerability vulnerability = qm.getVulnerabilityByVulnId(Vulnerability.Source.VULNDB, String.valueOf(vulnDbVuln.getId()));
-                if (vulnerability == null) {
-                    vulnerability = qm.createVulnerability(ModelConverter.convert(qm, vulnDbVuln), false);
-                } else {
-                    vulnerability = qm.synchronizeVulnerability(ModelConverter.convert(qm, vulnDbVuln), false);
+            final List<Vulnerability> converted = new ArrayList<>();
+            for (final us.springett.vulndbdatamirror.parser.model.Vulnerability vulnDbVuln: vulnDbVulns) {
+                converted.add(ModelConverter.convert(qm, vulnDbVuln));
+            }
+            qm.synchronizeVulnerabilities(converted, false);
+            final Set<String> vulnIds = converted.stream().map(Vulnerability::getVulnId).collect(Collectors.toSet());
+            final List<Vulnerability> vulnerabilities = qm.getVulnerabilitiesByVulnId(Vulnerability.Source.VULNDB, vulnIds);
+            final Map<Long, Set<Long>> findings = new HashMap<>();
+            for (final Component component: components) {
+                for (final Vulnerability vulnerability: vulnerabilities) {
+                    addFinding(findings, vulnerability, component);
                 }
-                qm.addVulnerability(vulnerability, component);
             }
-            updateAnalysisCacheStats(qm, Vulnerability.Source.VULNDB, TARGET_HOST, component.getCpe());
-            return results.getPage() * PAGE_SIZE < results.getTotal();
+            addVulnerabilities(qm, findings);
+            updateAnalysisCacheStats(Vulnerability.Source.VULNDB, TARGET_HOST, cpe);
         }
     }
 }
@@ -22,6 +22,7 @@ import alpine.logging.Logger;
 import alpine.persistence.AlpineQueryManager;
 import alpine.upgrade.AbstractUpgradeItem;
 import alpine.util.DbUtil;
+import org.dependencytrack.search.IndexManager;
 import java.sql.Connection;
 import java.sql.ResultSet;
 import java.sql.Statement;
@@ -82,5 +83,12 @@ public class v370Updater extends AbstractUpgradeItem {
 
         LOGGER.info("Removing legacy Dependency-Check configuration settings");
         DbUtil.executeUpdate(connection, STMT_10);
+
+        LOGGER.info("Deleting search engine indices (they are rebuilt with n-gram fields)");
+        IndexManager.delete(IndexManager.IndexType.LICENSE);
+        IndexManager.delete(IndexManager.IndexType.PROJECT);
+        IndexManager.delete(IndexManager.IndexType.COMPONENT);
+        IndexManager.delete(IndexManager.IndexType.VULNERABILITY);
+        IndexManager.delete(IndexManager.IndexType.CPE);
     }
 }
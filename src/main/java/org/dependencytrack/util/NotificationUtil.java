@@ -32,6 +32,7 @@ import org.dependencytrack.notification.NotificationGroup;
 import org.dependencytrack.notification.NotificationScope;
 import org.dependencytrack.notification.vo.AnalysisDecisionChange;
 import org.dependencytrack.notification.vo.BomConsumedOrProcessed;
+import org.dependencytrack.notification.vo.NewVulnerabilitiesIdentified;
 import org.dependencytrack.notification.vo.NewVulnerabilityIdentified;
 import org.dependencytrack.notification.vo.NewVulnerableDependency;
 import org.dependencytrack.persistence.QueryManager;
@@ -39,9 +40,13 @@ import javax.json.Json;
 import javax.json.JsonArrayBuilder;
 import javax.json.JsonObject;
 import javax.json.JsonObjectBuilder;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 public final class NotificationUtil {
@@ -51,49 +56,95 @@ public final class NotificationUtil {
      */
     private NotificationUtil() { }
 
-    public static void analyzeNotificationCriteria(Vulnerability vulnerability, Component component) {
-        try (QueryManager qm = new QueryManager()) {
-            if (!qm.contains(vulnerability, component)) {
-                // Component did not previously contain this vulnerability. It could be a newly discovered vulnerability
-                // against an existing component, or it could be a newly added (and vulnerable) component. Either way,
-                // it warrants a Notification be dispatched.
-                final Set<Project> affectedProjects = new HashSet<>();
-                final List<Dependency> dependencies = qm.detach(qm.getAllDependencies(component));
-                for (final Dependency dependency : dependencies) {
-                    affectedProjects.add(dependency.getProject());
+    /**
+     * Dispatches the notifications for the newly identified findings of an analysis, typically those returned by
+     * {@link QueryManager#addVulnerabilities(Map)}. A {@link NotificationGroup#NEW_VULNERABILITY} notification is
+     * dispatched for every finding, and a single {@link NotificationGroup#NEW_VULNERABILITIES} notification per
+     * affected project. The findings are known to be new, so they are not checked against the component again.
+     * The components, vulnerabilities and affected projects are each resolved using a single query. Findings of
+     * components which are not a dependency of any project are grouped in a notification without a project.
+     * @param qm the QueryManager to use
+     * @param newFindings the ids of the vulnerabilities newly identified, keyed by the id of the affected component
+     * @since 3.7.0
+     */
+    public static void analyzeNotificationCriteria(final QueryManager qm, final Map<Long, Set<Long>> newFindings) {
+        if (newFindings.isEmpty()) {
+            return;
+        }
+        final Map<Long, Set<Project>> affectedProjects = qm.getAffectedProjects(newFindings.keySet());
+        final Map<Long, Component> components = new HashMap<>();
+        for (final Component component: qm.detach(qm.getObjectsById(Component.class, newFindings.keySet()))) {
+            components.put(component.getId(), component);
+        }
+        final Set<Long> vulnerabilityIds = new HashSet<>();
+        newFindings.values().forEach(vulnerabilityIds::addAll);
+        final Map<Long, Vulnerability> vulnerabilities = new HashMap<>();
+        for (final Vulnerability vulnerability: qm.detach(qm.getObjectsById(Vulnerability.class, vulnerabilityIds))) {
+            vulnerabilities.put(vulnerability.getId(), vulnerability);
+        }
+        // The affected projects are resolved once per id, so projects can be grouped by identity
+        final Map<Project, List<NewVulnerabilityIdentified>> findingsByProject = new LinkedHashMap<>();
+        for (final Map.Entry<Long, Set<Long>> finding: newFindings.entrySet()) {
+            final Component component = components.get(finding.getKey());
+            if (component == null) {
+                continue;
+            }
+            final Set<Project> projects = affectedProjects.getOrDefault(finding.getKey(), Collections.emptySet());
+            for (final Long vulnerabilityId: finding.getValue()) {
+                final Vulnerability vulnerability = vulnerabilities.get(vulnerabilityId);
+                if (vulnerability == null) {
+                    continue;
+                }
+                final NewVulnerabilityIdentified vo = new NewVulnerabilityIdentified(vulnerability, component, projects);
+                dispatchNewVulnerability(NotificationConstants.Title.NEW_VULNERABILITY, vo);
+                if (projects.isEmpty()) {
+                    findingsByProject.computeIfAbsent(null, k -> new ArrayList<>()).add(vo);
+                }
+                for (final Project project: projects) {
+                    findingsByProject.computeIfAbsent(project, k -> new ArrayList<>()).add(vo);
                 }
-
-                vulnerability = qm.detach(Vulnerability.class, vulnerability.getId());
-                component = qm.detach(Component.class, component.getId());
-
-                Notification.dispatch(new Notification()
-                        .scope(NotificationScope.PORTFOLIO)
-                        .group(NotificationGroup.NEW_VULNERABILITY)
-                        .title(NotificationConstants.Title.NEW_VULNERABILITY)
-                        .level(NotificationLevel.INFORMATIONAL)
-                        .content(generateNotificationContent(vulnerability))
-                        .subject(new NewVulnerabilityIdentified(vulnerability, component, affectedProjects))
-                );
             }
         }
+        for (final Map.Entry<Project, List<NewVulnerabilityIdentified>> findings: findingsByProject.entrySet()) {
+            dispatchNewVulnerabilities(findings.getKey(), findings.getValue());
+        }
+    }
+
+    private static void dispatchNewVulnerability(final String title, final NewVulnerabilityIdentified vo) {
+        Notification.dispatch(new Notification()
+                .scope(NotificationScope.PORTFOLIO)
+                .group(NotificationGroup.NEW_VULNERABILITY)
+                .title(title)
+                .level(NotificationLevel.INFORMATIONAL)
+                .content(generateNotificationContent(vo.getVulnerability()))
+                .subject(vo)
+        );
+    }
+
+    private static void dispatchNewVulnerabilities(final Project project, final List<NewVulnerabilityIdentified> findings) {
+        Notification.dispatch(new Notification()
+                .scope(NotificationScope.PORTFOLIO)
+                .group(NotificationGroup.NEW_VULNERABILITIES)
+                .title(findings.size() == 1 ? NotificationConstants.Title.NEW_VULNERABILITY : NotificationConstants.Title.NEW_VULNERABILITIES)
+                .level(NotificationLevel.INFORMATIONAL)
+                .content(generateNotificationContent(project, findings))
+                .subject(new NewVulnerabilitiesIdentified(project, findings))
+        );
     }
 
     public static void analyzeNotificationCriteria(final QueryManager qm, final Dependency newDependency) {
         Dependency dependency = qm.getDependency(newDependency);
         final List<Vulnerability> vulnerabilities = qm.detach(qm.getAllVulnerabilities(dependency));
         dependency = qm.detach(Dependency.class, dependency.getId());
-        for (final Vulnerability vulnerability: vulnerabilities) {
-            final Set<Project> affectedProjects = new HashSet<>(Collections.singletonList(dependency.getProject()));
-            Notification.dispatch(new Notification()
-                    .scope(NotificationScope.PORTFOLIO)
-                    .group(NotificationGroup.NEW_VULNERABILITY)
-                    .title(NotificationConstants.Title.NEW_VULNERABLE_DEPENDENCY)
-                    .level(NotificationLevel.INFORMATIONAL)
-                    .content(generateNotificationContent(vulnerability))
-                    .subject(new NewVulnerabilityIdentified(vulnerability, dependency.getComponent(), affectedProjects))
-            );
-        }
         if (CollectionUtils.isNotEmpty(vulnerabilities)) {
+            final Set<Project> affectedProjects = new HashSet<>(Collections.singletonList(dependency.getProject()));
+            final List<NewVulnerabilityIdentified> findings = new ArrayList<>();
+            for (final Vulnerability vulnerability: vulnerabilities) {
+                final NewVulnerabilityIdentified vo = new NewVulnerabilityIdentified(vulnerability, dependency.getComponent(), affectedProjects);
+                dispatchNewVulnerability(NotificationConstants.Title.NEW_VULNERABLE_DEPENDENCY, vo);
+                findings.add(vo);
+            }
+            dispatchNewVulnerabilities(dependency.getProject(), findings);
             Notification.dispatch(new Notification()
                     .scope(NotificationScope.PORTFOLIO)
                     .group(NotificationGroup.NEW_VULNERABLE_DEPENDENCY)
@@ -252,6 +303,21 @@ public final class NotificationUtil {
         return builder.build();
     }
 
+    public static JsonObject toJson(final NewVulnerabilitiesIdentified vo) {
+        final JsonObjectBuilder builder = Json.createObjectBuilder();
+        if (vo.getProject() != null) {
+            builder.add("project", toJson(vo.getProject()));
+        }
+        if (vo.getFindings() != null && vo.getFindings().size() > 0) {
+            final JsonArrayBuilder findingsBuilder = Json.createArrayBuilder();
+            for (final NewVulnerabilityIdentified finding: vo.getFindings()) {
+                findingsBuilder.add(toJson(finding));
+            }
+            builder.add("findings", findingsBuilder.build());
+        }
+        return builder.build();
+    }
+
     public static JsonObject toJson(final NewVulnerableDependency vo) {
         final JsonObjectBuilder builder = Json.createObjectBuilder();
         if (vo.getDependency().getProject() != null) {
@@ -316,6 +382,20 @@ public final class NotificationUtil {
         return content;
     }
 
+    private static String generateNotificationContent(final Project project, final List<NewVulnerabilityIdentified> findings) {
+        if (findings.size() == 1) {
+            return generateNotificationContent(findings.get(0).getVulnerability());
+        }
+        final String content;
+        if (project != null) {
+            content = findings.size() + " new vulnerabilities were identified in " + project.getName()
+                    + (project.getVersion() != null ? " " + project.getVersion() : "");
+        } else {
+            content = findings.size() + " new vulnerabilities were identified in components which are not a dependency of any project";
+        }
+        return content;
+    }
+
     private static String generateNotificationContent(final Dependency dependency, final List<Vulnerability> vulnerabilities) {
         final String content;
         if (vulnerabilities.size() == 1) {
@@ -183,6 +183,7 @@ function notificationAlertDetailFormatter(index, row) {
     let indexingServiceChecked = (row.notifyOn.includes("INDEXING_SERVICE") ? 'checked=checked' : "");
     let repositoryChecked = (row.notifyOn.includes("REPOSITORY") ? 'checked=checked' : "");
     let newVulnerabilityChecked = (row.notifyOn.includes("NEW_VULNERABILITY") ? 'checked=checked' : "");
+    let newVulnerabilitiesChecked = (row.notifyOn.includes("NEW_VULNERABILITIES") ? 'checked=checked' : "");
     let newVulnDependencyChecked = (row.notifyOn.includes("NEW_VULNERABLE_DEPENDENCY") ? 'checked=checked' : "");
     let globalAuditChangeChecked = (row.notifyOn.includes("GLOBAL_AUDIT_CHANGE") ? 'checked=checked' : "");
     let projectAuditChangeChecked = (row.notifyOn.includes("PROJECT_AUDIT_CHANGE") ? 'checked=checked' : "");
@@ -222,6 +223,7 @@ function notificationAlertDetailFormatter(index, row) {
         notifyOnOption = `
             <ul class="list-group checked-list-box">
                 <li class="list-group-item"><label style="font-weight:400"><input type="checkbox" ${newVulnerabilityChecked} id="updateNotificationAlertGroupNewVulnerabilityInput-${row.uuid}" data-uuid="${row.uuid}"> NEW_VULNERABILITY</label></li>
+                <li class="list-group-item"><label style="font-weight:400"><input type="checkbox" ${newVulnerabilitiesChecked} id="updateNotificationAlertGroupNewVulnerabilitiesInput-${row.uuid}" data-uuid="${row.uuid}"> NEW_VULNERABILITIES</label></li>
                 <li class="list-group-item"><label style="font-weight:400"><input type="checkbox" ${newVulnDependencyChecked} id="updateNotificationAlertGroupNewVulnerableDependencyInput-${row.uuid}" data-uuid="${row.uuid}"> NEW_VULNERABLE_DEPENDENCY</label></li>
                 <li class="list-group-item"><label style="font-weight:400"><input type="checkbox" ${globalAuditChangeChecked} id="updateNotificationAlertGroupGlobalAuditChangeInput-${row.uuid}" data-uuid="${row.uuid}"> GLOBAL_AUDIT_CHANGE</label></li>
                 <li class="list-group-item"><label style="font-weight:400"><input type="checkbox" ${projectAuditChangeChecked} id="updateNotificationAlertGroupProjectAuditChangeInput-${row.uuid}" data-uuid="${row.uuid}"> PROJECT_AUDIT_CHANGE</label></li>
@@ -318,6 +320,7 @@ function notificationAlertDetailFormatter(index, row) {
             $("#" + $.escapeSelector("updateNotificationAlertGroupRepositoryInput-${row.uuid}")).change($common.debounce(updateNotificationRule, 750));
         } else if ("${row.scope}" === "PORTFOLIO") {
             $("#" + $.escapeSelector("updateNotificationAlertGroupNewVulnerabilityInput-${row.uuid}")).change($common.debounce(updateNotificationRule, 750));            
+            $("#" + $.escapeSelector("updateNotificationAlertGroupNewVulnerabilitiesInput-${row.uuid}")).change($common.debounce(updateNotificationRule, 750));
             $("#" + $.escapeSelector("updateNotificationAlertGroupNewVulnerableDependencyInput-${row.uuid}")).change($common.debounce(updateNotificationRule, 750));            
             $("#" + $.escapeSelector("updateNotificationAlertGroupGlobalAuditChangeInput-${row.uuid}")).change($common.debounce(updateNotificationRule, 750));            
             $("#" + $.escapeSelector("updateNotificationAlertGroupProjectAuditChangeInput-${row.uuid}")).change($common.debounce(updateNotificationRule, 750));    
@@ -367,6 +370,7 @@ function updateNotificationRule() {
     let indexingService     = $("#" + $.escapeSelector("updateNotificationAlertGroupIndexingServiceInput-" + uuid)).is(':checked');
     let repository          = $("#" + $.escapeSelector("updateNotificationAlertGroupRepositoryInput-" + uuid)).is(':checked');
     let newVulnerability    = $("#" + $.escapeSelector("updateNotificationAlertGroupNewVulnerabilityInput-" + uuid)).is(':checked');
+    let newVulnerabilities  = $("#" + $.escapeSelector("updateNotificationAlertGroupNewVulnerabilitiesInput-" + uuid)).is(':checked');
     let newVulnDependency   = $("#" + $.escapeSelector("updateNotificationAlertGroupNewVulnerableDependencyInput-" + uuid)).is(':checked');
     let globalAuditChange   = $("#" + $.escapeSelector("updateNotificationAlertGroupGlobalAuditChangeInput-" + uuid)).is(':checked');
     let projectAuditChange  = $("#" + $.escapeSelector("updateNotificationAlertGroupProjectAuditChangeInput-" + uuid)).is(':checked');
@@ -380,6 +384,7 @@ function updateNotificationRule() {
     if (indexingService) { notifyOn.push("INDEXING_SERVICE"); }
     if (repository) { notifyOn.push("REPOSITORY"); }
     if (newVulnerability) { notifyOn.push("NEW_VULNERABILITY"); }
+    if (newVulnerabilities) { notifyOn.push("NEW_VULNERABILITIES"); }
     if (newVulnDependency) { notifyOn.push("NEW_VULNERABLE_DEPENDENCY"); }
     if (globalAuditChange) { notifyOn.push("GLOBAL_AUDIT_CHANGE"); }
     if (projectAuditChange) { notifyOn.push("PROJECT_AUDIT_CHANGE"); }
@@ -20,6 +20,7 @@ package org.dependencytrack;
 
 import alpine.Config;
 import alpine.persistence.PersistenceManagerFactory;
+import org.dependencytrack.persistence.ComponentAnalysisCacheManager;
 import org.dependencytrack.persistence.QueryManager;
 import org.junit.After;
 import org.junit.Before;
@@ -41,12 +42,14 @@ public abstract class PersistenceCapableTest {
     @Before
     public void before() throws Exception {
         dbReset();
+        ComponentAnalysisCacheManager.getInstance().clear();
         this.qm = new QueryManager();
     }
 
     @After
     public void after() throws Exception {
         dbReset();
+        ComponentAnalysisCacheManager.getInstance().clear();
         this.qm.close();
     }
 
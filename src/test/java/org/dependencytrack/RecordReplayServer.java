@@ -0,0 +1,222 @@
+/*
+ * This file is part of Dependency-Track.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * Copyright (c) Steve Springett. All Rights Reserved.
+ */
+package org.dependencytrack;
+
+import org.apache.commons.io.FileUtils;
+import org.mockserver.integration.ClientAndServer;
+import org.mockserver.logging.MockServerLogger;
+import org.mockserver.matchers.HttpRequestMatcher;
+import org.mockserver.matchers.MatcherBuilder;
+import org.mockserver.mock.Expectation;
+import org.mockserver.model.Delay;
+import org.mockserver.model.Header;
+import org.mockserver.model.HttpRequest;
+import org.mockserver.model.HttpRequestAndHttpResponse;
+import org.mockserver.model.HttpResponse;
+import org.mockserver.model.SocketAddress;
+import org.mockserver.serialization.ExpectationSerializer;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.mockserver.integration.ClientAndServer.startClientAndServer;
+import static org.mockserver.model.HttpRequest.request;
+import static org.mockserver.model.HttpResponse.response;
+
+/**
+ * An HTTP server which stands in for the external services used by the analyzers and mirroring
+ * tasks, so that their throughput can be measured offline and repeatably.
+ *
+ * In record mode, requests are forwarded to the upstream service and the exchanges are written
+ * to a fixture directory when the server is closed. In replay mode, the fixtures are served back,
+ * optionally with a fixed latency per response and a limit on the number of requests served per
+ * second. Requests in excess of the limit are answered with 429 Too Many Requests, the same way
+ * the public services throttle clients.
+ *
+ * Analyzers are pointed at the server through their API URL properties (i.e. scanner/npmaudit.api.url,
+ * scanner/ossindex.api.url and vuln-source/nvd.feeds.url) by replacing the scheme, host and port of the
+ * default value with those returned by {@link #getBaseUrl()}.
+ *
+ * @author Steve Springett
+ * @since 3.7.0
+ */
+public final class RecordReplayServer implements Closeable {
+
+    private static final List<String> VOLATILE_HEADERS = Arrays.asList(
+            "Connection", "Content-Length", "Content-Encoding", "Date", "Keep-Alive", "Set-Cookie", "Transfer-Encoding"
+    );
+
+    private final ClientAndServer server;
+    private final File fixtureDir;
+    private final boolean recording;
+    private final List<Expectation> fixtures = new ArrayList<>();
+    private final int requestsPerSecond;
+    private long windowStart;
+    private int windowCount;
+
+    private RecordReplayServer(final int port, final File fixtureDir, final boolean recording, final int requestsPerSecond) {
+        this.server = startClientAndServer(port);
+        this.fixtureDir = fixtureDir;
+        this.recording = recording;
+        this.requestsPerSecond = requestsPerSecond;
+    }
+
+    /**
+     * Starts a server which forwards all requests to the upstream service and records the exchanges.
+     * @param port the port to listen on
+     * @param upstreamUrl the scheme, host and (optional) port of the upstream service
+     * @param fixtureDir the directory the exchanges are written to when the server is closed
+     * @return the server
+     */
+    public static RecordReplayServer record(final int port, final String upstreamUrl, final File fixtureDir) throws IOException {
+        final URL upstream = new URL(upstreamUrl);
+        final boolean secure = "https".equalsIgnoreCase(upstream.getProtocol());
+        final int upstreamPort = upstream.getPort() != -1 ? upstream.getPort() : upstream.getDefaultPort();
+        final String hostHeader = upstream.getPort() != -1 ? upstream.getHost() + ":" + upstream.getPort() : upstream.getHost();
+        final RecordReplayServer rrs = new RecordReplayServer(port, fixtureDir, true, 0);
+        rrs.server.when(request()).forward(httpRequest -> httpRequest.clone()
+                .withSecure(secure)
+                .withSocketAddress(upstream.getHost(), upstreamPort, secure ? SocketAddress.Scheme.HTTPS : SocketAddress.Scheme.HTTP)
+                .replaceHeader(new Header("Host", hostHeader))
+        );
+        return rrs;
+    }
+
+    /**
+     * Starts a server which serves the exchanges previously recorded to the fixture directory.
+     * Requests which do not match any recorded exchange are answered with 404 Not Found.
+     * @param port the port to listen on
+     * @param fixtureDir the directory containing the recorded exchanges
+     * @param latencyMillis the time (in milliseconds) each response is delayed by, or 0 to respond immediately
+     * @param requestsPerSecond the maximum number of requests served per second, or 0 to serve all requests
+     * @return the server
+     */
+    public static RecordReplayServer replay(final int port, final File fixtureDir, final long latencyMillis,
+                                            final int requestsPerSecond) throws IOException {
+        final RecordReplayServer rrs = new RecordReplayServer(port, fixtureDir, false, requestsPerSecond);
+        final ExpectationSerializer serializer = new ExpectationSerializer(new MockServerLogger());
+        final File[] files = fixtureDir.listFiles((dir, name) -> name.endsWith(".json"));
+        if (files != null) {
+            Arrays.sort(files);
+            for (final File file: files) {
+                rrs.fixtures.addAll(Arrays.asList(serializer.deserializeArray(
+                        FileUtils.readFileToString(file, StandardCharsets.UTF_8))));
+            }
+        }
+        final MatcherBuilder matcherBuilder = new MatcherBuilder(new MockServerLogger());
+        final List<HttpRequestMatcher> matchers = new ArrayList<>();
+        for (final Expectation fixture: rrs.fixtures) {
+            matchers.add(matcherBuilder.transformsToMatcher(fixture.getHttpRequest()));
+        }
+        rrs.server.when(request()).respond(httpRequest -> {
+            if (!rrs.acquire()) {
+                return response().withStatusCode(429).withHeader("Retry-After", "1");
+            }
+            for (int i = 0; i < matchers.size(); i++) {
+                if (matchers.get(i).matches(httpRequest)) {
+                    return rrs.fixtures.get(i).getHttpResponse().clone();
+                }
+            }
+            return response().withStatusCode(404);
+        }, Delay.milliseconds(latencyMillis));
+        return rrs;
+    }
+
+    /**
+     * Returns the URL of the server, i.e. http://localhost:port
+     */
+    public String getBaseUrl() {
+        return "http://localhost:" + server.getLocalPort();
+    }
+
+    /**
+     * Returns the number of exchanges served by the server in replay mode.
+     */
+    public int getFixtureCount() {
+        return fixtures.size();
+    }
+
+    /**
+     * Returns the requests received by the server, in the order they were received.
+     */
+    public HttpRequest[] getRequests() {
+        return server.retrieveRecordedRequests(request());
+    }
+
+    /**
+     * Determines if a request may be served within the limit of requests per second.
+     */
+    private synchronized boolean acquire() {
+        if (requestsPerSecond <= 0) {
+            return true;
+        }
+        final long now = System.currentTimeMillis();
+        if (now - windowStart >= 1000) {
+            windowStart = now;
+            windowCount = 0;
+        }
+        return ++windowCount <= requestsPerSecond;
+    }
+
+    /**
+     * Stops the server. In record mode, the exchanges are written to a new fixture in the fixture directory.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            if (recording) {
+                final List<Expectation> recorded = new ArrayList<>();
+                for (final HttpRequestAndHttpResponse exchange: server.retrieveRecordedRequestsAndResponses(request())) {
+                    if (exchange.getHttpResponse() != null) {
+                        recorded.add(toFixture(exchange.getHttpRequest(), exchange.getHttpResponse()));
+                    }
+                }
+                if (!recorded.isEmpty()) {
+                    final String json = new ExpectationSerializer(new MockServerLogger()).serialize(recorded);
+                    FileUtils.writeStringToFile(new File(fixtureDir, "recording-" + System.currentTimeMillis() + ".json"),
+                            json, StandardCharsets.UTF_8);
+                }
+            }
+        } finally {
+            server.stop();
+        }
+    }
+
+    /**
+     * Creates a fixture from a recorded exchange. The request is matched on its method, path, query
+     * string and body only, and headers which do not apply to a replayed response are removed.
+     */
+    private static Expectation toFixture(final HttpRequest httpRequest, final HttpResponse httpResponse) {
+        final HttpRequest matcher = request()
+                .withMethod(httpRequest.getMethod())
+                .withPath(httpRequest.getPath())
+                .withQueryStringParameters(httpRequest.getQueryStringParameters())
+                .withBody(httpRequest.getBody());
+        final HttpResponse fixture = httpResponse.clone();
+        for (final String header: VOLATILE_HEADERS) {
+            fixture.removeHeader(header);
+        }
+        return new Expectation(matcher).thenRespond(fixture);
+    }
+}
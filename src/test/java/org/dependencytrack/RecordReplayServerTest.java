@@ -0,0 +1,73 @@
+/*
+ * This file is part of Dependency-Track.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * Copyright (c) Steve Springett. All Rights Reserved.
+ */
+package org.dependencytrack;
+
+import kong.unirest.HttpResponse;
+import kong.unirest.Unirest;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockserver.integration.ClientAndServer;
+
+import static org.mockserver.integration.ClientAndServer.startClientAndServer;
+import static org.mockserver.model.HttpRequest.request;
+import static org.mockserver.model.HttpResponse.response;
+
+public class RecordReplayServerTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void recordAndReplayTest() throws Exception {
+        final ClientAndServer upstream = startClientAndServer(1091);
+        try {
+            upstream.when(request().withMethod("POST").withPath("/api/v3/component-report"))
+                    .respond(response().withStatusCode(200).withHeader("Content-Type", "application/json").withBody("{\"coordinates\":\"pkg:npm/test@1.0.0\"}"));
+            try (RecordReplayServer server = RecordReplayServer.record(1090, "http://localhost:1091", folder.getRoot())) {
+                final HttpResponse<String> response = Unirest.post(server.getBaseUrl() + "/api/v3/component-report")
+                        .header("Content-Type", "application/json").body("{\"coordinates\":[\"pkg:npm/test@1.0.0\"]}").asString();
+                Assert.assertEquals(200, response.getStatus());
+            }
+        } finally {
+            upstream.stop();
+        }
+        try (RecordReplayServer server = RecordReplayServer.replay(1090, folder.getRoot(), 0, 0)) {
+            Assert.assertEquals(1, server.getFixtureCount());
+            HttpResponse<String> response = Unirest.post(server.getBaseUrl() + "/api/v3/component-report")
+                    .header("Content-Type", "application/json").body("{\"coordinates\":[\"pkg:npm/test@1.0.0\"]}").asString();
+            Assert.assertEquals(200, response.getStatus());
+            Assert.assertEquals("{\"coordinates\":\"pkg:npm/test@1.0.0\"}", response.getBody());
+            response = Unirest.get(server.getBaseUrl() + "/unknown").asString();
+            Assert.assertEquals(404, response.getStatus());
+        }
+    }
+
+    @Test
+    public void latencyAndThrottleTest() throws Exception {
+        try (RecordReplayServer server = RecordReplayServer.replay(1090, folder.getRoot(), 200, 2)) {
+            final long start = System.currentTimeMillis();
+            Assert.assertEquals(404, Unirest.get(server.getBaseUrl() + "/a").asString().getStatus());
+            Assert.assertTrue(System.currentTimeMillis() - start >= 200);
+            Unirest.get(server.getBaseUrl() + "/b").asString();
+            Assert.assertEquals(429, Unirest.get(server.getBaseUrl() + "/c").asString().getStatus());
+        }
+    }
+}
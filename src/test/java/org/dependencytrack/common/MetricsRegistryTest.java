@@ -0,0 +1,90 @@
+/*
+ * This file is part of Dependency-Track.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * Copyright (c) Steve Springett. All Rights Reserved.
+ */
+package org.dependencytrack.common;
+
+import org.junit.Assert;
+import org.junit.Test;
+import java.util.Locale;
+
+public class MetricsRegistryTest {
+
+    @Test
+    public void counterTest() {
+        MetricsRegistry registry = MetricsRegistry.getInstance();
+        MetricsRegistry.Counter counter = registry.counter("test_counter_total", "A test counter", "counterTest");
+        Assert.assertSame(counter, registry.counter("test_counter_total", "A test counter", "counterTest"));
+        counter.inc();
+        counter.add(4);
+        Assert.assertEquals(5, counter.getValue());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void typeMismatchTest() {
+        MetricsRegistry registry = MetricsRegistry.getInstance();
+        registry.counter("test_mismatch", "A test metric", "typeMismatchTest");
+        registry.histogram("test_mismatch", "A test metric", "typeMismatchTest");
+    }
+
+    @Test
+    public void histogramTest() {
+        MetricsRegistry.Histogram histogram = MetricsRegistry.getInstance().histogram("test_duration_milliseconds", "A test histogram", "histogramTest");
+        Assert.assertEquals(0, histogram.getPercentile(0.5));
+        for (int i = 0; i < 90; i++) {
+            histogram.record(3);
+        }
+        for (int i = 0; i < 10; i++) {
+            histogram.record(700);
+        }
+        Assert.assertEquals(100, histogram.getCount());
+        Assert.assertEquals(7270, histogram.getSum());
+        Assert.assertEquals(5, histogram.getP50());
+        Assert.assertEquals(5, histogram.getP90());
+        Assert.assertEquals(700, histogram.getP99());
+        Assert.assertEquals(700, histogram.getMax());
+    }
+
+    @Test
+    public void prometheusTest() {
+        MetricsRegistry registry = MetricsRegistry.getInstance();
+        registry.counter("test_prometheus_total", "A test counter", "prometheus\"Test").add(2);
+        registry.histogram("test_prometheus_milliseconds", "A test histogram", "prometheusTest").record(20);
+        String text = registry.toPrometheus();
+        Assert.assertTrue(text.contains("# HELP test_prometheus_total A test counter\n# TYPE test_prometheus_total counter\n"));
+        Assert.assertTrue(text.contains("test_prometheus_total{task=\"prometheus\\\"Test\"} 2\n"));
+        Assert.assertTrue(text.contains("test_prometheus_milliseconds_bucket{task=\"prometheusTest\",le=\"10\"} 0\n"));
+        Assert.assertTrue(text.contains("test_prometheus_milliseconds_bucket{task=\"prometheusTest\",le=\"25\"} 1\n"));
+        Assert.assertTrue(text.contains("test_prometheus_milliseconds_bucket{task=\"prometheusTest\",le=\"+Inf\"} 1\n"));
+        Assert.assertTrue(text.contains("test_prometheus_milliseconds_sum{task=\"prometheusTest\"} 20\n"));
+        Assert.assertTrue(text.contains("test_prometheus_milliseconds_count{task=\"prometheusTest\"} 1\n"));
+    }
+
+    @Test
+    public void prometheusLocaleTest() {
+        final Locale defaultLocale = Locale.getDefault();
+        try {
+            // Lower casing HISTOGRAM in a Turkish locale would yield a dotless i
+            Locale.setDefault(new Locale("tr", "TR"));
+            MetricsRegistry registry = MetricsRegistry.getInstance();
+            registry.histogram("test_locale_milliseconds", "A test histogram", "prometheusLocaleTest").record(20);
+            Assert.assertTrue(registry.toPrometheus().contains("# TYPE test_locale_milliseconds histogram\n"));
+        } finally {
+            Locale.setDefault(defaultLocale);
+        }
+    }
+}
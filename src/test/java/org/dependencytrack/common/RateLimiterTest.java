@@ -0,0 +1,52 @@
+/*
+ * This file is part of Dependency-Track.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * Copyright (c) Steve Springett. All Rights Reserved.
+ */
+package org.dependencytrack.common;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class RateLimiterTest {
+
+    @Test
+    public void instanceTest() {
+        RateLimiter limiter1 = RateLimiter.getInstance("https://example.com", 60);
+        RateLimiter limiter2 = RateLimiter.getInstance("https://example.com", 60);
+        Assert.assertSame(limiter1, limiter2);
+        Assert.assertEquals("https://example.com", limiter1.getKey());
+        Assert.assertNotSame(limiter1, RateLimiter.getInstance("https://example.org", 60));
+    }
+
+    @Test
+    public void acquireTest() throws Exception {
+        RateLimiter limiter = RateLimiter.getInstance("acquireTest", 600); // one permit every 100ms
+        final long start = System.currentTimeMillis();
+        limiter.acquire();
+        limiter.acquire();
+        limiter.acquire();
+        Assert.assertTrue(System.currentTimeMillis() - start >= 190);
+    }
+
+    @Test
+    public void unlimitedTest() throws Exception {
+        RateLimiter limiter = RateLimiter.getInstance("unlimitedTest", 0);
+        for (int i = 0; i < 100; i++) {
+            Assert.assertEquals(0, limiter.acquire());
+        }
+    }
+}
@@ -18,6 +18,7 @@
  */
 package org.dependencytrack.common;
 
+import kong.unirest.Unirest;
 import kong.unirest.UnirestInstance;
 import org.junit.Assert;
 import org.junit.Test;
@@ -36,4 +37,17 @@ public class UnirestFactoryTest {
         UnirestInstance ui = UnirestFactory.getUnirestInstance();
         Assert.assertNotSame(ui.config().getClient().getClient(), ManagedHttpClientFactory.newManagedHttpClient());
     }
+
+    @Test
+    public void proxyTest() {
+        UnirestInstance ui = Unirest.spawnInstance();
+        try {
+            UnirestFactory.configure(ui, new ManagedHttpClientFactory.ProxyInfo("proxy.example.com", 3128, "user", "pass"));
+            Assert.assertEquals("proxy.example.com", ui.config().getProxy().getHost());
+            Assert.assertEquals(3128, ui.config().getProxy().getPort().intValue());
+            Assert.assertNotNull(ui.config().getClient());
+        } finally {
+            ui.shutDown();
+        }
+    }
 }
@@ -0,0 +1,70 @@
+/*
+ * This file is part of Dependency-Track.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * Copyright (c) Steve Springett. All Rights Reserved.
+ */
+package org.dependencytrack.model;
+
+import org.dependencytrack.PersistenceCapableTest;
+import org.junit.Assert;
+import org.junit.Test;
+import java.util.Date;
+import java.util.List;
+
+public class SyncStateTest extends PersistenceCapableTest {
+
+    @Test
+    public void updateSyncStateTest() {
+        final Date lastModified = new Date(1575187200000L);
+        SyncState state = qm.updateSyncState(Vulnerability.Source.NVD, "nvdcve-1.0-modified.json.gz", "ABC", lastModified);
+        Assert.assertNotNull(state.getUuid());
+        Assert.assertEquals("NVD", state.getSource());
+        Assert.assertEquals("nvdcve-1.0-modified.json.gz", state.getTarget());
+        Assert.assertEquals("ABC", state.getChecksum());
+        Assert.assertEquals(lastModified, state.getLastModified());
+        Assert.assertNotNull(state.getLastSynchronized());
+        final long id = state.getId();
+
+        // Updating the same target replaces its state rather than adding another one
+        state = qm.updateSyncState(Vulnerability.Source.NVD, "nvdcve-1.0-modified.json.gz", "DEF", null);
+        Assert.assertEquals(id, state.getId());
+        Assert.assertEquals("DEF", state.getChecksum());
+        Assert.assertNull(state.getLastModified());
+        Assert.assertEquals(1, qm.getSyncStates(Vulnerability.Source.NVD).size());
+    }
+
+    @Test
+    public void getSyncStateTest() {
+        Assert.assertNull(qm.getSyncState(Vulnerability.Source.NVD, "nvdcve-1.0-2019.json.gz"));
+        qm.updateSyncState(Vulnerability.Source.NVD, "nvdcve-1.0-2019.json.gz", "ABC", null);
+        Assert.assertEquals("ABC", qm.getSyncState(Vulnerability.Source.NVD, "nvdcve-1.0-2019.json.gz").getChecksum());
+        Assert.assertNull(qm.getSyncState(Vulnerability.Source.VULNDB, "nvdcve-1.0-2019.json.gz"));
+    }
+
+    @Test
+    public void getSyncStatesTest() {
+        qm.updateSyncState(Vulnerability.Source.NVD, "nvdcve-1.0-2018.json.gz", "ABC", null);
+        qm.updateSyncState(Vulnerability.Source.NVD, "nvdcve-1.0-2019.json.gz", "DEF", null);
+        qm.updateSyncState(Vulnerability.Source.VULNDB, "vulnerabilities_1.json", "GHI", null);
+        final List<SyncState> states = qm.getSyncStates(Vulnerability.Source.NVD);
+        Assert.assertEquals(2, states.size());
+        for (final SyncState state: states) {
+            Assert.assertEquals("NVD", state.getSource());
+        }
+        Assert.assertEquals(1, qm.getSyncStates(Vulnerability.Source.VULNDB).size());
+        Assert.assertTrue(qm.getSyncStates(Vulnerability.Source.NPM).isEmpty());
+    }
+}
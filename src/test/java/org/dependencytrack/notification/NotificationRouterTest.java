@@ -27,11 +27,13 @@ import org.dependencytrack.model.NotificationRule;
 import org.dependencytrack.model.Project;
 import org.dependencytrack.model.Vulnerability;
 import org.dependencytrack.notification.publisher.DefaultNotificationPublishers;
+import org.dependencytrack.notification.vo.NewVulnerabilitiesIdentified;
 import org.dependencytrack.notification.vo.NewVulnerabilityIdentified;
 import org.junit.Assert;
 import org.junit.Test;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -159,6 +161,47 @@ public class NotificationRouterTest extends PersistenceCapableTest {
         Assert.assertEquals(0, rules.size());
     }
 
+    @Test
+    public void testNewVulnerabilitiesProjectLimitingRule() throws Exception {
+        NotificationPublisher publisher = createSlackPublisher();
+        // Creates a new rule and defines when the rule should be triggered (notifyOn)
+        NotificationRule rule = qm.createNotificationRule("Test Rule", NotificationScope.PORTFOLIO, NotificationLevel.INFORMATIONAL, publisher);
+        Set<NotificationGroup> notifyOn = new HashSet<>();
+        notifyOn.add(NotificationGroup.NEW_VULNERABILITIES);
+        rule.setNotifyOn(notifyOn);
+        // Creates a project which will later be matched on
+        List<Project> projects = new ArrayList<>();
+        Project project = qm.createProject("Test Project", null, "1.0", null, null, null, true, false);
+        projects.add(project);
+        rule.setProjects(projects);
+        Project otherProject = qm.createProject("Other Project", null, "1.0", null, null, null, true, false);
+        NotificationRouter router = new NotificationRouter();
+        Method method = router.getClass().getDeclaredMethod("resolveRules", Notification.class);
+        method.setAccessible(true);
+        // The findings of the project the rule is limited to match the rule, those of other projects do not
+        List<NotificationRule> rules = (List<NotificationRule>) method.invoke(router, createNewVulnerabilitiesNotification(project));
+        Assert.assertEquals(1, rules.size());
+        rules = (List<NotificationRule>) method.invoke(router, createNewVulnerabilitiesNotification(otherProject));
+        Assert.assertEquals(0, rules.size());
+        rules = (List<NotificationRule>) method.invoke(router, createNewVulnerabilitiesNotification(null));
+        Assert.assertEquals(0, rules.size());
+        // A rule which is not limited to any projects matches the findings of every project
+        rule.setProjects(null);
+        rules = (List<NotificationRule>) method.invoke(router, createNewVulnerabilitiesNotification(otherProject));
+        Assert.assertEquals(1, rules.size());
+    }
+
+    private Notification createNewVulnerabilitiesNotification(Project project) {
+        Notification notification = new Notification();
+        notification.setScope(NotificationScope.PORTFOLIO.name());
+        notification.setGroup(NotificationGroup.NEW_VULNERABILITIES.name());
+        notification.setLevel(NotificationLevel.INFORMATIONAL);
+        Set<Project> affectedProjects = project != null ? Collections.singleton(project) : Collections.emptySet();
+        NewVulnerabilityIdentified finding = new NewVulnerabilityIdentified(new Vulnerability(), new Component(), affectedProjects);
+        notification.setSubject(new NewVulnerabilitiesIdentified(project, Collections.singletonList(finding)));
+        return notification;
+    }
+
     @Test
     public void testValidNonMatchingRule() throws Exception {
         NotificationPublisher publisher = createSlackPublisher();
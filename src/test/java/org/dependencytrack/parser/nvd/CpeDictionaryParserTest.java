@@ -0,0 +1,77 @@
+/*
+ * This file is part of Dependency-Track.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * Copyright (c) Steve Springett. All Rights Reserved.
+ */
+package org.dependencytrack.parser.nvd;
+
+import org.dependencytrack.PersistenceCapableTest;
+import org.dependencytrack.model.Cpe;
+import org.dependencytrack.model.CpeReference;
+import org.junit.Assert;
+import org.junit.Test;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+public class CpeDictionaryParserTest extends PersistenceCapableTest {
+
+    private static final File DICTIONARY = new File("src/test/resources/nvd/official-cpe-dictionary_v2.3-sample.xml");
+
+    @Test
+    public void parseTest() {
+        new CpeDictionaryParser().parse(DICTIONARY);
+        Assert.assertEquals(3, qm.getCpes().getTotal());
+        Cpe cpe = qm.getCpeBy23("cpe:2.3:a:acme:widget:1.2.2:*:*:*:*:*:*:*");
+        Assert.assertNotNull(cpe);
+        Assert.assertEquals("cpe:/a:acme:widget:1.2.2", cpe.getCpe22());
+        Assert.assertEquals("Acme Widget 1.2.2", cpe.getTitle());
+        Assert.assertEquals("acme", cpe.getVendor());
+        Assert.assertEquals("widget", cpe.getProduct());
+        Assert.assertEquals(2, cpe.getReferences().size());
+    }
+
+    @Test
+    public void parseUnchangedTest() {
+        new CpeDictionaryParser().parse(DICTIONARY);
+        new CpeDictionaryParser().parse(DICTIONARY);
+        Assert.assertEquals(3, qm.getCpes().getTotal());
+        Assert.assertEquals(2, qm.getCpeBy23("cpe:2.3:a:acme:widget:1.2.2:*:*:*:*:*:*:*").getReferences().size());
+    }
+
+    @Test
+    public void synchronizeChangedTest() {
+        new CpeDictionaryParser().parse(DICTIONARY);
+        final Cpe cpe = new Cpe();
+        cpe.setCpe22("cpe:/a:acme:widget:1.2.2");
+        cpe.setCpe23("cpe:2.3:a:acme:widget:1.2.2:*:*:*:*:*:*:*");
+        cpe.setTitle("Acme Widget 1.2.2 (renamed)");
+        final CpeReference reference = new CpeReference();
+        reference.setName("Advisory");
+        reference.setHref("https://example.com/widget/advisory");
+        final List<CpeReference> references = new ArrayList<>();
+        references.add(reference);
+        cpe.setReferences(references);
+        final List<Cpe> batch = new ArrayList<>();
+        batch.add(cpe);
+        Assert.assertEquals(1, qm.synchronizeCpes(batch, false));
+        final Cpe updated = qm.getCpeBy23("cpe:2.3:a:acme:widget:1.2.2:*:*:*:*:*:*:*");
+        qm.getPersistenceManager().refresh(updated);
+        Assert.assertEquals("Acme Widget 1.2.2 (renamed)", updated.getTitle());
+        Assert.assertEquals(1, updated.getReferences().size());
+        Assert.assertEquals("Advisory", updated.getReferences().iterator().next().getName());
+    }
+}
@@ -0,0 +1,207 @@
+/*
+ * This file is part of Dependency-Track.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * Copyright (c) Steve Springett. All Rights Reserved.
+ */
+package org.dependencytrack.parser.nvd;
+
+import org.dependencytrack.PersistenceCapableTest;
+import org.dependencytrack.model.Vulnerability;
+import org.dependencytrack.model.VulnerableSoftware;
+import org.apache.commons.lang3.StringUtils;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import javax.json.Json;
+import javax.json.JsonArrayBuilder;
+import javax.json.JsonObject;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class NvdParserTest extends PersistenceCapableTest {
+
+    private static final File FEED = new File("src/test/resources/nvd/nvdcve-1.0-sample.json");
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static JsonObject cveItem(final String vulnId, final String cpe23Uri) {
+        return Json.createObjectBuilder()
+                .add("cve", Json.createObjectBuilder()
+                        .add("CVE_data_meta", Json.createObjectBuilder().add("ID", vulnId))
+                        .add("problemtype", Json.createObjectBuilder().add("problemtype_data", Json.createArrayBuilder()))
+                        .add("references", Json.createObjectBuilder().add("reference_data", Json.createArrayBuilder()))
+                        .add("description", Json.createObjectBuilder().add("description_data", Json.createArrayBuilder()
+                                .add(Json.createObjectBuilder().add("lang", "en").add("value", "Description of " + vulnId)))))
+                .add("configurations", Json.createObjectBuilder().add("nodes", Json.createArrayBuilder()
+                        .add(Json.createObjectBuilder().add("operator", "OR").add("cpe_match", Json.createArrayBuilder()
+                                .add(Json.createObjectBuilder().add("vulnerable", true).add("cpe23Uri", cpe23Uri))))))
+                .add("impact", Json.createObjectBuilder())
+                .add("publishedDate", "2019-01-15T18:29Z")
+                .add("lastModifiedDate", "2019-02-01T10:00Z")
+                .build();
+    }
+
+    private File feed(final List<JsonObject> cveItems) throws Exception {
+        final JsonArrayBuilder items = Json.createArrayBuilder();
+        cveItems.forEach(items::add);
+        final File file = folder.newFile("nvdcve-1.0-generated.json");
+        Files.write(file.toPath(), Json.createObjectBuilder().add("CVE_Items", items).build().toString()
+                .getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    @Test
+    public void parseTest() {
+        NvdParser parser = new NvdParser();
+        parser.parse(FEED);
+        Assert.assertEquals(2, parser.getChangedVulnerabilities().size());
+
+        Vulnerability vuln = qm.getVulnerabilityByVulnId(Vulnerability.Source.NVD, "CVE-2019-0001");
+        Assert.assertNotNull(vuln);
+        Assert.assertEquals("Cross-site scripting in Acme Widget before 1.2.3.", vuln.getDescription());
+        Assert.assertEquals("* [https://example.com/advisory/1](https://example.com/advisory/1)\n* [https://example.com/advisory/2](https://example.com/advisory/2)", vuln.getReferences());
+        Assert.assertEquals(new BigDecimal("6.1"), vuln.getCvssV3BaseScore());
+        Assert.assertEquals(new BigDecimal("4.3"), vuln.getCvssV2BaseScore());
+        Assert.assertNotNull(vuln.getPublished());
+        Assert.assertNotNull(vuln.getUpdated());
+        Assert.assertEquals(1, vuln.getVulnerableSoftware().size());
+        VulnerableSoftware vs = vuln.getVulnerableSoftware().get(0);
+        Assert.assertEquals("acme", vs.getVendor());
+        Assert.assertEquals("widget", vs.getProduct());
+        Assert.assertEquals("1.2.3", vs.getVersionEndExcluding());
+
+        // The operating system is dropped when the application is affected on it
+        vuln = qm.getVulnerabilityByVulnId(Vulnerability.Source.NVD, "CVE-2019-0002");
+        Assert.assertNotNull(vuln);
+        Assert.assertEquals(1, vuln.getVulnerableSoftware().size());
+        Assert.assertEquals("server", vuln.getVulnerableSoftware().get(0).getProduct());
+    }
+
+    @Test
+    public void parseUnchangedTest() {
+        new NvdParser().parse(FEED);
+        NvdParser parser = new NvdParser();
+        parser.parse(FEED);
+        Assert.assertTrue(parser.getChangedVulnerabilities().isEmpty());
+        Assert.assertEquals(2, qm.getVulnerabilities().getTotal());
+    }
+
+    @Test
+    public void parseModifiedTest() {
+        new NvdParser().parse(FEED);
+        Vulnerability vuln = qm.getVulnerabilityByVulnId(Vulnerability.Source.NVD, "CVE-2019-0001");
+        vuln.setUpdated(new Date(0));
+        qm.persist(vuln);
+        NvdParser parser = new NvdParser();
+        parser.parse(FEED);
+        Assert.assertEquals(1, parser.getChangedVulnerabilities().size());
+        Assert.assertTrue(parser.getChangedVulnerabilities().contains(vuln.getId()));
+    }
+
+    @Test
+    public void parseBatchedTest() {
+        qm.createCweIfNotExist(79, "Improper Neutralization of Input During Web Page Generation ('Cross-site Scripting')");
+        NvdParser parser = new NvdParser(2, 1);
+        parser.parse(FEED);
+        Assert.assertEquals(2, parser.getChangedVulnerabilities().size());
+        Vulnerability vuln = qm.getVulnerabilityByVulnId(Vulnerability.Source.NVD, "CVE-2019-0001");
+        Assert.assertNotNull(vuln.getCwe());
+        Assert.assertEquals(79, vuln.getCwe().getCweId());
+        Assert.assertEquals(1, vuln.getVulnerableSoftware().size());
+    }
+
+    @Test
+    public void parseReconcilesVulnerableSoftwareTest() throws Exception {
+        new NvdParser().parse(FEED);
+        Vulnerability vuln = qm.getVulnerabilityByVulnId(Vulnerability.Source.NVD, "CVE-2019-0001");
+        final long vsId = vuln.getVulnerableSoftware().get(0).getId();
+        VulnerableSoftware stale = ModelConverter.convertCpe23UriToVulnerableSoftware("cpe:2.3:a:acme:gadget:1.0:*:*:*:*:*:*:*");
+        stale.setVulnerable(true);
+        stale = qm.persist(stale);
+        final List<VulnerableSoftware> vsList = new ArrayList<>(vuln.getVulnerableSoftware());
+        vsList.add(stale);
+        vuln.setVulnerableSoftware(vsList);
+        vuln.setUpdated(new Date(0));
+        qm.persist(vuln);
+
+        NvdParser parser = new NvdParser();
+        parser.parse(FEED);
+        Assert.assertEquals(1, parser.getAffectedProducts().size());
+        Assert.assertTrue(parser.getAffectedProducts().contains(Arrays.asList("a", "acme", "gadget")));
+        qm.getPersistenceManager().refresh(vuln);
+        Assert.assertEquals(1, vuln.getVulnerableSoftware().size());
+        Assert.assertEquals(vsId, vuln.getVulnerableSoftware().get(0).getId());
+    }
+
+    @Test
+    public void parseConcurrentTest() throws Exception {
+        final String cpe23Uri = "cpe:2.3:a:acme:widget:1.0:*:*:*:*:*:*:*";
+        final List<JsonObject> cveItems = new ArrayList<>();
+        for (int i = 1; i <= 40; i++) {
+            cveItems.add(cveItem(String.format("CVE-2019-%04d", i), cpe23Uri));
+        }
+        // Every worker synchronizes CVEs affecting the same software, which must only be created once
+        Assert.assertTrue(new NvdParser(4, 1).parse(feed(cveItems)));
+        Assert.assertEquals(40, qm.getVulnerabilities().getTotal());
+        Assert.assertEquals(1, qm.getVulnerableSoftwareByCpe23(Collections.singleton(cpe23Uri)).size());
+    }
+
+    @Test
+    public void parseSameFeedConcurrentlyTest() throws Exception {
+        final String cpe23Uri = "cpe:2.3:a:acme:widget:1.0:*:*:*:*:*:*:*";
+        final List<JsonObject> cveItems = new ArrayList<>();
+        for (int i = 1; i <= 40; i++) {
+            cveItems.add(cveItem(String.format("CVE-2019-%04d", i), cpe23Uri));
+        }
+        final File feed = feed(cveItems);
+        // Both parsers create the same CVEs, which are only created once and updated by the other parser
+        final ExecutorService executor = Executors.newFixedThreadPool(2);
+        final Future<Boolean> first = executor.submit(() -> new NvdParser(2, 5).parse(feed));
+        final Future<Boolean> second = executor.submit(() -> new NvdParser(2, 5).parse(feed));
+        Assert.assertTrue(first.get());
+        Assert.assertTrue(second.get());
+        executor.shutdown();
+        Assert.assertEquals(40, qm.getVulnerabilities().getTotal());
+        Assert.assertEquals(1, qm.getVulnerableSoftwareByCpe23(Collections.singleton(cpe23Uri)).size());
+    }
+
+    @Test
+    public void parseFailedBatchTest() throws Exception {
+        final String cpe23Uri = "cpe:2.3:a:acme:widget:1.0:*:*:*:*:*:*:*";
+        final List<JsonObject> cveItems = new ArrayList<>();
+        cveItems.add(cveItem("CVE-2019-0001", cpe23Uri));
+        // The ID exceeds the length of its column, so the batch containing it can not be committed
+        cveItems.add(cveItem("CVE-2019-" + StringUtils.repeat('0', 300), cpe23Uri));
+        cveItems.add(cveItem("CVE-2019-0003", cpe23Uri));
+        final NvdParser parser = new NvdParser(1, 1);
+        Assert.assertFalse(parser.parse(feed(cveItems)));
+        Assert.assertNotNull(qm.getVulnerabilityByVulnId(Vulnerability.Source.NVD, "CVE-2019-0001"));
+        Assert.assertNotNull(qm.getVulnerabilityByVulnId(Vulnerability.Source.NVD, "CVE-2019-0003"));
+        Assert.assertEquals(2, qm.getVulnerabilities().getTotal());
+    }
+}
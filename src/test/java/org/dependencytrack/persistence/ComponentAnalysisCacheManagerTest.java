@@ -0,0 +1,84 @@
+/*
+ * This file is part of Dependency-Track.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * Copyright (c) Steve Springett. All Rights Reserved.
+ */
+package org.dependencytrack.persistence;
+
+import org.dependencytrack.PersistenceCapableTest;
+import org.dependencytrack.model.ComponentAnalysisCache;
+import org.junit.Assert;
+import org.junit.Test;
+import java.util.Arrays;
+import java.util.Date;
+
+public class ComponentAnalysisCacheManagerTest extends PersistenceCapableTest {
+
+    private static final ComponentAnalysisCache.CacheType TYPE = ComponentAnalysisCache.CacheType.VULNERABILITY;
+
+    @Test
+    public void testPrefetch() {
+        final Date date = new Date();
+        qm.updateComponentAnalysisCache(TYPE, "https://example.com", "NPM", "pkg:npm/prefetch-a@1.0.0", date);
+        final ComponentAnalysisCacheManager cacheManager = ComponentAnalysisCacheManager.getInstance();
+        cacheManager.prefetch(TYPE, "https://example.com", "NPM", Arrays.asList("pkg:npm/prefetch-a@1.0.0", "pkg:npm/prefetch-b@1.0.0"));
+        Assert.assertEquals(date.getTime(), cacheManager.getLastOccurrence(TYPE, "https://example.com", "NPM", "pkg:npm/prefetch-a@1.0.0").getTime());
+        Assert.assertNull(cacheManager.getLastOccurrence(TYPE, "https://example.com", "NPM", "pkg:npm/prefetch-b@1.0.0"));
+    }
+
+    @Test
+    public void testIsCurrent() {
+        final ComponentAnalysisCacheManager cacheManager = ComponentAnalysisCacheManager.getInstance();
+        Assert.assertFalse(cacheManager.isCurrent(TYPE, "https://example.com", "NPM", "pkg:npm/current@1.0.0", 3600000));
+        cacheManager.update(TYPE, "https://example.com", "NPM", "pkg:npm/current@1.0.0", new Date(System.currentTimeMillis() - 60000));
+        Assert.assertTrue(cacheManager.isCurrent(TYPE, "https://example.com", "NPM", "pkg:npm/current@1.0.0", 3600000));
+        Assert.assertFalse(cacheManager.isCurrent(TYPE, "https://example.com", "NPM", "pkg:npm/current@1.0.0", 30000));
+    }
+
+    @Test
+    public void testFlush() {
+        final ComponentAnalysisCacheManager cacheManager = ComponentAnalysisCacheManager.getInstance();
+        final Date date = new Date();
+        cacheManager.update(TYPE, "https://example.com", "OSSINDEX", "pkg:maven/flush/a@1.0.0", date);
+        cacheManager.update(TYPE, "https://example.com", "OSSINDEX", "pkg:maven/flush/b@1.0.0", date);
+        Assert.assertNull(qm.getComponentAnalysisCache(TYPE, "https://example.com", "OSSINDEX", "pkg:maven/flush/a@1.0.0"));
+        cacheManager.flush();
+        Assert.assertEquals(2, qm.getComponentAnalysisCache(TYPE, "https://example.com", "OSSINDEX",
+                Arrays.asList("pkg:maven/flush/a@1.0.0", "pkg:maven/flush/b@1.0.0")).size());
+    }
+
+    @Test
+    public void testInvalidate() {
+        final ComponentAnalysisCacheManager cacheManager = ComponentAnalysisCacheManager.getInstance();
+        cacheManager.update(TYPE, "https://example.com", "NPM", "pkg:npm/invalidate@1.0.0", new Date(System.currentTimeMillis() - 60000));
+        Assert.assertTrue(cacheManager.isCurrent(TYPE, "https://example.com", "NPM", "pkg:npm/invalidate@1.0.0", 3600000));
+        cacheManager.invalidate(TYPE, "https://example.com", "NPM", Arrays.asList("pkg:npm/invalidate@1.0.0"));
+        Assert.assertFalse(cacheManager.isCurrent(TYPE, "https://example.com", "NPM", "pkg:npm/invalidate@1.0.0", 3600000));
+        cacheManager.flush();
+        Assert.assertEquals(0, qm.getComponentAnalysisCache(TYPE, "https://example.com", "NPM", "pkg:npm/invalidate@1.0.0").getLastOccurrence().getTime());
+    }
+
+    @Test
+    public void testClear() {
+        final ComponentAnalysisCacheManager cacheManager = ComponentAnalysisCacheManager.getInstance();
+        cacheManager.update(TYPE, "https://example.com", "NPM", "pkg:npm/clear@1.0.0", new Date(System.currentTimeMillis() - 60000));
+        Assert.assertTrue(cacheManager.isCurrent(TYPE, "https://example.com", "NPM", "pkg:npm/clear@1.0.0", 3600000));
+        cacheManager.clear();
+        Assert.assertFalse(cacheManager.isCurrent(TYPE, "https://example.com", "NPM", "pkg:npm/clear@1.0.0", 3600000));
+        cacheManager.flush();
+        Assert.assertNull(qm.getComponentAnalysisCache(TYPE, "https://example.com", "NPM", "pkg:npm/clear@1.0.0"));
+    }
+}
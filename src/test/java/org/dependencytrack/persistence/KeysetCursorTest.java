@@ -0,0 +1,97 @@
+/*
+ * This file is part of Dependency-Track.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * Copyright (c) Steve Springett. All Rights Reserved.
+ */
+package org.dependencytrack.persistence;
+
+import alpine.model.ConfigProperty;
+import org.dependencytrack.PersistenceCapableTest;
+import org.dependencytrack.model.Component;
+import org.dependencytrack.model.ConfigPropertyConstants;
+import org.junit.Assert;
+import org.junit.Test;
+import java.util.ArrayList;
+import java.util.List;
+
+public class KeysetCursorTest extends PersistenceCapableTest {
+
+    @Test
+    public void testPaging() {
+        for (int i = 0; i < 5; i++) {
+            createComponent("component-" + i);
+        }
+        final KeysetCursor<Component> cursor = new KeysetCursor<>(qm, Component.class, Component::getId, 2);
+        final List<Integer> pageSizes = new ArrayList<>();
+        long lastId = 0;
+        while (cursor.hasNext()) {
+            final List<Component> page = cursor.next();
+            pageSizes.add(page.size());
+            for (final Component component: page) {
+                Assert.assertTrue(component.getId() > lastId);
+                lastId = component.getId();
+            }
+        }
+        Assert.assertEquals(3, pageSizes.size());
+        Assert.assertEquals(Integer.valueOf(2), pageSizes.get(0));
+        Assert.assertEquals(Integer.valueOf(1), pageSizes.get(2));
+    }
+
+    @Test
+    public void testInsertDuringSweep() {
+        for (int i = 0; i < 4; i++) {
+            createComponent("component-" + i);
+        }
+        final KeysetCursor<Component> cursor = new KeysetCursor<>(qm, Component.class, Component::getId, 2, "id", "name");
+        int count = 0;
+        boolean inserted = false;
+        while (cursor.hasNext()) {
+            for (final Component component: cursor.next()) {
+                Assert.assertNotNull(component.getName());
+                count++;
+            }
+            if (!inserted) {
+                createComponent("inserted");
+                inserted = true;
+            }
+        }
+        Assert.assertEquals(5, count);
+    }
+
+    @Test
+    public void testConfiguredPageSize() {
+        final KeysetCursor<Component> cursor = new KeysetCursor<>(qm, Component.class, Component::getId);
+        Assert.assertEquals(1000, cursor.getPageSize());
+        Assert.assertFalse(cursor.hasNext());
+    }
+
+    @Test
+    public void testConfiguredPageSizeProperty() {
+        final ConfigProperty property = qm.createConfigProperty(ConfigPropertyConstants.GENERAL_SWEEP_PAGE_SIZE.getGroupName(),
+                ConfigPropertyConstants.GENERAL_SWEEP_PAGE_SIZE.getPropertyName(), "250", ConfigProperty.PropertyType.INTEGER, null);
+        Assert.assertEquals(250, new KeysetCursor<>(qm, Component.class, Component::getId).getPageSize());
+        // An invalid value falls back to the default
+        property.setPropertyValue("many");
+        qm.persist(property);
+        Assert.assertEquals(1000, new KeysetCursor<>(qm, Component.class, Component::getId).getPageSize());
+    }
+
+    private void createComponent(final String name) {
+        final Component component = new Component();
+        component.setName(name);
+        qm.createComponent(component, false);
+    }
+}
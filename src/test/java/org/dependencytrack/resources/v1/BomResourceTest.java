@@ -24,7 +24,12 @@ import org.apache.commons.io.FileUtils;
 import org.dependencytrack.ResourceTest;
 import org.dependencytrack.auth.Permissions;
 import org.dependencytrack.model.Component;
+import org.dependencytrack.model.ConfigPropertyConstants;
 import org.dependencytrack.model.Project;
+import org.dependencytrack.model.Severity;
+import org.dependencytrack.model.Vulnerability;
+import org.dependencytrack.model.VulnerableSoftware;
+import org.dependencytrack.parser.nvd.ModelConverter;
 import org.dependencytrack.resources.v1.vo.BomSubmitRequest;
 import org.glassfish.jersey.media.multipart.MultiPartFeature;
 import org.glassfish.jersey.server.ResourceConfig;
@@ -39,6 +44,7 @@ import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 import java.io.File;
 import java.util.Base64;
+import java.util.Collections;
 import java.util.UUID;
 
 public class BomResourceTest extends ResourceTest {
@@ -183,4 +189,56 @@ public class BomResourceTest extends ResourceTest {
         String body = getPlainTextBody(response);
         Assert.assertEquals("The principal does not have permission to create project.", body);
     }
+
+    @Test
+    public void analyzeBomTest() throws Exception {
+        initializeWithPermissions(Permissions.BOM_UPLOAD);
+        qm.createConfigProperty(ConfigPropertyConstants.ACCEPT_ARTIFACT_CYCLONEDX.getGroupName(),
+                ConfigPropertyConstants.ACCEPT_ARTIFACT_CYCLONEDX.getPropertyName(), "true",
+                ConfigPropertyConstants.ACCEPT_ARTIFACT_CYCLONEDX.getPropertyType(), null);
+        VulnerableSoftware vs = ModelConverter.convertCpe23UriToVulnerableSoftware("cpe:2.3:a:example:xmlutil:1.0.0:*:*:*:*:*:*:*");
+        vs.setVulnerable(true);
+        Vulnerability vulnerability = new Vulnerability();
+        vulnerability.setVulnId("INT-001");
+        vulnerability.setSource(Vulnerability.Source.INTERNAL);
+        vulnerability.setSeverity(Severity.HIGH);
+        vulnerability.setVulnerableSoftware(Collections.singletonList(vs));
+        qm.createVulnerability(vulnerability, false);
+        File file = new File(Thread.currentThread().getContextClassLoader().getResource("bom-1.xml").getFile());
+        String bomString = Base64.getEncoder().encodeToString(FileUtils.readFileToByteArray(file));
+        BomSubmitRequest request = new BomSubmitRequest(null, null, null, false, bomString);
+        Response response = target(V1_BOM + "/analyze").request()
+                .header(X_API_KEY, apiKey)
+                .post(Entity.entity(request, MediaType.APPLICATION_JSON));
+        Assert.assertEquals(200, response.getStatus(), 0);
+        JsonObject json = parseJsonObject(response);
+        Assert.assertEquals(1, json.getInt("components"));
+        Assert.assertEquals(1, json.getJsonArray("findings").size());
+        Assert.assertEquals("xmlutil", json.getJsonArray("findings").getJsonObject(0).getJsonObject("component").getString("name"));
+        Assert.assertEquals("INT-001", json.getJsonArray("findings").getJsonObject(0).getJsonObject("vulnerability").getString("vulnId"));
+        Assert.assertEquals(1, json.getJsonObject("severities").getInt("HIGH"));
+        Assert.assertEquals(0, json.getJsonObject("severities").getInt("CRITICAL"));
+        Assert.assertEquals(0, qm.getCount(Component.class));
+    }
+
+    @Test
+    public void analyzeBomUnsupportedFormatTest() {
+        initializeWithPermissions(Permissions.BOM_UPLOAD);
+        String bomString = Base64.getEncoder().encodeToString("not a bom".getBytes());
+        BomSubmitRequest request = new BomSubmitRequest(null, null, null, false, bomString);
+        Response response = target(V1_BOM + "/analyze").request()
+                .header(X_API_KEY, apiKey)
+                .post(Entity.entity(request, MediaType.APPLICATION_JSON));
+        Assert.assertEquals(400, response.getStatus(), 0);
+    }
+
+    @Test
+    public void analyzeBomInvalidEncodingTest() {
+        initializeWithPermissions(Permissions.BOM_UPLOAD);
+        BomSubmitRequest request = new BomSubmitRequest(null, null, null, false, "not a base64 encoded bom!");
+        Response response = target(V1_BOM + "/analyze").request()
+                .header(X_API_KEY, apiKey)
+                .post(Entity.entity(request, MediaType.APPLICATION_JSON));
+        Assert.assertEquals(400, response.getStatus(), 0);
+    }
 }
@@ -0,0 +1,84 @@
+/*
+ * This file is part of Dependency-Track.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * Copyright (c) Steve Springett. All Rights Reserved.
+ */
+package org.dependencytrack.resources.v1;
+
+import alpine.filters.AuthenticationFilter;
+import org.dependencytrack.ResourceTest;
+import org.dependencytrack.common.TaskMetrics;
+import org.glassfish.jersey.server.ResourceConfig;
+import org.glassfish.jersey.servlet.ServletContainer;
+import org.glassfish.jersey.test.DeploymentContext;
+import org.glassfish.jersey.test.ServletDeploymentContext;
+import org.junit.Assert;
+import org.junit.Test;
+import javax.json.JsonArray;
+import javax.json.JsonObject;
+import javax.ws.rs.core.Response;
+
+public class MetricsResourceTest extends ResourceTest {
+
+    @Override
+    protected DeploymentContext configureDeployment() {
+        return ServletDeploymentContext.forServlet(new ServletContainer(
+                new ResourceConfig(MetricsResource.class)
+                        .register(AuthenticationFilter.class)))
+                .build();
+    }
+
+    @Test
+    public void getTaskMetricsTest() {
+        TaskMetrics.getInstance("MetricsResourceTest").httpRequest(42, 1024);
+        Response response = target(V1_METRICS + "/tasks").request()
+                .header(X_API_KEY, apiKey)
+                .get(Response.class);
+        Assert.assertEquals(200, response.getStatus(), 0);
+        JsonArray json = parseJsonArray(response);
+        boolean found = false;
+        for (int i = 0; i < json.size(); i++) {
+            final JsonObject family = json.getJsonObject(i);
+            if ("dtrack_task_http_request_duration_milliseconds".equals(family.getString("name"))) {
+                Assert.assertEquals("HISTOGRAM", family.getString("type"));
+                final JsonArray metrics = family.getJsonArray("metrics");
+                for (int j = 0; j < metrics.size(); j++) {
+                    final JsonObject metric = metrics.getJsonObject(j);
+                    if ("MetricsResourceTest".equals(metric.getString("task"))) {
+                        Assert.assertEquals(1, metric.getInt("count"));
+                        Assert.assertEquals(42, metric.getInt("sum"));
+                        Assert.assertEquals(42, metric.getInt("p99"));
+                        found = true;
+                    }
+                }
+            }
+        }
+        Assert.assertTrue(found);
+    }
+
+    @Test
+    public void getTaskMetricsAsPrometheusTest() {
+        TaskMetrics.getInstance("MetricsResourceTest").findingsProduced(3);
+        Response response = target(V1_METRICS + "/tasks/prometheus").request()
+                .header(X_API_KEY, apiKey)
+                .get(Response.class);
+        Assert.assertEquals(200, response.getStatus(), 0);
+        Assert.assertTrue(response.getHeaderString("Content-Type").startsWith("text/plain"));
+        String body = getPlainTextBody(response);
+        Assert.assertTrue(body.contains("# TYPE dtrack_task_findings_total counter"));
+        Assert.assertTrue(body.contains("dtrack_task_findings_total{task=\"MetricsResourceTest\"} 3"));
+    }
+}
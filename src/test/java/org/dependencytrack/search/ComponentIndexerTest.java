@@ -18,11 +18,16 @@
  */
 package org.dependencytrack.search;
 
+import org.apache.lucene.document.Document;
 import org.dependencytrack.PersistenceCapableTest;
 import org.dependencytrack.model.Component;
 import org.junit.Assert;
 import org.junit.Test;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 public class ComponentIndexerTest extends PersistenceCapableTest {
 
@@ -75,8 +80,117 @@ public class ComponentIndexerTest extends PersistenceCapableTest {
         Assert.assertEquals(0, result.getResults().get("component").size());
     }
 
+    @Test
+    public void searchAfterUpdateTest() throws Exception {
+        Component c = new Component();
+        c.setUuid(UUID.randomUUID());
+        c.setName("searcher-manager");
+        c.setVersion("1.0.0");
+        ComponentIndexer.getInstance().add(c);
+        ComponentIndexer.getInstance().commit();
+        SearchManager searchManager = new SearchManager();
+        SearchResult result = searchManager.searchIndex(ComponentIndexer.getInstance(), c.getUuid().toString(), 10);
+        Assert.assertEquals(1, result.getResults().get("component").size());
+        // Searching must neither close the writer nor keep serving a stale view of the index
+        Assert.assertTrue(ComponentIndexer.getInstance().getIndexWriter().isOpen());
+        ComponentIndexer.getInstance().remove(c);
+        ComponentIndexer.getInstance().commit();
+        result = searchManager.searchIndex(ComponentIndexer.getInstance(), c.getUuid().toString(), 10);
+        Assert.assertEquals(0, result.getResults().get("component").size());
+    }
+
+    @Test
+    public void substringSearchTest() {
+        Component c = new Component();
+        c.setUuid(UUID.randomUUID());
+        c.setGroup("org.example");
+        c.setName("ngram-substring-library");
+        c.setVersion("1.0.0");
+        ComponentIndexer.getInstance().add(c);
+        ComponentIndexer.getInstance().commit();
+        SearchManager searchManager = new SearchManager();
+        SearchResult result = searchManager.searchIndex(ComponentIndexer.getInstance(), "Substring-Lib", 10);
+        Assert.assertEquals(1, result.getResults().get("component").size());
+        Assert.assertEquals(c.getUuid().toString(), result.getResults().get("component").get(0).get("uuid"));
+        result = searchManager.searchIndex(ComponentIndexer.getInstance(), "ngram-sub", 10);
+        Assert.assertEquals(c.getUuid().toString(), result.getResults().get("component").get(0).get("uuid"));
+        // Shadow fields are not stored, and so are not part of the results
+        Assert.assertFalse(result.getResults().get("component").get(0).containsKey("name" + IndexConstants.NGRAM_SUFFIX));
+        result = searchManager.searchIndex(ComponentIndexer.getInstance(), "ngramz", 10);
+        Assert.assertEquals(0, result.getResults().get("component").size());
+    }
+
+    @Test
+    public void shortSubstringSearchTest() {
+        Component c = new Component();
+        c.setUuid(UUID.randomUUID());
+        c.setName("qzwidget");
+        c.setVersion("1.0.0");
+        ComponentIndexer.getInstance().add(c);
+        ComponentIndexer.getInstance().commit();
+        SearchManager searchManager = new SearchManager();
+        // Shorter than an n-gram, and neither a prefix nor a word of the name
+        SearchResult result = searchManager.searchIndex(ComponentIndexer.getInstance(), "zw", 10);
+        Assert.assertEquals(c.getUuid().toString(), result.getResults().get("component").get(0).get("uuid"));
+        result = searchManager.searchIndex(ComponentIndexer.getInstance(), "et", 10);
+        Assert.assertEquals(c.getUuid().toString(), result.getResults().get("component").get(0).get("uuid"));
+    }
+
+    @Test
+    public void updateFieldTest() {
+        Component c = new Component();
+        c.setUuid(UUID.randomUUID());
+        c.setName("update-field-library");
+        c.setVersion("1.0.0");
+        ComponentIndexer.getInstance().add(c);
+        ComponentIndexer.getInstance().commit();
+        final Document doc = ComponentIndexer.getInstance().getDocument(IndexConstants.COMPONENT_UUID, c.getUuid().toString());
+        Assert.assertNull(doc.getField(IndexConstants.COMPONENT_NAME + IndexConstants.NGRAM_SUFFIX));
+        ComponentIndexer.getInstance().updateField(doc, IndexConstants.COMPONENT_NAME, "renamed-library");
+        Assert.assertEquals("renamed-library", doc.get(IndexConstants.COMPONENT_NAME));
+        Assert.assertEquals("renamed-library", doc.getField(IndexConstants.COMPONENT_NAME + IndexConstants.EDGE_NGRAM_SUFFIX).stringValue());
+        Assert.assertEquals("renamed-library", doc.getField(IndexConstants.COMPONENT_NAME + IndexConstants.NGRAM_SUFFIX).stringValue());
+    }
+
     @Test
     public void reindexTest() {
         ComponentIndexer.getInstance().reindex();
     }
+
+    @Test
+    public void concurrentReindexTest() throws Exception {
+        final List<Throwable> errors = new CopyOnWriteArrayList<>();
+        final AtomicBoolean running = new AtomicBoolean(true);
+        final List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            final Thread thread = new Thread(() -> {
+                try {
+                    while (running.get()) {
+                        final Component c = new Component();
+                        c.setUuid(UUID.randomUUID());
+                        c.setName("concurrent-reindex");
+                        ComponentIndexer.getInstance().add(c);
+                        ComponentIndexer.getInstance().remove(c);
+                        new SearchManager().searchIndex(ComponentIndexer.getInstance(), "concurrent", 10);
+                    }
+                } catch (Throwable t) {
+                    errors.add(t);
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (int i = 0; i < 200; i++) {
+            if (i % 20 == 0) {
+                ComponentIndexer.getInstance().reindex();
+            } else {
+                ComponentIndexer.getInstance().close();
+            }
+        }
+        running.set(false);
+        for (final Thread thread: threads) {
+            thread.join();
+        }
+        Assert.assertTrue(errors.toString(), errors.isEmpty());
+    }
 }
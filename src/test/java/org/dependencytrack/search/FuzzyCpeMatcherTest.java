@@ -0,0 +1,81 @@
+/*
+ * This file is part of Dependency-Track.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * Copyright (c) Steve Springett. All Rights Reserved.
+ */
+package org.dependencytrack.search;
+
+import org.dependencytrack.PersistenceCapableTest;
+import org.dependencytrack.model.Cpe;
+import org.dependencytrack.parser.nvd.ModelConverter;
+import org.junit.Assert;
+import org.junit.Test;
+import java.util.List;
+import java.util.UUID;
+
+public class FuzzyCpeMatcherTest extends PersistenceCapableTest {
+
+    @Test
+    public void scoreTest() {
+        Assert.assertEquals(1.0f, FuzzyCpeMatcher.score("com.fasterxml.jackson.core", "jackson-databind", "fasterxml", "jackson-databind").getScore(), 0.001);
+        Assert.assertEquals(0.75f, FuzzyCpeMatcher.score("commons-fileupload", "commons-fileupload", "apache", "commons_fileupload").getScore(), 0.001);
+        Assert.assertEquals(1.0f, FuzzyCpeMatcher.score(null, "jquery", "jquery", "jquery").getScore(), 0.001);
+        Assert.assertEquals(0.875f, FuzzyCpeMatcher.score(null, "jquery-ui", "jquery", "jquery-ui").getScore(), 0.001);
+        Assert.assertTrue(FuzzyCpeMatcher.score("org.acme", "widget", "acme", "gadget").getScore() < 0.75f);
+    }
+
+    @Test
+    public void matchTest() throws Exception {
+        addCpe("cpe:2.3:a:fuzzyacme:fuzzy_widget:1.0.0:*:*:*:*:*:*:*");
+        addCpe("cpe:2.3:a:fuzzyacme:fuzzy_widget:2.0.0:*:*:*:*:*:*:*");
+        addCpe("cpe:2.3:a:fuzzyother:fuzzy_widget_tools:1.0.0:*:*:*:*:*:*:*");
+        addCpe("cpe:2.3:a:fuzzyfoo:fuzzy_gadget:1.0.0:*:*:*:*:*:*:*");
+        addCpe("cpe:2.3:a:fuzzybar:fuzzy_gadget:1.0.0:*:*:*:*:*:*:*");
+        CpeIndexer.getInstance().commit();
+        FuzzyCpeMatcher.getInstance().clear();
+
+        final List<FuzzyCpeMatcher.Match> matches = FuzzyCpeMatcher.getInstance().match("org.fuzzyacme", "fuzzy-widget");
+        Assert.assertEquals(1, matches.size());
+        Assert.assertEquals("a", matches.get(0).getPart());
+        Assert.assertEquals("fuzzyacme", matches.get(0).getVendor());
+        Assert.assertEquals("fuzzy_widget", matches.get(0).getProduct());
+        Assert.assertSame(matches, FuzzyCpeMatcher.getInstance().match("org.fuzzyacme", "fuzzy-widget"));
+
+        // Ambiguous, as neither vendor resembles the component
+        Assert.assertTrue(FuzzyCpeMatcher.getInstance().match("org.example", "fuzzy-gadget").isEmpty());
+        Assert.assertTrue(FuzzyCpeMatcher.getInstance().match(null, "fuzzy-unknown").isEmpty());
+    }
+
+    @Test
+    public void commitClearsDecisionsTest() throws Exception {
+        // The index outlives the database, so start from an empty one
+        CpeIndexer.getInstance().reindex();
+        Assert.assertTrue(FuzzyCpeMatcher.getInstance().match("org.commitacme", "commit-widget").isEmpty());
+
+        addCpe("cpe:2.3:a:commitacme:commit_widget:1.0.0:*:*:*:*:*:*:*");
+        CpeIndexer.getInstance().commit();
+
+        final List<FuzzyCpeMatcher.Match> matches = FuzzyCpeMatcher.getInstance().match("org.commitacme", "commit-widget");
+        Assert.assertEquals(1, matches.size());
+        Assert.assertEquals("commit_widget", matches.get(0).getProduct());
+    }
+
+    private void addCpe(final String cpe23) throws Exception {
+        final Cpe cpe = ModelConverter.convertCpe23UriToCpe(cpe23);
+        cpe.setUuid(UUID.randomUUID());
+        CpeIndexer.getInstance().add(cpe);
+    }
+}
@@ -19,27 +19,86 @@
 package org.dependencytrack.servlet;
 
 import org.dependencytrack.servlets.NvdMirrorServlet;
+import org.junit.Assert;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import javax.servlet.ServletConfig;
 import javax.servlet.ServletContext;
-import javax.servlet.ServletException;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 public class NvdMirrorServletTest {
 
+    private static final String SHA256 = "9A8680AECB1E7CCDC504BD794F34A2E72D5BE53B5FD266950A59BAD52D62239C";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
     private NvdMirrorServlet servlet;
+    private File json;
+    private File gz;
+    private File meta;
 
     @Before
-    public void before() throws ServletException {
+    public void before() throws Exception {
         final ServletConfig servletConfig = mock(ServletConfig.class);
         final ServletContext servletContext = mock(ServletContext.class);
         when(servletConfig.getServletContext()).thenReturn(servletContext);
+        final File dir = folder.newFolder("nist");
+        when(servletConfig.getInitParameter("directory")).thenReturn(dir.getAbsolutePath());
         this.servlet = new NvdMirrorServlet();
         servlet.init(servletConfig);
+        json = new File(dir, "nvdcve-1.0-servlettest.json");
+        gz = new File(dir, "nvdcve-1.0-servlettest.json.gz");
+        meta = new File(dir, "nvdcve-1.0-servlettest.meta");
+        Files.write(json.toPath(), "0123456789".getBytes(StandardCharsets.UTF_8));
+        Files.write(gz.toPath(), "gzipped".getBytes(StandardCharsets.UTF_8));
+        Files.write(meta.toPath(), ("lastModifiedDate:2019-12-01T03:00:00-05:00\r\nsha256:" + SHA256 + "\r\n").getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String etag(final File file) {
+        return "\"" + Long.toHexString(file.lastModified()) + "-" + Long.toHexString(file.length()) + "\"";
+    }
+
+    private HttpServletRequest get(final String path) {
+        final HttpServletRequest request = mock(HttpServletRequest.class);
+        when(request.getMethod()).thenReturn("GET");
+        when(request.getPathInfo()).thenReturn(path);
+        when(request.getDateHeader(anyString())).thenReturn(-1L);
+        return request;
+    }
+
+    private ByteArrayOutputStream capture(final HttpServletResponse response) throws Exception {
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        when(response.getOutputStream()).thenReturn(new ServletOutputStream() {
+            @Override
+            public boolean isReady() {
+                return true;
+            }
+
+            @Override
+            public void setWriteListener(final WriteListener writeListener) {
+            }
+
+            @Override
+            public void write(final int b) {
+                baos.write(b);
+            }
+        });
+        return baos;
     }
 
     @Test
@@ -49,4 +108,81 @@ public class NvdMirrorServletTest {
         when(request.getMethod()).thenReturn("http");
         servlet.service(request, response);
     }
+
+    @Test
+    public void doGetFeed() throws Exception {
+        final HttpServletResponse response = mock(HttpServletResponse.class);
+        final ByteArrayOutputStream body = capture(response);
+        servlet.service(get("/nvdcve-1.0-servlettest.json"), response);
+        Assert.assertEquals("0123456789", body.toString("UTF-8"));
+        verify(response).setHeader("ETag", etag(json));
+        verify(response).setContentLengthLong(10);
+    }
+
+    @Test
+    public void doGetGzipEncoded() throws Exception {
+        final HttpServletRequest request = get("/nvdcve-1.0-servlettest.json");
+        when(request.getHeader("Accept-Encoding")).thenReturn("gzip, deflate");
+        final HttpServletResponse response = mock(HttpServletResponse.class);
+        final ByteArrayOutputStream body = capture(response);
+        servlet.service(request, response);
+        Assert.assertEquals("gzipped", body.toString("UTF-8"));
+        verify(response).setHeader("Content-Encoding", "gzip");
+        verify(response).setHeader("ETag", etag(gz));
+    }
+
+    @Test
+    public void doGetRange() throws Exception {
+        final HttpServletRequest request = get("/nvdcve-1.0-servlettest.json");
+        when(request.getHeader("Range")).thenReturn("bytes=2-5");
+        final HttpServletResponse response = mock(HttpServletResponse.class);
+        final ByteArrayOutputStream body = capture(response);
+        servlet.service(request, response);
+        Assert.assertEquals("2345", body.toString("UTF-8"));
+        verify(response).setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+        verify(response).setHeader("Content-Range", "bytes 2-5/10");
+    }
+
+    @Test
+    public void doGetRangeOfReplacedFile() throws Exception {
+        final String etag = etag(json);
+        // The feed is replaced with content of the same length, while its meta file is unchanged
+        Files.write(json.toPath(), "9876543210".getBytes(StandardCharsets.UTF_8));
+        Assert.assertTrue(json.setLastModified(json.lastModified() + 2000));
+        final HttpServletRequest request = get("/nvdcve-1.0-servlettest.json");
+        when(request.getHeader("Range")).thenReturn("bytes=2-5");
+        when(request.getHeader("If-Range")).thenReturn(etag);
+        final HttpServletResponse response = mock(HttpServletResponse.class);
+        final ByteArrayOutputStream body = capture(response);
+        servlet.service(request, response);
+        Assert.assertEquals("9876543210", body.toString("UTF-8"));
+        verify(response, never()).setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+    }
+
+    @Test
+    public void doGetUnsatisfiableRange() throws Exception {
+        final HttpServletRequest request = get("/nvdcve-1.0-servlettest.json");
+        when(request.getHeader("Range")).thenReturn("bytes=20-");
+        final HttpServletResponse response = mock(HttpServletResponse.class);
+        servlet.service(request, response);
+        verify(response).sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+    }
+
+    @Test
+    public void doGetNotModified() throws Exception {
+        final HttpServletRequest request = get("/nvdcve-1.0-servlettest.json");
+        when(request.getHeader("If-None-Match")).thenReturn(etag(json));
+        final HttpServletResponse response = mock(HttpServletResponse.class);
+        final ByteArrayOutputStream body = capture(response);
+        servlet.service(request, response);
+        verify(response).setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+        Assert.assertEquals(0, body.size());
+    }
+
+    @Test
+    public void doGetOutsideOfMirror() throws Exception {
+        final HttpServletResponse response = mock(HttpServletResponse.class);
+        servlet.service(get("/../nist/../../etc/passwd"), response);
+        verify(response).sendError(HttpServletResponse.SC_NOT_FOUND);
+    }
 }
@@ -0,0 +1,232 @@
+/*
+ * This file is part of Dependency-Track.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * Copyright (c) Steve Springett. All Rights Reserved.
+ */
+package org.dependencytrack.tasks;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.dependencytrack.PersistenceCapableTest;
+import org.dependencytrack.RecordReplayServer;
+import org.dependencytrack.model.SyncState;
+import org.dependencytrack.model.Vulnerability;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockserver.logging.MockServerLogger;
+import org.mockserver.mock.Expectation;
+import org.mockserver.model.HttpResponse;
+import org.mockserver.serialization.ExpectationSerializer;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+import static org.mockserver.model.BinaryBody.binary;
+import static org.mockserver.model.ConnectionOptions.connectionOptions;
+import static org.mockserver.model.HttpRequest.request;
+import static org.mockserver.model.HttpResponse.response;
+
+public class NistMirrorTaskTest extends PersistenceCapableTest {
+
+    private static final String FEED_PATH = "/json/cve/1.0/nvdcve-1.0-2019.json.gz";
+    private static final String META_PATH = "/json/cve/1.0/nvdcve-1.0-2019.meta";
+    private static final String CONTENT = "{\"CVE_Items\":[]}";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File fixtureDir;
+    private File mirrorDir;
+    private final List<Expectation> fixtures = new ArrayList<>();
+    private RecordReplayServer server;
+
+    @Before
+    public void setUp() throws Exception {
+        fixtureDir = folder.newFolder("fixtures");
+        mirrorDir = folder.newFolder("nist");
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        if (server != null) {
+            server.close();
+        }
+    }
+
+    private void fixture(final String path, final HttpResponse response) {
+        fixtures.add(new Expectation(request().withMethod("GET").withPath(path)).thenRespond(response));
+    }
+
+    private NistMirrorTask replay() throws IOException {
+        Files.write(new File(fixtureDir, "nvd.json").toPath(), new ExpectationSerializer(new MockServerLogger())
+                .serialize(fixtures).getBytes(StandardCharsets.UTF_8));
+        server = RecordReplayServer.replay(1090, fixtureDir, 0, 0);
+        return new NistMirrorTask(mirrorDir, server.getBaseUrl());
+    }
+
+    private static String meta(final String content) {
+        return "lastModifiedDate:2019-12-01T03:00:00-05:00\r\nsize:" + content.length()
+                + "\r\nsha256:" + DigestUtils.sha256Hex(content).toUpperCase() + "\r\n";
+    }
+
+    private static byte[] gzip(final String content) throws IOException {
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try (GZIPOutputStream out = new GZIPOutputStream(baos)) {
+            out.write(content.getBytes(StandardCharsets.UTF_8));
+        }
+        return baos.toByteArray();
+    }
+
+    private File file(final String name) {
+        return new File(mirrorDir, name);
+    }
+
+    private static String read(final File file) throws IOException {
+        return new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+    }
+
+    private String[] tempFiles() {
+        return mirrorDir.list((dir, name) -> name.endsWith(".tmp"));
+    }
+
+    @Test
+    public void mirrorFeedTest() throws Exception {
+        fixture(META_PATH, response().withStatusCode(200).withBody(meta(CONTENT)));
+        fixture(FEED_PATH, response().withStatusCode(200).withBody(binary(gzip(CONTENT))));
+        final NistMirrorTask task = replay();
+        Assert.assertNotNull(task.mirrorFeed(server.getBaseUrl() + FEED_PATH, server.getBaseUrl() + META_PATH));
+        Assert.assertTrue(task.isMirroredWithoutErrors());
+        Assert.assertEquals(CONTENT, read(file("nvdcve-1.0-2019.json")));
+        Assert.assertEquals(meta(CONTENT), read(file("nvdcve-1.0-2019.meta")));
+        Assert.assertEquals(0, tempFiles().length);
+    }
+
+    @Test
+    public void sha256MismatchTest() throws Exception {
+        fixture(META_PATH, response().withStatusCode(200).withBody(meta("{\"CVE_Items\":[{}]}")));
+        fixture(FEED_PATH, response().withStatusCode(200).withBody(binary(gzip(CONTENT))));
+        final NistMirrorTask task = replay();
+        Assert.assertNull(task.mirrorFeed(server.getBaseUrl() + FEED_PATH, server.getBaseUrl() + META_PATH));
+        Assert.assertFalse(task.isMirroredWithoutErrors());
+        Assert.assertFalse(file("nvdcve-1.0-2019.json").exists());
+        Assert.assertFalse(file("nvdcve-1.0-2019.meta").exists());
+        Assert.assertEquals(0, tempFiles().length);
+    }
+
+    @Test
+    public void unchangedMetaTest() throws Exception {
+        Files.write(file("nvdcve-1.0-2019.json").toPath(), CONTENT.getBytes(StandardCharsets.UTF_8));
+        Files.write(file("nvdcve-1.0-2019.meta").toPath(), meta(CONTENT).getBytes(StandardCharsets.UTF_8));
+        // The feed itself is not served, so requesting it would fail the mirroring
+        fixture(META_PATH, response().withStatusCode(200).withBody(meta(CONTENT)));
+        final NistMirrorTask task = replay();
+        Assert.assertNotNull(task.mirrorFeed(server.getBaseUrl() + FEED_PATH, server.getBaseUrl() + META_PATH));
+        Assert.assertTrue(task.isMirroredWithoutErrors());
+        Assert.assertFalse(file("nvdcve-1.0-2019.json.gz").exists());
+        Assert.assertEquals(CONTENT, read(file("nvdcve-1.0-2019.json")));
+    }
+
+    @Test
+    public void notModifiedTest() throws Exception {
+        final String path = "/xml/cpe/dictionary/official-cpe-dictionary_v2.3.xml.gz";
+        Files.write(file("official-cpe-dictionary_v2.3.xml.gz").toPath(), gzip("<cpe-list/>"));
+        Files.write(file("official-cpe-dictionary_v2.3.xml").toPath(), "<cpe-list/>".getBytes(StandardCharsets.UTF_8));
+        fixture(path, response().withStatusCode(304));
+        final NistMirrorTask task = replay();
+        Assert.assertNotNull(task.mirrorFile(server.getBaseUrl() + path));
+        Assert.assertTrue(task.isMirroredWithoutErrors());
+        Assert.assertEquals("<cpe-list/>", read(file("official-cpe-dictionary_v2.3.xml")));
+        Assert.assertEquals(0, tempFiles().length);
+    }
+
+    @Test
+    public void interruptedDownloadTest() throws Exception {
+        final String previous = "{\"CVE_Items\":[{}]}";
+        Files.write(file("nvdcve-1.0-2019.json.gz").toPath(), gzip(previous));
+        Files.write(file("nvdcve-1.0-2019.json").toPath(), previous.getBytes(StandardCharsets.UTF_8));
+        Files.write(file("nvdcve-1.0-2019.meta").toPath(), meta(previous).getBytes(StandardCharsets.UTF_8));
+        final byte[] gzipped = gzip(CONTENT);
+        fixture(META_PATH, response().withStatusCode(200).withBody(meta(CONTENT)));
+        fixture(FEED_PATH, response().withStatusCode(200).withBody(binary(gzipped))
+                .withConnectionOptions(connectionOptions().withContentLengthHeaderOverride(gzipped.length * 2).withCloseSocket(true)));
+        final NistMirrorTask task = replay();
+        Assert.assertNull(task.mirrorFeed(server.getBaseUrl() + FEED_PATH, server.getBaseUrl() + META_PATH));
+        Assert.assertFalse(task.isMirroredWithoutErrors());
+        // The previously mirrored feed is left intact
+        Assert.assertArrayEquals(gzip(previous), Files.readAllBytes(file("nvdcve-1.0-2019.json.gz").toPath()));
+        Assert.assertEquals(previous, read(file("nvdcve-1.0-2019.json")));
+        Assert.assertEquals(meta(previous), read(file("nvdcve-1.0-2019.meta")));
+        Assert.assertEquals(0, tempFiles().length);
+    }
+
+    @Test
+    public void notModifiedSynchronizedTest() throws Exception {
+        final String path = "/xml/cpe/dictionary/official-cpe-dictionary_v2.3.xml.gz";
+        Files.write(file("official-cpe-dictionary_v2.3.xml.gz").toPath(), gzip("<cpe-list/>"));
+        Files.write(file("official-cpe-dictionary_v2.3.xml.gz.etag").toPath(), "\"etag\"".getBytes(StandardCharsets.UTF_8));
+        Files.write(file("official-cpe-dictionary_v2.3.xml").toPath(), "<cpe-list/>".getBytes(StandardCharsets.UTF_8));
+        fixture(path, response().withStatusCode(304));
+        final NistMirrorTask task = replay();
+        qm.updateSyncState(Vulnerability.Source.NVD, "official-cpe-dictionary_v2.3.xml.gz", "\"previous\"", null);
+        task.loadSyncStates(qm, 7);
+        Assert.assertNotNull(task.mirrorFile(server.getBaseUrl() + path));
+        qm.updateSyncState(Vulnerability.Source.NVD, "official-cpe-dictionary_v2.3.xml.gz", "\"etag\"", null);
+        task.loadSyncStates(qm, 7);
+        Assert.assertNull(task.mirrorFile(server.getBaseUrl() + path));
+        Assert.assertTrue(task.isMirroredWithoutErrors());
+    }
+
+    @Test
+    public void unchangedMetaSynchronizedTest() throws Exception {
+        Files.write(file("nvdcve-1.0-2019.json").toPath(), CONTENT.getBytes(StandardCharsets.UTF_8));
+        Files.write(file("nvdcve-1.0-2019.meta").toPath(), meta(CONTENT).getBytes(StandardCharsets.UTF_8));
+        fixture(META_PATH, response().withStatusCode(200).withBody(meta(CONTENT)));
+        final NistMirrorTask task = replay();
+        qm.updateSyncState(Vulnerability.Source.NVD, "nvdcve-1.0-2019.json.gz", DigestUtils.sha256Hex(CONTENT), null);
+        task.loadSyncStates(qm, 7);
+        Assert.assertNull(task.mirrorFeed(server.getBaseUrl() + FEED_PATH, server.getBaseUrl() + META_PATH));
+        Assert.assertTrue(task.isMirroredWithoutErrors());
+    }
+
+    @Test
+    public void fullRefreshCadenceTest() {
+        final NistMirrorTask task = new NistMirrorTask(mirrorDir, "http://localhost");
+        task.loadSyncStates(qm, 7);
+        Assert.assertFalse(task.isIncremental());
+        final SyncState fullRefresh = qm.updateSyncState(Vulnerability.Source.NVD, NistMirrorTask.FULL_REFRESH, null, null);
+        task.loadSyncStates(qm, 7);
+        Assert.assertTrue(task.isIncremental());
+        // A cadence of 0 disables incremental updates
+        task.loadSyncStates(qm, 0);
+        Assert.assertFalse(task.isIncremental());
+        fullRefresh.setLastSynchronized(new Date(System.currentTimeMillis() - TimeUnit.DAYS.toMillis(8)));
+        qm.persist(fullRefresh);
+        task.loadSyncStates(qm, 7);
+        Assert.assertFalse(task.isIncremental());
+        task.loadSyncStates(qm, 9);
+        Assert.assertTrue(task.isIncremental());
+    }
+}
@@ -0,0 +1,167 @@
+/*
+ * This file is part of Dependency-Track.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * Copyright (c) Steve Springett. All Rights Reserved.
+ */
+package org.dependencytrack.tasks;
+
+import org.dependencytrack.PersistenceCapableTest;
+import org.dependencytrack.RecordReplayServer;
+import org.dependencytrack.event.NpmAdvisoryMirrorEvent;
+import org.dependencytrack.model.SyncState;
+import org.dependencytrack.model.Vulnerability;
+import org.dependencytrack.persistence.QueryManager;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockserver.logging.MockServerLogger;
+import org.mockserver.mock.Expectation;
+import org.mockserver.model.HttpResponse;
+import org.mockserver.serialization.ExpectationSerializer;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import static org.mockserver.model.HttpRequest.request;
+import static org.mockserver.model.HttpResponse.response;
+
+public class NpmAdvisoryMirrorTaskTest extends PersistenceCapableTest {
+
+    private static final String ADVISORIES_PATH = "/-/npm/v1/security/advisories";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File fixtureDir;
+    private RecordReplayServer server;
+
+    @Before
+    public void setUp() throws Exception {
+        fixtureDir = folder.newFolder();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        if (server != null) {
+            server.close();
+        }
+    }
+
+    private static String advisory(final int id, final String updated) {
+        return "{\"id\":" + id + ",\"title\":\"Advisory " + id + "\",\"module_name\":\"module-" + id + "\","
+                + "\"severity\":\"high\"" + (updated != null ? ",\"updated\":\"" + updated + "\"" : "") + "}";
+    }
+
+    private static HttpResponse page(final String next, final String... advisories) {
+        return response().withStatusCode(200).withHeader("Content-Type", "application/json")
+                .withBody("{\"objects\":[" + String.join(",", advisories) + "],\"total\":" + advisories.length
+                        + ",\"urls\":{" + (next != null ? "\"next\":\"" + next + "\"" : "") + "}}");
+    }
+
+    /**
+     * Mirrors the advisories served on two pages, the second page being retrieved from the URL linked by the first.
+     */
+    private void mirror(final HttpResponse first, final HttpResponse second) throws Exception {
+        if (server != null) {
+            server.close();
+        }
+        final List<Expectation> fixtures = new ArrayList<>();
+        fixtures.add(new Expectation(request().withMethod("GET").withPath(ADVISORIES_PATH)
+                .withQueryStringParameter("page", "1")).thenRespond(second));
+        fixtures.add(new Expectation(request().withMethod("GET").withPath(ADVISORIES_PATH)).thenRespond(first));
+        Files.write(new File(fixtureDir, "npm.json").toPath(), new ExpectationSerializer(new MockServerLogger())
+                .serialize(fixtures).getBytes(StandardCharsets.UTF_8));
+        server = RecordReplayServer.replay(1090, fixtureDir, 0, 0);
+        new NpmAdvisoryMirrorTask(server.getBaseUrl()).inform(new NpmAdvisoryMirrorEvent());
+    }
+
+    private void setTitle(final int id, final String title) {
+        final Vulnerability vulnerability = qm.getVulnerabilityByVulnId(Vulnerability.Source.NPM, String.valueOf(id));
+        vulnerability.setTitle(title);
+        qm.persist(vulnerability);
+    }
+
+    private static String getTitle(final int id) {
+        try (QueryManager qm = new QueryManager()) {
+            final Vulnerability vulnerability = qm.getVulnerabilityByVulnId(Vulnerability.Source.NPM, String.valueOf(id));
+            return (vulnerability != null) ? vulnerability.getTitle() : null;
+        }
+    }
+
+    private static Date getHighWaterMark() {
+        try (QueryManager qm = new QueryManager()) {
+            final SyncState syncState = qm.getSyncState(Vulnerability.Source.NPM, "advisories");
+            return (syncState != null) ? syncState.getLastModified() : null;
+        }
+    }
+
+    private static Date date(final String date) {
+        return Date.from(OffsetDateTime.parse(date).toInstant());
+    }
+
+    @Test
+    public void highWaterMarkTest() throws Exception {
+        mirror(page(ADVISORIES_PATH + "?page=1", advisory(1, "2019-02-01T00:00:00.000Z"), advisory(2, "2019-03-01T00:00:00.000Z")),
+                page(null, advisory(3, "2019-01-15T00:00:00.000Z")));
+        Assert.assertEquals("Advisory 1", getTitle(1));
+        Assert.assertEquals("Advisory 2", getTitle(2));
+        Assert.assertEquals("Advisory 3", getTitle(3));
+        Assert.assertEquals(date("2019-03-01T00:00:00.000Z"), getHighWaterMark());
+
+        for (int id = 1; id <= 3; id++) {
+            setTitle(id, "Unchanged");
+        }
+        // Only the advisory updated after the high-water mark is synchronized again, even though
+        // it is listed after a page of advisories which were not updated
+        mirror(page(ADVISORIES_PATH + "?page=1", advisory(1, "2019-02-01T00:00:00.000Z"), advisory(2, "2019-03-01T00:00:00.000Z")),
+                page(null, advisory(3, "2019-04-01T00:00:00.000Z")));
+        Assert.assertEquals("Unchanged", getTitle(1));
+        Assert.assertEquals("Unchanged", getTitle(2));
+        Assert.assertEquals("Advisory 3", getTitle(3));
+        Assert.assertEquals(date("2019-04-01T00:00:00.000Z"), getHighWaterMark());
+    }
+
+    @Test
+    public void undatedAdvisoryTest() throws Exception {
+        qm.updateSyncState(Vulnerability.Source.NPM, "advisories", null, date("2019-03-01T00:00:00.000Z"));
+        mirror(page(ADVISORIES_PATH + "?page=1", advisory(1, null)), page(null, advisory(2, "invalid")));
+        Assert.assertEquals("Advisory 1", getTitle(1));
+        Assert.assertEquals("Advisory 2", getTitle(2));
+        Assert.assertEquals(date("2019-03-01T00:00:00.000Z"), getHighWaterMark());
+
+        // Advisories without a valid date are only synchronized the first time they are seen
+        setTitle(1, "Unchanged");
+        setTitle(2, "Unchanged");
+        mirror(page(ADVISORIES_PATH + "?page=1", advisory(1, null)), page(null, advisory(2, "invalid")));
+        Assert.assertEquals("Unchanged", getTitle(1));
+        Assert.assertEquals("Unchanged", getTitle(2));
+    }
+
+    @Test
+    public void failedPageTest() throws Exception {
+        mirror(page(ADVISORIES_PATH + "?page=1", advisory(1, "2019-02-01T00:00:00.000Z")), response().withStatusCode(500));
+        // The page synchronized in the background is completed, but the high-water mark is not advanced
+        Assert.assertEquals("Advisory 1", getTitle(1));
+        Assert.assertNull(getHighWaterMark());
+    }
+}
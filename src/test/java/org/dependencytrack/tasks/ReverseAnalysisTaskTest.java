@@ -0,0 +1,168 @@
+/*
+ * This file is part of Dependency-Track.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * Copyright (c) Steve Springett. All Rights Reserved.
+ */
+package org.dependencytrack.tasks;
+
+import alpine.event.framework.Event;
+import alpine.event.framework.EventService;
+import alpine.event.framework.Subscriber;
+import com.github.packageurl.PackageURL;
+import org.dependencytrack.PersistenceCapableTest;
+import org.dependencytrack.event.ReverseAnalysisEvent;
+import org.dependencytrack.event.VulnerabilityAnalysisEvent;
+import org.dependencytrack.model.Component;
+import org.dependencytrack.model.Vulnerability;
+import org.dependencytrack.model.VulnerableSoftware;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+public class ReverseAnalysisTaskTest extends PersistenceCapableTest {
+
+    private static final List<VulnerabilityAnalysisEvent> EVENTS = new CopyOnWriteArrayList<>();
+
+    public static class TestSubscriber implements Subscriber {
+        @Override
+        public void inform(final Event event) {
+            EVENTS.add((VulnerabilityAnalysisEvent) event);
+        }
+    }
+
+    @Before
+    public void setUp() {
+        EVENTS.clear();
+        EventService.getInstance().subscribe(VulnerabilityAnalysisEvent.class, TestSubscriber.class);
+    }
+
+    @After
+    public void tearDown() {
+        EventService.getInstance().unsubscribe(TestSubscriber.class);
+    }
+
+    private Component createComponent(final String name, final String cpe, final String purl) throws Exception {
+        final Component component = new Component();
+        component.setName(name);
+        component.setCpe(cpe);
+        if (purl != null) {
+            component.setPurl(new PackageURL(purl));
+        }
+        return qm.createComponent(component, false);
+    }
+
+    private Vulnerability createVulnerability(final String vulnId, final Vulnerability.Source source,
+                                              final String subTitle, final VulnerableSoftware vs) {
+        final Vulnerability vulnerability = new Vulnerability();
+        vulnerability.setVulnId(vulnId);
+        vulnerability.setSource(source);
+        vulnerability.setSubTitle(subTitle);
+        if (vs != null) {
+            vulnerability.setVulnerableSoftware(new ArrayList<>(Collections.singletonList(qm.persist(vs))));
+        }
+        return qm.createVulnerability(vulnerability, false);
+    }
+
+    private static Set<String> analyze(final ReverseAnalysisEvent event) throws InterruptedException {
+        new ReverseAnalysisTask().inform(event);
+        for (int i = 0; i < 100 && EVENTS.isEmpty(); i++) {
+            Thread.sleep(50);
+        }
+        final Set<String> names = new TreeSet<>();
+        for (final VulnerabilityAnalysisEvent analysisEvent: EVENTS) {
+            for (final Component component: analysisEvent.getComponents()) {
+                names.add(component.getName());
+            }
+        }
+        return names;
+    }
+
+    @Test
+    public void cpeTest() throws Exception {
+        createComponent("widget-2.3", "cpe:2.3:a:acme:widget:1.0:*:*:*:*:*:*:*", null);
+        createComponent("widget-2.2", "cpe:/a:acme:widget:2.0", null);
+        createComponent("widget-2.2-product", "cpe:/a:acme:widget", null);
+        // Products sharing the prefix of the vulnerable product are not affected
+        createComponent("widget_pro-2.3", "cpe:2.3:a:acme:widget_pro:1.0:*:*:*:*:*:*:*", null);
+        createComponent("widget_pro-2.2", "cpe:/a:acme:widget_pro:2.0", null);
+        createComponent("gadget", "cpe:2.3:a:acme:gadget:1.0:*:*:*:*:*:*:*", null);
+        final VulnerableSoftware vs = new VulnerableSoftware();
+        vs.setCpe23("cpe:2.3:a:acme:widget:1.0:*:*:*:*:*:*:*");
+        vs.setPart("a");
+        vs.setVendor("acme");
+        vs.setProduct("widget");
+        vs.setVersion("1.0");
+        vs.setVulnerable(true);
+        final Vulnerability vulnerability = createVulnerability("CVE-2019-0001", Vulnerability.Source.NVD, null, vs);
+
+        final Set<String> analyzed = analyze(new ReverseAnalysisEvent(Collections.singleton(vulnerability.getId())));
+        Assert.assertEquals(1, EVENTS.size());
+        Assert.assertEquals(new TreeSet<>(Arrays.asList("widget-2.2", "widget-2.2-product", "widget-2.3")), analyzed);
+    }
+
+    @Test
+    public void affectedProductsTest() throws Exception {
+        createComponent("widget", "cpe:2.3:a:acme:widget:1.0:*:*:*:*:*:*:*", null);
+        createComponent("gadget", "cpe:/a:acme:gadget:2.0", null);
+        createComponent("widget_pro", "cpe:2.3:a:acme:widget_pro:1.0:*:*:*:*:*:*:*", null);
+        createComponent("other", "cpe:2.3:a:other:widget:1.0:*:*:*:*:*:*:*", null);
+        final Vulnerability vulnerability = createVulnerability("CVE-2019-0002", Vulnerability.Source.NVD, null, null);
+        // The components of all products whose vulnerable software was linked or unlinked are looked up together
+        final Set<List<String>> products = new HashSet<>();
+        products.add(Arrays.asList("a", "acme", "widget"));
+        products.add(Arrays.asList("a", "acme", "gadget"));
+        final Set<String> analyzed = analyze(new ReverseAnalysisEvent(Collections.singleton(vulnerability.getId()), products));
+        Assert.assertEquals(1, EVENTS.size());
+        Assert.assertEquals(new TreeSet<>(Arrays.asList("gadget", "widget")), analyzed);
+    }
+
+    @Test
+    public void scopedNpmModuleTest() throws Exception {
+        createComponent("core", null, "pkg:npm/%40angular/core@8.0.0");
+        // Neither unscoped modules nor modules of another scope having the same name are affected
+        createComponent("core", null, "pkg:npm/core@8.0.0");
+        createComponent("core", null, "pkg:npm/%40other/core@8.0.0");
+        createComponent("common", null, "pkg:npm/%40angular/common@8.0.0");
+        final Vulnerability vulnerability = createVulnerability("1234", Vulnerability.Source.NPM, "@angular/core", null);
+
+        new ReverseAnalysisTask().inform(new ReverseAnalysisEvent(Collections.singleton(vulnerability.getId())));
+        for (int i = 0; i < 100 && EVENTS.isEmpty(); i++) {
+            Thread.sleep(50);
+        }
+        Assert.assertEquals(1, EVENTS.size());
+        final List<Component> components = EVENTS.get(0).getComponents();
+        Assert.assertEquals(1, components.size());
+        Assert.assertEquals("pkg:npm/%40angular/core@8.0.0", components.get(0).getPurl().canonicalize());
+    }
+
+    @Test
+    public void noAffectedComponentsTest() throws Exception {
+        createComponent("gadget", "cpe:2.3:a:acme:gadget:1.0:*:*:*:*:*:*:*", "pkg:npm/gadget@1.0.0");
+        final Vulnerability vulnerability = createVulnerability("1235", Vulnerability.Source.NPM, "@angular/core", null);
+        final Set<String> analyzed = analyze(new ReverseAnalysisEvent(Collections.singleton(vulnerability.getId())));
+        Assert.assertTrue(analyzed.isEmpty());
+        Assert.assertTrue(EVENTS.isEmpty());
+    }
+}
@@ -0,0 +1,208 @@
+/*
+ * This file is part of Dependency-Track.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * Copyright (c) Steve Springett. All Rights Reserved.
+ */
+package org.dependencytrack.tasks;
+
+import org.dependencytrack.PersistenceCapableTest;
+import org.dependencytrack.event.VulnDbSyncEvent;
+import org.dependencytrack.model.Vulnerability;
+import org.dependencytrack.model.VulnerableSoftware;
+import org.dependencytrack.persistence.QueryManager;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import javax.json.Json;
+import javax.json.JsonArrayBuilder;
+import javax.json.JsonObject;
+import java.io.File;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+
+public class VulnDbSyncTaskTest extends PersistenceCapableTest {
+
+    private static final String CPE = "cpe:2.3:a:acme:widget:1.0:*:*:*:*:*:*:*";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File vulndbDir;
+
+    @Before
+    public void setUp() throws Exception {
+        vulndbDir = folder.newFolder("vulndb");
+    }
+
+    private static JsonObject vulnerability(final int id, final String title) {
+        return Json.createObjectBuilder()
+                .add("vulndb_id", id)
+                .add("title", title)
+                .add("description", "Description of " + id)
+                .addNull("t_description")
+                .add("solution", "Upgrade")
+                .add("disclosure_date", "2019-01-15T00:00:00Z")
+                .add("authors", Json.createArrayBuilder()
+                        .add(Json.createObjectBuilder().add("name", "Jane Doe").add("company", "Acme")))
+                .add("ext_references", Json.createArrayBuilder()
+                        .add(Json.createObjectBuilder().add("type", "Vendor Specific Advisory URL").add("value", "https://example.com/" + id))
+                        .add(Json.createObjectBuilder().add("type", "CVE ID").add("value", "2019-" + id)))
+                .add("cvss_metrics", Json.createArrayBuilder()
+                        .add(Json.createObjectBuilder()
+                                .add("access_vector", "NETWORK")
+                                .add("access_complexity", "LOW")
+                                .add("authentication", "NONE")
+                                .add("confidentiality_impact", "PARTIAL")
+                                .add("integrity_impact", "PARTIAL")
+                                .add("availability_impact", "PARTIAL")
+                                .add("cve_id", "CVE-2019-" + id)))
+                .add("cvss_version_three_metrics", Json.createArrayBuilder()
+                        .add(Json.createObjectBuilder()
+                                .add("attack_vector", "ADJACENT_NETWORK")
+                                .add("attack_complexity", "LOW")
+                                .add("privileges_required", "NONE")
+                                .add("user_interaction", "REQUIRED")
+                                .add("scope", "UNCHANGED")
+                                .add("confidentiality_impact", "HIGH")
+                                .add("integrity_impact", "HIGH")
+                                .add("availability_impact", "NONE")))
+                .add("vendors", Json.createArrayBuilder()
+                        .add(Json.createObjectBuilder().add("vendor", Json.createObjectBuilder()
+                                .add("name", "Acme")
+                                .add("products", Json.createArrayBuilder().add(Json.createObjectBuilder()
+                                        .add("name", "Widget")
+                                        .add("versions", Json.createArrayBuilder()
+                                                .add(Json.createObjectBuilder().add("name", "1.0").add("affected", true)
+                                                        .add("cpe", Json.createArrayBuilder().add(Json.createObjectBuilder().add("cpe", CPE))))
+                                                .add(Json.createObjectBuilder().add("name", "2.0").add("affected", false)
+                                                        .add("cpe", Json.createArrayBuilder().add(Json.createObjectBuilder()
+                                                                .add("cpe", "cpe:2.3:a:acme:widget:2.0:*:*:*:*:*:*:*"))))))))))
+                .build();
+    }
+
+    private File mirrorFile(final String name, final int firstId, final int count) throws Exception {
+        final JsonArrayBuilder results = Json.createArrayBuilder();
+        for (int id = firstId; id < firstId + count; id++) {
+            results.add(vulnerability(id, "Vulnerability " + id));
+        }
+        final String json = Json.createObjectBuilder()
+                .add("current_page", 1)
+                .add("total_entries", count)
+                .add("results", results)
+                .build().toString();
+        final File file = new File(vulndbDir, name);
+        Files.write(file.toPath(), json.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    private void synchronize() {
+        new VulnDbSyncTask(vulndbDir).inform(new VulnDbSyncEvent());
+    }
+
+    private static Vulnerability getVulnerability(final int id) {
+        try (QueryManager qm = new QueryManager()) {
+            final Vulnerability vulnerability = qm.getVulnerabilityByVulnId(Vulnerability.Source.VULNDB, String.valueOf(id));
+            return (vulnerability != null) ? qm.getPersistenceManager().detachCopy(vulnerability) : null;
+        }
+    }
+
+    private void setTitle(final int id, final String title) {
+        final Vulnerability vulnerability = qm.getVulnerabilityByVulnId(Vulnerability.Source.VULNDB, String.valueOf(id));
+        vulnerability.setTitle(title);
+        qm.persist(vulnerability);
+    }
+
+    @Test
+    public void synchronizeTest() throws Exception {
+        qm.createCweIfNotExist(79, "Improper Neutralization of Input During Web Page Generation ('Cross-site Scripting')");
+        // More vulnerabilities than fit in a single batch
+        final File file = mirrorFile("vulnerabilities_2019.json", 1, 150);
+        synchronize();
+        Assert.assertEquals(150, qm.getVulnerabilities().getTotal());
+        Assert.assertNotNull(qm.getSyncState(Vulnerability.Source.VULNDB, file.getName()));
+
+        final Vulnerability vulnerability = qm.getVulnerabilityByVulnId(Vulnerability.Source.VULNDB, "42");
+        Assert.assertEquals("Vulnerability 42", vulnerability.getTitle());
+        Assert.assertEquals("Description of 42 Upgrade", vulnerability.getDescription());
+        Assert.assertEquals("Jane Doe (Acme)", vulnerability.getCredits());
+        Assert.assertEquals("* [https://example.com/42](https://example.com/42)\n* 2019-42 (CVE ID)\n", vulnerability.getReferences());
+        Assert.assertNotNull(vulnerability.getPublished());
+        Assert.assertEquals("(AV:N/AC:L/Au:N/C:P/I:P/A:P)", vulnerability.getCvssV2Vector());
+        Assert.assertEquals(new BigDecimal("7.5"), vulnerability.getCvssV2BaseScore());
+        Assert.assertEquals("CVSS:3.0/AV:A/AC:L/PR:N/UI:R/S:U/C:H/I:H/A:N", vulnerability.getCvssV3Vector());
+        // Only the affected version is linked, and the software is only created once for all vulnerabilities
+        Assert.assertEquals(1, vulnerability.getVulnerableSoftware().size());
+        Assert.assertEquals(CPE, vulnerability.getVulnerableSoftware().get(0).getCpe23());
+        Assert.assertEquals(1, qm.getVulnerableSoftwareByCpe23(Collections.singleton(CPE)).size());
+    }
+
+    @Test
+    public void unchangedFileTest() throws Exception {
+        mirrorFile("vulnerabilities_2019.json", 1, 2);
+        synchronize();
+        setTitle(1, "Unchanged");
+        // The file is skipped, as its checksum did not change since it was synchronized
+        synchronize();
+        Assert.assertEquals("Unchanged", getVulnerability(1).getTitle());
+        mirrorFile("vulnerabilities_2019.json", 1, 3);
+        synchronize();
+        Assert.assertEquals("Vulnerability 1", getVulnerability(1).getTitle());
+        Assert.assertEquals(3, qm.getVulnerabilities().getTotal());
+    }
+
+    @Test
+    public void duplicateAcrossFilesTest() throws Exception {
+        mirrorFile("vulnerabilities_2018.json", 1, 120);
+        mirrorFile("vulnerabilities_2019.json", 101, 120);
+        synchronize();
+        Assert.assertEquals(220, qm.getVulnerabilities().getTotal());
+        Assert.assertEquals(2, qm.getSyncStates(Vulnerability.Source.VULNDB).size());
+        Assert.assertEquals(1, qm.getVulnerableSoftwareByCpe23(Collections.singleton(CPE)).size());
+        for (final VulnerableSoftware vs: qm.getVulnerableSoftwareByCpe23(Collections.singleton(CPE))) {
+            Assert.assertEquals("widget", vs.getProduct());
+        }
+    }
+
+    @Test
+    public void malformedFileTest() throws Exception {
+        mirrorFile("vulnerabilities_2018.json", 1, 2);
+        final File malformed = new File(vulndbDir, "vulnerabilities_2019.json");
+        Files.write(malformed.toPath(), "{\"current_page\":1,\"results\":[{\"vulndb_id\":3,".getBytes(StandardCharsets.UTF_8));
+        synchronize();
+        Assert.assertEquals(2, qm.getVulnerabilities().getTotal());
+        Assert.assertNotNull(qm.getSyncState(Vulnerability.Source.VULNDB, "vulnerabilities_2018.json"));
+        Assert.assertNull(qm.getSyncState(Vulnerability.Source.VULNDB, malformed.getName()));
+    }
+
+    @Test
+    public void failedBatchTest() throws Exception {
+        final String json = Json.createObjectBuilder()
+                .add("results", Json.createArrayBuilder()
+                        .add(vulnerability(1, "Vulnerability 1"))
+                        .add(Json.createObjectBuilder().add("title", "Without an id")))
+                .build().toString();
+        final File file = new File(vulndbDir, "vulnerabilities_2019.json");
+        Files.write(file.toPath(), json.getBytes(StandardCharsets.UTF_8));
+        synchronize();
+        // The file is synchronized again on the next run
+        Assert.assertNull(qm.getSyncState(Vulnerability.Source.VULNDB, file.getName()));
+        Assert.assertEquals(0, qm.getVulnerabilities().getTotal());
+    }
+}
@@ -0,0 +1,192 @@
+/*
+ * This file is part of Dependency-Track.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * Copyright (c) Steve Springett. All Rights Reserved.
+ */
+package org.dependencytrack.tasks;
+
+import alpine.event.framework.Event;
+import alpine.event.framework.EventService;
+import alpine.model.ConfigProperty;
+import alpine.notification.Notification;
+import alpine.notification.NotificationService;
+import alpine.notification.Subscriber;
+import alpine.notification.Subscription;
+import com.github.packageurl.PackageURL;
+import org.dependencytrack.PersistenceCapableTest;
+import org.dependencytrack.RecordReplayServer;
+import org.dependencytrack.event.MetricsUpdateEvent;
+import org.dependencytrack.event.VulnerabilityAnalysisEvent;
+import org.dependencytrack.model.Component;
+import org.dependencytrack.model.ConfigPropertyConstants;
+import org.dependencytrack.model.Project;
+import org.dependencytrack.model.Vulnerability;
+import org.dependencytrack.model.VulnerableSoftware;
+import org.dependencytrack.notification.NotificationGroup;
+import org.dependencytrack.notification.vo.NewVulnerabilitiesIdentified;
+import org.dependencytrack.parser.nvd.ModelConverter;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockserver.logging.MockServerLogger;
+import org.mockserver.mock.Expectation;
+import org.mockserver.serialization.ExpectationSerializer;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.mockserver.model.HttpRequest.request;
+import static org.mockserver.model.HttpResponse.response;
+
+public class VulnerabilityAnalysisTaskTest extends PersistenceCapableTest {
+
+    private static final String AUDIT_PATH = "/-/npm/v1/security/audits";
+    private static final List<Notification> NOTIFICATIONS = new CopyOnWriteArrayList<>();
+    private static final List<Notification> FINDING_NOTIFICATIONS = new CopyOnWriteArrayList<>();
+    private static final List<MetricsUpdateEvent> METRICS_EVENTS = new CopyOnWriteArrayList<>();
+    private static final Subscription SUBSCRIPTION = new Subscription(TestNotificationSubscriber.class);
+
+    public static class TestNotificationSubscriber implements Subscriber {
+        @Override
+        public void inform(final Notification notification) {
+            if (NotificationGroup.NEW_VULNERABILITIES.name().equals(notification.getGroup())) {
+                NOTIFICATIONS.add(notification);
+            } else if (NotificationGroup.NEW_VULNERABILITY.name().equals(notification.getGroup())) {
+                FINDING_NOTIFICATIONS.add(notification);
+            }
+        }
+    }
+
+    public static class TestMetricsSubscriber implements alpine.event.framework.Subscriber {
+        @Override
+        public void inform(final Event event) {
+            METRICS_EVENTS.add((MetricsUpdateEvent) event);
+        }
+    }
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private RecordReplayServer server;
+
+    @Before
+    public void setUp() throws Exception {
+        NOTIFICATIONS.clear();
+        FINDING_NOTIFICATIONS.clear();
+        METRICS_EVENTS.clear();
+        NotificationService.getInstance().subscribe(SUBSCRIPTION);
+        EventService.getInstance().subscribe(MetricsUpdateEvent.class, TestMetricsSubscriber.class);
+        createProperty(ConfigPropertyConstants.SCANNER_INTERNAL_ENABLED, "true");
+        createProperty(ConfigPropertyConstants.SCANNER_INTERNAL_FUZZY_ENABLED, "false");
+        createProperty(ConfigPropertyConstants.SCANNER_INTERNAL_FUZZY_EXCLUDE_PURL, "false");
+        createProperty(ConfigPropertyConstants.SCANNER_NPMAUDIT_ENABLED, "true");
+        createProperty(ConfigPropertyConstants.SCANNER_NPMAUDIT_API_URL, "http://localhost:1090" + AUDIT_PATH);
+        createProperty(ConfigPropertyConstants.SCANNER_OSSINDEX_ENABLED, "false");
+        createProperty(ConfigPropertyConstants.SCANNER_VULNDB_ENABLED, "false");
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        NotificationService.getInstance().unsubscribe(SUBSCRIPTION);
+        EventService.getInstance().unsubscribe(TestMetricsSubscriber.class);
+        if (server != null) {
+            server.close();
+        }
+    }
+
+    private void createProperty(final ConfigPropertyConstants property, final String value) {
+        qm.createConfigProperty(property.getGroupName(), property.getPropertyName(), value,
+                ConfigProperty.PropertyType.valueOf(property.getPropertyType().name()), null);
+    }
+
+    /**
+     * Serves the audit results in place of the NPM Audit API.
+     */
+    private void serve(final String advisories) throws Exception {
+        final File fixtureDir = folder.newFolder();
+        final Expectation fixture = new Expectation(request().withMethod("POST").withPath(AUDIT_PATH))
+                .thenRespond(response().withStatusCode(200).withHeader("Content-Type", "application/json")
+                        .withBody("{\"advisories\":{" + advisories + "}}"));
+        Files.write(new File(fixtureDir, "npm-audit.json").toPath(), new ExpectationSerializer(new MockServerLogger())
+                .serialize(Collections.singletonList(fixture)).getBytes(StandardCharsets.UTF_8));
+        server = RecordReplayServer.replay(1090, fixtureDir, 0, 0);
+    }
+
+    private Component createComponent(final Project project, final String name, final String cpe, final String purl) throws Exception {
+        final Component component = new Component();
+        component.setName(name);
+        component.setVersion("1.0.0");
+        component.setCpe(cpe);
+        if (purl != null) {
+            component.setPurl(new PackageURL(purl));
+        }
+        final Component result = qm.createComponent(component, false);
+        qm.createDependencyIfNotExist(project, result, null, null);
+        return result;
+    }
+
+    private Vulnerability createVulnerability(final String vulnId, final Vulnerability.Source source, final VulnerableSoftware vs) {
+        final Vulnerability vulnerability = new Vulnerability();
+        vulnerability.setVulnId(vulnId);
+        vulnerability.setSource(source);
+        if (vs != null) {
+            vulnerability.setVulnerableSoftware(new ArrayList<>(Collections.singletonList(qm.persist(vs))));
+        }
+        return qm.createVulnerability(vulnerability, false);
+    }
+
+    private static void await() throws InterruptedException {
+        for (int i = 0; i < 100 && (NOTIFICATIONS.isEmpty() || METRICS_EVENTS.isEmpty()); i++) {
+            Thread.sleep(50);
+        }
+        // Allow any further notifications and events to arrive as well
+        Thread.sleep(500);
+    }
+
+    @Test
+    public void analyzeProjectTest() throws Exception {
+        final Project project = qm.createProject("Acme Application", null, "1.0", null, null, null, true, false);
+        final Component widget = createComponent(project, "widget", "cpe:2.3:a:acme:widget:1.0.0:*:*:*:*:*:*:*", null);
+        final Component leftPad = createComponent(project, "left-pad", null, "pkg:npm/left-pad@1.0.0");
+        final VulnerableSoftware vs = ModelConverter.convertCpe23UriToVulnerableSoftware("cpe:2.3:a:acme:widget:1.0.0:*:*:*:*:*:*:*");
+        vs.setVulnerable(true);
+        createVulnerability("CVE-2019-0001", Vulnerability.Source.NVD, vs);
+        createVulnerability("1", Vulnerability.Source.NPM, null);
+        serve("\"1\":{\"id\":1,\"module_name\":\"left-pad\",\"severity\":\"high\",\"findings\":[{\"version\":\"1.0.0\",\"paths\":[\"left-pad\"]}]}");
+
+        final List<Component> components = qm.detach(new ArrayList<>(Arrays.asList(widget, leftPad)));
+        new VulnerabilityAnalysisTask().inform(new VulnerabilityAnalysisEvent(components).project(project));
+        await();
+
+        // The findings of both analyzers are evaluated together, once the analysis as a whole has completed
+        Assert.assertEquals(1, NOTIFICATIONS.size());
+        final NewVulnerabilitiesIdentified subject = (NewVulnerabilitiesIdentified) NOTIFICATIONS.get(0).getSubject();
+        Assert.assertEquals(project.getUuid(), subject.getProject().getUuid());
+        Assert.assertEquals(2, subject.getFindings().size());
+        Assert.assertEquals(2, FINDING_NOTIFICATIONS.size());
+        // Metrics are updated once for the project, rather than once per analyzer
+        Assert.assertEquals(1, METRICS_EVENTS.size());
+        Assert.assertEquals(project.getUuid(), ((Project) METRICS_EVENTS.get(0).getTarget()).getUuid());
+    }
+}
@@ -0,0 +1,214 @@
+/*
+ * This file is part of Dependency-Track.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * Copyright (c) Steve Springett. All Rights Reserved.
+ */
+package org.dependencytrack.tasks.scanners;
+
+import alpine.model.ConfigProperty;
+import com.github.packageurl.PackageURL;
+import org.dependencytrack.PersistenceCapableTest;
+import org.dependencytrack.RecordReplayServer;
+import org.dependencytrack.event.NpmAuditAnalysisEvent;
+import org.dependencytrack.model.Component;
+import org.dependencytrack.model.ConfigPropertyConstants;
+import org.dependencytrack.model.Vulnerability;
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockserver.logging.MockServerLogger;
+import org.mockserver.mock.Expectation;
+import org.mockserver.model.HttpRequest;
+import org.mockserver.model.HttpResponse;
+import org.mockserver.serialization.ExpectationSerializer;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.mockserver.model.HttpRequest.request;
+import static org.mockserver.model.HttpResponse.response;
+import static org.mockserver.model.StringBody.subString;
+
+public class NpmAuditAnalysisTaskTest extends PersistenceCapableTest {
+
+    private static final String AUDIT_PATH = "/-/npm/v1/security/audits";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private RecordReplayServer server;
+
+    @Before
+    public void setUp() throws Exception {
+        qm.createConfigProperty(ConfigPropertyConstants.SCANNER_NPMAUDIT_ENABLED.getGroupName(),
+                ConfigPropertyConstants.SCANNER_NPMAUDIT_ENABLED.getPropertyName(), "true",
+                ConfigProperty.PropertyType.BOOLEAN, null);
+        qm.createConfigProperty(ConfigPropertyConstants.SCANNER_NPMAUDIT_API_URL.getGroupName(),
+                ConfigPropertyConstants.SCANNER_NPMAUDIT_API_URL.getPropertyName(), "http://localhost:1090" + AUDIT_PATH,
+                ConfigProperty.PropertyType.URL, null);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        if (server != null) {
+            server.close();
+        }
+    }
+
+    /**
+     * Serves the audit results. The first fixture matching a payload is used, so more specific fixtures go first.
+     */
+    private void serve(final Expectation... fixtures) throws Exception {
+        final File fixtureDir = folder.newFolder();
+        Files.write(new File(fixtureDir, "npm-audit.json").toPath(), new ExpectationSerializer(new MockServerLogger())
+                .serialize(Arrays.asList(fixtures)).getBytes(StandardCharsets.UTF_8));
+        server = RecordReplayServer.replay(1090, fixtureDir, 0, 0);
+    }
+
+    /**
+     * Returns a fixture responding to the payloads which require the module.
+     */
+    private static Expectation requiring(final String module, final HttpResponse response) {
+        return new Expectation(request().withMethod("POST").withPath(AUDIT_PATH)
+                .withBody(subString("\"" + module + "\""))).thenRespond(response);
+    }
+
+    private static Expectation otherwise(final HttpResponse response) {
+        return new Expectation(request().withMethod("POST").withPath(AUDIT_PATH)).thenRespond(response);
+    }
+
+    private static HttpResponse advisories(final String... advisories) {
+        return response().withStatusCode(200).withHeader("Content-Type", "application/json")
+                .withBody("{\"advisories\":{" + String.join(",", advisories) + "}}");
+    }
+
+    private static String advisory(final int id, final String module, final String... versions) {
+        final StringBuilder findings = new StringBuilder();
+        for (final String version: versions) {
+            findings.append(findings.length() > 0 ? "," : "")
+                    .append("{\"version\":\"").append(version).append("\",\"paths\":[\"").append(module).append("\"]}");
+        }
+        return "\"" + id + "\":{\"id\":" + id + ",\"module_name\":\"" + module + "\",\"severity\":\"high\",\"findings\":[" + findings + "]}";
+    }
+
+    private Vulnerability createAdvisory(final int id) {
+        final Vulnerability vulnerability = new Vulnerability();
+        vulnerability.setVulnId(String.valueOf(id));
+        vulnerability.setSource(Vulnerability.Source.NPM);
+        return qm.createVulnerability(vulnerability, false);
+    }
+
+    private Component createComponent(final String name, final String version) throws Exception {
+        final Component component = new Component();
+        component.setName(name);
+        component.setVersion(version);
+        component.setPurl(new PackageURL("pkg:npm/" + name + "@" + version));
+        return qm.createComponent(component, false);
+    }
+
+    /**
+     * Creates a component for each of the modules prefix-000 through prefix-(count - 1).
+     */
+    private List<Component> createComponents(final String prefix, final int count) throws Exception {
+        final List<Component> components = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            components.add(createComponent(String.format("%s-%03d", prefix, i), "1.0.0"));
+        }
+        return components;
+    }
+
+    /**
+     * Returns the number of modules required by each payload submitted, in ascending order.
+     */
+    private List<Integer> getPayloadSizes() {
+        final List<Integer> sizes = new ArrayList<>();
+        for (final HttpRequest request: server.getRequests()) {
+            sizes.add(new JSONObject(request.getBodyAsString()).getJSONObject("requires").length());
+        }
+        Collections.sort(sizes);
+        return sizes;
+    }
+
+    private List<Vulnerability> getVulnerabilities(final Component component) {
+        return qm.getAllVulnerabilities(qm.getObjectById(Component.class, component.getId()));
+    }
+
+    @Test
+    public void singlePayloadTest() throws Exception {
+        serve(otherwise(advisories()));
+        new NpmAuditAnalysisTask().inform(new NpmAuditAnalysisEvent(createComponents("single", 250)));
+        // A payload holds up to 250 modules
+        Assert.assertEquals(Collections.singletonList(250), getPayloadSizes());
+    }
+
+    @Test
+    public void batchBoundaryTest() throws Exception {
+        createAdvisory(1);
+        createAdvisory(2);
+        serve(requiring("batch-250", advisories(advisory(2, "batch-250", "1.0.0"))),
+                otherwise(advisories(advisory(1, "batch-000", "1.0.0"))));
+        final List<Component> components = createComponents("batch", 251);
+        new NpmAuditAnalysisTask().inform(new NpmAuditAnalysisEvent(components));
+        Assert.assertEquals(Arrays.asList(1, 250), getPayloadSizes());
+        // The advisories of each payload are joined to the components submitted in it
+        Assert.assertEquals("1", getVulnerabilities(components.get(0)).get(0).getVulnId());
+        Assert.assertEquals("2", getVulnerabilities(components.get(250)).get(0).getVulnId());
+        Assert.assertTrue(getVulnerabilities(components.get(249)).isEmpty());
+    }
+
+    @Test
+    public void multipleVersionsTest() throws Exception {
+        createAdvisory(3);
+        serve(otherwise(advisories(advisory(3, "versions", "1.0.0", "2.0.0"))));
+        final Component first = createComponent("versions", "1.0.0");
+        final Component second = createComponent("versions", "2.0.0");
+        final Component third = createComponent("versions", "3.0.0");
+        new NpmAuditAnalysisTask().inform(new NpmAuditAnalysisEvent(Arrays.asList(first, second, third)));
+        // The versions of a module are submitted together, the additional versions in synthetic slot modules
+        Assert.assertEquals(1, server.getRequests().length);
+        final JSONObject requires = new JSONObject(server.getRequests()[0].getBodyAsString()).getJSONObject("requires");
+        Assert.assertEquals("1.0.0", requires.getString("versions"));
+        Assert.assertTrue(requires.has("dependency-track-slot-1"));
+        Assert.assertTrue(requires.has("dependency-track-slot-2"));
+        Assert.assertEquals(1, getVulnerabilities(first).size());
+        Assert.assertEquals(1, getVulnerabilities(second).size());
+        Assert.assertTrue(getVulnerabilities(third).isEmpty());
+    }
+
+    @Test
+    public void failedSubmissionTest() throws Exception {
+        createAdvisory(4);
+        serve(requiring("failed-250", response().withStatusCode(500)),
+                otherwise(advisories(advisory(4, "failed-000", "1.0.0"))));
+        final List<Component> components = createComponents("failed", 251);
+        final NpmAuditAnalysisTask task = new NpmAuditAnalysisTask();
+        task.inform(new NpmAuditAnalysisEvent(components));
+        Assert.assertEquals(2, server.getRequests().length);
+        // The results of the other payload are still processed
+        Assert.assertEquals(1, getVulnerabilities(components.get(0)).size());
+        // Only the components of the successful payload are considered analyzed
+        Assert.assertFalse(new NpmAuditAnalysisTask().shouldAnalyze(components.get(0).getPurl()));
+        Assert.assertTrue(new NpmAuditAnalysisTask().shouldAnalyze(components.get(250).getPurl()));
+    }
+}
@@ -0,0 +1,201 @@
+/*
+ * This file is part of Dependency-Track.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * Copyright (c) Steve Springett. All Rights Reserved.
+ */
+package org.dependencytrack.tasks.scanners;
+
+import alpine.crypto.DataEncryption;
+import alpine.model.ConfigProperty;
+import org.dependencytrack.PersistenceCapableTest;
+import org.dependencytrack.event.VulnDbAnalysisEvent;
+import org.dependencytrack.model.Component;
+import org.dependencytrack.model.ConfigPropertyConstants;
+import org.dependencytrack.model.Vulnerability;
+import org.dependencytrack.persistence.QueryManager;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import us.springett.vulndbdatamirror.parser.VulnDbParser;
+import us.springett.vulndbdatamirror.parser.model.Results;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BiFunction;
+
+public class VulnDbAnalysisTaskTest extends PersistenceCapableTest {
+
+    /**
+     * Answers the queries of the analysis in place of the VulnDB API and records when each was made.
+     */
+    private static final class TestVulnDbAnalysisTask extends VulnDbAnalysisTask {
+
+        private final BiFunction<String, Integer, Results> api;
+        private final List<String> requests = new CopyOnWriteArrayList<>();
+        private final List<Long> requestTimes = new CopyOnWriteArrayList<>();
+
+        private TestVulnDbAnalysisTask(final BiFunction<String, Integer, Results> api) {
+            this.api = api;
+        }
+
+        @Override
+        Results getVulnerabilitiesByCpe(final String cpe, final int page) {
+            requests.add(cpe + "#" + page);
+            requestTimes.add(System.currentTimeMillis());
+            return api.apply(cpe, page);
+        }
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        createProperty(ConfigPropertyConstants.SCANNER_VULNDB_ENABLED, "true");
+        createProperty(ConfigPropertyConstants.SCANNER_VULNDB_OAUTH1_CONSUMER_KEY, "key");
+        createProperty(ConfigPropertyConstants.SCANNER_VULNDB_OAUTH1_CONSUMER_SECRET, DataEncryption.encryptAsString("secret"));
+        createProperty(ConfigPropertyConstants.SCANNER_VULNDB_RATE_LIMIT, "6000");
+    }
+
+    private void createProperty(final ConfigPropertyConstants property, final String value) {
+        qm.createConfigProperty(property.getGroupName(), property.getPropertyName(), value,
+                ConfigProperty.PropertyType.valueOf(property.getPropertyType().name()), null);
+    }
+
+    private Component createComponent(final String cpe) {
+        final Component component = new Component();
+        component.setName(cpe);
+        component.setCpe(cpe);
+        return qm.createComponent(component, false);
+    }
+
+    /**
+     * Returns a page of results, as parsed from a response of the VulnDB API.
+     */
+    private static Results page(final int page, final int total, final int... ids) {
+        final StringBuilder results = new StringBuilder();
+        for (final int id: ids) {
+            results.append(results.length() > 0 ? "," : "").append("{\"vulndb_id\":").append(id)
+                    .append(",\"title\":\"Vulnerability ").append(id).append("\"}");
+        }
+        return new VulnDbParser().parse("{\"current_page\":" + page + ",\"total_entries\":" + total
+                + ",\"results\":[" + results + "]}", us.springett.vulndbdatamirror.parser.model.Vulnerability.class);
+    }
+
+    private static Results failure() {
+        final Results results = new Results();
+        results.setErrorCondition("An unexpected response was returned from VulnDB. Request unsuccessful: 500");
+        return results;
+    }
+
+    private List<Vulnerability> getVulnerabilities(final Component component) {
+        return qm.getAllVulnerabilities(qm.getObjectById(Component.class, component.getId()));
+    }
+
+    @Test
+    public void analyzeTest() throws Exception {
+        final String cpe = "cpe:2.3:a:acme:paged:1.0:*:*:*:*:*:*:*";
+        final Component first = createComponent(cpe);
+        final Component second = createComponent(cpe);
+        // 150 results are returned in pages of 100
+        final TestVulnDbAnalysisTask task = new TestVulnDbAnalysisTask((c, page) -> page == 1 ? page(1, 150, 1, 2) : page(2, 150, 3));
+        task.inform(new VulnDbAnalysisEvent(Arrays.asList(first, second)));
+        // Components sharing a CPE are queried once
+        Assert.assertEquals(Arrays.asList(cpe + "#1", cpe + "#2"), task.requests);
+        Assert.assertEquals(3, getVulnerabilities(first).size());
+        Assert.assertEquals(3, getVulnerabilities(second).size());
+        Assert.assertEquals("Vulnerability 3", qm.getVulnerabilityByVulnId(Vulnerability.Source.VULNDB, "3").getTitle());
+    }
+
+    @Test
+    public void existingVulnerabilityTest() throws Exception {
+        final Vulnerability existing = new Vulnerability();
+        existing.setVulnId("1");
+        existing.setSource(Vulnerability.Source.VULNDB);
+        existing.setTitle("Outdated");
+        qm.createVulnerability(existing, false);
+        final Component component = createComponent("cpe:2.3:a:acme:existing:1.0:*:*:*:*:*:*:*");
+        final TestVulnDbAnalysisTask task = new TestVulnDbAnalysisTask((c, page) -> page(1, 2, 1, 2));
+        task.inform(new VulnDbAnalysisEvent(Collections.singletonList(component)));
+        // The existing vulnerability is updated rather than created once more
+        Assert.assertEquals(2, qm.getVulnerabilities().getTotal());
+        Assert.assertEquals(2, getVulnerabilities(component).size());
+        // Read through another QueryManager, as the one of the test still holds the outdated object
+        try (QueryManager other = new QueryManager()) {
+            Assert.assertEquals("Vulnerability 1", other.getVulnerabilityByVulnId(Vulnerability.Source.VULNDB, "1").getTitle());
+        }
+    }
+
+    @Test
+    public void rateLimitTest() throws Exception {
+        final ConfigProperty rateLimit = qm.getConfigProperty(ConfigPropertyConstants.SCANNER_VULNDB_RATE_LIMIT.getGroupName(),
+                ConfigPropertyConstants.SCANNER_VULNDB_RATE_LIMIT.getPropertyName());
+        rateLimit.setPropertyValue("300");
+        qm.persist(rateLimit);
+        final List<Component> components = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            components.add(createComponent("cpe:2.3:a:acme:limited-" + i + ":1.0:*:*:*:*:*:*:*"));
+        }
+        final TestVulnDbAnalysisTask task = new TestVulnDbAnalysisTask((c, page) -> page(1, 0));
+        task.inform(new VulnDbAnalysisEvent(components));
+        Assert.assertEquals(5, task.requests.size());
+        // 300 requests per minute are started at least 200 ms apart, even when querying concurrently
+        final List<Long> times = new ArrayList<>(task.requestTimes);
+        Collections.sort(times);
+        for (int i = 1; i < times.size(); i++) {
+            Assert.assertTrue("Requests were " + (times.get(i) - times.get(i - 1)) + " ms apart",
+                    times.get(i) - times.get(i - 1) >= 180);
+        }
+    }
+
+    @Test
+    public void failedRequestTest() throws Exception {
+        createProperty(ConfigPropertyConstants.SCANNER_VULNDB_CONCURRENCY, "1");
+        final Component failed = createComponent("cpe:2.3:a:acme:failed:1.0:*:*:*:*:*:*:*");
+        final Component skipped = createComponent("cpe:2.3:a:acme:skipped:1.0:*:*:*:*:*:*:*");
+        final Map<String, Results> responses = new ConcurrentHashMap<>();
+        responses.put(failed.getCpe(), failure());
+        responses.put(skipped.getCpe(), page(1, 1, 10));
+        TestVulnDbAnalysisTask task = new TestVulnDbAnalysisTask((c, page) -> responses.get(c));
+        task.inform(new VulnDbAnalysisEvent(Arrays.asList(failed, skipped)));
+        // The remaining CPEs are not queried once a request failed
+        Assert.assertEquals(Collections.singletonList(failed.getCpe() + "#1"), task.requests);
+        Assert.assertTrue(getVulnerabilities(skipped).isEmpty());
+
+        // Neither CPE was recorded as analyzed, so both are queried again
+        responses.put(failed.getCpe(), page(1, 1, 11));
+        task = new TestVulnDbAnalysisTask((c, page) -> responses.get(c));
+        task.inform(new VulnDbAnalysisEvent(Arrays.asList(failed, skipped)));
+        Assert.assertEquals(Arrays.asList(failed.getCpe() + "#1", skipped.getCpe() + "#1"), task.requests);
+        Assert.assertEquals(1, getVulnerabilities(failed).size());
+        Assert.assertEquals(1, getVulnerabilities(skipped).size());
+    }
+
+    @Test
+    public void requestErrorTest() throws Exception {
+        createProperty(ConfigPropertyConstants.SCANNER_VULNDB_CONCURRENCY, "1");
+        final Component error = createComponent("cpe:2.3:a:acme:error:1.0:*:*:*:*:*:*:*");
+        final Component skipped = createComponent("cpe:2.3:a:acme:not-queried:1.0:*:*:*:*:*:*:*");
+        final TestVulnDbAnalysisTask task = new TestVulnDbAnalysisTask((c, page) -> {
+            throw new IllegalStateException("Connection reset");
+        });
+        task.inform(new VulnDbAnalysisEvent(Arrays.asList(error, skipped)));
+        // An error is handled the same way as an unsuccessful response
+        Assert.assertEquals(Collections.singletonList(error.getCpe() + "#1"), task.requests);
+        Assert.assertTrue(getVulnerabilities(error).isEmpty());
+    }
+}
@@ -0,0 +1,172 @@
+/*
+ * This file is part of Dependency-Track.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * Copyright (c) Steve Springett. All Rights Reserved.
+ */
+package org.dependencytrack.util;
+
+import alpine.notification.Notification;
+import alpine.notification.NotificationService;
+import alpine.notification.Subscriber;
+import alpine.notification.Subscription;
+import org.dependencytrack.PersistenceCapableTest;
+import org.dependencytrack.model.Component;
+import org.dependencytrack.model.Project;
+import org.dependencytrack.model.Vulnerability;
+import org.dependencytrack.notification.NotificationConstants;
+import org.dependencytrack.notification.NotificationGroup;
+import org.dependencytrack.notification.vo.NewVulnerabilitiesIdentified;
+import org.dependencytrack.notification.vo.NewVulnerabilityIdentified;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+public class NotificationUtilTest extends PersistenceCapableTest {
+
+    private static final List<Notification> NOTIFICATIONS = new CopyOnWriteArrayList<>();
+    private static final List<Notification> FINDING_NOTIFICATIONS = new CopyOnWriteArrayList<>();
+    private static final Subscription SUBSCRIPTION = new Subscription(TestSubscriber.class);
+
+    public static class TestSubscriber implements Subscriber {
+        @Override
+        public void inform(final Notification notification) {
+            if (NotificationGroup.NEW_VULNERABILITIES.name().equals(notification.getGroup())) {
+                NOTIFICATIONS.add(notification);
+            } else if (NotificationGroup.NEW_VULNERABILITY.name().equals(notification.getGroup())) {
+                FINDING_NOTIFICATIONS.add(notification);
+            }
+        }
+    }
+
+    @Before
+    public void setUp() {
+        NOTIFICATIONS.clear();
+        FINDING_NOTIFICATIONS.clear();
+        NotificationService.getInstance().subscribe(SUBSCRIPTION);
+    }
+
+    @After
+    public void tearDown() {
+        NotificationService.getInstance().unsubscribe(SUBSCRIPTION);
+    }
+
+    private Component createComponent(final String name) {
+        final Component component = new Component();
+        component.setName(name);
+        component.setVersion("1.0");
+        return qm.createComponent(component, false);
+    }
+
+    private Vulnerability createVulnerability(final String vulnId) {
+        final Vulnerability vulnerability = new Vulnerability();
+        vulnerability.setVulnId(vulnId);
+        vulnerability.setSource(Vulnerability.Source.INTERNAL);
+        return qm.createVulnerability(vulnerability, false);
+    }
+
+    private static Set<Long> ids(final Vulnerability... vulnerabilities) {
+        final Set<Long> ids = new HashSet<>();
+        for (final Vulnerability vulnerability: vulnerabilities) {
+            ids.add(vulnerability.getId());
+        }
+        return ids;
+    }
+
+    private static void awaitNotifications(final int count, final int findingCount) throws InterruptedException {
+        for (int i = 0; i < 100 && (NOTIFICATIONS.size() < count || FINDING_NOTIFICATIONS.size() < findingCount); i++) {
+            Thread.sleep(50);
+        }
+        // Allow any unexpected notifications to arrive as well
+        Thread.sleep(250);
+    }
+
+    private static NewVulnerabilitiesIdentified getSubject(final Project project) {
+        for (final Notification notification: NOTIFICATIONS) {
+            final NewVulnerabilitiesIdentified subject = (NewVulnerabilitiesIdentified) notification.getSubject();
+            if (project == null ? subject.getProject() == null
+                    : subject.getProject() != null && project.getUuid().equals(subject.getProject().getUuid())) {
+                return subject;
+            }
+        }
+        return null;
+    }
+
+    @Test
+    public void newFindingsGroupedByProjectTest() throws Exception {
+        final Project acme = qm.createProject("Acme Application", null, "1.0", null, null, null, true, false);
+        final Project widget = qm.createProject("Widget Application", null, "2.0", null, null, null, true, false);
+        final Component shared = createComponent("shared");
+        final Component library = createComponent("library");
+        final Component orphan = createComponent("orphan");
+        qm.createDependencyIfNotExist(acme, shared, null, null);
+        qm.createDependencyIfNotExist(widget, shared, null, null);
+        qm.createDependencyIfNotExist(acme, library, null, null);
+        final Vulnerability first = createVulnerability("INT-1");
+        final Vulnerability second = createVulnerability("INT-2");
+
+        final Map<Long, Set<Long>> newFindings = new HashMap<>();
+        newFindings.put(shared.getId(), ids(first));
+        newFindings.put(library.getId(), ids(first, second));
+        newFindings.put(orphan.getId(), ids(second));
+        NotificationUtil.analyzeNotificationCriteria(qm, newFindings);
+        awaitNotifications(3, 4);
+
+        // One notification per affected project, and one for the components without a project
+        Assert.assertEquals(3, NOTIFICATIONS.size());
+        final NewVulnerabilitiesIdentified acmeFindings = getSubject(acme);
+        Assert.assertNotNull(acmeFindings);
+        Assert.assertEquals(3, acmeFindings.getFindings().size());
+        final NewVulnerabilitiesIdentified widgetFindings = getSubject(widget);
+        Assert.assertNotNull(widgetFindings);
+        Assert.assertEquals(1, widgetFindings.getFindings().size());
+        final NewVulnerabilityIdentified finding = widgetFindings.getFindings().get(0);
+        Assert.assertEquals("shared", finding.getComponent().getName());
+        Assert.assertEquals("INT-1", finding.getVulnerability().getVulnId());
+        Assert.assertEquals(2, finding.getAffectedProjects().size());
+        final NewVulnerabilitiesIdentified orphanFindings = getSubject(null);
+        Assert.assertNotNull(orphanFindings);
+        Assert.assertEquals(1, orphanFindings.getFindings().size());
+        Assert.assertEquals("orphan", orphanFindings.getFindings().get(0).getComponent().getName());
+        for (final Notification notification: NOTIFICATIONS) {
+            final int size = ((NewVulnerabilitiesIdentified) notification.getSubject()).getFindings().size();
+            Assert.assertEquals(size == 1 ? NotificationConstants.Title.NEW_VULNERABILITY
+                    : NotificationConstants.Title.NEW_VULNERABILITIES, notification.getTitle());
+        }
+
+        // The existing notification per finding is dispatched as well, with its own subject
+        Assert.assertEquals(4, FINDING_NOTIFICATIONS.size());
+        for (final Notification notification: FINDING_NOTIFICATIONS) {
+            Assert.assertEquals(NotificationConstants.Title.NEW_VULNERABILITY, notification.getTitle());
+            Assert.assertTrue(notification.getSubject() instanceof NewVulnerabilityIdentified);
+        }
+    }
+
+    @Test
+    public void noNewFindingsTest() throws Exception {
+        NotificationUtil.analyzeNotificationCriteria(qm, Collections.emptyMap());
+        awaitNotifications(1, 1);
+        Assert.assertTrue(NOTIFICATIONS.isEmpty());
+        Assert.assertTrue(FINDING_NOTIFICATIONS.isEmpty());
+    }
+}